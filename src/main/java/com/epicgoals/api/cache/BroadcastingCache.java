@@ -0,0 +1,107 @@
+// ABOUT_ME: Cache decorator that forwards evictions and clears to the other API instances
+// ABOUT_ME: Reads and writes stay local; keys are stored by their string form so evictions received by other instances match
+package com.epicgoals.api.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.Callable;
+
+public class BroadcastingCache implements Cache {
+
+    private final Cache local;
+    private final CacheInvalidationBus bus;
+
+    public BroadcastingCache(Cache local, CacheInvalidationBus bus) {
+        this.local = local;
+        this.bus = bus;
+    }
+
+    @Override
+    public String getName() {
+        return local.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return local.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return local.get(keyOf(key));
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        return local.get(keyOf(key), type);
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        return local.get(keyOf(key), valueLoader);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        local.put(keyOf(key), value);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        return local.putIfAbsent(keyOf(key), value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        String cacheKey = keyOf(key);
+        local.evict(cacheKey);
+        afterCommit(cacheKey, () -> local.evict(cacheKey));
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        String cacheKey = keyOf(key);
+        boolean evicted = local.evictIfPresent(cacheKey);
+        // Other instances may hold the key even when this one does not
+        afterCommit(cacheKey, () -> local.evict(cacheKey));
+        return evicted;
+    }
+
+    @Override
+    public void clear() {
+        local.clear();
+        afterCommit(CacheInvalidationBus.ALL_KEYS, local::clear);
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean invalidated = local.invalidate();
+        afterCommit(CacheInvalidationBus.ALL_KEYS, local::clear);
+        return invalidated;
+    }
+
+    /**
+     * Evicts here once more when the surrounding transaction commits, since a read on this instance in
+     * between may have loaded the value the transaction replaces, and only then tells the other instances,
+     * so they never reload it before the write is visible. Without a transaction both happen right away.
+     */
+    private void afterCommit(String key, Runnable localEviction) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bus.broadcastEviction(getName(), key);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                localEviction.run();
+                bus.broadcastEviction(getName(), key);
+            }
+        });
+    }
+
+    private static String keyOf(Object key) {
+        return String.valueOf(key);
+    }
+}
@@ -0,0 +1,33 @@
+// ABOUT_ME: CacheManager whose caches broadcast their evictions to the other API instances
+// ABOUT_ME: Wraps the bus's local caches, which remote evictions are applied to directly so they are not echoed back
+package com.epicgoals.api.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class BroadcastingCacheManager implements CacheManager {
+
+    private final CacheInvalidationBus bus;
+    private final ConcurrentHashMap<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public BroadcastingCacheManager(CacheInvalidationBus bus) {
+        this.bus = bus;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache local = bus.localCaches().getCache(name);
+        if (local == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, cacheName -> new BroadcastingCache(local, bus));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return bus.localCaches().getCacheNames();
+    }
+}
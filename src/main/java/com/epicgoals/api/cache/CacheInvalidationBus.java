@@ -0,0 +1,149 @@
+// ABOUT_ME: Batches cache evictions made on this instance and applies the ones received from other instances
+// ABOUT_ME: Evictions are queued at commit, collapsed per cache and key, and sent in as few messages as the transport allows
+package com.epicgoals.api.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+public class CacheInvalidationBus implements CacheInvalidationTransport.Listener {
+
+    // Key standing for every entry of a cache
+    public static final String ALL_KEYS = "*";
+
+    // PostgreSQL rejects NOTIFY payloads of 8000 bytes or more
+    static final int MAX_PAYLOAD_CHARS = 7000;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final CacheManager localCaches;
+    private final CacheInvalidationTransport transport;
+    // Cache name -> keys evicted here since the last flush
+    private final ConcurrentHashMap<String, Set<String>> pending = new ConcurrentHashMap<>();
+    // Names of in-memory state other than caches that follows the same evictions, e.g. data versions
+    private final ConcurrentHashMap<String, Consumer<String>> remoteHandlers = new ConcurrentHashMap<>();
+
+    public CacheInvalidationBus(CacheManager localCaches, CacheInvalidationTransport transport) {
+        this.localCaches = localCaches;
+        this.transport = transport;
+        transport.subscribe(this);
+    }
+
+    CacheManager localCaches() {
+        return localCaches;
+    }
+
+    /**
+     * Queues the eviction for the other instances' next flush. Callers inside a transaction call this once it
+     * has committed, so the other instances never reload the value before the write is visible.
+     */
+    public void broadcastEviction(String cacheName, String key) {
+        pending.computeIfAbsent(cacheName, name -> ConcurrentHashMap.newKeySet()).add(key);
+    }
+
+    /**
+     * Sends one message to the handlers the other instances registered for the name, right away rather
+     * than with the next flush, so messages from one thread arrive in the order they were sent. The
+     * message must be a single line. Returns false, sending nothing, when it exceeds the payload limit.
+     */
+    public boolean broadcast(String name, String message) {
+        String payload = header(name) + '\n' + message;
+        if (payload.length() > MAX_PAYLOAD_CHARS) {
+            return false;
+        }
+        transport.publish(payload);
+        return true;
+    }
+
+    /**
+     * Routes evictions and messages received for the given name to the handler instead of a local cache.
+     * The handler receives {@link #ALL_KEYS} when everything must be dropped or messages were missed.
+     */
+    public void onRemoteEviction(String name, Consumer<String> handler) {
+        remoteHandlers.put(name, handler);
+    }
+
+    /**
+     * Sends everything queued since the last flush: one message per cache, split only when a burst
+     * of keys would exceed the payload limit. Returns the number of messages sent.
+     */
+    public int flush() {
+        int messages = 0;
+        for (String cacheName : pending.keySet()) {
+            Set<String> keys = pending.remove(cacheName);
+            if (keys == null || keys.isEmpty()) {
+                continue;
+            }
+            if (keys.contains(ALL_KEYS)) {
+                transport.publish(header(cacheName) + '\n' + ALL_KEYS);
+                messages++;
+                continue;
+            }
+            StringBuilder message = new StringBuilder(header(cacheName));
+            int headerLength = message.length();
+            for (String key : keys) {
+                if (message.length() > headerLength && message.length() + key.length() + 1 > MAX_PAYLOAD_CHARS) {
+                    transport.publish(message.toString());
+                    messages++;
+                    message.setLength(headerLength);
+                }
+                message.append('\n').append(key);
+            }
+            transport.publish(message.toString());
+            messages++;
+        }
+        return messages;
+    }
+
+    public void poll() {
+        transport.poll();
+    }
+
+    public int evictExpired() {
+        int evicted = 0;
+        for (String cacheName : localCaches.getCacheNames()) {
+            if (localCaches.getCache(cacheName) instanceof ExpiringConcurrentMapCache cache) {
+                evicted += cache.evictExpired();
+            }
+        }
+        return evicted;
+    }
+
+    @Override
+    public void onMessage(String payload) {
+        String[] lines = payload.split("\n");
+        if (lines.length < 3 || lines[0].equals(nodeId)) {
+            return;
+        }
+        String name = lines[1];
+        Consumer<String> handler = remoteHandlers.get(name);
+        Cache cache = handler == null ? localCaches.getCache(name) : null;
+        for (int i = 2; i < lines.length; i++) {
+            if (handler != null) {
+                handler.accept(lines[i]);
+            } else if (cache != null && ALL_KEYS.equals(lines[i])) {
+                cache.clear();
+            } else if (cache != null) {
+                cache.evict(lines[i]);
+            }
+        }
+    }
+
+    @Override
+    public void onMissedMessages() {
+        for (String cacheName : localCaches.getCacheNames()) {
+            Cache cache = localCaches.getCache(cacheName);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+        remoteHandlers.values().forEach(handler -> handler.accept(ALL_KEYS));
+    }
+
+    private String header(String cacheName) {
+        return nodeId + '\n' + cacheName;
+    }
+}
@@ -0,0 +1,29 @@
+// ABOUT_ME: Channel that carries cache invalidation messages between API instances
+// ABOUT_ME: Implemented over PostgreSQL LISTEN/NOTIFY in production and in-process for single-node runs and tests
+package com.epicgoals.api.cache;
+
+public interface CacheInvalidationTransport {
+
+    /**
+     * Sends the payload to every subscribed instance. Delivery back to the sending instance is
+     * allowed; receivers ignore their own messages.
+     */
+    void publish(String payload);
+
+    void subscribe(Listener listener);
+
+    /**
+     * Delivers messages that arrived since the last call. Push-based transports deliver on publish
+     * and have nothing to do here.
+     */
+    default void poll() {
+    }
+
+    interface Listener {
+
+        void onMessage(String payload);
+
+        // Messages may have been lost, e.g. while reconnecting, so nothing cached locally can be trusted
+        void onMissedMessages();
+    }
+}
@@ -0,0 +1,65 @@
+// ABOUT_ME: In-memory cache whose entries expire a fixed time after they were written
+// ABOUT_ME: Bounds how long a value can stay stale if a cross-instance invalidation message is ever lost
+package com.epicgoals.api.cache;
+
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+public class ExpiringConcurrentMapCache extends ConcurrentMapCache {
+
+    private final long ttlMillis;
+
+    public ExpiringConcurrentMapCache(String name, Duration ttl, boolean allowNullValues) {
+        super(name, allowNullValues);
+        this.ttlMillis = ttl.toMillis();
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        Object stored = super.lookup(key);
+        if (stored instanceof Expiring entry && entry.isExpired(System.currentTimeMillis())) {
+            getNativeCache().remove(key, stored);
+            return null;
+        }
+        return stored;
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        // Drops an expired entry first so the loader runs instead of the stale value being returned
+        lookup(key);
+        return super.get(key, valueLoader);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        lookup(key);
+        return super.putIfAbsent(key, value);
+    }
+
+    public int evictExpired() {
+        long now = System.currentTimeMillis();
+        int before = getNativeCache().size();
+        getNativeCache().values().removeIf(stored -> stored instanceof Expiring entry && entry.isExpired(now));
+        return before - getNativeCache().size();
+    }
+
+    @Override
+    protected Object toStoreValue(Object userValue) {
+        return new Expiring(super.toStoreValue(userValue), System.currentTimeMillis() + ttlMillis);
+    }
+
+    @Override
+    protected Object fromStoreValue(Object storeValue) {
+        return super.fromStoreValue(storeValue instanceof Expiring entry ? entry.value() : storeValue);
+    }
+
+    private record Expiring(Object value, long expiresAt) {
+
+        boolean isExpired(long now) {
+            return expiresAt <= now;
+        }
+    }
+}
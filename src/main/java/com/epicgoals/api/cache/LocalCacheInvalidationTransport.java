@@ -0,0 +1,23 @@
+// ABOUT_ME: In-process cache invalidation transport that hands every message straight to its subscribers
+// ABOUT_ME: Used for single-instance runs and tests, where several buses can share one instance to stand in for a cluster
+package com.epicgoals.api.cache;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class LocalCacheInvalidationTransport implements CacheInvalidationTransport {
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(String payload) {
+        for (Listener listener : listeners) {
+            listener.onMessage(payload);
+        }
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+        listeners.add(listener);
+    }
+}
@@ -0,0 +1,112 @@
+// ABOUT_ME: Cache invalidation transport over PostgreSQL LISTEN/NOTIFY on one dedicated connection outside the pool
+// ABOUT_ME: Notifications are polled without blocking; after a reconnect subscribers are told messages may have been missed
+package com.epicgoals.api.cache;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class PostgresCacheInvalidationTransport implements CacheInvalidationTransport, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(PostgresCacheInvalidationTransport.class);
+
+    static final String CHANNEL = "cache_invalidation";
+    // Upper bound for waiting on the socket in one poll, so an idle channel never holds up the caller
+    private static final int POLL_WAIT_MILLIS = 10;
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    // Guarded by this; opened lazily and reopened after any failure
+    private Connection connection;
+    private boolean connectedBefore;
+
+    public PostgresCacheInvalidationTransport(String url, String username, String password) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+    }
+
+    @Override
+    public synchronized void publish(String payload) {
+        try (PreparedStatement notify = connection().prepareStatement("SELECT pg_notify(?, ?)")) {
+            notify.setString(1, CHANNEL);
+            notify.setString(2, payload);
+            notify.execute();
+        } catch (SQLException ex) {
+            // Other instances fall back to the cache TTL for these keys
+            log.warn("Could not publish cache invalidation: {}", ex.getMessage());
+            disconnect();
+        }
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public synchronized void poll() {
+        PGNotification[] notifications;
+        try {
+            notifications = connection().unwrap(PGConnection.class).getNotifications(POLL_WAIT_MILLIS);
+        } catch (SQLException ex) {
+            log.warn("Lost cache invalidation channel, reconnecting on next poll: {}", ex.getMessage());
+            disconnect();
+            return;
+        }
+        if (notifications == null) {
+            return;
+        }
+        for (PGNotification notification : notifications) {
+            for (Listener listener : listeners) {
+                listener.onMessage(notification.getParameter());
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        disconnect();
+    }
+
+    private Connection connection() throws SQLException {
+        if (connection != null && !connection.isClosed()) {
+            return connection;
+        }
+        connection = DriverManager.getConnection(url, username, password);
+        connection.setAutoCommit(true);
+        try (Statement listen = connection.createStatement()) {
+            listen.execute("LISTEN " + CHANNEL);
+        }
+        // Nothing is cached before the first connection; after a reconnect anything may have been missed
+        if (connectedBefore) {
+            listeners.forEach(Listener::onMissedMessages);
+        }
+        connectedBefore = true;
+        return connection;
+    }
+
+    private void disconnect() {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException ex) {
+            log.debug("Closing cache invalidation connection failed: {}", ex.getMessage());
+        }
+        connection = null;
+    }
+}
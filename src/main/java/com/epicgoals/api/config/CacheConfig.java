@@ -1,21 +1,58 @@
 // ABOUT_ME: This file configures caching for the application to improve performance
-// ABOUT_ME: Sets up cache managers and cache configurations for score calculations
+// ABOUT_ME: Sets up expiring in-memory caches whose evictions are broadcast to the other API instances
 package com.epicgoals.api.config;
 
+import com.epicgoals.api.cache.BroadcastingCacheManager;
+import com.epicgoals.api.cache.CacheInvalidationBus;
+import com.epicgoals.api.cache.CacheInvalidationTransport;
+import com.epicgoals.api.cache.ExpiringConcurrentMapCache;
+import com.epicgoals.api.cache.LocalCacheInvalidationTransport;
+import com.epicgoals.api.cache.PostgresCacheInvalidationTransport;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Configuration
 @EnableCaching
 public class CacheConfig {
 
     @Bean
-    public CacheManager cacheManager() {
-        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager();
-        cacheManager.setAllowNullValues(false);
-        return cacheManager;
+    @ConditionalOnProperty(name = "app.cache.invalidation.transport", havingValue = "postgres")
+    public PostgresCacheInvalidationTransport postgresCacheInvalidationTransport(DataSourceProperties properties) {
+        return new PostgresCacheInvalidationTransport(properties.determineUrl(), properties.determineUsername(),
+                properties.determinePassword());
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.cache.invalidation.transport", havingValue = "local", matchIfMissing = true)
+    public LocalCacheInvalidationTransport localCacheInvalidationTransport() {
+        return new LocalCacheInvalidationTransport();
+    }
+
+    @Bean
+    public CacheInvalidationBus cacheInvalidationBus(CacheInvalidationTransport transport,
+                                                     @Value("${app.cache.ttl-seconds:60}") long ttlSeconds) {
+        Duration ttl = Duration.ofSeconds(ttlSeconds);
+        ConcurrentMapCacheManager localCaches = new ConcurrentMapCacheManager() {
+            @Override
+            protected Cache createConcurrentMapCache(String name) {
+                return new ExpiringConcurrentMapCache(name, ttl, isAllowNullValues());
+            }
+        };
+        localCaches.setAllowNullValues(false);
+        return new CacheInvalidationBus(localCaches, transport);
+    }
+
+    @Bean
+    public CacheManager cacheManager(CacheInvalidationBus cacheInvalidationBus) {
+        return new BroadcastingCacheManager(cacheInvalidationBus);
     }
-}
\ No newline at end of file
+}
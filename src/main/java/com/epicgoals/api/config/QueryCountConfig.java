@@ -0,0 +1,18 @@
+// ABOUT_ME: Registers the statement-counting inspector with Hibernate
+// ABOUT_ME: Enables per-request and per-test SQL statement budgets without a datasource proxy
+package com.epicgoals.api.config;
+
+import com.epicgoals.api.monitoring.QueryCountInspector;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class QueryCountConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer queryCountCustomizer() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new QueryCountInspector());
+    }
+}
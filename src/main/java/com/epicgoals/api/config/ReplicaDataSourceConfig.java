@@ -0,0 +1,75 @@
+// ABOUT_ME: Wires a primary and a read replica pool behind one routing DataSource when app.datasource.replica.url is set
+// ABOUT_ME: Without a replica URL this configuration is skipped and Spring Boot's single auto-configured pool is used
+package com.epicgoals.api.config;
+
+import com.epicgoals.api.cache.CacheInvalidationBus;
+import com.epicgoals.api.datasource.ReadYourWritesRegistry;
+import com.epicgoals.api.datasource.ReplicaHealth;
+import com.epicgoals.api.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replica.url")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties properties,
+                                              @Value("${app.datasource.replica.url}") String url,
+                                              @Value("${app.datasource.replica.username:${spring.datasource.username}}") String username,
+                                              @Value("${app.datasource.replica.password:${spring.datasource.password}}") String password) {
+        HikariDataSource replica = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        replica.setPoolName("replica");
+        replica.setReadOnly(true);
+        return replica;
+    }
+
+    @Bean
+    public ReplicaHealth replicaHealth(@Qualifier("replicaDataSource") DataSource replica,
+                                       @Value("${app.datasource.replica.max-staleness-ms:5000}") long maxStalenessMillis) {
+        return new ReplicaHealth(replica, Duration.ofMillis(maxStalenessMillis));
+    }
+
+    @Bean
+    public ReadYourWritesRegistry readYourWritesRegistry(
+            @Value("${app.datasource.replica.read-your-writes-ms:10000}") long windowMillis,
+            CacheInvalidationBus cacheInvalidationBus) {
+        return new ReadYourWritesRegistry(Duration.ofMillis(windowMillis), cacheInvalidationBus);
+    }
+
+    // The lazy proxy defers fetching a connection until the first statement, when the transaction's read-only flag is set
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica,
+                                 ReplicaHealth replicaHealth,
+                                 ReadYourWritesRegistry readYourWritesRegistry) {
+        return new LazyConnectionDataSourceProxy(
+                new ReplicaRoutingDataSource(primary, replica, replicaHealth, readYourWritesRegistry));
+    }
+}
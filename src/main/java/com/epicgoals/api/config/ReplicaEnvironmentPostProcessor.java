@@ -0,0 +1,32 @@
+// ABOUT_ME: Adjusts JPA connection handling when a read replica is configured, before any bean is created
+// ABOUT_ME: Each transaction must fetch and return its own connection so routing by read-only flag holds per transaction
+package com.epicgoals.api.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Map;
+
+public class ReplicaEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+    static final String PROPERTY_SOURCE = "replicaConnectionHandling";
+
+    /**
+     * Open-in-view and Hibernate's default hold mode keep the first connection of a request until it ends, so
+     * a write after a read-only call would run on the read-only replica connection. Added with the lowest
+     * precedence, so explicit settings still win.
+     */
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        String replicaUrl = environment.getProperty("app.datasource.replica.url");
+        if (replicaUrl == null || replicaUrl.isBlank()) {
+            return;
+        }
+        environment.getPropertySources().addLast(new MapPropertySource(PROPERTY_SOURCE, Map.of(
+                "spring.jpa.open-in-view", "false",
+                "spring.jpa.properties.hibernate.connection.handling_mode",
+                "DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION")));
+    }
+}
@@ -0,0 +1,13 @@
+// ABOUT_ME: Enables Spring's scheduled task support for background maintenance jobs
+// ABOUT_ME: Can be switched off with app.scheduling.enabled=false (e.g. in tests) so jobs only run when invoked
+package com.epicgoals.api.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "app.scheduling.enabled", havingValue = "true", matchIfMissing = true)
+public class SchedulingConfig {
+}
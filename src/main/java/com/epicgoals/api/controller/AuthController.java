@@ -1,13 +1,16 @@
 // ABOUT_ME: REST controller for user authentication endpoints
-// ABOUT_ME: Handles registration, login, token refresh, and logout operations
+// ABOUT_ME: Handles registration, login, token refresh, and per-session or everywhere logout
 package com.epicgoals.api.controller;
 
 import com.epicgoals.api.dto.AuthResponse;
 import com.epicgoals.api.dto.LoginRequest;
 import com.epicgoals.api.dto.RegisterRequest;
+import com.epicgoals.api.entity.User;
 import com.epicgoals.api.service.AuthService;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
@@ -46,10 +49,21 @@ public class AuthController {
     }
     
     @PostMapping("/logout")
-    public ResponseEntity<Map<String, String>> logout() {
-        // Since we're using stateless JWT tokens, logout is handled client-side
-        // by removing tokens from storage. This endpoint exists for consistency
-        // and could be extended with token blacklisting in the future.
+    public ResponseEntity<Map<String, String>> logout(@RequestBody(required = false) Map<String, String> request) {
+        // Revokes the session the refresh token belongs to; its access tokens stop working as well
+        String refreshToken = request != null ? request.get("refreshToken") : null;
+        if (refreshToken != null && !refreshToken.isEmpty()) {
+            authService.logout(refreshToken);
+        }
         return ResponseEntity.ok(Map.of("message", "Logged out successfully"));
     }
-}
\ No newline at end of file
+    
+    @PostMapping("/logout-all")
+    public ResponseEntity<Map<String, String>> logoutAll(@AuthenticationPrincipal User user) {
+        if (user == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        authService.logoutEverywhere(user);
+        return ResponseEntity.ok(Map.of("message", "Logged out of all sessions"));
+    }
+}
@@ -0,0 +1,45 @@
+// ABOUT_ME: This file handles HTTP requests for 12-week cycles and cycle review summaries
+// ABOUT_ME: Closed cycles are served from their precomputed summary row
+package com.epicgoals.api.controller;
+
+import com.epicgoals.api.dto.CurrentCycleDto;
+import com.epicgoals.api.dto.CycleDto;
+import com.epicgoals.api.entity.User;
+import com.epicgoals.api.service.CycleService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/cycles")
+public class CycleController {
+
+    private final CycleService cycleService;
+
+    @Autowired
+    public CycleController(CycleService cycleService) {
+        this.cycleService = cycleService;
+    }
+
+    @GetMapping("/current")
+    public ResponseEntity<CurrentCycleDto> getCurrentCycle(@AuthenticationPrincipal User user) {
+        return ResponseEntity.ok(cycleService.getCurrentCycle(user));
+    }
+
+    @GetMapping
+    public ResponseEntity<List<CycleDto>> getClosedCycles(
+            @AuthenticationPrincipal User user,
+            @RequestParam(defaultValue = "4") int limit) {
+        int limitedCycles = Math.min(Math.max(limit, 1), 20);
+        return ResponseEntity.ok(cycleService.getClosedCycles(user, limitedCycles));
+    }
+
+    @GetMapping("/{cycleId}")
+    public ResponseEntity<CycleDto> getCycle(@AuthenticationPrincipal User user, @PathVariable UUID cycleId) {
+        return ResponseEntity.ok(cycleService.getCycle(user, cycleId));
+    }
+}
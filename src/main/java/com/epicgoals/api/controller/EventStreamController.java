@@ -0,0 +1,30 @@
+// ABOUT_ME: This file exposes the per-user Server-Sent Events stream of live changes
+// ABOUT_ME: Devices subscribe once and receive score, completion and goal updates instead of polling
+package com.epicgoals.api.controller;
+
+import com.epicgoals.api.entity.User;
+import com.epicgoals.api.realtime.LiveEventRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/events")
+public class EventStreamController {
+
+    private final LiveEventRegistry liveEventRegistry;
+
+    @Autowired
+    public EventStreamController(LiveEventRegistry liveEventRegistry) {
+        this.liveEventRegistry = liveEventRegistry;
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@AuthenticationPrincipal User user) {
+        return liveEventRegistry.register(user.getId());
+    }
+}
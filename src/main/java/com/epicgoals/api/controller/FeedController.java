@@ -0,0 +1,37 @@
+// ABOUT_ME: This file handles HTTP requests for the friends activity feed
+// ABOUT_ME: Pages are keyset-paginated by activity id so deep pages cost the same as the first one
+package com.epicgoals.api.controller;
+
+import com.epicgoals.api.dto.FeedPageDto;
+import com.epicgoals.api.entity.User;
+import com.epicgoals.api.service.FeedService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/feed")
+public class FeedController {
+
+    private static final int MAX_PAGE_SIZE = 50;
+
+    private final FeedService feedService;
+
+    @Autowired
+    public FeedController(FeedService feedService) {
+        this.feedService = feedService;
+    }
+
+    @GetMapping
+    public ResponseEntity<FeedPageDto> getFeed(
+            @AuthenticationPrincipal User user,
+            @RequestParam(required = false) Long before,
+            @RequestParam(defaultValue = "20") int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        return ResponseEntity.ok(feedService.getFeed(user, before, pageSize));
+    }
+}
@@ -0,0 +1,89 @@
+// ABOUT_ME: This file handles HTTP requests for friends, friend requests and the friends leaderboard
+// ABOUT_ME: The leaderboard is served from precomputed rows rather than joining every friend's scores per request
+package com.epicgoals.api.controller;
+
+import com.epicgoals.api.dto.FriendDto;
+import com.epicgoals.api.dto.FriendRequest;
+import com.epicgoals.api.dto.LeaderboardDto;
+import com.epicgoals.api.entity.User;
+import com.epicgoals.api.service.FriendshipService;
+import com.epicgoals.api.service.LeaderboardService;
+import com.epicgoals.api.service.ScoreService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/friends")
+public class FriendController {
+
+    private final FriendshipService friendshipService;
+    private final LeaderboardService leaderboardService;
+    private final ScoreService scoreService;
+
+    @Autowired
+    public FriendController(FriendshipService friendshipService, LeaderboardService leaderboardService,
+                            ScoreService scoreService) {
+        this.friendshipService = friendshipService;
+        this.leaderboardService = leaderboardService;
+        this.scoreService = scoreService;
+    }
+
+    @GetMapping
+    public ResponseEntity<List<FriendDto>> getFriends(@AuthenticationPrincipal User user) {
+        return ResponseEntity.ok(friendshipService.getFriends(user));
+    }
+
+    @GetMapping("/requests")
+    public ResponseEntity<List<FriendDto>> getIncomingRequests(@AuthenticationPrincipal User user) {
+        return ResponseEntity.ok(friendshipService.getIncomingRequests(user));
+    }
+
+    @PostMapping("/requests")
+    public ResponseEntity<FriendDto> sendRequest(
+            @AuthenticationPrincipal User user,
+            @Valid @RequestBody FriendRequest request) {
+        FriendDto friend = friendshipService.sendRequest(user, request.email());
+        return ResponseEntity.status(HttpStatus.CREATED).body(friend);
+    }
+
+    @PostMapping("/requests/{userId}/accept")
+    public ResponseEntity<FriendDto> acceptRequest(
+            @AuthenticationPrincipal User user,
+            @PathVariable UUID userId) {
+        return ResponseEntity.ok(friendshipService.acceptRequest(user, userId));
+    }
+
+    @DeleteMapping("/requests/{userId}")
+    public ResponseEntity<Void> declineRequest(
+            @AuthenticationPrincipal User user,
+            @PathVariable UUID userId) {
+        friendshipService.declineRequest(user, userId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping("/{userId}")
+    public ResponseEntity<Void> removeFriend(
+            @AuthenticationPrincipal User user,
+            @PathVariable UUID userId) {
+        friendshipService.removeFriend(user, userId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/leaderboard")
+    public ResponseEntity<LeaderboardDto> getLeaderboard(
+            @AuthenticationPrincipal User user,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate weekStart) {
+        LocalDate week = weekStart != null ? weekStart.with(DayOfWeek.MONDAY) : scoreService.getCurrentWeekStart(user);
+        return ResponseEntity.ok(leaderboardService.getLeaderboard(user, week));
+    }
+}
@@ -8,12 +8,14 @@ import com.epicgoals.api.dto.GoalUpdateRequest;
 import com.epicgoals.api.entity.GoalTimeframe;
 import com.epicgoals.api.entity.User;
 import com.epicgoals.api.service.GoalService;
+import com.epicgoals.api.service.UserDataVersionService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.UUID;
@@ -23,16 +25,23 @@ import java.util.UUID;
 public class GoalController {
 
     private final GoalService goalService;
+    private final UserDataVersionService dataVersionService;
 
     @Autowired
-    public GoalController(GoalService goalService) {
+    public GoalController(GoalService goalService, UserDataVersionService dataVersionService) {
         this.goalService = goalService;
+        this.dataVersionService = dataVersionService;
     }
 
     @GetMapping
-    public ResponseEntity<List<GoalResponse>> getUserGoals(@AuthenticationPrincipal User user) {
+    public ResponseEntity<List<GoalResponse>> getUserGoals(@AuthenticationPrincipal User user, WebRequest request) {
+        String etag = dataVersionService.etag(user.getId());
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        
         List<GoalResponse> goals = goalService.getUserGoals(user);
-        return ResponseEntity.ok(goals);
+        return ResponseEntity.ok().eTag(etag).body(goals);
     }
 
     @GetMapping("/timeframe/{timeframe}")
@@ -5,9 +5,15 @@ package com.epicgoals.api.controller;
 import com.epicgoals.api.dto.CreateHabitRequest;
 import com.epicgoals.api.dto.HabitCompletionDto;
 import com.epicgoals.api.dto.HabitDto;
+import com.epicgoals.api.dto.HabitHeatmapDto;
+import com.epicgoals.api.dto.HabitStreakDto;
 import com.epicgoals.api.dto.UpdateHabitRequest;
 import com.epicgoals.api.entity.User;
 import com.epicgoals.api.service.HabitService;
+import com.epicgoals.api.service.HeatmapService;
+import com.epicgoals.api.service.StreakService;
+import com.epicgoals.api.service.UserDataVersionService;
+import com.epicgoals.api.service.UserSettingsService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -15,6 +21,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -25,16 +32,43 @@ import java.util.UUID;
 public class HabitController {
 
     private final HabitService habitService;
+    private final UserDataVersionService dataVersionService;
+    private final StreakService streakService;
+    private final HeatmapService heatmapService;
+    private final UserSettingsService userSettingsService;
 
     @Autowired
-    public HabitController(HabitService habitService) {
+    public HabitController(HabitService habitService, UserDataVersionService dataVersionService,
+                           StreakService streakService, HeatmapService heatmapService,
+                           UserSettingsService userSettingsService) {
         this.habitService = habitService;
+        this.dataVersionService = dataVersionService;
+        this.streakService = streakService;
+        this.heatmapService = heatmapService;
+        this.userSettingsService = userSettingsService;
     }
 
     @GetMapping
-    public ResponseEntity<List<HabitDto>> getUserHabits(@AuthenticationPrincipal User user) {
+    public ResponseEntity<List<HabitDto>> getUserHabits(@AuthenticationPrincipal User user, WebRequest request) {
+        String etag = dataVersionService.etag(user.getId());
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        
         List<HabitDto> habits = habitService.getUserHabits(user);
-        return ResponseEntity.ok(habits);
+        return ResponseEntity.ok().eTag(etag).body(habits);
+    }
+
+    @GetMapping("/streaks")
+    public ResponseEntity<List<HabitStreakDto>> getHabitStreaks(@AuthenticationPrincipal User user, WebRequest request) {
+        // Current streaks lapse at the user's midnight, so their date is part of the tag
+        String etag = dataVersionService.etag(user.getId(), "streaks", userSettingsService.today(user));
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        
+        List<HabitStreakDto> streaks = streakService.getUserStreaks(user);
+        return ResponseEntity.ok().eTag(etag).body(streaks);
     }
 
     @PostMapping
@@ -62,6 +96,22 @@ public class HabitController {
         return ResponseEntity.noContent().build();
     }
 
+    @GetMapping("/{id}/heatmap")
+    public ResponseEntity<HabitHeatmapDto> getHabitHeatmap(
+            @AuthenticationPrincipal User user,
+            @PathVariable UUID id,
+            @RequestParam(defaultValue = "12") int months,
+            WebRequest request) {
+        // Opportunities grow with each of the user's days, so their date is part of the tag
+        String etag = dataVersionService.etag(user.getId(), "heatmap", id, months, userSettingsService.today(user));
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        
+        HabitHeatmapDto heatmap = heatmapService.getHeatmap(user, id, months);
+        return ResponseEntity.ok().eTag(etag).body(heatmap);
+    }
+
     @GetMapping("/{id}/completions")
     public ResponseEntity<List<HabitCompletionDto>> getHabitCompletions(
             @AuthenticationPrincipal User user,
@@ -80,4 +130,18 @@ public class HabitController {
         HabitCompletionDto completion = habitService.toggleHabitCompletion(user, id, date);
         return ResponseEntity.ok(completion);
     }
+
+    @PutMapping("/{id}/completions")
+    public ResponseEntity<HabitCompletionDto> setHabitCompletion(
+            @AuthenticationPrincipal User user,
+            @PathVariable UUID id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam boolean completed,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        if (idempotencyKey != null && idempotencyKey.length() > 64) {
+            throw new IllegalArgumentException("Idempotency-Key must not exceed 64 characters");
+        }
+        HabitCompletionDto completion = habitService.setHabitCompletion(user, id, date, completed, idempotencyKey);
+        return ResponseEntity.ok(completion);
+    }
 }
\ No newline at end of file
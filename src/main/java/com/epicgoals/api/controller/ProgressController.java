@@ -2,14 +2,20 @@
 // ABOUT_ME: Provides REST endpoints for retrieving weekly scores and user progress tracking
 package com.epicgoals.api.controller;
 
+import com.epicgoals.api.dto.TrendDto;
 import com.epicgoals.api.dto.WeeklyScoreDto;
 import com.epicgoals.api.entity.User;
+import com.epicgoals.api.service.ConflictRetryExecutor;
 import com.epicgoals.api.service.ScoreService;
+import com.epicgoals.api.service.TrendService;
+import com.epicgoals.api.service.UserDataVersionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -18,17 +24,32 @@ import java.util.List;
 @RequestMapping("/api/progress")
 public class ProgressController {
 
+    private static final int MAX_REBUILD_WEEKS = 52;
+
     private final ScoreService scoreService;
+    private final UserDataVersionService dataVersionService;
+    private final ConflictRetryExecutor conflictRetryExecutor;
+    private final TrendService trendService;
 
     @Autowired
-    public ProgressController(ScoreService scoreService) {
+    public ProgressController(ScoreService scoreService, UserDataVersionService dataVersionService,
+                              ConflictRetryExecutor conflictRetryExecutor, TrendService trendService) {
         this.scoreService = scoreService;
+        this.dataVersionService = dataVersionService;
+        this.conflictRetryExecutor = conflictRetryExecutor;
+        this.trendService = trendService;
     }
 
     @GetMapping("/current-week")
-    public ResponseEntity<WeeklyScoreDto> getCurrentWeekScore(@AuthenticationPrincipal User user) {
+    public ResponseEntity<WeeklyScoreDto> getCurrentWeekScore(@AuthenticationPrincipal User user, WebRequest request) {
+        // The week start is part of the tag so a week rollover invalidates it without any write
+        String etag = dataVersionService.etag(user.getId(), scoreService.getCurrentWeekStart(user));
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        
         WeeklyScoreDto currentWeekScore = scoreService.getCurrentWeekScore(user);
-        return ResponseEntity.ok(currentWeekScore);
+        return ResponseEntity.ok().eTag(etag).body(currentWeekScore);
     }
 
     @GetMapping("/weekly-scores")
@@ -39,7 +60,8 @@ public class ProgressController {
         // Limit weeks to reasonable range
         int limitedWeeks = Math.min(Math.max(weeks, 1), 52);
         
-        List<WeeklyScoreDto> weeklyScores = scoreService.getHistoricalScores(user, limitedWeeks);
+        // Dense: weeks without a snapshot yet are scored and stored on the way out
+        List<WeeklyScoreDto> weeklyScores = conflictRetryExecutor.execute(() -> scoreService.getScoreSeries(user, limitedWeeks));
         return ResponseEntity.ok(weeklyScores);
     }
 
@@ -52,10 +74,36 @@ public class ProgressController {
         return ResponseEntity.ok(weekScore);
     }
 
+    @GetMapping("/trends")
+    public ResponseEntity<TrendDto> getTrends(@AuthenticationPrincipal User user, WebRequest request) {
+        // Reading a new week writes its first snapshot, so the week start is part of the tag as well
+        String etag = dataVersionService.etag(user.getId(), "trends", scoreService.getCurrentWeekStart(user));
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        
+        TrendDto trends = trendService.getTrends(user);
+        return ResponseEntity.ok().eTag(etag).body(trends);
+    }
+
+    // Recomputes the last weeks' snapshots from completions and the habit definitions in effect each week
+    @PostMapping("/rebuild")
+    public ResponseEntity<List<WeeklyScoreDto>> rebuildRecentWeeks(
+            @AuthenticationPrincipal User user,
+            @RequestParam(defaultValue = "12") int weeks) {
+        int weekCount = Math.max(1, Math.min(weeks, MAX_REBUILD_WEEKS));
+        List<WeeklyScoreDto> rebuilt = conflictRetryExecutor.execute(() -> scoreService.recalculateRecentWeeks(user, weekCount));
+        dataVersionService.markChanged(user.getId());
+        return ResponseEntity.ok(rebuilt);
+    }
+
     @PostMapping("/recalculate")
     public ResponseEntity<WeeklyScoreDto> recalculateCurrentWeek(@AuthenticationPrincipal User user) {
-        scoreService.recalculateCurrentWeek(user);
-        WeeklyScoreDto updatedScore = scoreService.getCurrentWeekScore(user);
+        // Recomputing from completions is idempotent, so a concurrent writer just means another pass
+        WeeklyScoreDto updatedScore = conflictRetryExecutor.execute(() -> {
+            scoreService.recalculateCurrentWeek(user);
+            return scoreService.getCurrentWeekScore(user);
+        });
         return ResponseEntity.ok(updatedScore);
     }
 }
\ No newline at end of file
@@ -0,0 +1,39 @@
+// ABOUT_ME: This file handles HTTP requests for the signed-in user's settings
+// ABOUT_ME: Settings are a JSON object merged key by key; timeZone drives the user's week boundaries
+package com.epicgoals.api.controller;
+
+import com.epicgoals.api.entity.User;
+import com.epicgoals.api.service.UserSettingsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/users/me")
+public class UserController {
+
+    private final UserSettingsService userSettingsService;
+
+    @Autowired
+    public UserController(UserSettingsService userSettingsService) {
+        this.userSettingsService = userSettingsService;
+    }
+
+    @GetMapping("/settings")
+    public ResponseEntity<Map<String, Object>> getSettings(@AuthenticationPrincipal User user) {
+        return ResponseEntity.ok(userSettingsService.getSettings(user));
+    }
+
+    @PatchMapping("/settings")
+    public ResponseEntity<Map<String, Object>> updateSettings(@AuthenticationPrincipal User user,
+                                                              @RequestBody Map<String, Object> changes) {
+        return ResponseEntity.ok(userSettingsService.updateSettings(user, changes));
+    }
+}
@@ -0,0 +1,58 @@
+// ABOUT_ME: Remembers which users committed a write recently so their reads stay on the primary for a short window
+// ABOUT_ME: Pins are shared with the other instances over the cache invalidation bus, so the next request may land anywhere
+package com.epicgoals.api.datasource;
+
+import com.epicgoals.api.cache.CacheInvalidationBus;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class ReadYourWritesRegistry {
+
+    static final String PINS_CHANNEL = "readYourWrites";
+
+    // User id -> epoch millis until which the user's reads are served by the primary
+    private final ConcurrentHashMap<UUID, Long> pinnedUsers = new ConcurrentHashMap<>();
+
+    private final long windowMillis;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    // Set when pins from other instances may have been missed: everyone reads from the primary until then
+    private volatile long allPinnedUntil;
+
+    public ReadYourWritesRegistry(Duration window, CacheInvalidationBus cacheInvalidationBus) {
+        this.windowMillis = window.toMillis();
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        // A remote pin starts when it arrives here, which is after the write committed on the other instance
+        cacheInvalidationBus.onRemoteEviction(PINS_CHANNEL, userId -> {
+            long until = System.currentTimeMillis() + windowMillis;
+            if (CacheInvalidationBus.ALL_KEYS.equals(userId)) {
+                allPinnedUntil = until;
+            } else {
+                pinnedUsers.merge(UUID.fromString(userId), until, Math::max);
+            }
+        });
+    }
+
+    public void pin(UUID userId, Instant committedAt) {
+        pinnedUsers.merge(userId, committedAt.toEpochMilli() + windowMillis, Math::max);
+        cacheInvalidationBus.broadcastEviction(PINS_CHANNEL, userId.toString());
+    }
+
+    public boolean isPinned(UUID userId, Instant now) {
+        long nowMillis = now.toEpochMilli();
+        if (allPinnedUntil >= nowMillis) {
+            return true;
+        }
+        Long pinnedUntil = pinnedUsers.get(userId);
+        return pinnedUntil != null && pinnedUntil >= nowMillis;
+    }
+
+    public int prune(Instant now) {
+        long nowMillis = now.toEpochMilli();
+        int before = pinnedUsers.size();
+        pinnedUsers.values().removeIf(pinnedUntil -> pinnedUntil < nowMillis);
+        return before - pinnedUsers.size();
+    }
+}
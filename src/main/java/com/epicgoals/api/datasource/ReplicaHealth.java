@@ -0,0 +1,62 @@
+// ABOUT_ME: Tracks whether the read replica is reachable and close enough to the primary to serve reads
+// ABOUT_ME: Replication lag is sampled periodically; a failed check or connection takes the replica out until the next good sample
+package com.epicgoals.api.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+public class ReplicaHealth {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaHealth.class);
+
+    // Zero when the replica has replayed everything it received (an idle primary is not lag) or is not in recovery
+    private static final String LAG_MILLIS_SQL =
+            "SELECT CASE WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000 END";
+
+    private final DataSource replica;
+    private final long maxStalenessMillis;
+
+    // Unusable until the first check, so reads never reach a replica whose lag is unknown
+    private volatile boolean usable;
+
+    public ReplicaHealth(DataSource replica, Duration maxStaleness) {
+        this.replica = replica;
+        this.maxStalenessMillis = maxStaleness.toMillis();
+    }
+
+    public boolean isUsable() {
+        return usable;
+    }
+
+    public void check() {
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery(LAG_MILLIS_SQL)) {
+            result.next();
+            long lagMillis = result.getLong(1);
+            boolean withinTolerance = lagMillis <= maxStalenessMillis;
+            if (withinTolerance != usable) {
+                log.info("Read replica {} (lag {} ms, tolerance {} ms)",
+                        withinTolerance ? "in use" : "out of use", lagMillis, maxStalenessMillis);
+            }
+            usable = withinTolerance;
+        } catch (SQLException ex) {
+            markFailed(ex);
+        }
+    }
+
+    public void markFailed(SQLException ex) {
+        if (usable) {
+            log.warn("Read replica unavailable, reads fall back to the primary: {}", ex.getMessage());
+        }
+        usable = false;
+    }
+}
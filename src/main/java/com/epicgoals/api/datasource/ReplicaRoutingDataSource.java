@@ -0,0 +1,112 @@
+// ABOUT_ME: DataSource that sends read-only transactions to the read replica and everything else to the primary
+// ABOUT_ME: Falls back to the primary when the replica is stale or down, and for users who just committed a write
+package com.epicgoals.api.datasource;
+
+import com.epicgoals.api.entity.User;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Must sit behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: the transaction's
+ * read-only flag is only known once it has begun, so the physical connection has to be fetched lazily.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final ReplicaHealth replicaHealth;
+    private final ReadYourWritesRegistry readYourWrites;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica,
+                                    ReplicaHealth replicaHealth, ReadYourWritesRegistry readYourWrites) {
+        this.primary = primary;
+        this.replica = replica;
+        this.replicaHealth = replicaHealth;
+        this.readYourWrites = readYourWrites;
+    }
+
+    /**
+     * Runs the work with its read-only transactions on the primary. Used for authentication and user lookups,
+     * which must see an account right after it was created even when the request lands on another instance
+     * and the replica has not caught up.
+     */
+    public static <T> T onPrimary(Supplier<T> work) {
+        Boolean previous = PRIMARY_ONLY.get();
+        PRIMARY_ONLY.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                PRIMARY_ONLY.remove();
+            }
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (useReplica()) {
+            try {
+                return replica.getConnection();
+            } catch (SQLException ex) {
+                replicaHealth.markFailed(ex);
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        if (useReplica()) {
+            try {
+                return replica.getConnection(username, password);
+            } catch (SQLException ex) {
+                replicaHealth.markFailed(ex);
+            }
+        }
+        return primary.getConnection(username, password);
+    }
+
+    private boolean useReplica() {
+        UUID userId = currentUserId();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            pinAfterCommit(userId);
+            return false;
+        }
+        if (PRIMARY_ONLY.get() != null || !replicaHealth.isUsable()) {
+            return false;
+        }
+        return userId == null || !readYourWrites.isPinned(userId, Instant.now());
+    }
+
+    private void pinAfterCommit(UUID userId) {
+        // The window starts at commit, once the write exists on the primary and begins replicating
+        if (userId != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    readYourWrites.pin(userId, Instant.now());
+                }
+            });
+        }
+    }
+
+    private UUID currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof User user) {
+            return user.getId();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,8 @@
+// ABOUT_ME: Projection of a single completed habit day used by streak rebuilds
+// ABOUT_ME: Streamed in (habit, date) order so runs can be rebuilt in one pass
+package com.epicgoals.api.dto;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+public record CompletionDay(UUID habitId, LocalDate date) {}
@@ -0,0 +1,15 @@
+// ABOUT_ME: Response DTO for the running 12-week cycle with its weekly score snapshots so far
+// ABOUT_ME: Weeks come from one bounded range query over the cycle's dates
+package com.epicgoals.api.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+public record CurrentCycleDto(
+    UUID id,
+    LocalDate startDate,
+    LocalDate endDate,
+    int weekNumber,
+    List<WeeklyScoreDto> weeks
+) {}
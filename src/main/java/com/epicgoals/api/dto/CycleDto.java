@@ -0,0 +1,25 @@
+// ABOUT_ME: Response DTO for a 12-week cycle and, once it has closed, its precomputed summary
+// ABOUT_ME: Summary fields are null while the cycle is still open
+package com.epicgoals.api.dto;
+
+import com.epicgoals.api.entity.CycleStatus;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+public record CycleDto(
+    UUID id,
+    LocalDate startDate,
+    LocalDate endDate,
+    CycleStatus status,
+    Double averageScore,
+    Integer weeksScored,
+    Integer completedHabits,
+    Integer totalHabits,
+    Integer goalsCompleted,
+    List<CategoryAverage> categoryAverages
+) {
+    
+    public record CategoryAverage(UUID categoryId, String name, Double average) {}
+}
@@ -0,0 +1,10 @@
+// ABOUT_ME: Aggregated weekly score snapshots for one user over a date range
+// ABOUT_ME: Produced by a single grouped JPQL query when a cycle is summarized
+package com.epicgoals.api.dto;
+
+public record CycleScoreTotals(
+    Double averageScore,
+    long weeksScored,
+    Long completedHabits,
+    Long totalHabits
+) {}
@@ -0,0 +1,8 @@
+// ABOUT_ME: Projection of a revoked refresh token family and the time it was revoked
+// ABOUT_ME: Lets instances syncing revocations keep each entry only as long as the revoking instance does
+package com.epicgoals.api.dto;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public record FamilyRevocation(UUID familyId, Instant revokedAt) {}
@@ -0,0 +1,20 @@
+// ABOUT_ME: Response DTO for one activity in the friends feed
+// ABOUT_ME: Details are stored as JSON and passed through to the client unchanged
+package com.epicgoals.api.dto;
+
+import com.epicgoals.api.entity.FeedActivityType;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public record FeedItemDto(
+    Long id,
+    UUID actorId,
+    String actorEmail,
+    FeedActivityType type,
+    @JsonRawValue
+    String details,
+    Instant createdAt
+) {
+}
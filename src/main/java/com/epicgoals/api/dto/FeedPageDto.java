@@ -0,0 +1,8 @@
+// ABOUT_ME: Response DTO for one page of the friends feed
+// ABOUT_ME: nextCursor is passed back as "before" to fetch the following page and is null on the last page
+package com.epicgoals.api.dto;
+
+import java.util.List;
+
+public record FeedPageDto(List<FeedItemDto> items, Long nextCursor) {
+}
@@ -0,0 +1,11 @@
+// ABOUT_ME: Response DTO for a friend or a pending friend request
+// ABOUT_ME: Identifies the other user by id and email along with when the connection was made
+package com.epicgoals.api.dto;
+
+import com.epicgoals.api.entity.FriendshipStatus;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public record FriendDto(UUID userId, String email, FriendshipStatus status, Instant since) {
+}
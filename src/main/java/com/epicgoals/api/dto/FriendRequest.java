@@ -0,0 +1,13 @@
+// ABOUT_ME: Request DTO for sending a friend request to another user by email
+// ABOUT_ME: Validates the address format before any lookup happens
+package com.epicgoals.api.dto;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+
+public record FriendRequest(
+    @NotBlank
+    @Email
+    String email
+) {
+}
@@ -4,6 +4,7 @@ package com.epicgoals.api.dto;
 
 import jakarta.validation.constraints.Size;
 
+import java.time.Instant;
 import java.util.UUID;
 
 public record GoalUpdateRequest(
@@ -19,5 +20,14 @@ public record GoalUpdateRequest(
     
     UUID categoryId,
     
-    Boolean isActive
-) {}
\ No newline at end of file
+    Boolean isActive,
+    
+    // Optional device timestamp for offline sync; older writes than the stored one are ignored
+    Instant clientUpdatedAt
+) {
+    
+    public GoalUpdateRequest(String name, String description, String targetValue,
+                             String currentValue, UUID categoryId, Boolean isActive) {
+        this(name, description, targetValue, currentValue, categoryId, isActive, null);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,25 @@
+// ABOUT_ME: Read-only projection of a goal row joined with its category name
+// ABOUT_ME: Populated by JPQL constructor expressions so goal lists load in a single query
+package com.epicgoals.api.dto;
+
+import com.epicgoals.api.entity.GoalTimeframe;
+import com.epicgoals.api.entity.GoalType;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public record GoalView(
+    UUID id,
+    GoalTimeframe timeframe,
+    GoalType type,
+    String name,
+    String description,
+    String targetValue,
+    String currentValue,
+    UUID categoryId,
+    String categoryName,
+    UUID parentGoalId,
+    Boolean isActive,
+    Instant createdAt,
+    Instant updatedAt
+) {}
@@ -0,0 +1,13 @@
+// ABOUT_ME: Expected and completed days for one habit over the weeks of a cycle it counted in, with its category
+// ABOUT_ME: Tallied from the habit's definitions in effect on each week's Sunday, like weekly scores
+package com.epicgoals.api.dto;
+
+import java.util.UUID;
+
+public record HabitCycleCompletion(
+    UUID habitId,
+    UUID categoryId,
+    String categoryName,
+    int expected,
+    long completed
+) {}
@@ -0,0 +1,23 @@
+// ABOUT_ME: Frequency and category of one habit over a range of days, read from the habit or its past versions
+// ABOUT_ME: Lets the weekly scorer pick, for each week, the definition that was in effect on that week's last day
+package com.epicgoals.api.dto;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+public record HabitDefinition(
+    UUID habitId,
+    UUID categoryId,
+    int frequency,
+    LocalDate effectiveFrom,
+    LocalDate effectiveTo // exclusive; null for the current definition
+) {
+
+    public HabitDefinition(UUID habitId, UUID categoryId, int frequency, LocalDate effectiveFrom) {
+        this(habitId, categoryId, frequency, effectiveFrom, null);
+    }
+
+    public boolean appliesOn(LocalDate day) {
+        return !effectiveFrom.isAfter(day) && (effectiveTo == null || effectiveTo.isAfter(day));
+    }
+}
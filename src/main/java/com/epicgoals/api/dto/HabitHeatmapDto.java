@@ -0,0 +1,21 @@
+// ABOUT_ME: Response DTO for a habit's day-of-week and monthly completion heatmap
+// ABOUT_ME: Constant-size summary built from materialized counters rather than raw completions
+package com.epicgoals.api.dto;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+public record HabitHeatmapDto(
+    UUID habitId,
+    LocalDate trackingStart,
+    List<WeekdayCell> weekdays,
+    List<MonthCell> months
+) {
+    
+    // Rate is completions over the number of such weekdays since tracking started, in percent
+    public record WeekdayCell(DayOfWeek day, int completions, int opportunities, double rate) {}
+    
+    public record MonthCell(LocalDate monthStart, int completions, int days) {}
+}
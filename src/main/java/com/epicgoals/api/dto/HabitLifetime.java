@@ -0,0 +1,8 @@
+// ABOUT_ME: Projection of the days a habit's recorded definitions covered, from its first day to the day it ended
+// ABOUT_ME: Tells the purge which weekly snapshots counted a deleted habit and must be kept as they are
+package com.epicgoals.api.dto;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+public record HabitLifetime(UUID userId, LocalDate firstDay, LocalDate endDay) {} // endDay is exclusive
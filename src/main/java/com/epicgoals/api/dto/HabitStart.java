@@ -0,0 +1,8 @@
+// ABOUT_ME: Projection of a habit id, its owner and its creation time
+// ABOUT_ME: Lets batch rebuilds seed per-habit aggregates without loading full habit entities
+package com.epicgoals.api.dto;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public record HabitStart(UUID habitId, UUID userId, Instant createdAt) {}
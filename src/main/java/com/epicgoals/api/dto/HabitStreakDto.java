@@ -0,0 +1,13 @@
+// ABOUT_ME: Response DTO for a habit's current and longest streak
+// ABOUT_ME: Built from the persisted streak summary without touching completion history
+package com.epicgoals.api.dto;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+public record HabitStreakDto(
+    UUID habitId,
+    int currentStreak,
+    int longestStreak,
+    LocalDate lastCompletedDate
+) {}
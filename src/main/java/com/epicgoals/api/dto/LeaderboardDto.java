@@ -0,0 +1,14 @@
+// ABOUT_ME: Response DTO for the friends leaderboard of one week
+// ABOUT_ME: Entries are ordered by score with shared ranks for ties
+package com.epicgoals.api.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+public record LeaderboardDto(LocalDate weekStartDate, List<Entry> entries) {
+
+    public record Entry(int rank, UUID userId, String email, int score,
+                        int completedHabits, int totalHabits, boolean self) {
+    }
+}
@@ -0,0 +1,33 @@
+// ABOUT_ME: Response DTO for progress trend analytics
+// ABOUT_ME: Carries moving averages, trend direction, best/worst category and weekday completion shares
+package com.epicgoals.api.dto;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+public record TrendDto(
+    LocalDate latestWeek,
+    int weeksTracked,
+    Double movingAverage4,
+    Double movingAverage12,
+    Double movingAverage52,
+    Double slope,
+    Direction direction,
+    CategoryTrend bestCategory,
+    CategoryTrend worstCategory,
+    List<DayOfWeekShare> dayOfWeek
+) {
+    
+    public enum Direction {
+        IMPROVING,
+        STABLE,
+        DECLINING
+    }
+    
+    public record CategoryTrend(UUID categoryId, String name, Double average) {}
+    
+    // Share of all completed habit days that fell on this weekday, in percent
+    public record DayOfWeekShare(DayOfWeek day, int completions, double share) {}
+}
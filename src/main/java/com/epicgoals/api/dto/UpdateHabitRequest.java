@@ -4,6 +4,7 @@ package com.epicgoals.api.dto;
 
 import jakarta.validation.constraints.*;
 
+import java.time.Instant;
 import java.util.UUID;
 
 public class UpdateHabitRequest {
@@ -22,6 +23,9 @@ public class UpdateHabitRequest {
     
     private Boolean isActive = true;
     
+    // Optional device timestamp for offline sync; older writes than the stored one are ignored
+    private Instant clientUpdatedAt;
+    
     // Default constructor
     public UpdateHabitRequest() {}
     
@@ -65,4 +69,12 @@ public class UpdateHabitRequest {
     public void setIsActive(Boolean isActive) {
         this.isActive = isActive;
     }
+    
+    public Instant getClientUpdatedAt() {
+        return clientUpdatedAt;
+    }
+    
+    public void setClientUpdatedAt(Instant clientUpdatedAt) {
+        this.clientUpdatedAt = clientUpdatedAt;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+// ABOUT_ME: Range of user ids, exclusive of afterId and inclusive of lastId, used to page and shard per-user batch work
+// ABOUT_ME: Shards split the id space evenly by its leading 64 bits, matching how the databases order UUIDs
+package com.epicgoals.api.dto;
+
+import java.math.BigInteger;
+import java.util.UUID;
+
+public record UserIdRange(UUID afterId, UUID lastId) {
+
+    private static final UUID FIRST = new UUID(0L, 0L);
+    private static final UUID LAST = new UUID(-1L, -1L);
+    private static final BigInteger ID_SPACE = BigInteger.ONE.shiftLeft(64);
+
+    public static UserIdRange all() {
+        return new UserIdRange(FIRST, LAST);
+    }
+
+    public static UserIdRange shard(int index, int count) {
+        if (count < 1 || index < 0 || index >= count) {
+            throw new IllegalArgumentException("Shard " + index + " is outside 0.." + (count - 1));
+        }
+        UUID afterId = index == 0 ? FIRST : lastIdBefore(index, count);
+        UUID lastId = index == count - 1 ? LAST : lastIdBefore(index + 1, count);
+        return new UserIdRange(afterId, lastId);
+    }
+
+    // Keyset paging: the rest of the range after the last id already processed
+    public UserIdRange after(UUID processedId) {
+        return new UserIdRange(processedId, lastId);
+    }
+
+    private static UUID lastIdBefore(int shard, int count) {
+        long firstHigh = ID_SPACE.multiply(BigInteger.valueOf(shard)).divide(BigInteger.valueOf(count)).longValue();
+        return new UUID(firstHigh - 1, -1L);
+    }
+}
@@ -12,7 +12,8 @@ import java.time.Instant;
 import java.util.UUID;
 
 @Entity
-@Table(name = "categories")
+@Table(name = "categories",
+       uniqueConstraints = @UniqueConstraint(name = "uk_categories_user_name", columnNames = {"user_id", "name"}))
 public class Category {
     
     @Id
@@ -31,6 +32,10 @@ public class Category {
     @Column(name = "is_default", nullable = false)
     private Boolean isDefault = false;
     
+    @Version
+    @Column(nullable = false)
+    private Long version;
+    
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private Instant createdAt;
@@ -82,6 +87,14 @@ public class Category {
         this.isDefault = isDefault;
     }
     
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
     public Instant getCreatedAt() {
         return createdAt;
     }
@@ -0,0 +1,192 @@
+// ABOUT_ME: This file defines the Cycle entity, one user's 12-week planning cycle
+// ABOUT_ME: Summary columns are filled once when the cycle closes so review screens read a single row
+package com.epicgoals.api.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+
+@Entity
+@Table(name = "cycles",
+       uniqueConstraints = @UniqueConstraint(name = "uk_cycles_user_start", columnNames = {"user_id", "start_date"}),
+       indexes = {
+           @Index(name = "idx_cycles_user_status", columnList = "user_id, status"),
+           @Index(name = "idx_cycles_status_end", columnList = "status, end_date")
+       })
+public class Cycle {
+    
+    public static final int WEEKS = 12;
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+    
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+    
+    // Read-only association so the schema carries the foreign key; writes go through userId
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", insertable = false, updatable = false)
+    private User user;
+    
+    // Monday of the first week
+    @Column(name = "start_date", nullable = false)
+    private LocalDate startDate;
+    
+    // Sunday of the twelfth week, inclusive
+    @Column(name = "end_date", nullable = false)
+    private LocalDate endDate;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private CycleStatus status = CycleStatus.OPEN;
+    
+    // Average of the weekly score snapshots in the cycle; null when no week was scored
+    @Column(name = "average_score")
+    private Double averageScore;
+    
+    @Column(name = "weeks_scored")
+    private Integer weeksScored;
+    
+    @Column(name = "completed_habits")
+    private Integer completedHabits;
+    
+    @Column(name = "total_habits")
+    private Integer totalHabits;
+    
+    @Column(name = "goals_completed")
+    private Integer goalsCompleted;
+    
+    // JSON list of per-category averages with the category name copied in at close time
+    @Column(name = "category_averages", columnDefinition = "TEXT")
+    private String categoryAverages;
+    
+    @Column(name = "closed_at")
+    private Instant closedAt;
+    
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+    
+    // Default constructor
+    public Cycle() {}
+    
+    // Constructor for opening a cycle
+    public Cycle(UUID userId, LocalDate startDate) {
+        this.userId = userId;
+        this.startDate = startDate;
+        this.endDate = startDate.plusWeeks(WEEKS).minusDays(1);
+    }
+    
+    public boolean contains(LocalDate date) {
+        return !date.isBefore(startDate) && !date.isAfter(endDate);
+    }
+    
+    // Getters and Setters
+    public UUID getId() {
+        return id;
+    }
+    
+    public void setId(UUID id) {
+        this.id = id;
+    }
+    
+    public UUID getUserId() {
+        return userId;
+    }
+    
+    public void setUserId(UUID userId) {
+        this.userId = userId;
+    }
+    
+    public User getUser() {
+        return user;
+    }
+    
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+    
+    public void setStartDate(LocalDate startDate) {
+        this.startDate = startDate;
+    }
+    
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+    
+    public void setEndDate(LocalDate endDate) {
+        this.endDate = endDate;
+    }
+    
+    public CycleStatus getStatus() {
+        return status;
+    }
+    
+    public void setStatus(CycleStatus status) {
+        this.status = status;
+    }
+    
+    public Double getAverageScore() {
+        return averageScore;
+    }
+    
+    public void setAverageScore(Double averageScore) {
+        this.averageScore = averageScore;
+    }
+    
+    public Integer getWeeksScored() {
+        return weeksScored;
+    }
+    
+    public void setWeeksScored(Integer weeksScored) {
+        this.weeksScored = weeksScored;
+    }
+    
+    public Integer getCompletedHabits() {
+        return completedHabits;
+    }
+    
+    public void setCompletedHabits(Integer completedHabits) {
+        this.completedHabits = completedHabits;
+    }
+    
+    public Integer getTotalHabits() {
+        return totalHabits;
+    }
+    
+    public void setTotalHabits(Integer totalHabits) {
+        this.totalHabits = totalHabits;
+    }
+    
+    public Integer getGoalsCompleted() {
+        return goalsCompleted;
+    }
+    
+    public void setGoalsCompleted(Integer goalsCompleted) {
+        this.goalsCompleted = goalsCompleted;
+    }
+    
+    public String getCategoryAverages() {
+        return categoryAverages;
+    }
+    
+    public void setCategoryAverages(String categoryAverages) {
+        this.categoryAverages = categoryAverages;
+    }
+    
+    public Instant getClosedAt() {
+        return closedAt;
+    }
+    
+    public void setClosedAt(Instant closedAt) {
+        this.closedAt = closedAt;
+    }
+    
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
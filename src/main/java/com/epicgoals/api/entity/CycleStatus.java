@@ -0,0 +1,8 @@
+// ABOUT_ME: Enum defining the lifecycle of a 12-week cycle
+// ABOUT_ME: A cycle stays OPEN while it runs and is CLOSED once its summary has been computed
+package com.epicgoals.api.entity;
+
+public enum CycleStatus {
+    OPEN,
+    CLOSED
+}
@@ -0,0 +1,102 @@
+// ABOUT_ME: This file defines the FeedActivity entity, one milestone reached by a user
+// ABOUT_ME: Timelines reference activities by id; activities of users with too many friends are pulled at read time instead
+package com.epicgoals.api.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Entity
+@Table(name = "feed_activities",
+       uniqueConstraints = @UniqueConstraint(name = "uk_feed_activities_actor_dedupe", columnNames = {"actor_id", "dedupe_key"}),
+       indexes = {
+           @Index(name = "idx_feed_activities_pull", columnList = "fanned_out, actor_id, id"),
+           @Index(name = "idx_feed_activities_created_at", columnList = "created_at")
+       })
+public class FeedActivity {
+    
+    // Increasing ids double as the keyset pagination cursor
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "actor_id", nullable = false)
+    private UUID actorId;
+    
+    // Read-only association so the schema carries the foreign key; writes go through actorId
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "actor_id", insertable = false, updatable = false)
+    private User actor;
+    
+    // Copied from the actor so rendering a feed page needs no join
+    @Column(name = "actor_email", nullable = false)
+    private String actorEmail;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private FeedActivityType type;
+    
+    // Identifies the milestone so redelivered events and repeated toggles do not post it twice
+    @Column(name = "dedupe_key", nullable = false, length = 150)
+    private String dedupeKey;
+    
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String details;
+    
+    // False when the actor had more friends than the fan-out limit and no timeline rows were written
+    @Column(name = "fanned_out", nullable = false)
+    private Boolean fannedOut;
+    
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+    
+    // Default constructor
+    public FeedActivity() {}
+    
+    // Constructor for recording activities
+    public FeedActivity(UUID actorId, String actorEmail, FeedActivityType type, String dedupeKey,
+                        String details, boolean fannedOut) {
+        this.actorId = actorId;
+        this.actorEmail = actorEmail;
+        this.type = type;
+        this.dedupeKey = dedupeKey;
+        this.details = details;
+        this.fannedOut = fannedOut;
+    }
+    
+    // Getters
+    public Long getId() {
+        return id;
+    }
+    
+    public UUID getActorId() {
+        return actorId;
+    }
+    
+    public String getActorEmail() {
+        return actorEmail;
+    }
+    
+    public FeedActivityType getType() {
+        return type;
+    }
+    
+    public String getDedupeKey() {
+        return dedupeKey;
+    }
+    
+    public String getDetails() {
+        return details;
+    }
+    
+    public Boolean getFannedOut() {
+        return fannedOut;
+    }
+    
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
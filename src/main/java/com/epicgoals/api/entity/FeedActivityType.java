@@ -0,0 +1,12 @@
+// ABOUT_ME: This file defines the kinds of milestones shared in the friends activity feed
+// ABOUT_ME: Each type documents the keys it stores in the activity details
+package com.epicgoals.api.entity;
+
+public enum FeedActivityType {
+    // details: goalId, goalName
+    GOAL_COMPLETED,
+    // details: habitId, habitName, days
+    STREAK_MILESTONE,
+    // details: weekStartDate, score
+    PERFECT_WEEK
+}
@@ -0,0 +1,59 @@
+// ABOUT_ME: This file defines the FeedItem entity, one activity on one user's materialized timeline
+// ABOUT_ME: The (owner, activity) key makes a feed page a single backwards range scan
+package com.epicgoals.api.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Entity
+@Table(name = "feed_items",
+       uniqueConstraints = @UniqueConstraint(name = "uk_feed_items_owner_activity", columnNames = {"owner_id", "activity_id"}),
+       indexes = {
+           @Index(name = "idx_feed_items_activity", columnList = "activity_id")
+       })
+public class FeedItem {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "owner_id", nullable = false)
+    private UUID ownerId;
+    
+    @Column(name = "activity_id", nullable = false)
+    private Long activityId;
+    
+    // Read-only associations so the schema carries the foreign keys; rows are written by a native fan-out
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "owner_id", insertable = false, updatable = false)
+    private User owner;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "activity_id", insertable = false, updatable = false)
+    private FeedActivity activity;
+    
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+    
+    // Default constructor
+    public FeedItem() {}
+    
+    // Getters
+    public Long getId() {
+        return id;
+    }
+    
+    public UUID getOwnerId() {
+        return ownerId;
+    }
+    
+    public Long getActivityId() {
+        return activityId;
+    }
+    
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
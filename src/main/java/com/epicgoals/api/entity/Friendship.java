@@ -0,0 +1,84 @@
+// ABOUT_ME: This file defines the Friendship entity, one direction of a connection between two users
+// ABOUT_ME: A request is a single PENDING row; acceptance adds the mirror row so either side is an indexed prefix lookup
+package com.epicgoals.api.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Entity
+@Table(name = "friendships",
+       uniqueConstraints = @UniqueConstraint(name = "uk_friendships_user_friend", columnNames = {"user_id", "friend_id"}),
+       indexes = {
+           @Index(name = "idx_friendships_friend_status", columnList = "friend_id, status")
+       })
+public class Friendship {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+    
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+    
+    @Column(name = "friend_id", nullable = false)
+    private UUID friendId;
+    
+    // Read-only associations so the schema carries the foreign keys; writes go through the ids
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", insertable = false, updatable = false)
+    private User user;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "friend_id", insertable = false, updatable = false)
+    private User friend;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private FriendshipStatus status;
+    
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+    
+    // Default constructor
+    public Friendship() {}
+    
+    // Constructor for creating friendships
+    public Friendship(UUID userId, UUID friendId, FriendshipStatus status) {
+        this.userId = userId;
+        this.friendId = friendId;
+        this.status = status;
+    }
+    
+    // Getters and Setters
+    public UUID getId() {
+        return id;
+    }
+    
+    public void setId(UUID id) {
+        this.id = id;
+    }
+    
+    public UUID getUserId() {
+        return userId;
+    }
+    
+    public UUID getFriendId() {
+        return friendId;
+    }
+    
+    public FriendshipStatus getStatus() {
+        return status;
+    }
+    
+    public void setStatus(FriendshipStatus status) {
+        this.status = status;
+    }
+    
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
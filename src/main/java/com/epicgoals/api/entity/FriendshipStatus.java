@@ -0,0 +1,8 @@
+// ABOUT_ME: This file defines the states of a friendship between two users
+// ABOUT_ME: A request stays PENDING until the addressee accepts it
+package com.epicgoals.api.entity;
+
+public enum FriendshipStatus {
+    PENDING,
+    ACCEPTED
+}
@@ -12,7 +12,13 @@ import java.time.Instant;
 import java.util.UUID;
 
 @Entity
-@Table(name = "goals")
+@Table(name = "goals",
+       indexes = {
+           @Index(name = "idx_goals_user_timeframe_active", columnList = "user_id, timeframe, is_active"),
+           @Index(name = "idx_goals_user_parent_active", columnList = "user_id, parent_goal_id, is_active"),
+           @Index(name = "idx_goals_category", columnList = "category_id"),
+           @Index(name = "idx_goals_user_completed", columnList = "user_id, completed_at")
+       })
 public class Goal {
     
     @Id
@@ -56,6 +62,18 @@ public class Goal {
     @Column(name = "is_active", nullable = false)
     private Boolean isActive = true;
     
+    @Version
+    @Column(nullable = false)
+    private Long version;
+    
+    // Device timestamp of the last applied sync write, used for last-write-wins resolution
+    @Column(name = "client_updated_at")
+    private Instant clientUpdatedAt;
+    
+    // Set when progress first reaches the target and cleared if it drops below again
+    @Column(name = "completed_at")
+    private Instant completedAt;
+    
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private Instant createdAt;
@@ -168,6 +186,30 @@ public class Goal {
         this.isActive = isActive;
     }
     
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
+    public Instant getClientUpdatedAt() {
+        return clientUpdatedAt;
+    }
+    
+    public void setClientUpdatedAt(Instant clientUpdatedAt) {
+        this.clientUpdatedAt = clientUpdatedAt;
+    }
+    
+    public Instant getCompletedAt() {
+        return completedAt;
+    }
+    
+    public void setCompletedAt(Instant completedAt) {
+        this.completedAt = completedAt;
+    }
+    
     public Instant getCreatedAt() {
         return createdAt;
     }
@@ -8,13 +8,22 @@ import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.SQLRestriction;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.Instant;
+import java.time.LocalDate;
 import java.util.UUID;
 
 @Entity
-@Table(name = "habits")
+@Table(name = "habits",
+       indexes = {
+           @Index(name = "idx_habits_user_active_name", columnList = "user_id, is_active, name"),
+           @Index(name = "idx_habits_category", columnList = "category_id"),
+           @Index(name = "idx_habits_deleted_at", columnList = "deleted_at")
+       })
+// Deleted habits stay as tombstones until the purge job removes them with their history
+@SQLRestriction("deleted_at IS NULL")
 public class Habit {
     
     @Id
@@ -42,6 +51,21 @@ public class Habit {
     @Column(name = "is_active", nullable = false)
     private Boolean isActive = true;
     
+    @Version
+    @Column(nullable = false)
+    private Long version;
+    
+    @Column(name = "deleted_at")
+    private Instant deletedAt;
+    
+    // First day the current frequency, active status and category apply; earlier ones are kept in habit_versions
+    @Column(name = "effective_from", nullable = false)
+    private LocalDate effectiveFrom;
+    
+    // Device timestamp of the last applied sync write, used for last-write-wins resolution
+    @Column(name = "client_updated_at")
+    private Instant clientUpdatedAt;
+    
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private Instant createdAt;
@@ -60,6 +84,7 @@ public class Habit {
         this.name = name;
         this.frequency = frequency;
         this.isActive = true;
+        this.effectiveFrom = LocalDate.now();
     }
     
     // Getters and Setters
@@ -111,6 +136,30 @@ public class Habit {
         this.isActive = isActive;
     }
     
+    public LocalDate getEffectiveFrom() {
+        return effectiveFrom;
+    }
+    
+    public void setEffectiveFrom(LocalDate effectiveFrom) {
+        this.effectiveFrom = effectiveFrom;
+    }
+    
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
+    public Instant getClientUpdatedAt() {
+        return clientUpdatedAt;
+    }
+    
+    public void setClientUpdatedAt(Instant clientUpdatedAt) {
+        this.clientUpdatedAt = clientUpdatedAt;
+    }
+    
     public Instant getCreatedAt() {
         return createdAt;
     }
@@ -126,4 +175,12 @@ public class Habit {
     public void setUpdatedAt(Instant updatedAt) {
         this.updatedAt = updatedAt;
     }
+    
+    public Instant getDeletedAt() {
+        return deletedAt;
+    }
+    
+    public void setDeletedAt(Instant deletedAt) {
+        this.deletedAt = deletedAt;
+    }
 }
\ No newline at end of file
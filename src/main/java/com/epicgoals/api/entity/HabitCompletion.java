@@ -12,7 +12,7 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "habit_completions", 
-       uniqueConstraints = @UniqueConstraint(columnNames = {"habit_id", "date"}))
+       uniqueConstraints = @UniqueConstraint(name = "uk_habit_completions_habit_date", columnNames = {"habit_id", "date"}))
 public class HabitCompletion {
     
     @Id
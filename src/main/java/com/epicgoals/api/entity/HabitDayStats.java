@@ -0,0 +1,81 @@
+// ABOUT_ME: This file defines the HabitDayStats entity holding per-weekday completion counters for a habit
+// ABOUT_ME: Opportunities are derived from the tracking start date, so the row stays constant-size
+package com.epicgoals.api.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+@Entity
+@Table(name = "habit_day_stats")
+public class HabitDayStats {
+    
+    @Id
+    @Column(name = "habit_id")
+    private UUID habitId;
+    
+    // Read-only association so the schema carries the foreign key; writes go through habitId
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "habit_id", insertable = false, updatable = false)
+    private Habit habit;
+    
+    // First day the habit could be completed: its creation date, or an earlier back-dated completion
+    @Column(name = "tracking_start", nullable = false)
+    private LocalDate trackingStart;
+    
+    // Completed days per weekday, Monday first
+    @Convert(converter = IntegerListConverter.class)
+    @Column(name = "weekday_completions", nullable = false, length = 100)
+    private List<Integer> weekdayCompletions = new ArrayList<>(List.of(0, 0, 0, 0, 0, 0, 0));
+    
+    @Version
+    @Column(nullable = false)
+    private Long version;
+    
+    @UpdateTimestamp
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+    
+    // Default constructor
+    public HabitDayStats() {}
+    
+    // Constructor for creating empty stats
+    public HabitDayStats(UUID habitId, LocalDate trackingStart) {
+        this.habitId = habitId;
+        this.trackingStart = trackingStart;
+    }
+    
+    // Getters and Setters
+    public UUID getHabitId() {
+        return habitId;
+    }
+    
+    public LocalDate getTrackingStart() {
+        return trackingStart;
+    }
+    
+    public void setTrackingStart(LocalDate trackingStart) {
+        this.trackingStart = trackingStart;
+    }
+    
+    public List<Integer> getWeekdayCompletions() {
+        return weekdayCompletions;
+    }
+    
+    public void setWeekdayCompletions(List<Integer> weekdayCompletions) {
+        this.weekdayCompletions = weekdayCompletions;
+    }
+    
+    public Long getVersion() {
+        return version;
+    }
+    
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+}
@@ -0,0 +1,64 @@
+// ABOUT_ME: This file defines the HabitMonthStats entity, a per-habit monthly completion rollup
+// ABOUT_ME: One row per habit and month so heatmaps read a bounded range instead of raw completions
+package com.epicgoals.api.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+@Entity
+@Table(name = "habit_month_stats",
+       uniqueConstraints = @UniqueConstraint(name = "uk_habit_month_stats_habit_month", columnNames = {"habit_id", "month_start"}))
+public class HabitMonthStats {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+    
+    @Column(name = "habit_id", nullable = false)
+    private UUID habitId;
+    
+    // Read-only association so the schema carries the foreign key; writes go through habitId
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "habit_id", insertable = false, updatable = false)
+    private Habit habit;
+    
+    // First day of the month
+    @Column(name = "month_start", nullable = false)
+    private LocalDate monthStart;
+    
+    @Column(nullable = false)
+    private Integer completions = 0;
+    
+    // Default constructor
+    public HabitMonthStats() {}
+    
+    // Constructor for creating monthly rollups
+    public HabitMonthStats(UUID habitId, LocalDate monthStart, Integer completions) {
+        this.habitId = habitId;
+        this.monthStart = monthStart;
+        this.completions = completions;
+    }
+    
+    // Getters and Setters
+    public UUID getId() {
+        return id;
+    }
+    
+    public UUID getHabitId() {
+        return habitId;
+    }
+    
+    public LocalDate getMonthStart() {
+        return monthStart;
+    }
+    
+    public Integer getCompletions() {
+        return completions;
+    }
+    
+    public void setCompletions(Integer completions) {
+        this.completions = completions;
+    }
+}
@@ -0,0 +1,96 @@
+// ABOUT_ME: This file defines the HabitStreak entity holding the persisted streak summary of a habit
+// ABOUT_ME: Stores the longest run and the latest run bounds so current and longest streaks read in O(1)
+package com.epicgoals.api.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+@Entity
+@Table(name = "habit_streaks")
+public class HabitStreak {
+    
+    @Id
+    @Column(name = "habit_id")
+    private UUID habitId;
+    
+    // Read-only association so the schema carries the foreign key and queries can join the habit
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "habit_id", insertable = false, updatable = false)
+    private Habit habit;
+    
+    @Column(name = "longest_streak", nullable = false)
+    private Integer longestStreak = 0;
+    
+    // Bounds of the most recent run; null when the habit has never been completed
+    @Column(name = "last_run_start")
+    private LocalDate lastRunStart;
+    
+    @Column(name = "last_run_end")
+    private LocalDate lastRunEnd;
+    
+    @Version
+    @Column(nullable = false)
+    private Long version;
+    
+    @UpdateTimestamp
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+    
+    // Default constructor
+    public HabitStreak() {}
+    
+    // Constructor for creating an empty streak summary
+    public HabitStreak(UUID habitId) {
+        this.habitId = habitId;
+    }
+    
+    /**
+     * The latest run still counts as the current streak while it ends today or yesterday,
+     * so a habit not yet ticked off today keeps its streak until the day is over.
+     */
+    public int currentStreak(LocalDate today) {
+        if (lastRunEnd == null || lastRunEnd.isBefore(today.minusDays(1))) {
+            return 0;
+        }
+        return (int) ChronoUnit.DAYS.between(lastRunStart, lastRunEnd) + 1;
+    }
+    
+    public void setLastRun(HabitStreakRun run) {
+        this.lastRunStart = run != null ? run.getStartDate() : null;
+        this.lastRunEnd = run != null ? run.getEndDate() : null;
+    }
+    
+    // Getters and Setters
+    public UUID getHabitId() {
+        return habitId;
+    }
+    
+    public Integer getLongestStreak() {
+        return longestStreak;
+    }
+    
+    public void setLongestStreak(Integer longestStreak) {
+        this.longestStreak = longestStreak;
+    }
+    
+    public LocalDate getLastRunStart() {
+        return lastRunStart;
+    }
+    
+    public LocalDate getLastRunEnd() {
+        return lastRunEnd;
+    }
+    
+    public Long getVersion() {
+        return version;
+    }
+    
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+}
@@ -0,0 +1,84 @@
+// ABOUT_ME: This file defines the HabitStreakRun entity, one maximal run of consecutive completed days
+// ABOUT_ME: Runs are kept run-length encoded so back-dated toggles only touch the neighbouring runs
+package com.epicgoals.api.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+@Entity
+@Table(name = "habit_streak_runs",
+       uniqueConstraints = @UniqueConstraint(name = "uk_habit_streak_runs_habit_start", columnNames = {"habit_id", "start_date"}),
+       indexes = {
+           @Index(name = "idx_habit_streak_runs_habit_end", columnList = "habit_id, end_date")
+       })
+public class HabitStreakRun {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+    
+    @Column(name = "habit_id", nullable = false)
+    private UUID habitId;
+    
+    // Read-only association so the schema carries the foreign key; writes go through habitId
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "habit_id", insertable = false, updatable = false)
+    private Habit habit;
+    
+    @Column(name = "start_date", nullable = false)
+    private LocalDate startDate;
+    
+    @Column(name = "end_date", nullable = false)
+    private LocalDate endDate;
+    
+    // Number of days in the run, kept in sync with the bounds so the longest run is a MAX() away
+    @Column(nullable = false)
+    private Integer length;
+    
+    // Default constructor
+    public HabitStreakRun() {}
+    
+    // Constructor for creating runs
+    public HabitStreakRun(UUID habitId, LocalDate startDate, LocalDate endDate) {
+        this.habitId = habitId;
+        setBounds(startDate, endDate);
+    }
+    
+    public void setBounds(LocalDate startDate, LocalDate endDate) {
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.length = (int) ChronoUnit.DAYS.between(startDate, endDate) + 1;
+    }
+    
+    public boolean contains(LocalDate date) {
+        return !date.isBefore(startDate) && !date.isAfter(endDate);
+    }
+    
+    // Getters and Setters
+    public UUID getId() {
+        return id;
+    }
+    
+    public void setId(UUID id) {
+        this.id = id;
+    }
+    
+    public UUID getHabitId() {
+        return habitId;
+    }
+    
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+    
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+    
+    public Integer getLength() {
+        return length;
+    }
+}
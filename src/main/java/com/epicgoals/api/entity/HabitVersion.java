@@ -0,0 +1,133 @@
+// ABOUT_ME: This file defines the HabitVersion entity, a superseded definition of a habit and the days it applied
+// ABOUT_ME: Scoring a past week uses the definition in effect then, so later habit edits never change old scores
+package com.epicgoals.api.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+@Entity
+@Table(name = "habit_versions",
+       indexes = {
+           @Index(name = "idx_habit_versions_user_to", columnList = "user_id, effective_to"),
+           @Index(name = "idx_habit_versions_habit", columnList = "habit_id"),
+           @Index(name = "idx_habit_versions_category", columnList = "category_id")
+       })
+public class HabitVersion {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "habit_id", nullable = false)
+    private UUID habitId;
+    
+    // Read-only associations so the schema carries the foreign keys; writes go through the id fields
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "habit_id", insertable = false, updatable = false)
+    private Habit habit;
+    
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", insertable = false, updatable = false)
+    private User user;
+    
+    @Column(name = "category_id", nullable = false)
+    private UUID categoryId;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "category_id", insertable = false, updatable = false)
+    private Category category;
+    
+    @Column(nullable = false)
+    private Integer frequency;
+    
+    @Column(nullable = false)
+    private Boolean active;
+    
+    // Inclusive
+    @Column(name = "effective_from", nullable = false)
+    private LocalDate effectiveFrom;
+    
+    // Exclusive: the day the next definition took effect
+    @Column(name = "effective_to", nullable = false)
+    private LocalDate effectiveTo;
+    
+    // Default constructor
+    public HabitVersion() {}
+    
+    // Captures the habit's current definition as ending on the given day
+    public HabitVersion(Habit habit, LocalDate effectiveTo) {
+        this.habitId = habit.getId();
+        this.userId = habit.getUser().getId();
+        this.categoryId = habit.getCategory().getId();
+        this.frequency = habit.getFrequency();
+        this.active = habit.getIsActive();
+        this.effectiveFrom = habit.getEffectiveFrom();
+        this.effectiveTo = effectiveTo;
+    }
+    
+    // Getters and setters
+    public Long getId() {
+        return id;
+    }
+    
+    public UUID getHabitId() {
+        return habitId;
+    }
+    
+    public void setHabitId(UUID habitId) {
+        this.habitId = habitId;
+    }
+    
+    public UUID getUserId() {
+        return userId;
+    }
+    
+    public void setUserId(UUID userId) {
+        this.userId = userId;
+    }
+    
+    public UUID getCategoryId() {
+        return categoryId;
+    }
+    
+    public void setCategoryId(UUID categoryId) {
+        this.categoryId = categoryId;
+    }
+    
+    public Integer getFrequency() {
+        return frequency;
+    }
+    
+    public void setFrequency(Integer frequency) {
+        this.frequency = frequency;
+    }
+    
+    public Boolean getActive() {
+        return active;
+    }
+    
+    public void setActive(Boolean active) {
+        this.active = active;
+    }
+    
+    public LocalDate getEffectiveFrom() {
+        return effectiveFrom;
+    }
+    
+    public void setEffectiveFrom(LocalDate effectiveFrom) {
+        this.effectiveFrom = effectiveFrom;
+    }
+    
+    public LocalDate getEffectiveTo() {
+        return effectiveTo;
+    }
+    
+    public void setEffectiveTo(LocalDate effectiveTo) {
+        this.effectiveTo = effectiveTo;
+    }
+}
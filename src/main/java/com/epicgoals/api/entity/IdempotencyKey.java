@@ -0,0 +1,64 @@
+// ABOUT_ME: This file defines the IdempotencyKey entity recording client request keys and the results they produced
+// ABOUT_ME: A replay of a user's key within its lifetime gets the stored result instead of being applied again
+package com.epicgoals.api.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Entity
+@Table(name = "idempotency_keys",
+       uniqueConstraints = @UniqueConstraint(name = "uk_idempotency_keys_user_key", columnNames = {"user_id", "idempotency_key"}),
+       indexes = @Index(name = "idx_idempotency_keys_created_at", columnList = "created_at"))
+public class IdempotencyKey {
+    
+    @Id
+    @Column(nullable = false)
+    private UUID id;
+    
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+    
+    @Column(name = "idempotency_key", nullable = false, length = 64)
+    private String key;
+    
+    // SHA-256 of the operation and its parameters, so the key cannot be reused for a different request
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+    
+    // JSON of the result; empty until the request that claimed the key commits
+    @Column(columnDefinition = "TEXT")
+    private String response;
+    
+    // Keys are honoured for a fixed time after this, then purged and free to be claimed again
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+    
+    public IdempotencyKey() {}
+    
+    // Getters
+    public UUID getId() {
+        return id;
+    }
+    
+    public UUID getUserId() {
+        return userId;
+    }
+    
+    public String getKey() {
+        return key;
+    }
+    
+    public String getRequestHash() {
+        return requestHash;
+    }
+    
+    public String getResponse() {
+        return response;
+    }
+    
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
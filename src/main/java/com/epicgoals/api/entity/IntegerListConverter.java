@@ -0,0 +1,43 @@
+// ABOUT_ME: JPA converter storing a list of nullable integers as a comma-separated string
+// ABOUT_ME: Used for fixed-size counters and rolling score windows that are always read as a whole
+package com.epicgoals.api.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Converter
+public class IntegerListConverter implements AttributeConverter<List<Integer>, String> {
+
+    @Override
+    public String convertToDatabaseColumn(List<Integer> values) {
+        if (values == null) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            // Empty token marks a missing value
+            if (values.get(i) != null) {
+                sb.append(values.get(i));
+            }
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public List<Integer> convertToEntityAttribute(String column) {
+        List<Integer> values = new ArrayList<>();
+        if (column == null || column.isEmpty()) {
+            return values;
+        }
+        for (String token : column.split(",", -1)) {
+            values.add(token.isEmpty() ? null : Integer.valueOf(token));
+        }
+        return values;
+    }
+}
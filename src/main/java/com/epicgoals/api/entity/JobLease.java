@@ -0,0 +1,85 @@
+// ABOUT_ME: This file defines the JobLease entity, a time-limited claim by one API instance on a job, job shard or node heartbeat
+// ABOUT_ME: Every takeover increments the fencing token so work done under a lost lease can be told apart and stopped
+package com.epicgoals.api.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "job_leases",
+       indexes = {
+           @Index(name = "idx_job_leases_expires_at", columnList = "expires_at")
+       })
+public class JobLease {
+
+    // Job name, job name and shard ("week-rollover#3"), or "node:" plus an instance id for heartbeats
+    @Id
+    @Column(length = 200)
+    private String name;
+
+    // Instance currently holding the lease; null once released
+    @Column(length = 100)
+    private String owner;
+
+    @Column(name = "fencing_token", nullable = false)
+    private long fencingToken;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    // Run of a sharded job this shard was last finished for, so a shard is never processed twice in one run
+    @Column(name = "completed_run", length = 100)
+    private String completedRun;
+
+    // Default constructor
+    public JobLease() {}
+
+    public JobLease(String name, String owner, Instant expiresAt) {
+        this.name = name;
+        this.owner = owner;
+        this.fencingToken = 1L;
+        this.expiresAt = expiresAt;
+    }
+
+    // Getters and setters
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public long getFencingToken() {
+        return fencingToken;
+    }
+
+    public void setFencingToken(long fencingToken) {
+        this.fencingToken = fencingToken;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public String getCompletedRun() {
+        return completedRun;
+    }
+
+    public void setCompletedRun(String completedRun) {
+        this.completedRun = completedRun;
+    }
+}
@@ -0,0 +1,98 @@
+// ABOUT_ME: This file defines the LeaderboardEntry entity, one member's weekly score as seen on one viewer's board
+// ABOUT_ME: Rows are fanned out to the member and all accepted friends when the score changes, so a board is one indexed read
+package com.epicgoals.api.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+
+@Entity
+@Table(name = "leaderboard_entries",
+       uniqueConstraints = @UniqueConstraint(name = "uk_leaderboard_entries_viewer_week_member",
+                                             columnNames = {"viewer_id", "week_start_date", "member_id"}),
+       indexes = {
+           @Index(name = "idx_leaderboard_entries_board", columnList = "viewer_id, week_start_date, score"),
+           @Index(name = "idx_leaderboard_entries_member_week", columnList = "member_id, week_start_date")
+       })
+public class LeaderboardEntry {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+    
+    @Column(name = "viewer_id", nullable = false)
+    private UUID viewerId;
+    
+    @Column(name = "member_id", nullable = false)
+    private UUID memberId;
+    
+    // Read-only associations so the schema carries the foreign keys; rows are written by native upserts
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "viewer_id", insertable = false, updatable = false)
+    private User viewer;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "member_id", insertable = false, updatable = false)
+    private User member;
+    
+    // Copied from the member so rendering the board needs no join
+    @Column(name = "member_email", nullable = false)
+    private String memberEmail;
+    
+    @Column(name = "week_start_date", nullable = false)
+    private LocalDate weekStartDate;
+    
+    @Column(nullable = false)
+    private Integer score;
+    
+    @Column(name = "completed_habits", nullable = false)
+    private Integer completedHabits;
+    
+    @Column(name = "total_habits", nullable = false)
+    private Integer totalHabits;
+    
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+    
+    // Default constructor
+    public LeaderboardEntry() {}
+    
+    // Getters
+    public UUID getId() {
+        return id;
+    }
+    
+    public UUID getViewerId() {
+        return viewerId;
+    }
+    
+    public UUID getMemberId() {
+        return memberId;
+    }
+    
+    public String getMemberEmail() {
+        return memberEmail;
+    }
+    
+    public LocalDate getWeekStartDate() {
+        return weekStartDate;
+    }
+    
+    public Integer getScore() {
+        return score;
+    }
+    
+    public Integer getCompletedHabits() {
+        return completedHabits;
+    }
+    
+    public Integer getTotalHabits() {
+        return totalHabits;
+    }
+    
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+}
@@ -0,0 +1,121 @@
+// ABOUT_ME: This file defines the OutboxEvent entity, a domain event recorded in the same transaction as the write that raised it
+// ABOUT_ME: A background dispatcher delivers pending events to their handlers in id order per user
+package com.epicgoals.api.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Entity
+@Table(name = "outbox_events",
+       indexes = {
+           @Index(name = "idx_outbox_events_status_id", columnList = "status, id"),
+           @Index(name = "idx_outbox_events_user_status_id", columnList = "user_id, status, id")
+       })
+public class OutboxEvent {
+    
+    // Increasing ids give insertion order, which delivery follows within each user
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+    
+    @Column(name = "event_type", nullable = false, length = 100)
+    private String eventType;
+    
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private OutboxStatus status = OutboxStatus.PENDING;
+    
+    @Column(nullable = false)
+    private Integer attempts = 0;
+    
+    // Earliest time the next delivery attempt may run; pushed back on each failure
+    @Column(name = "available_at", nullable = false)
+    private Instant availableAt;
+    
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+    
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+    
+    @Column(name = "processed_at")
+    private Instant processedAt;
+    
+    // Default constructor
+    public OutboxEvent() {}
+    
+    // Constructor for recording events
+    public OutboxEvent(UUID userId, String eventType, String payload) {
+        this.userId = userId;
+        this.eventType = eventType;
+        this.payload = payload;
+        this.availableAt = Instant.now();
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public UUID getUserId() {
+        return userId;
+    }
+    
+    public String getEventType() {
+        return eventType;
+    }
+    
+    public String getPayload() {
+        return payload;
+    }
+    
+    public OutboxStatus getStatus() {
+        return status;
+    }
+    
+    public void setStatus(OutboxStatus status) {
+        this.status = status;
+    }
+    
+    public Integer getAttempts() {
+        return attempts;
+    }
+    
+    public void setAttempts(Integer attempts) {
+        this.attempts = attempts;
+    }
+    
+    public Instant getAvailableAt() {
+        return availableAt;
+    }
+    
+    public void setAvailableAt(Instant availableAt) {
+        this.availableAt = availableAt;
+    }
+    
+    public String getLastError() {
+        return lastError;
+    }
+    
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+    
+    public Instant getProcessedAt() {
+        return processedAt;
+    }
+}
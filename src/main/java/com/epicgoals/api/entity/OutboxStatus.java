@@ -0,0 +1,9 @@
+// ABOUT_ME: This file defines the delivery states of an outbox event
+// ABOUT_ME: FAILED events exhausted their retries and are kept for inspection instead of blocking the user's queue
+package com.epicgoals.api.entity;
+
+public enum OutboxStatus {
+    PENDING,
+    PROCESSED,
+    FAILED
+}
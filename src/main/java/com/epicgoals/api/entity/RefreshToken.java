@@ -0,0 +1,116 @@
+// ABOUT_ME: This file defines the RefreshToken entity, one issued refresh token within a login session's rotation family
+// ABOUT_ME: Each refresh marks the presented token used and issues its successor; presenting a used token revokes the family
+package com.epicgoals.api.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Entity
+@Table(name = "refresh_tokens",
+       indexes = {
+           @Index(name = "idx_refresh_tokens_family", columnList = "family_id"),
+           @Index(name = "idx_refresh_tokens_user", columnList = "user_id"),
+           @Index(name = "idx_refresh_tokens_revoked_at", columnList = "revoked_at"),
+           @Index(name = "idx_refresh_tokens_expires_at", columnList = "expires_at")
+       })
+public class RefreshToken {
+    
+    // Signed into the token as its jti claim; generated on persist, before the token is signed
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+    
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+    
+    // Read-only association so the schema carries the foreign key; writes go through userId
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", insertable = false, updatable = false)
+    private User user;
+    
+    // Shared by every token rotated from the same login
+    @Column(name = "family_id", nullable = false)
+    private UUID familyId;
+    
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+    
+    @Column(name = "used_at")
+    private Instant usedAt;
+    
+    @Column(name = "revoked_at")
+    private Instant revokedAt;
+    
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+    
+    // Default constructor
+    public RefreshToken() {}
+    
+    public RefreshToken(UUID userId, UUID familyId, Instant expiresAt) {
+        this.userId = userId;
+        this.familyId = familyId;
+        this.expiresAt = expiresAt;
+    }
+    
+    // Getters and setters
+    public UUID getId() {
+        return id;
+    }
+    
+    public void setId(UUID id) {
+        this.id = id;
+    }
+    
+    public UUID getUserId() {
+        return userId;
+    }
+    
+    public void setUserId(UUID userId) {
+        this.userId = userId;
+    }
+    
+    public User getUser() {
+        return user;
+    }
+    
+    public UUID getFamilyId() {
+        return familyId;
+    }
+    
+    public void setFamilyId(UUID familyId) {
+        this.familyId = familyId;
+    }
+    
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+    
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+    
+    public Instant getUsedAt() {
+        return usedAt;
+    }
+    
+    public void setUsedAt(Instant usedAt) {
+        this.usedAt = usedAt;
+    }
+    
+    public Instant getRevokedAt() {
+        return revokedAt;
+    }
+    
+    public void setRevokedAt(Instant revokedAt) {
+        this.revokedAt = revokedAt;
+    }
+    
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -12,16 +12,22 @@ import java.time.Instant;
 import java.util.UUID;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users",
+       uniqueConstraints = @UniqueConstraint(name = User.EMAIL_CONSTRAINT, columnNames = "email"),
+       indexes = {
+           @Index(name = "idx_users_time_zone", columnList = "time_zone")
+       })
 public class User {
     
+    public static final String EMAIL_CONSTRAINT = "uk_users_email";
+    
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
     private UUID id;
     
     @Email
     @NotBlank
-    @Column(unique = true, nullable = false)
+    @Column(nullable = false)
     private String email;
     
     @NotBlank
@@ -39,6 +45,14 @@ public class User {
     @Column(columnDefinition = "TEXT")
     private String settings;
     
+    // IANA zone id copied from settings when they are saved, so week rollover can select users by zone
+    @Column(name = "time_zone", length = 64)
+    private String timeZone;
+    
+    // Bumped in the same transaction as every write to the user's data; only ever changed by that bulk update
+    @Column(name = "data_version", nullable = false, updatable = false)
+    private long dataVersion;
+    
     public User() {}
     
     public User(String email, String passwordHash) {
@@ -94,4 +108,16 @@ public class User {
     public void setSettings(String settings) {
         this.settings = settings;
     }
+    
+    public String getTimeZone() {
+        return timeZone;
+    }
+    
+    public void setTimeZone(String timeZone) {
+        this.timeZone = timeZone;
+    }
+    
+    public long getDataVersion() {
+        return dataVersion;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,194 @@
+// ABOUT_ME: This file defines the UserTrendStats entity holding precomputed rolling score aggregates per user
+// ABOUT_ME: Keeps bounded weekly windows updated on each snapshot write so trend reads never scan history
+package com.epicgoals.api.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+@Entity
+@Table(name = "user_trend_stats")
+public class UserTrendStats {
+    
+    @Id
+    @Column(name = "user_id")
+    private UUID userId;
+    
+    // Read-only association so the schema carries the foreign key; writes go through userId
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", insertable = false, updatable = false)
+    private User user;
+    
+    // Week start of the newest slot in the rolling windows
+    @Column(name = "window_end_week")
+    private LocalDate windowEndWeek;
+    
+    // Up to 52 weekly scores, oldest first; empty slots are weeks without a snapshot
+    @Convert(converter = IntegerListConverter.class)
+    @Column(name = "weekly_scores", length = 400)
+    private List<Integer> weeklyScores = new ArrayList<>();
+    
+    // JSON map of category id to its last 12 weekly scores, aligned with windowEndWeek
+    @Column(name = "category_scores", columnDefinition = "TEXT")
+    private String categoryScores;
+    
+    // Completed habit days per weekday, Monday first
+    @Convert(converter = IntegerListConverter.class)
+    @Column(name = "weekday_completions", length = 100)
+    private List<Integer> weekdayCompletions = new ArrayList<>(List.of(0, 0, 0, 0, 0, 0, 0));
+    
+    @Column(name = "moving_average_4")
+    private Double movingAverage4;
+    
+    @Column(name = "moving_average_12")
+    private Double movingAverage12;
+    
+    @Column(name = "moving_average_52")
+    private Double movingAverage52;
+    
+    // Least-squares slope of the last 12 weekly scores, in score points per week
+    @Column(name = "slope_12")
+    private Double slope12;
+    
+    @Column(name = "best_category_id")
+    private UUID bestCategoryId;
+    
+    @Column(name = "best_category_average")
+    private Double bestCategoryAverage;
+    
+    @Column(name = "worst_category_id")
+    private UUID worstCategoryId;
+    
+    @Column(name = "worst_category_average")
+    private Double worstCategoryAverage;
+    
+    @Version
+    @Column(nullable = false)
+    private Long version;
+    
+    @UpdateTimestamp
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+    
+    // Default constructor
+    public UserTrendStats() {}
+    
+    // Constructor for creating empty stats
+    public UserTrendStats(UUID userId) {
+        this.userId = userId;
+    }
+    
+    // Getters and Setters
+    public UUID getUserId() {
+        return userId;
+    }
+    
+    public LocalDate getWindowEndWeek() {
+        return windowEndWeek;
+    }
+    
+    public void setWindowEndWeek(LocalDate windowEndWeek) {
+        this.windowEndWeek = windowEndWeek;
+    }
+    
+    public List<Integer> getWeeklyScores() {
+        return weeklyScores;
+    }
+    
+    public void setWeeklyScores(List<Integer> weeklyScores) {
+        this.weeklyScores = weeklyScores;
+    }
+    
+    public String getCategoryScores() {
+        return categoryScores;
+    }
+    
+    public void setCategoryScores(String categoryScores) {
+        this.categoryScores = categoryScores;
+    }
+    
+    public List<Integer> getWeekdayCompletions() {
+        return weekdayCompletions;
+    }
+    
+    public void setWeekdayCompletions(List<Integer> weekdayCompletions) {
+        this.weekdayCompletions = weekdayCompletions;
+    }
+    
+    public Double getMovingAverage4() {
+        return movingAverage4;
+    }
+    
+    public void setMovingAverage4(Double movingAverage4) {
+        this.movingAverage4 = movingAverage4;
+    }
+    
+    public Double getMovingAverage12() {
+        return movingAverage12;
+    }
+    
+    public void setMovingAverage12(Double movingAverage12) {
+        this.movingAverage12 = movingAverage12;
+    }
+    
+    public Double getMovingAverage52() {
+        return movingAverage52;
+    }
+    
+    public void setMovingAverage52(Double movingAverage52) {
+        this.movingAverage52 = movingAverage52;
+    }
+    
+    public Double getSlope12() {
+        return slope12;
+    }
+    
+    public void setSlope12(Double slope12) {
+        this.slope12 = slope12;
+    }
+    
+    public UUID getBestCategoryId() {
+        return bestCategoryId;
+    }
+    
+    public void setBestCategoryId(UUID bestCategoryId) {
+        this.bestCategoryId = bestCategoryId;
+    }
+    
+    public Double getBestCategoryAverage() {
+        return bestCategoryAverage;
+    }
+    
+    public void setBestCategoryAverage(Double bestCategoryAverage) {
+        this.bestCategoryAverage = bestCategoryAverage;
+    }
+    
+    public UUID getWorstCategoryId() {
+        return worstCategoryId;
+    }
+    
+    public void setWorstCategoryId(UUID worstCategoryId) {
+        this.worstCategoryId = worstCategoryId;
+    }
+    
+    public Double getWorstCategoryAverage() {
+        return worstCategoryAverage;
+    }
+    
+    public void setWorstCategoryAverage(Double worstCategoryAverage) {
+        this.worstCategoryAverage = worstCategoryAverage;
+    }
+    
+    public Long getVersion() {
+        return version;
+    }
+    
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+}
@@ -11,11 +11,9 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "weekly_scores",
-       uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "week_start_date"}),
+       uniqueConstraints = @UniqueConstraint(name = "uk_weekly_scores_user_week", columnNames = {"user_id", "week_start_date"}),
        indexes = {
-           @Index(name = "idx_weekly_scores_user", columnList = "user_id"),
-           @Index(name = "idx_weekly_scores_week_start", columnList = "week_start_date"),
-           @Index(name = "idx_weekly_scores_user_week", columnList = "user_id, week_start_date")
+           @Index(name = "idx_weekly_scores_week_start", columnList = "week_start_date")
        })
 public class WeeklyScore {
     
@@ -39,6 +37,14 @@ public class WeeklyScore {
     @Column(name = "total_habits", nullable = false)
     private Integer totalHabits;
     
+    @Version
+    @Column(nullable = false)
+    private Long version;
+    
+    // Set once a habit that counted in this week is purged: recalculating would drop it, so the snapshot is final
+    @Column(nullable = false)
+    private boolean frozen;
+    
     @CreationTimestamp
     @Column(name = "calculated_at", nullable = false, updatable = false)
     private Instant calculatedAt;
@@ -105,6 +111,22 @@ public class WeeklyScore {
         this.totalHabits = totalHabits;
     }
     
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
+    public boolean isFrozen() {
+        return frozen;
+    }
+    
+    public void setFrozen(boolean frozen) {
+        this.frozen = frozen;
+    }
+    
     public Instant getCalculatedAt() {
         return calculatedAt;
     }
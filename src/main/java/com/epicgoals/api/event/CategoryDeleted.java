@@ -0,0 +1,8 @@
+// ABOUT_ME: Raised when a category is deleted and its habits are moved to another category
+// ABOUT_ME: Per-category aggregates such as the score breakdown are recalculated from it
+package com.epicgoals.api.event;
+
+import java.util.UUID;
+
+public record CategoryDeleted(UUID userId, UUID categoryId, UUID reassignedToCategoryId) implements DomainEvent {
+}
@@ -0,0 +1,37 @@
+// ABOUT_ME: Moves a deleted category's trend history to the category its habits were reassigned to
+// ABOUT_ME: Runs before the score recalculation for the same event, which then rewrites the current week exactly
+package com.epicgoals.api.event;
+
+import com.epicgoals.api.repository.UserRepository;
+import com.epicgoals.api.service.TrendService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+@Component
+@Order(1)
+public class CategoryTrendHandler implements DomainEventHandler {
+
+    private final TrendService trendService;
+    private final UserRepository userRepository;
+
+    @Autowired
+    public CategoryTrendHandler(TrendService trendService, UserRepository userRepository) {
+        this.trendService = trendService;
+        this.userRepository = userRepository;
+    }
+
+    @Override
+    public Set<Class<? extends DomainEvent>> eventTypes() {
+        return Set.of(CategoryDeleted.class);
+    }
+
+    @Override
+    public void handle(DomainEvent event) {
+        CategoryDeleted deleted = (CategoryDeleted) event;
+        trendService.reassignCategory(userRepository.getReferenceById(deleted.userId()),
+                deleted.categoryId(), deleted.reassignedToCategoryId());
+    }
+}
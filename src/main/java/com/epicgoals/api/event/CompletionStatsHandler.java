@@ -0,0 +1,47 @@
+// ABOUT_ME: Applies a completion change to the streak, trend and heatmap aggregates
+// ABOUT_ME: Trend and heatmap counters move only when the streak state actually changed, which makes redelivery a no-op
+package com.epicgoals.api.event;
+
+import com.epicgoals.api.repository.UserRepository;
+import com.epicgoals.api.service.HeatmapService;
+import com.epicgoals.api.service.StreakService;
+import com.epicgoals.api.service.TrendService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+@Component
+@Order(1)
+public class CompletionStatsHandler implements DomainEventHandler {
+
+    private final StreakService streakService;
+    private final TrendService trendService;
+    private final HeatmapService heatmapService;
+    private final UserRepository userRepository;
+
+    @Autowired
+    public CompletionStatsHandler(StreakService streakService, TrendService trendService,
+                                  HeatmapService heatmapService, UserRepository userRepository) {
+        this.streakService = streakService;
+        this.trendService = trendService;
+        this.heatmapService = heatmapService;
+        this.userRepository = userRepository;
+    }
+
+    @Override
+    public Set<Class<? extends DomainEvent>> eventTypes() {
+        return Set.of(HabitCompletionToggled.class);
+    }
+
+    @Override
+    public void handle(DomainEvent event) {
+        HabitCompletionToggled toggled = (HabitCompletionToggled) event;
+        if (streakService.applyCompletion(toggled.habitId(), toggled.date(), toggled.completed())) {
+            trendService.recordCompletionChange(userRepository.getReferenceById(toggled.userId()),
+                    toggled.date(), toggled.completed());
+            heatmapService.recordCompletionChange(toggled.habitId(), toggled.date(), toggled.completed());
+        }
+    }
+}
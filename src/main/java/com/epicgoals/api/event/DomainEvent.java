@@ -0,0 +1,11 @@
+// ABOUT_ME: A fact about a user's data that other parts of the system react to after the write commits
+// ABOUT_ME: Events are recorded to the outbox by the write services and delivered to handlers in order per user
+package com.epicgoals.api.event;
+
+import java.util.UUID;
+
+public sealed interface DomainEvent
+        permits HabitCompletionToggled, HabitChanged, GoalUpdated, GoalCompleted, CategoryDeleted {
+
+    UUID userId();
+}
@@ -0,0 +1,17 @@
+// ABOUT_ME: A consumer of domain events delivered from the outbox
+// ABOUT_ME: Handlers are Spring beans discovered by the dispatcher, so new consumers need no change to the write services
+// ABOUT_ME: and run in @Order order when one event has several handlers
+package com.epicgoals.api.event;
+
+import java.util.Set;
+
+public interface DomainEventHandler {
+
+    Set<Class<? extends DomainEvent>> eventTypes();
+
+    /**
+     * Runs in the same transaction that marks the event processed. Delivery is at least once,
+     * so handling an event twice must leave the same state as handling it once.
+     */
+    void handle(DomainEvent event);
+}
@@ -0,0 +1,35 @@
+// ABOUT_ME: Records domain events to the outbox table inside the caller's transaction
+// ABOUT_ME: The event is committed or rolled back together with the write that raised it
+package com.epicgoals.api.event;
+
+import com.epicgoals.api.entity.OutboxEvent;
+import com.epicgoals.api.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@Component
+public class DomainEventPublisher {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public DomainEventPublisher(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(DomainEvent event) {
+        try {
+            String payload = objectMapper.writeValueAsString(event);
+            outboxEventRepository.save(new OutboxEvent(event.userId(), event.getClass().getSimpleName(), payload));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Cannot serialize " + event.getClass().getSimpleName(), ex);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+// ABOUT_ME: Turns domain events into friends feed milestones: completed goals, streak milestones and perfect weeks
+// ABOUT_ME: Runs after the streak and score handlers so it sees the aggregates the same event just updated
+package com.epicgoals.api.event;
+
+import com.epicgoals.api.dto.HabitStreakDto;
+import com.epicgoals.api.entity.FeedActivityType;
+import com.epicgoals.api.entity.Habit;
+import com.epicgoals.api.entity.User;
+import com.epicgoals.api.repository.HabitRepository;
+import com.epicgoals.api.repository.UserRepository;
+import com.epicgoals.api.repository.WeeklyScoreRepository;
+import com.epicgoals.api.service.FeedService;
+import com.epicgoals.api.service.ScoreService;
+import com.epicgoals.api.service.StreakService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Set;
+
+@Component
+@Order(3)
+public class FeedMilestoneHandler implements DomainEventHandler {
+
+    static final Set<Integer> STREAK_MILESTONES = Set.of(7, 30, 100, 365);
+
+    private final FeedService feedService;
+    private final StreakService streakService;
+    private final ScoreService scoreService;
+    private final HabitRepository habitRepository;
+    private final WeeklyScoreRepository weeklyScoreRepository;
+    private final UserRepository userRepository;
+
+    @Autowired
+    public FeedMilestoneHandler(FeedService feedService, StreakService streakService, ScoreService scoreService,
+                                HabitRepository habitRepository, WeeklyScoreRepository weeklyScoreRepository,
+                                UserRepository userRepository) {
+        this.feedService = feedService;
+        this.streakService = streakService;
+        this.scoreService = scoreService;
+        this.habitRepository = habitRepository;
+        this.weeklyScoreRepository = weeklyScoreRepository;
+        this.userRepository = userRepository;
+    }
+
+    @Override
+    public Set<Class<? extends DomainEvent>> eventTypes() {
+        return Set.of(HabitCompletionToggled.class, GoalCompleted.class);
+    }
+
+    @Override
+    public void handle(DomainEvent event) {
+        switch (event) {
+            case GoalCompleted completed -> feedService.record(completed.userId(), FeedActivityType.GOAL_COMPLETED,
+                    "goal:" + completed.goalId(),
+                    Map.of("goalId", completed.goalId(), "goalName", completed.goalName()));
+            case HabitCompletionToggled toggled -> {
+                if (toggled.completed()) {
+                    recordStreakMilestone(toggled);
+                    recordPerfectWeek(toggled);
+                }
+            }
+            default -> { }
+        }
+    }
+
+    private void recordStreakMilestone(HabitCompletionToggled toggled) {
+        // Only the day that extends the current run counts, so back-filling older days posts nothing
+        HabitStreakDto streak = streakService.getStreak(toggled.userId(), toggled.habitId()).orElse(null);
+        if (streak == null || !STREAK_MILESTONES.contains(streak.currentStreak())
+                || !toggled.date().equals(streak.lastCompletedDate())) {
+            return;
+        }
+        int days = streak.currentStreak();
+        LocalDate runStart = streak.lastCompletedDate().minusDays(days - 1L);
+        String habitName = habitRepository.findById(toggled.habitId()).map(Habit::getName).orElse("");
+        feedService.record(toggled.userId(), FeedActivityType.STREAK_MILESTONE,
+                "streak:" + toggled.habitId() + ":" + runStart + ":" + days,
+                Map.of("habitId", toggled.habitId(), "habitName", habitName, "days", days));
+    }
+
+    private void recordPerfectWeek(HabitCompletionToggled toggled) {
+        User user = userRepository.getReferenceById(toggled.userId());
+        LocalDate weekStart = scoreService.getCurrentWeekStart(user);
+        if (toggled.date().isBefore(weekStart)) {
+            return;
+        }
+        weeklyScoreRepository.findByUserAndWeekStartDate(user, weekStart)
+                .filter(score -> score.getTotalHabits() > 0 && score.getScore() >= 100)
+                .ifPresent(score -> feedService.record(toggled.userId(), FeedActivityType.PERFECT_WEEK,
+                        "perfect-week:" + weekStart,
+                        Map.of("weekStartDate", weekStart.toString(), "score", score.getScore())));
+    }
+}
@@ -0,0 +1,8 @@
+// ABOUT_ME: Raised when an update brings a goal's progress to 100 percent
+// ABOUT_ME: Carries the goal name so consumers such as the activity feed need not load the goal
+package com.epicgoals.api.event;
+
+import java.util.UUID;
+
+public record GoalCompleted(UUID userId, UUID goalId, String goalName) implements DomainEvent {
+}
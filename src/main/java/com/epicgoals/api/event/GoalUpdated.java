@@ -0,0 +1,10 @@
+// ABOUT_ME: Raised when a goal is created, updated or deleted
+// ABOUT_ME: Devices use it to refresh the goal instead of polling the goal lists
+package com.epicgoals.api.event;
+
+import java.util.UUID;
+
+public record GoalUpdated(UUID userId, UUID goalId, Change change) implements DomainEvent {
+
+    public enum Change { CREATED, UPDATED, DELETED }
+}
@@ -0,0 +1,10 @@
+// ABOUT_ME: Raised when a habit is created, updated or deleted
+// ABOUT_ME: Anything that depends on the set of active habits, such as the weekly score, reacts to it
+package com.epicgoals.api.event;
+
+import java.util.UUID;
+
+public record HabitChanged(UUID userId, UUID habitId, Change change) implements DomainEvent {
+
+    public enum Change { CREATED, UPDATED, DELETED }
+}
@@ -0,0 +1,10 @@
+// ABOUT_ME: Raised when a habit completion is toggled or set, carrying the resulting state
+// ABOUT_ME: Carries the final state rather than a delta so redelivery after a failure is harmless
+package com.epicgoals.api.event;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+public record HabitCompletionToggled(UUID userId, UUID habitId, LocalDate date, boolean completed)
+        implements DomainEvent {
+}
@@ -0,0 +1,170 @@
+// ABOUT_ME: Delivers pending outbox events to their handlers in batches, preserving order per user
+// ABOUT_ME: Failed events are retried with exponential backoff and later events of the same user wait behind them
+package com.epicgoals.api.event;
+
+import com.epicgoals.api.entity.OutboxEvent;
+import com.epicgoals.api.entity.OutboxStatus;
+import com.epicgoals.api.job.JobCoordinator.Checkpoint;
+import com.epicgoals.api.job.JobCoordinator.LeaseLostException;
+import com.epicgoals.api.repository.OutboxEventRepository;
+import com.epicgoals.api.service.UserDataVersionService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+@Component
+public class OutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+    private final UserDataVersionService dataVersionService;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, Class<? extends DomainEvent>> eventTypes = new HashMap<>();
+    private final Map<Class<? extends DomainEvent>, List<DomainEventHandler>> handlers = new HashMap<>();
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long backoffMillis;
+
+    @Autowired
+    public OutboxDispatcher(OutboxEventRepository outboxEventRepository,
+                            ObjectMapper objectMapper,
+                            UserDataVersionService dataVersionService,
+                            PlatformTransactionManager transactionManager,
+                            List<DomainEventHandler> handlers,
+                            @Value("${app.outbox.batch-size:100}") int batchSize,
+                            @Value("${app.outbox.max-attempts:10}") int maxAttempts,
+                            @Value("${app.outbox.backoff-ms:1000}") long backoffMillis) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.objectMapper = objectMapper;
+        this.dataVersionService = dataVersionService;
+        // Joins a caller's transaction if there is one; the scheduled poller has none, so each event commits alone
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMillis = backoffMillis;
+
+        for (Class<?> type : DomainEvent.class.getPermittedSubclasses()) {
+            eventTypes.put(type.getSimpleName(), type.asSubclass(DomainEvent.class));
+        }
+        for (DomainEventHandler handler : handlers) {
+            for (Class<? extends DomainEvent> type : handler.eventTypes()) {
+                this.handlers.computeIfAbsent(type, t -> new ArrayList<>()).add(handler);
+            }
+        }
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Delivers one batch of pending events in id order and returns how many were processed.
+     * Users whose head event is waiting out its backoff are left out of the batch; once an event
+     * of a user fails, the user's later events in the batch are skipped so handlers never observe
+     * them out of order. Per-user order across instances rests on the dispatch lease: every delivery
+     * is fenced with the checkpoint, so an instance that lost the lease stops before delivering again.
+     */
+    public int dispatchPending(Checkpoint checkpoint) {
+        checkpoint.check();
+        Instant now = Instant.now();
+        List<OutboxEvent> batch = outboxEventRepository.findPending(now, PageRequest.of(0, batchSize));
+        Set<UUID> blockedUsers = new HashSet<>();
+        int processed = 0;
+
+        for (OutboxEvent event : batch) {
+            if (blockedUsers.contains(event.getUserId())) {
+                continue;
+            }
+            if (event.getAvailableAt().isAfter(now)) {
+                blockedUsers.add(event.getUserId());
+                continue;
+            }
+            try {
+                if (Boolean.TRUE.equals(transactionTemplate.execute(status -> deliver(event, checkpoint)))) {
+                    processed++;
+                }
+            } catch (LeaseLostException ex) {
+                throw ex;
+            } catch (RuntimeException ex) {
+                blockedUsers.add(event.getUserId());
+                recordFailure(event, ex, checkpoint);
+            }
+        }
+        return processed;
+    }
+
+    // Marks the event first: if that matches nothing it was already delivered, and its handlers must not run
+    // again. A handler failure rolls the mark back with everything else
+    private boolean deliver(OutboxEvent outboxEvent, Checkpoint checkpoint) {
+        checkpoint.fence();
+        if (outboxEventRepository.markProcessed(outboxEvent.getId(), Instant.now()) == 0) {
+            log.debug("Outbox event {} was already delivered", outboxEvent.getId());
+            return false;
+        }
+        DomainEvent event = deserialize(outboxEvent);
+        for (DomainEventHandler handler : handlers.getOrDefault(event.getClass(), List.of())) {
+            handler.handle(event);
+        }
+        // Handlers refresh derived data (streaks, scores, trends), so cached ETags for the user are now stale
+        dataVersionService.markChanged(outboxEvent.getUserId());
+        return true;
+    }
+
+    private DomainEvent deserialize(OutboxEvent outboxEvent) {
+        Class<? extends DomainEvent> type = eventTypes.get(outboxEvent.getEventType());
+        if (type == null) {
+            throw new IllegalStateException("Unknown event type " + outboxEvent.getEventType());
+        }
+        try {
+            return objectMapper.readValue(outboxEvent.getPayload(), type);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Cannot read " + outboxEvent.getEventType() + " payload", ex);
+        }
+    }
+
+    private void recordFailure(OutboxEvent event, RuntimeException cause, Checkpoint checkpoint) {
+        int attempts = event.getAttempts() + 1;
+        OutboxStatus status = attempts >= maxAttempts ? OutboxStatus.FAILED : OutboxStatus.PENDING;
+        // Exponential backoff capped at 2^10 times the base delay
+        long delay = backoffMillis << Math.min(attempts - 1, 10);
+        String error = String.valueOf(cause.getMessage());
+        if (error.length() > MAX_ERROR_LENGTH) {
+            error = error.substring(0, MAX_ERROR_LENGTH);
+        }
+
+        if (status == OutboxStatus.FAILED) {
+            log.error("Giving up on outbox event {} ({}) after {} attempts", event.getId(), event.getEventType(), attempts, cause);
+        } else {
+            log.warn("Outbox event {} ({}) failed, attempt {}/{}: {}", event.getId(), event.getEventType(),
+                    attempts, maxAttempts, cause.getMessage());
+        }
+
+        String lastError = error;
+        transactionTemplate.executeWithoutResult(tx -> {
+            checkpoint.fence();
+            outboxEventRepository.recordFailure(
+                    event.getId(), status, attempts, Instant.now().plus(Duration.ofMillis(delay)), lastError);
+        });
+    }
+}
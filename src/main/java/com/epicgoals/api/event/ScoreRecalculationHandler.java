@@ -0,0 +1,36 @@
+// ABOUT_ME: Recalculates the current week's score after completions, habits or categories change
+// ABOUT_ME: Recalculation is rebuilt from source data, so redelivered events are harmless
+package com.epicgoals.api.event;
+
+import com.epicgoals.api.repository.UserRepository;
+import com.epicgoals.api.service.ScoreService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+@Component
+@Order(2)
+public class ScoreRecalculationHandler implements DomainEventHandler {
+
+    private final ScoreService scoreService;
+    private final UserRepository userRepository;
+
+    @Autowired
+    public ScoreRecalculationHandler(ScoreService scoreService, UserRepository userRepository) {
+        this.scoreService = scoreService;
+        this.userRepository = userRepository;
+    }
+
+    @Override
+    public Set<Class<? extends DomainEvent>> eventTypes() {
+        return Set.of(HabitCompletionToggled.class, HabitChanged.class, CategoryDeleted.class);
+    }
+
+    @Override
+    public void handle(DomainEvent event) {
+        // Scoring only needs the user's id, so a reference avoids loading the row
+        scoreService.recalculateCurrentWeek(userRepository.getReferenceById(event.userId()));
+    }
+}
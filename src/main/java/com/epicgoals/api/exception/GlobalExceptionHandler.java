@@ -4,6 +4,7 @@ package com.epicgoals.api.exception;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -79,4 +80,28 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                 .body(Map.of("error", error));
     }
-}
\ No newline at end of file
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, Object>> handleOptimisticLockingFailure(OptimisticLockingFailureException ex) {
+        Map<String, Object> error = Map.of(
+                "code", "CONFLICT",
+                "message", "The resource was modified concurrently, reload and try again",
+                "timestamp", Instant.now().toString()
+        );
+
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("error", error));
+    }
+
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    public ResponseEntity<Map<String, Object>> handleIdempotencyKeyReused(IdempotencyKeyReusedException ex) {
+        Map<String, Object> error = Map.of(
+                "code", "IDEMPOTENCY_KEY_REUSED",
+                "message", ex.getMessage(),
+                "timestamp", Instant.now().toString()
+        );
+
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                .body(Map.of("error", error));
+    }
+}
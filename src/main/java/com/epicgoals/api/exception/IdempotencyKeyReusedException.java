@@ -0,0 +1,10 @@
+// ABOUT_ME: Thrown when a client sends an Idempotency-Key it already used for a different request
+// ABOUT_ME: Mapped to 422 so the new request is neither applied nor answered with the other request's result
+package com.epicgoals.api.exception;
+
+public class IdempotencyKeyReusedException extends RuntimeException {
+
+    public IdempotencyKeyReusedException() {
+        super("Idempotency-Key was already used for a different request");
+    }
+}
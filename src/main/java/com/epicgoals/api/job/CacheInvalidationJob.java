@@ -0,0 +1,34 @@
+// ABOUT_ME: Sends this instance's batched cache evictions and applies those received from other instances
+// ABOUT_ME: Also drops expired cache entries so values whose invalidation was missed do not linger in memory
+package com.epicgoals.api.job;
+
+import com.epicgoals.api.cache.CacheInvalidationBus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class CacheInvalidationJob {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheInvalidationJob.class);
+
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    public CacheInvalidationJob(CacheInvalidationBus cacheInvalidationBus) {
+        this.cacheInvalidationBus = cacheInvalidationBus;
+    }
+
+    // Evictions made within one interval go out together, so a burst of writes costs a single message
+    @Scheduled(fixedDelayString = "${app.cache.invalidation.flush-ms:100}")
+    public void exchangeInvalidations() {
+        cacheInvalidationBus.flush();
+        cacheInvalidationBus.poll();
+    }
+
+    @Scheduled(fixedDelayString = "${app.cache.prune-ms:60000}")
+    public void evictExpired() {
+        int evicted = cacheInvalidationBus.evictExpired();
+        log.debug("Evicted {} expired cache entries", evicted);
+    }
+}
@@ -0,0 +1,175 @@
+// ABOUT_ME: Maintains monthly range partitions of the habit_completions table on PostgreSQL
+// ABOUT_ME: Converts the Hibernate-created table to a partitioned one before the application serves requests and creates partitions ahead of time
+package com.epicgoals.api.job;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+public class CompletionPartitionJob implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(CompletionPartitionJob.class);
+
+    static final String TABLE = "habit_completions";
+    private static final String LEGACY_TABLE = TABLE + "_unpartitioned";
+    static final String DEFAULT_PARTITION = TABLE + "_default";
+    // Serializes partition DDL across instances, including ones starting while another runs the schedule
+    private static final String LOCK_KEY = "habit_completions_partitioning";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final JobCoordinator jobCoordinator;
+    private final int monthsAhead;
+
+    public CompletionPartitionJob(JdbcTemplate jdbcTemplate,
+                                  TransactionTemplate transactionTemplate,
+                                  JobCoordinator jobCoordinator,
+                                  @Value("${app.partitioning.months-ahead:3}") int monthsAhead) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.jobCoordinator = jobCoordinator;
+        this.monthsAhead = monthsAhead;
+    }
+
+    /**
+     * Runs the conversion once Hibernate has created the schema and before the web server starts, so no
+     * request reaches the table mid-conversion. Instances starting together wait on one lock: the first
+     * converts, the others find the table partitioned and start after it.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!isPostgres()) {
+            log.debug("Skipping habit_completions partitioning: database is not PostgreSQL");
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            lockPartitioning();
+            convertToPartitionedTable();
+            createUpcomingPartitions();
+        });
+    }
+
+    @Scheduled(cron = "${app.partitioning.cron:0 0 3 * * *}")
+    public void ensureUpcomingPartitions() {
+        if (!isPostgres()) {
+            return;
+        }
+        jobCoordinator.runExclusive("completion-partitioning", () -> transactionTemplate.executeWithoutResult(status -> {
+            lockPartitioning();
+            createUpcomingPartitions();
+        }));
+    }
+
+    private void lockPartitioning() {
+        jdbcTemplate.queryForList("SELECT pg_advisory_xact_lock(hashtext(?))", LOCK_KEY);
+    }
+
+    private void createUpcomingPartitions() {
+        for (YearMonth month : monthsToEnsure(YearMonth.now(), monthsAhead)) {
+            createPartition(month);
+        }
+    }
+
+    /**
+     * Creates the month's partition. Back-dated or far-future rows for the month may already sit in the
+     * default partition, which PostgreSQL refuses to re-check on create; those rows are moved into the
+     * new partition while the default is detached.
+     */
+    private void createPartition(YearMonth month) {
+        if (Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class,
+                partitionName(month)))) {
+            return;
+        }
+        Boolean defaultHasRows = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM " + DEFAULT_PARTITION + " WHERE date >= ? AND date < ?)", Boolean.class,
+                Date.valueOf(month.atDay(1)), Date.valueOf(month.plusMonths(1).atDay(1)));
+        List<String> statements = Boolean.TRUE.equals(defaultHasRows)
+                ? createPartitionFromDefaultSql(month)
+                : List.of(createPartitionSql(month));
+        if (statements.size() > 1) {
+            log.info("Moving rows for {} from {} into {}", month, DEFAULT_PARTITION, partitionName(month));
+        }
+        statements.forEach(jdbcTemplate::execute);
+    }
+
+    private void convertToPartitionedTable() {
+        String relkind = jdbcTemplate.queryForObject(
+                "SELECT c.relkind::text FROM pg_class c WHERE c.oid = to_regclass(?)", String.class, TABLE);
+        if ("p".equals(relkind)) {
+            return;
+        }
+
+        log.info("Converting {} to a monthly range-partitioned table", TABLE);
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " RENAME TO " + LEGACY_TABLE);
+        jdbcTemplate.execute("CREATE TABLE " + TABLE + " (LIKE " + LEGACY_TABLE + " INCLUDING DEFAULTS) PARTITION BY RANGE (date)");
+        // Catches back-dated rows older than the first monthly partition
+        jdbcTemplate.execute("CREATE TABLE " + DEFAULT_PARTITION + " PARTITION OF " + TABLE + " DEFAULT");
+
+        // Cover every month that already holds data so the default partition stays empty
+        Date earliest = jdbcTemplate.queryForObject("SELECT MIN(date) FROM " + LEGACY_TABLE, Date.class);
+        YearMonth first = earliest != null ? YearMonth.from(earliest.toLocalDate()) : YearMonth.now();
+        for (YearMonth month = first; month.isBefore(YearMonth.now()); month = month.plusMonths(1)) {
+            jdbcTemplate.execute(createPartitionSql(month));
+        }
+        for (YearMonth month : monthsToEnsure(YearMonth.now(), monthsAhead)) {
+            jdbcTemplate.execute(createPartitionSql(month));
+        }
+
+        jdbcTemplate.execute("INSERT INTO " + TABLE + " SELECT * FROM " + LEGACY_TABLE);
+        jdbcTemplate.execute("DROP TABLE " + LEGACY_TABLE);
+
+        // Unique keys on a partitioned table must include the partition key (date)
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD CONSTRAINT " + TABLE + "_pkey PRIMARY KEY (id, date)");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD CONSTRAINT uk_habit_completions_habit_date UNIQUE (habit_id, date)");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD CONSTRAINT fk_habit_completions_habit "
+                + "FOREIGN KEY (habit_id) REFERENCES habits (id)");
+        jdbcTemplate.execute("CREATE INDEX idx_habit_completions_completed ON " + TABLE
+                + " (habit_id, date) WHERE completed = true");
+    }
+
+    private boolean isPostgres() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        return "PostgreSQL".equalsIgnoreCase(product);
+    }
+
+    static List<YearMonth> monthsToEnsure(YearMonth current, int monthsAhead) {
+        List<YearMonth> months = new ArrayList<>(monthsAhead + 1);
+        for (int i = 0; i <= monthsAhead; i++) {
+            months.add(current.plusMonths(i));
+        }
+        return months;
+    }
+
+    static String partitionName(YearMonth month) {
+        return String.format("%s_y%04dm%02d", TABLE, month.getYear(), month.getMonthValue());
+    }
+
+    static String createPartitionSql(YearMonth month) {
+        return "CREATE TABLE IF NOT EXISTS " + partitionName(month) + " PARTITION OF " + TABLE
+                + " FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')";
+    }
+
+    // Runs in one transaction, so writers wait on the table lock rather than find no partition for the rows
+    static List<String> createPartitionFromDefaultSql(YearMonth month) {
+        String range = "date >= '" + month.atDay(1) + "' AND date < '" + month.plusMonths(1).atDay(1) + "'";
+        return List.of(
+                "ALTER TABLE " + TABLE + " DETACH PARTITION " + DEFAULT_PARTITION,
+                createPartitionSql(month),
+                "INSERT INTO " + partitionName(month) + " SELECT * FROM " + DEFAULT_PARTITION + " WHERE " + range,
+                "DELETE FROM " + DEFAULT_PARTITION + " WHERE " + range,
+                "ALTER TABLE " + TABLE + " ATTACH PARTITION " + DEFAULT_PARTITION + " DEFAULT");
+    }
+}
@@ -0,0 +1,64 @@
+// ABOUT_ME: Hourly closes 12-week cycles that have ended in their user's time zone and computes their review summaries
+// ABOUT_ME: Works in batches within user-id shards, so instances share the load and no transaction runs long
+package com.epicgoals.api.job;
+
+import com.epicgoals.api.dto.UserIdRange;
+import com.epicgoals.api.job.JobCoordinator.Checkpoint;
+import com.epicgoals.api.service.CycleService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Component
+public class CycleCloseJob {
+
+    private static final Logger log = LoggerFactory.getLogger(CycleCloseJob.class);
+
+    private final CycleService cycleService;
+    private final JobCoordinator jobCoordinator;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int shards;
+
+    public CycleCloseJob(CycleService cycleService, JobCoordinator jobCoordinator,
+                         TransactionTemplate transactionTemplate,
+                         @Value("${app.cycles.batch-size:200}") int batchSize,
+                         @Value("${app.jobs.shards:16}") int shards) {
+        this.cycleService = cycleService;
+        this.jobCoordinator = jobCoordinator;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.shards = shards;
+    }
+
+    // Hourly, so each zone's cycles close shortly after its own midnight
+    @Scheduled(cron = "${app.cycles.close-cron:0 20 * * * *}")
+    public void closeEnded() {
+        Instant now = Instant.now();
+        AtomicInteger closed = new AtomicInteger();
+        jobCoordinator.runSharded("cycle-close", now.truncatedTo(ChronoUnit.HOURS).toString(), shards,
+                (users, checkpoint) -> closed.addAndGet(closeEnded(now, users, checkpoint)));
+        log.info("Closed {} cycles ended by {}", closed.get(), now);
+    }
+
+    private int closeEnded(Instant now, UserIdRange users, Checkpoint checkpoint) {
+        int closed = 0;
+        int batch;
+        do {
+            checkpoint.check();
+            batch = transactionTemplate.execute(status -> {
+                checkpoint.fence();
+                return cycleService.closeEndedCycles(now, users, batchSize);
+            });
+            closed += batch;
+        } while (batch == batchSize);
+        return closed;
+    }
+}
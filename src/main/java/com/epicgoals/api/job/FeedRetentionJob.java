@@ -0,0 +1,59 @@
+// ABOUT_ME: Periodically deletes feed activities and their timeline rows past the retention window
+// ABOUT_ME: Fan-out writes one row per friend per activity, so the feed only keeps recent history
+package com.epicgoals.api.job;
+
+import com.epicgoals.api.job.JobCoordinator.Checkpoint;
+import com.epicgoals.api.service.FeedService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+
+@Component
+public class FeedRetentionJob {
+
+    private static final Logger log = LoggerFactory.getLogger(FeedRetentionJob.class);
+
+    private final FeedService feedService;
+    private final JobCoordinator jobCoordinator;
+    private final TransactionTemplate transactionTemplate;
+    private final int retentionDays;
+    private final int batchSize;
+
+    public FeedRetentionJob(FeedService feedService,
+                            JobCoordinator jobCoordinator,
+                            TransactionTemplate transactionTemplate,
+                            @Value("${app.feed.retention-days:90}") int retentionDays,
+                            @Value("${app.feed.purge-batch-size:1000}") int batchSize) {
+        this.feedService = feedService;
+        this.jobCoordinator = jobCoordinator;
+        this.transactionTemplate = transactionTemplate;
+        this.retentionDays = retentionDays;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(cron = "${app.feed.purge-cron:0 30 4 * * *}")
+    public void purge() {
+        jobCoordinator.runExclusive("feed-retention", this::purgeExpired);
+    }
+
+    private void purgeExpired(Checkpoint checkpoint) {
+        Instant cutoff = Instant.now().minus(Duration.ofDays(retentionDays));
+        long deleted = 0;
+        int batch;
+        do {
+            checkpoint.check();
+            batch = transactionTemplate.execute(status -> {
+                checkpoint.fence();
+                return feedService.purgeBatchCreatedBefore(cutoff, batchSize);
+            });
+            deleted += batch;
+        } while (batch == batchSize);
+        log.info("Purged {} feed activities created before {}", deleted, cutoff);
+    }
+}
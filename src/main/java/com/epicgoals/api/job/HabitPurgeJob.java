@@ -0,0 +1,64 @@
+// ABOUT_ME: Periodically purges deleted habits together with their completions and derived rows
+// ABOUT_ME: Each batch runs in its own short fenced transaction; the grace period lets pending outbox events drain first
+package com.epicgoals.api.job;
+
+import com.epicgoals.api.job.JobCoordinator.Checkpoint;
+import com.epicgoals.api.service.HabitPurgeService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+
+@Component
+public class HabitPurgeJob {
+
+    private static final Logger log = LoggerFactory.getLogger(HabitPurgeJob.class);
+
+    private final HabitPurgeService habitPurgeService;
+    private final JobCoordinator jobCoordinator;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration grace;
+
+    public HabitPurgeJob(HabitPurgeService habitPurgeService,
+                         JobCoordinator jobCoordinator,
+                         TransactionTemplate transactionTemplate,
+                         @Value("${app.habits.purge-batch-size:1000}") int batchSize,
+                         @Value("${app.habits.purge-grace-minutes:60}") long graceMinutes) {
+        this.habitPurgeService = habitPurgeService;
+        this.jobCoordinator = jobCoordinator;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.grace = Duration.ofMinutes(graceMinutes);
+    }
+
+    @Scheduled(cron = "${app.habits.purge-cron:0 */15 * * * *}")
+    public void purge() {
+        jobCoordinator.runExclusive("habit-purge", this::purgeDeleted);
+    }
+
+    private void purgeDeleted(Checkpoint checkpoint) {
+        Instant cutoff = Instant.now().minus(grace);
+        long deleted = 0;
+        int batch;
+        while ((batch = purgeBatch(cutoff, checkpoint)) > 0) {
+            deleted += batch;
+        }
+        if (deleted > 0) {
+            log.info("Purged {} rows of habits deleted before {}", deleted, cutoff);
+        }
+    }
+
+    private int purgeBatch(Instant cutoff, Checkpoint checkpoint) {
+        checkpoint.check();
+        return transactionTemplate.execute(status -> {
+            checkpoint.fence();
+            return habitPurgeService.purgeNextBatch(cutoff, batchSize);
+        });
+    }
+}
@@ -0,0 +1,71 @@
+// ABOUT_ME: Periodically rebuilds per-habit heatmap aggregates from completion history
+// ABOUT_ME: Repairs drift and backfills habits without a row, in batches of users within shards shared across instances
+package com.epicgoals.api.job;
+
+import com.epicgoals.api.dto.UserIdRange;
+import com.epicgoals.api.job.JobCoordinator.Checkpoint;
+import com.epicgoals.api.service.HeatmapService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Component
+public class HeatmapRebuildJob {
+
+    private static final Logger log = LoggerFactory.getLogger(HeatmapRebuildJob.class);
+
+    private final HeatmapService heatmapService;
+    private final JobCoordinator jobCoordinator;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int shards;
+
+    public HeatmapRebuildJob(HeatmapService heatmapService, JobCoordinator jobCoordinator,
+                             TransactionTemplate transactionTemplate,
+                             @Value("${app.heatmap.rebuild-batch-size:200}") int batchSize,
+                             @Value("${app.jobs.shards:16}") int shards) {
+        this.heatmapService = heatmapService;
+        this.jobCoordinator = jobCoordinator;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.shards = shards;
+    }
+
+    @Scheduled(cron = "${app.heatmap.rebuild-cron:0 45 3 * * SUN}")
+    public void rebuild() {
+        // Every instance fires on the same day, so the day identifies the run they share
+        Instant run = Instant.now().truncatedTo(ChronoUnit.DAYS);
+        AtomicInteger rebuilt = new AtomicInteger();
+        jobCoordinator.runSharded("heatmap-rebuild", run.toString(), shards,
+                (users, checkpoint) -> rebuilt.addAndGet(rebuild(users, checkpoint)));
+        log.info("Rebuilt heatmap aggregates for {} users", rebuilt.get());
+    }
+
+    private int rebuild(UserIdRange users, Checkpoint checkpoint) {
+        UserIdRange remaining = users;
+        int rebuilt = 0;
+        List<UUID> batch;
+        do {
+            checkpoint.check();
+            UserIdRange next = remaining;
+            batch = transactionTemplate.execute(status -> {
+                checkpoint.fence();
+                return heatmapService.rebuildUsers(next, batchSize);
+            });
+            if (!batch.isEmpty()) {
+                remaining = remaining.after(batch.get(batch.size() - 1));
+            }
+            rebuilt += batch.size();
+        } while (batch.size() == batchSize);
+        return rebuilt;
+    }
+}
@@ -0,0 +1,31 @@
+// ABOUT_ME: Deletes idempotency keys once their lifetime is over
+// ABOUT_ME: A purged key no longer replays its result and may be used for a new request
+package com.epicgoals.api.job;
+
+import com.epicgoals.api.service.IdempotencyService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class IdempotencyKeyPurgeJob {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyKeyPurgeJob.class);
+
+    private final IdempotencyService idempotencyService;
+    private final JobCoordinator jobCoordinator;
+
+    public IdempotencyKeyPurgeJob(IdempotencyService idempotencyService, JobCoordinator jobCoordinator) {
+        this.idempotencyService = idempotencyService;
+        this.jobCoordinator = jobCoordinator;
+    }
+
+    @Scheduled(cron = "${app.idempotency.purge-cron:0 50 * * * *}")
+    public void purgeExpired() {
+        jobCoordinator.runExclusive("idempotency-key-purge", () -> {
+            int deleted = idempotencyService.purgeExpired();
+            log.info("Purged {} expired idempotency keys", deleted);
+        });
+    }
+}
@@ -0,0 +1,284 @@
+// ABOUT_ME: Coordinates scheduled work across API instances through leases, so each job or shard runs on one instance at a time
+// ABOUT_ME: Sharded jobs split users by id range over the live instances and take over shards left behind by a dead one
+package com.epicgoals.api.job;
+
+import com.epicgoals.api.dto.UserIdRange;
+import com.epicgoals.api.service.JobLeaseService;
+import com.epicgoals.api.service.JobLeaseService.Lease;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class JobCoordinator {
+
+    private static final Logger log = LoggerFactory.getLogger(JobCoordinator.class);
+
+    static final String NODE_PREFIX = "node:";
+
+    private final JobLeaseService jobLeaseService;
+    private final Duration leaseTtl;
+    private final String nodeId = hostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+    // Leases this instance holds: exclusive jobs and its heartbeat between runs, shards while they are processed
+    private final ConcurrentHashMap<String, Lease> held = new ConcurrentHashMap<>();
+
+    public JobCoordinator(JobLeaseService jobLeaseService, @Value("${app.jobs.lease-ttl-ms:30000}") long leaseTtlMillis) {
+        this.jobLeaseService = jobLeaseService;
+        this.leaseTtl = Duration.ofMillis(leaseTtlMillis);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Runs the work if this instance holds the job's lease, claiming it when it is free. The lease is kept
+     * between runs and renewed by the heartbeat, so a job stays on one instance and moves to another
+     * within one lease lifetime after that instance stops. Returns whether the work ran here to the end;
+     * work that loses the lease at a checkpoint stops there and leaves the rest to the new holder.
+     */
+    public boolean runExclusive(String job, ExclusiveWork work) {
+        if (!keep(job) && claim(job, null).isEmpty()) {
+            return false;
+        }
+        try {
+            work.run(checkpoint(job));
+        } catch (LeaseLostException ex) {
+            log.warn("Lost lease {} mid-run; stopped before the next batch", job);
+            return false;
+        }
+        return true;
+    }
+
+    // For work done in one step, which has no batches to check the lease between
+    public boolean runExclusive(String job, Runnable work) {
+        return runExclusive(job, checkpoint -> work.run());
+    }
+
+    /**
+     * Splits the user id space into the given number of shards and processes the ones this instance can
+     * claim for the run: first its fair share of the live instances, then, once its own are done, any shard
+     * nobody finished, including shards whose owner died mid-run once their lease expires. A shard finished
+     * in the run is never processed again for it. Returns the number of shards processed here.
+     */
+    public int runSharded(String job, String run, int shards, ShardWork work) {
+        long liveNodes = Math.max(1, jobLeaseService.countHeld(NODE_PREFIX));
+        int fairShare = (int) Math.ceilDiv(shards, liveNodes);
+        // Instances start at different shards so they rarely contend for the same lease
+        int first = Math.floorMod(nodeId.hashCode(), shards);
+        Map<String, Integer> remaining = new LinkedHashMap<>();
+        for (int i = 0; i < shards; i++) {
+            int shard = (first + i) % shards;
+            remaining.put(job + "#" + shard, shard);
+        }
+
+        int processed = 0;
+        for (Map.Entry<String, Integer> entry : new ArrayList<>(remaining.entrySet())) {
+            if (processed >= fairShare) {
+                break;
+            }
+            if (tryShard(entry.getKey(), UserIdRange.shard(entry.getValue(), shards), run, work)) {
+                remaining.remove(entry.getKey());
+                processed++;
+            }
+        }
+
+        // Shards still held elsewhere are waited on until finished or abandoned; waiting is bounded
+        // by two lease lifetimes without progress so a stuck run cannot hold this instance forever
+        Instant giveUpAt = Instant.now().plus(leaseTtl.multipliedBy(2));
+        while (!remaining.isEmpty() && Instant.now().isBefore(giveUpAt)) {
+            int before = remaining.size();
+            remaining.keySet().removeAll(jobLeaseService.completedForRun(remaining.keySet(), run));
+            for (Map.Entry<String, Integer> entry : new ArrayList<>(remaining.entrySet())) {
+                if (tryShard(entry.getKey(), UserIdRange.shard(entry.getValue(), shards), run, work)) {
+                    remaining.remove(entry.getKey());
+                    processed++;
+                }
+            }
+            if (remaining.size() < before) {
+                giveUpAt = Instant.now().plus(leaseTtl.multipliedBy(2));
+            } else if (!remaining.isEmpty()) {
+                sleep(leaseTtl.dividedBy(4));
+            }
+        }
+        if (!remaining.isEmpty()) {
+            log.warn("Gave up waiting for {} shards of {} run {}", remaining.size(), job, run);
+        }
+        return processed;
+    }
+
+    // Keeps this instance counted as live and renews every lease it holds before it can expire
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.jobs.heartbeat-ms:10000}")
+    public void heartbeat() {
+        String nodeLease = NODE_PREFIX + nodeId;
+        if (!keep(nodeLease)) {
+            claim(nodeLease, null);
+        }
+        for (String name : new ArrayList<>(held.keySet())) {
+            if (!name.equals(nodeLease)) {
+                keep(name);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void releaseAll() {
+        // Released rather than left to expire so other instances take over right away
+        for (Lease lease : new ArrayList<>(held.values())) {
+            try {
+                jobLeaseService.release(lease, null);
+            } catch (RuntimeException ex) {
+                log.debug("Could not release lease {}: {}", lease.name(), ex.getMessage());
+            }
+        }
+        held.clear();
+    }
+
+    private boolean tryShard(String name, UserIdRange range, String run, ShardWork work) {
+        Optional<Lease> claimed = claim(name, run);
+        if (claimed.isEmpty()) {
+            return false;
+        }
+        try {
+            work.process(range, checkpoint(name));
+        } catch (LeaseLostException ex) {
+            log.warn("Lost lease {} (fencing token {}) mid-run; another instance finishes the shard",
+                    name, claimed.get().fencingToken());
+            return false;
+        } catch (RuntimeException ex) {
+            release(name, null);
+            throw ex;
+        }
+        return release(name, run);
+    }
+
+    private Checkpoint checkpoint(String name) {
+        return new Checkpoint() {
+            @Override
+            public void check() {
+                if (!keep(name)) {
+                    throw new LeaseLostException(name);
+                }
+            }
+
+            @Override
+            public void fence() {
+                Lease lease = held.get(name);
+                if (lease == null || !jobLeaseService.lockIfHeld(lease)) {
+                    held.remove(name);
+                    throw new LeaseLostException(name);
+                }
+            }
+        };
+    }
+
+    private Optional<Lease> claim(String name, String run) {
+        try {
+            Optional<Lease> lease = jobLeaseService.claim(name, nodeId, run, leaseTtl);
+            lease.ifPresent(claimed -> held.put(name, claimed));
+            return lease;
+        } catch (DataIntegrityViolationException ex) {
+            // Another instance created the lease first
+            return Optional.empty();
+        }
+    }
+
+    // Renews the lease once less than half its lifetime is left; false once it has been lost
+    private boolean keep(String name) {
+        Lease lease = held.get(name);
+        if (lease == null) {
+            return false;
+        }
+        if (lease.expiresAt().isAfter(Instant.now().plus(leaseTtl.dividedBy(2)))) {
+            return true;
+        }
+        Optional<Lease> renewed = jobLeaseService.renew(lease, leaseTtl);
+        if (renewed.isEmpty()) {
+            held.remove(name, lease);
+            return false;
+        }
+        held.put(name, renewed.get());
+        return true;
+    }
+
+    private boolean release(String name, String completedRun) {
+        Lease lease = held.remove(name);
+        return lease != null && jobLeaseService.release(lease, completedRun);
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for shards", ex);
+        }
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException ex) {
+            return "unknown";
+        }
+    }
+
+    /**
+     * Handed to leased work so a stalled instance stops writing once another one has taken its lease over.
+     */
+    public interface Checkpoint {
+
+        /**
+         * Call between batches: renews the lease when due and throws once it has been lost.
+         */
+        void check();
+
+        /**
+         * Call first in each batch's transaction: locks the lease row while it still carries this instance's
+         * fencing token and throws otherwise. A takeover then waits for the batch to commit, and a batch
+         * started after one can no longer commit, however long this instance was paused.
+         */
+        void fence();
+    }
+
+    @FunctionalInterface
+    public interface ExclusiveWork {
+
+        void run(Checkpoint checkpoint);
+    }
+
+    @FunctionalInterface
+    public interface ShardWork {
+
+        /**
+         * Processes the users in the range, checking and fencing each batch with the checkpoint.
+         */
+        void process(UserIdRange range, Checkpoint checkpoint);
+    }
+
+    // Public so leased work that handles its own failures can let this one through
+    public static class LeaseLostException extends IllegalStateException {
+
+        public LeaseLostException(String name) {
+            super("Lease lost: " + name);
+        }
+    }
+}
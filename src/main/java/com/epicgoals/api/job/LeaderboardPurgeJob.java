@@ -0,0 +1,42 @@
+// ABOUT_ME: Periodically deletes leaderboard rows for weeks older than the retention window
+// ABOUT_ME: Fan-out writes one row per friend per week, so old boards are dropped rather than kept forever
+package com.epicgoals.api.job;
+
+import com.epicgoals.api.service.LeaderboardService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+@Component
+public class LeaderboardPurgeJob {
+
+    private static final Logger log = LoggerFactory.getLogger(LeaderboardPurgeJob.class);
+
+    private final LeaderboardService leaderboardService;
+    private final JobCoordinator jobCoordinator;
+    private final int retentionWeeks;
+
+    public LeaderboardPurgeJob(LeaderboardService leaderboardService,
+                               JobCoordinator jobCoordinator,
+                               @Value("${app.leaderboard.retention-weeks:8}") int retentionWeeks) {
+        this.leaderboardService = leaderboardService;
+        this.jobCoordinator = jobCoordinator;
+        this.retentionWeeks = retentionWeeks;
+    }
+
+    @Scheduled(cron = "${app.leaderboard.purge-cron:0 0 4 * * MON}")
+    public void purge() {
+        jobCoordinator.runExclusive("leaderboard-purge", () -> {
+            // Counted from the zone furthest behind, so no user loses a week still inside their own window
+            LocalDate cutoff = LocalDate.now(ZoneOffset.MIN).with(DayOfWeek.MONDAY).minusWeeks(retentionWeeks);
+            int deleted = leaderboardService.purgeWeeksBefore(cutoff);
+            log.info("Purged {} leaderboard rows before {}", deleted, cutoff);
+        });
+    }
+}
@@ -0,0 +1,64 @@
+// ABOUT_ME: Polls the outbox for pending domain events and purges delivered ones after the retention period
+// ABOUT_ME: Keeps derived computations such as scores and streaks off the request path
+package com.epicgoals.api.job;
+
+import com.epicgoals.api.event.OutboxDispatcher;
+import com.epicgoals.api.repository.OutboxEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+
+@Component
+public class OutboxDispatchJob {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxDispatchJob.class);
+
+    private final OutboxDispatcher outboxDispatcher;
+    private final OutboxEventRepository outboxEventRepository;
+    private final JobCoordinator jobCoordinator;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration retention;
+
+    public OutboxDispatchJob(OutboxDispatcher outboxDispatcher,
+                             OutboxEventRepository outboxEventRepository,
+                             JobCoordinator jobCoordinator,
+                             TransactionTemplate transactionTemplate,
+                             @Value("${app.outbox.retention-hours:72}") long retentionHours) {
+        this.outboxDispatcher = outboxDispatcher;
+        this.outboxEventRepository = outboxEventRepository;
+        this.jobCoordinator = jobCoordinator;
+        this.transactionTemplate = transactionTemplate;
+        this.retention = Duration.ofHours(retentionHours);
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-ms:500}")
+    public void dispatch() {
+        // One instance dispatches at a time, which keeps each user's events in order across instances
+        jobCoordinator.runExclusive("outbox-dispatch", checkpoint -> {
+            // Keep draining while batches come back full so a burst does not wait for the next poll
+            int processed;
+            do {
+                processed = outboxDispatcher.dispatchPending(checkpoint);
+            } while (processed >= outboxDispatcher.getBatchSize());
+        });
+    }
+
+    // Not transactional itself: the lease must commit on its own so other instances see it while this runs
+    @Scheduled(cron = "${app.outbox.purge-cron:0 15 4 * * *}")
+    public void purge() {
+        jobCoordinator.runExclusive("outbox-purge", checkpoint -> {
+            Instant cutoff = Instant.now().minus(retention);
+            int deleted = transactionTemplate.execute(status -> {
+                checkpoint.fence();
+                return outboxEventRepository.deleteProcessedBefore(cutoff);
+            });
+            log.info("Purged {} delivered outbox events", deleted);
+        });
+    }
+}
@@ -0,0 +1,30 @@
+// ABOUT_ME: Samples read replica lag so read-only transactions only go to it while it is within the staleness tolerance
+// ABOUT_ME: Also drops expired read-your-writes pins; only present when a replica is configured
+package com.epicgoals.api.job;
+
+import com.epicgoals.api.datasource.ReadYourWritesRegistry;
+import com.epicgoals.api.datasource.ReplicaHealth;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+@Component
+@ConditionalOnProperty(name = "app.datasource.replica.url")
+public class ReplicaLagJob {
+
+    private final ReplicaHealth replicaHealth;
+    private final ReadYourWritesRegistry readYourWritesRegistry;
+
+    public ReplicaLagJob(ReplicaHealth replicaHealth, ReadYourWritesRegistry readYourWritesRegistry) {
+        this.replicaHealth = replicaHealth;
+        this.readYourWritesRegistry = readYourWritesRegistry;
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.lag-check-ms:2000}")
+    public void checkLag() {
+        replicaHealth.check();
+        readYourWritesRegistry.prune(Instant.now());
+    }
+}
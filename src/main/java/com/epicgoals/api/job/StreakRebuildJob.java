@@ -0,0 +1,24 @@
+// ABOUT_ME: Periodically rebuilds persisted habit streaks from completion history
+// ABOUT_ME: Repairs any drift in the incrementally maintained runs and backfills habits without a summary
+package com.epicgoals.api.job;
+
+import com.epicgoals.api.service.StreakService;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class StreakRebuildJob {
+
+    private final StreakService streakService;
+    private final JobCoordinator jobCoordinator;
+
+    public StreakRebuildJob(StreakService streakService, JobCoordinator jobCoordinator) {
+        this.streakService = streakService;
+        this.jobCoordinator = jobCoordinator;
+    }
+
+    @Scheduled(cron = "${app.streaks.rebuild-cron:0 30 3 * * SUN}")
+    public void rebuild() {
+        jobCoordinator.runExclusive("streak-rebuild", streakService::rebuildAll);
+    }
+}
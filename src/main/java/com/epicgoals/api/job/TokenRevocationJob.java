@@ -0,0 +1,43 @@
+// ABOUT_ME: Keeps each instance's in-memory token revocation registry in step with the refresh_tokens table
+// ABOUT_ME: Also deletes refresh token rows once they have expired, since they can no longer be presented
+package com.epicgoals.api.job;
+
+import com.epicgoals.api.service.RefreshTokenService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+@Component
+public class TokenRevocationJob {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationJob.class);
+
+    private final RefreshTokenService refreshTokenService;
+    private final JobCoordinator jobCoordinator;
+
+    public TokenRevocationJob(RefreshTokenService refreshTokenService, JobCoordinator jobCoordinator) {
+        this.refreshTokenService = refreshTokenService;
+        this.jobCoordinator = jobCoordinator;
+    }
+
+    // Revocations made by other instances reach this one within one sync interval; every instance keeps its own registry
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${app.auth.revocation-sync-cron:*/30 * * * * *}")
+    public void syncRevocations() {
+        int families = refreshTokenService.syncRevocations();
+        log.debug("Synced {} revoked token families", families);
+    }
+
+    @Scheduled(cron = "${app.auth.refresh-token-purge-cron:0 45 4 * * *}")
+    public void purgeExpired() {
+        jobCoordinator.runExclusive("refresh-token-purge", () -> {
+            int deleted = refreshTokenService.purgeExpiredBefore(Instant.now());
+            log.info("Purged {} expired refresh tokens", deleted);
+        });
+    }
+}
@@ -0,0 +1,79 @@
+// ABOUT_ME: Runs hourly and finalizes last week's score snapshot for users whose local week just began
+// ABOUT_ME: Each run handles only the zones at their Monday midnight, split into user-id shards across instances
+package com.epicgoals.api.job;
+
+import com.epicgoals.api.dto.UserIdRange;
+import com.epicgoals.api.job.JobCoordinator.Checkpoint;
+import com.epicgoals.api.service.ScoreService;
+import com.epicgoals.api.service.UserSettingsService;
+import com.epicgoals.api.service.UserSettingsService.RolloverBand;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Component
+public class WeekRolloverJob {
+
+    private static final Logger log = LoggerFactory.getLogger(WeekRolloverJob.class);
+
+    private final UserSettingsService userSettingsService;
+    private final ScoreService scoreService;
+    private final JobCoordinator jobCoordinator;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int shards;
+
+    public WeekRolloverJob(UserSettingsService userSettingsService, ScoreService scoreService,
+                           JobCoordinator jobCoordinator, TransactionTemplate transactionTemplate,
+                           @Value("${app.scores.rollover-batch-size:200}") int batchSize,
+                           @Value("${app.jobs.shards:16}") int shards) {
+        this.userSettingsService = userSettingsService;
+        this.scoreService = scoreService;
+        this.jobCoordinator = jobCoordinator;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.shards = shards;
+    }
+
+    @Scheduled(cron = "${app.scores.rollover-cron:0 5 * * * *}")
+    public void rollOver() {
+        // Every instance fires within the same hour, so the hour identifies the run they share
+        Instant run = Instant.now().truncatedTo(ChronoUnit.HOURS);
+        RolloverBand band = userSettingsService.bandStartingWeekAt(run);
+        if (band.isEmpty()) {
+            return;
+        }
+        AtomicInteger processed = new AtomicInteger();
+        int shardsProcessed = jobCoordinator.runSharded("week-rollover", run.toString(), shards,
+                (users, checkpoint) -> processed.addAndGet(rollOver(band, users, checkpoint)));
+        log.info("Rolled over the week for {} users in {} shards of zones {}", processed.get(), shardsProcessed, band.zones());
+    }
+
+    private int rollOver(RolloverBand band, UserIdRange users, Checkpoint checkpoint) {
+        UserIdRange remaining = users;
+        int processed = 0;
+        List<UUID> batch;
+        do {
+            checkpoint.check();
+            UserIdRange next = remaining;
+            batch = transactionTemplate.execute(status -> {
+                checkpoint.fence();
+                return scoreService.rollOverWeeks(band, next, batchSize);
+            });
+            if (!batch.isEmpty()) {
+                remaining = remaining.after(batch.get(batch.size() - 1));
+            }
+            processed += batch.size();
+        } while (batch.size() == batchSize);
+        return processed;
+    }
+}
@@ -0,0 +1,48 @@
+// ABOUT_ME: Servlet filter that tracks how many SQL statements each HTTP request issues
+// ABOUT_ME: Logs a warning when a request exceeds the configured statement threshold to surface N+1 regressions
+package com.epicgoals.api.monitoring;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryCountFilter.class);
+
+    private final int warnThreshold;
+
+    public QueryCountFilter(@Value("${app.query-count.warn-threshold:0}") int warnThreshold) {
+        this.warnThreshold = warnThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        QueryCountHolder.reset();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            int statements = QueryCountHolder.get();
+            // A threshold of 0 disables the warning (e.g. in production)
+            if (warnThreshold > 0 && statements > warnThreshold) {
+                log.warn("{} {} issued {} SQL statements (threshold {})",
+                        request.getMethod(), request.getRequestURI(), statements, warnThreshold);
+            }
+            QueryCountHolder.clear();
+        }
+    }
+}
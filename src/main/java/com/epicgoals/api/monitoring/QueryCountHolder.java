@@ -0,0 +1,26 @@
+// ABOUT_ME: Thread-bound counter of SQL statements issued by Hibernate for the current unit of work
+// ABOUT_ME: Reset at the start of each request (or test) and read afterwards to enforce statement budgets
+package com.epicgoals.api.monitoring;
+
+public final class QueryCountHolder {
+
+    private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+    private QueryCountHolder() {}
+
+    public static void reset() {
+        COUNT.get()[0] = 0;
+    }
+
+    public static void increment() {
+        COUNT.get()[0]++;
+    }
+
+    public static int get() {
+        return COUNT.get()[0];
+    }
+
+    public static void clear() {
+        COUNT.remove();
+    }
+}
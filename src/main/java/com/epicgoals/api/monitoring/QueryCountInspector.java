@@ -0,0 +1,14 @@
+// ABOUT_ME: Hibernate statement inspector that counts every SQL statement prepared on the current thread
+// ABOUT_ME: Leaves the SQL untouched and only feeds QueryCountHolder for N+1 detection
+package com.epicgoals.api.monitoring;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+public class QueryCountInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        QueryCountHolder.increment();
+        return sql;
+    }
+}
@@ -0,0 +1,10 @@
+// ABOUT_ME: A change notification pushed to a user's connected devices over Server-Sent Events
+// ABOUT_ME: The type becomes the SSE event name and the payload is serialized as JSON data
+package com.epicgoals.api.realtime;
+
+public record LiveEvent(String type, Object payload) {
+
+    public static final String SCORE = "score";
+    public static final String COMPLETION = "completion";
+    public static final String GOAL = "goal";
+}
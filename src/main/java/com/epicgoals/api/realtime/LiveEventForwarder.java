@@ -0,0 +1,38 @@
+// ABOUT_ME: Forwards completion and goal domain events to the user's open live event streams
+// ABOUT_ME: Score events are pushed by the score recalculation itself, once the new score exists
+package com.epicgoals.api.realtime;
+
+import com.epicgoals.api.event.DomainEvent;
+import com.epicgoals.api.event.DomainEventHandler;
+import com.epicgoals.api.event.GoalUpdated;
+import com.epicgoals.api.event.HabitCompletionToggled;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+@Component
+public class LiveEventForwarder implements DomainEventHandler {
+
+    private final LiveEventPublisher liveEventPublisher;
+
+    @Autowired
+    public LiveEventForwarder(LiveEventPublisher liveEventPublisher) {
+        this.liveEventPublisher = liveEventPublisher;
+    }
+
+    @Override
+    public Set<Class<? extends DomainEvent>> eventTypes() {
+        return Set.of(HabitCompletionToggled.class, GoalUpdated.class);
+    }
+
+    @Override
+    public void handle(DomainEvent event) {
+        String type = switch (event) {
+            case HabitCompletionToggled toggled -> LiveEvent.COMPLETION;
+            case GoalUpdated updated -> LiveEvent.GOAL;
+            default -> throw new IllegalArgumentException("Unsupported event " + event.getClass().getSimpleName());
+        };
+        liveEventPublisher.publish(event.userId(), type, event);
+    }
+}
@@ -0,0 +1,80 @@
+// ABOUT_ME: Publishes live events to a user's open streams on every instance once the surrounding transaction commits
+// ABOUT_ME: Keeps devices from seeing changes that are later rolled back, wherever their connection landed
+package com.epicgoals.api.realtime;
+
+import com.epicgoals.api.cache.CacheInvalidationBus;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
+
+@Component
+public class LiveEventPublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(LiveEventPublisher.class);
+
+    static final String CHANNEL = "liveEvents";
+
+    private final LiveEventRegistry registry;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public LiveEventPublisher(LiveEventRegistry registry, CacheInvalidationBus cacheInvalidationBus,
+                              ObjectMapper objectMapper) {
+        this.registry = registry;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        this.objectMapper = objectMapper;
+        // A user's devices may be connected to any instance, and each instance serves only its own connections
+        cacheInvalidationBus.onRemoteEviction(CHANNEL, this::deliverRemote);
+    }
+
+    public void publish(UUID userId, String type, Object payload) {
+        LiveEvent event = new LiveEvent(type, payload);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deliver(userId, event);
+                }
+            });
+        } else {
+            deliver(userId, event);
+        }
+    }
+
+    private void deliver(UUID userId, LiveEvent event) {
+        registry.publish(userId, event);
+        RelayedEvent relayed = new RelayedEvent(userId, event.type(), objectMapper.valueToTree(event.payload()));
+        try {
+            if (!cacheInvalidationBus.broadcast(CHANNEL, objectMapper.writeValueAsString(relayed))) {
+                log.warn("Live {} event for user {} is too large to relay to other instances", event.type(), userId);
+            }
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Cannot serialize live event", ex);
+        }
+    }
+
+    private void deliverRemote(String message) {
+        // Missed events are not replayed; clients resync by re-reading state when their stream reconnects
+        if (CacheInvalidationBus.ALL_KEYS.equals(message)) {
+            return;
+        }
+        try {
+            RelayedEvent relayed = objectMapper.readValue(message, RelayedEvent.class);
+            registry.publish(relayed.userId(), new LiveEvent(relayed.type(), relayed.payload()));
+        } catch (JsonProcessingException ex) {
+            log.warn("Dropping unreadable live event from another instance: {}", ex.getMessage());
+        }
+    }
+
+    // The payload travels as a JSON tree, so other instances write the same bytes to their streams
+    record RelayedEvent(UUID userId, String type, JsonNode payload) {}
+}
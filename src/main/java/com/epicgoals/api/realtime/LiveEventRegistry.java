@@ -0,0 +1,217 @@
+// ABOUT_ME: In-process registry of open Server-Sent Event connections, fanned out per user
+// ABOUT_ME: Each connection has a bounded buffer drained on a virtual thread so idle connections hold no platform thread
+package com.epicgoals.api.realtime;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class LiveEventRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(LiveEventRegistry.class);
+
+    private final Map<UUID, Set<Connection>> connections = new ConcurrentHashMap<>();
+    private final ExecutorService dispatcher;
+    private final ObjectMapper objectMapper;
+    private final long timeoutMillis;
+    private final int bufferSize;
+    private final int maxConnectionsPerUser;
+    // Ids only order the frames of this instance's streams; they are not resumable (Last-Event-ID is ignored),
+    // since missed events are not kept and clients resync state by re-reading it after a reconnect
+    private final AtomicLong eventIds = new AtomicLong();
+
+    @Autowired
+    public LiveEventRegistry(ObjectMapper objectMapper,
+                             @Value("${app.events.timeout-ms:1800000}") long timeoutMillis,
+                             @Value("${app.events.buffer-size:32}") int bufferSize,
+                             @Value("${app.events.max-connections-per-user:8}") int maxConnectionsPerUser) {
+        this(Executors.newVirtualThreadPerTaskExecutor(), objectMapper, timeoutMillis, bufferSize, maxConnectionsPerUser);
+    }
+
+    LiveEventRegistry(ExecutorService dispatcher, ObjectMapper objectMapper, long timeoutMillis, int bufferSize,
+                      int maxConnectionsPerUser) {
+        this.dispatcher = dispatcher;
+        this.objectMapper = objectMapper;
+        this.timeoutMillis = timeoutMillis;
+        this.bufferSize = bufferSize;
+        this.maxConnectionsPerUser = maxConnectionsPerUser;
+    }
+
+    public SseEmitter register(UUID userId) {
+        return register(userId, new SseEmitter(timeoutMillis));
+    }
+
+    SseEmitter register(UUID userId, SseEmitter emitter) {
+        Connection connection = new Connection(userId, emitter);
+        List<Connection> evicted = new ArrayList<>();
+        // Cap and add under the map's per-key lock so a concurrent remove() cannot drop the set in between
+        connections.compute(userId, (id, userConnections) -> {
+            Set<Connection> target = userConnections != null ? userConnections : new CopyOnWriteArraySet<>();
+            Iterator<Connection> oldest = target.iterator();
+            while (target.size() >= maxConnectionsPerUser && oldest.hasNext()) {
+                // Oldest device connection makes room; a reconnecting client usually left it behind
+                Connection stale = oldest.next();
+                target.remove(stale);
+                evicted.add(stale);
+            }
+            target.add(connection);
+            return target;
+        });
+        // Completing an emitter calls back into remove(), which must not nest inside compute()
+        evicted.forEach(Connection::close);
+
+        emitter.onCompletion(() -> remove(connection));
+        emitter.onTimeout(() -> remove(connection));
+        emitter.onError(error -> remove(connection));
+        return emitter;
+    }
+
+    /**
+     * Sends the event to every open connection of the user. The frame is serialized once and the
+     * same frame is queued on each connection.
+     */
+    public void publish(UUID userId, LiveEvent event) {
+        Set<Connection> userConnections = connections.get(userId);
+        if (userConnections == null) {
+            return;
+        }
+        Set<DataWithMediaType> frame = SseEmitter.event()
+                .id(Long.toString(eventIds.incrementAndGet()))
+                .name(event.type())
+                .data(toJson(event.payload()), MediaType.APPLICATION_JSON)
+                .build();
+        for (Connection connection : userConnections) {
+            connection.enqueue(frame);
+        }
+    }
+
+    /**
+     * Keeps intermediaries from closing idle streams and surfaces dead connections, whose
+     * failed writes remove them from the registry.
+     */
+    @Scheduled(fixedRateString = "${app.events.heartbeat-ms:25000}")
+    public void heartbeat() {
+        Set<DataWithMediaType> frame = SseEmitter.event().comment("heartbeat").build();
+        for (Set<Connection> userConnections : connections.values()) {
+            for (Connection connection : userConnections) {
+                connection.enqueue(frame);
+            }
+        }
+    }
+
+    public int connectionCount(UUID userId) {
+        Set<Connection> userConnections = connections.get(userId);
+        return userConnections != null ? userConnections.size() : 0;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        connections.values().forEach(userConnections -> userConnections.forEach(Connection::close));
+        dispatcher.shutdownNow();
+    }
+
+    private String toJson(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Cannot serialize live event payload", ex);
+        }
+    }
+
+    private void remove(Connection connection) {
+        connections.computeIfPresent(connection.userId, (id, userConnections) -> {
+            userConnections.remove(connection);
+            return userConnections.isEmpty() ? null : userConnections;
+        });
+    }
+
+    private final class Connection {
+
+        private final UUID userId;
+        private final SseEmitter emitter;
+        private final ArrayDeque<Set<DataWithMediaType>> buffer = new ArrayDeque<>();
+        // Set while a dispatcher task owns this connection; SseEmitter writes must not interleave
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private Connection(UUID userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        private void enqueue(Set<DataWithMediaType> frame) {
+            synchronized (buffer) {
+                if (buffer.size() >= bufferSize) {
+                    // Slow consumer: newer state supersedes older events, so drop from the head
+                    buffer.pollFirst();
+                    log.debug("Dropped live event for slow connection of user {}", userId);
+                }
+                buffer.addLast(frame);
+            }
+            if (draining.compareAndSet(false, true)) {
+                dispatcher.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                while (true) {
+                    Set<DataWithMediaType> next;
+                    synchronized (buffer) {
+                        next = buffer.pollFirst();
+                        if (next == null) {
+                            draining.set(false);
+                            return;
+                        }
+                    }
+                    send(next);
+                }
+            } catch (RuntimeException ex) {
+                draining.set(false);
+                throw ex;
+            }
+        }
+
+        private void send(Set<DataWithMediaType> frame) {
+            try {
+                emitter.send(frame);
+            } catch (IOException | IllegalStateException ex) {
+                // Client went away; completing the emitter triggers removal
+                log.debug("Closing live event connection of user {}: {}", userId, ex.getMessage());
+                close();
+                synchronized (buffer) {
+                    buffer.clear();
+                }
+            }
+        }
+
+        private void close() {
+            remove(this);
+            emitter.complete();
+        }
+    }
+}
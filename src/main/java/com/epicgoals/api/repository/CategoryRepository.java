@@ -5,6 +5,9 @@ package com.epicgoals.api.repository;
 import com.epicgoals.api.entity.Category;
 import com.epicgoals.api.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -21,4 +24,9 @@ public interface CategoryRepository extends JpaRepository<Category, UUID> {
     List<Category> findByUserAndIsDefaultTrue(User user);
     
     boolean existsByUserAndName(User user, String name);
+    
+    // Bulk delete so removing a category never loads it again after its rows were reassigned
+    @Modifying
+    @Query("DELETE FROM Category c WHERE c.id = :categoryId")
+    int deleteCategoryById(@Param("categoryId") UUID categoryId);
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+// ABOUT_ME: This file defines the repository interface for Cycle data access operations
+// ABOUT_ME: Open cycles are read under a row lock so a request and the close job never close one cycle twice
+package com.epicgoals.api.repository;
+
+import com.epicgoals.api.entity.Cycle;
+import com.epicgoals.api.entity.CycleStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface CycleRepository extends JpaRepository<Cycle, UUID>, CycleRepositoryCustom {
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Cycle c WHERE c.userId = :userId AND c.status = com.epicgoals.api.entity.CycleStatus.OPEN")
+    Optional<Cycle> findOpenForUpdate(@Param("userId") UUID userId);
+    
+    Optional<Cycle> findByIdAndUserId(UUID id, UUID userId);
+    
+    List<Cycle> findByUserIdAndStatusOrderByStartDateDesc(UUID userId, CycleStatus status, Pageable page);
+    
+    // A cycle a concurrent request closed while this waited for its lock no longer matches and is left out
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Cycle c WHERE c.status = com.epicgoals.api.entity.CycleStatus.OPEN AND c.endDate < :today " +
+           "AND c.userId > :afterId AND c.userId <= :lastId ORDER BY c.endDate")
+    List<Cycle> findEndedOpenCycles(@Param("today") LocalDate today, @Param("afterId") UUID afterId,
+                                    @Param("lastId") UUID lastId, Pageable page);
+}
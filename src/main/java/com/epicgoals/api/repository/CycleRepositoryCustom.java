@@ -0,0 +1,15 @@
+// ABOUT_ME: Custom repository fragment for opening a user's first 12-week cycle atomically
+// ABOUT_ME: Concurrent first requests converge on one cycle instead of failing on the unique start constraint
+package com.epicgoals.api.repository;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+public interface CycleRepositoryCustom {
+
+    /**
+     * Opens a cycle starting on the given Monday if the user has no cycle at all, in one statement that
+     * does nothing when a concurrent request opened it first. Returns the number of rows inserted.
+     */
+    int insertFirstCycle(UUID userId, LocalDate startDate);
+}
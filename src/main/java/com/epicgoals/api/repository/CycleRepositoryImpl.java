@@ -0,0 +1,33 @@
+// ABOUT_ME: Native-SQL implementation of opening a user's first cycle
+// ABOUT_ME: Uses INSERT ... ON CONFLICT DO NOTHING on PostgreSQL and an equivalent MERGE on other databases
+package com.epicgoals.api.repository;
+
+import com.epicgoals.api.entity.Cycle;
+import com.epicgoals.api.entity.CycleStatus;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+public class CycleRepositoryImpl extends NativeSqlSupport implements CycleRepositoryCustom {
+
+    private static final String PG_INSERT =
+            "INSERT INTO cycles (id, user_id, start_date, end_date, status, created_at) " +
+            "SELECT ?, ?, ?, ?, ?, now() " +
+            "WHERE NOT EXISTS (SELECT 1 FROM cycles WHERE user_id = ?) " +
+            "ON CONFLICT (user_id, start_date) DO NOTHING";
+
+    private static final String MERGE_INSERT =
+            "MERGE INTO cycles t " +
+            "USING (SELECT CAST(? AS UUID) AS new_id, CAST(? AS UUID) AS user_id, CAST(? AS DATE) AS start_date, " +
+            "CAST(? AS DATE) AS end_date, CAST(? AS VARCHAR) AS status " +
+            "WHERE NOT EXISTS (SELECT 1 FROM cycles WHERE user_id = ?)) s " +
+            "ON t.user_id = s.user_id AND t.start_date = s.start_date " +
+            "WHEN NOT MATCHED THEN INSERT (id, user_id, start_date, end_date, status, created_at) " +
+            "VALUES (s.new_id, s.user_id, s.start_date, s.end_date, s.status, CURRENT_TIMESTAMP)";
+
+    @Override
+    public int insertFirstCycle(UUID userId, LocalDate startDate) {
+        return insertIfAbsent(PG_INSERT, MERGE_INSERT, UUID.randomUUID(), userId, startDate,
+                new Cycle(userId, startDate).getEndDate(), CycleStatus.OPEN.name(), userId);
+    }
+}
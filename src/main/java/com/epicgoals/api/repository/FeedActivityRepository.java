@@ -0,0 +1,39 @@
+// ABOUT_ME: This file defines the repository interface for FeedActivity data access operations
+// ABOUT_ME: Includes the fan-out-on-read query for activities of friends who exceed the fan-out limit
+package com.epicgoals.api.repository;
+
+import com.epicgoals.api.dto.FeedItemDto;
+import com.epicgoals.api.entity.FeedActivity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface FeedActivityRepository extends JpaRepository<FeedActivity, Long> {
+    
+    boolean existsByActorIdAndDedupeKey(UUID actorId, String dedupeKey);
+    
+    // Only activities that were not fanned out; rare, and served by the (fanned_out, actor_id, id) index
+    @Query("SELECT new com.epicgoals.api.dto.FeedItemDto(a.id, a.actorId, a.actorEmail, a.type, a.details, a.createdAt) " +
+           "FROM FeedActivity a WHERE a.fannedOut = false AND a.id < :before AND a.actorId IN (" +
+           "SELECT f.friendId FROM Friendship f WHERE f.userId = :viewerId " +
+           "AND f.status = com.epicgoals.api.entity.FriendshipStatus.ACCEPTED) ORDER BY a.id DESC")
+    List<FeedItemDto> findUnfannedFromFriends(@Param("viewerId") UUID viewerId,
+                                              @Param("before") Long before,
+                                              Pageable page);
+    
+    @Query("SELECT a.id FROM FeedActivity a WHERE a.createdAt < :cutoff ORDER BY a.createdAt")
+    List<Long> findIdsCreatedBefore(@Param("cutoff") Instant cutoff, Pageable page);
+    
+    @Modifying
+    @Query("DELETE FROM FeedActivity a WHERE a.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+}
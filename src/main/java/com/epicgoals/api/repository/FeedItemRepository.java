@@ -0,0 +1,52 @@
+// ABOUT_ME: This file defines the repository interface for FeedItem timeline rows
+// ABOUT_ME: Fan-out is a single INSERT ... SELECT over the actor's friendships; reads are keyset-paginated by activity id
+package com.epicgoals.api.repository;
+
+import com.epicgoals.api.dto.FeedItemDto;
+import com.epicgoals.api.entity.FeedItem;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface FeedItemRepository extends JpaRepository<FeedItem, Long> {
+    
+    @Query("SELECT new com.epicgoals.api.dto.FeedItemDto(a.id, a.actorId, a.actorEmail, a.type, a.details, a.createdAt) " +
+           "FROM FeedItem i JOIN FeedActivity a ON a.id = i.activityId " +
+           "WHERE i.ownerId = :ownerId AND i.activityId < :before ORDER BY i.activityId DESC")
+    List<FeedItemDto> findTimeline(@Param("ownerId") UUID ownerId, @Param("before") Long before, Pageable page);
+    
+    // The actor's own timeline plus the timeline of every accepted friend
+    @Modifying
+    @Query(value = "INSERT INTO feed_items (owner_id, activity_id, created_at) " +
+                   "SELECT CAST(:actorId AS UUID), CAST(:activityId AS BIGINT), CURRENT_TIMESTAMP " +
+                   "UNION ALL SELECT f.friend_id, CAST(:activityId AS BIGINT), CURRENT_TIMESTAMP FROM friendships f " +
+                   "WHERE f.user_id = :actorId AND f.status = 'ACCEPTED'",
+           nativeQuery = true)
+    int fanOutToActorAndFriends(@Param("actorId") UUID actorId, @Param("activityId") Long activityId);
+    
+    @Modifying
+    @Query(value = "INSERT INTO feed_items (owner_id, activity_id, created_at) " +
+                   "VALUES (:actorId, :activityId, CURRENT_TIMESTAMP)",
+           nativeQuery = true)
+    int addToActorTimeline(@Param("actorId") UUID actorId, @Param("activityId") Long activityId);
+    
+    // What each of two users received on their timeline from the other, in both directions
+    @Modifying
+    @Query("DELETE FROM FeedItem i WHERE (i.ownerId = :userId AND i.activityId IN " +
+           "(SELECT a.id FROM FeedActivity a WHERE a.actorId = :friendId)) " +
+           "OR (i.ownerId = :friendId AND i.activityId IN (SELECT a.id FROM FeedActivity a WHERE a.actorId = :userId))")
+    int deleteBetween(@Param("userId") UUID userId, @Param("friendId") UUID friendId);
+    
+    // Keyed on the activity so no timeline row can outlive the activity it references
+    @Modifying
+    @Query("DELETE FROM FeedItem i WHERE i.activityId IN :activityIds")
+    int deleteByActivityIds(@Param("activityIds") Collection<Long> activityIds);
+}
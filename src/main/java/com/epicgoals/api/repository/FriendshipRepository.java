@@ -0,0 +1,40 @@
+// ABOUT_ME: This file defines the repository interface for Friendship data access operations
+// ABOUT_ME: Lists friends and incoming requests as projections that already carry the other user's email
+package com.epicgoals.api.repository;
+
+import com.epicgoals.api.dto.FriendDto;
+import com.epicgoals.api.entity.Friendship;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface FriendshipRepository extends JpaRepository<Friendship, UUID> {
+    
+    Optional<Friendship> findByUserIdAndFriendId(UUID userId, UUID friendId);
+    
+    @Query("SELECT new com.epicgoals.api.dto.FriendDto(u.id, u.email, f.status, f.createdAt) " +
+           "FROM Friendship f JOIN User u ON u.id = f.friendId " +
+           "WHERE f.userId = :userId AND f.status = com.epicgoals.api.entity.FriendshipStatus.ACCEPTED ORDER BY u.email")
+    List<FriendDto> findFriends(@Param("userId") UUID userId);
+    
+    @Query("SELECT new com.epicgoals.api.dto.FriendDto(u.id, u.email, f.status, f.createdAt) " +
+           "FROM Friendship f JOIN User u ON u.id = f.userId " +
+           "WHERE f.friendId = :userId AND f.status = com.epicgoals.api.entity.FriendshipStatus.PENDING ORDER BY f.createdAt")
+    List<FriendDto> findIncomingRequests(@Param("userId") UUID userId);
+    
+    @Query("SELECT COUNT(f) FROM Friendship f WHERE f.userId = :userId " +
+           "AND f.status = com.epicgoals.api.entity.FriendshipStatus.ACCEPTED")
+    long countFriends(@Param("userId") UUID userId);
+    
+    // Removes both directions of a friendship, or a pending request either way
+    @Modifying
+    @Query("DELETE FROM Friendship f WHERE (f.userId = :a AND f.friendId = :b) OR (f.userId = :b AND f.friendId = :a)")
+    int deleteBetween(@Param("a") UUID a, @Param("b") UUID b);
+}
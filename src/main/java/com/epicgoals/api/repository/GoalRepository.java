@@ -2,14 +2,17 @@
 // ABOUT_ME: Includes custom queries for filtering by user, timeframe, and parent-child relationships
 package com.epicgoals.api.repository;
 
+import com.epicgoals.api.dto.GoalView;
 import com.epicgoals.api.entity.Goal;
 import com.epicgoals.api.entity.GoalTimeframe;
 import com.epicgoals.api.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -28,4 +31,30 @@ public interface GoalRepository extends JpaRepository<Goal, UUID> {
     
     @Query("SELECT g FROM Goal g WHERE g.user = :user AND g.parentGoalId IS NULL AND g.isActive = true")
     List<Goal> findTopLevelGoalsByUser(@Param("user") User user);
-}
\ No newline at end of file
+    
+    // Projections joining the category name in the same query for list endpoints
+    @Query("SELECT new com.epicgoals.api.dto.GoalView(g.id, g.timeframe, g.type, g.name, g.description, g.targetValue, " +
+           "g.currentValue, c.id, c.name, g.parentGoalId, g.isActive, g.createdAt, g.updatedAt) " +
+           "FROM Goal g LEFT JOIN g.category c WHERE g.user = :user AND g.isActive = true")
+    List<GoalView> findActiveGoalViewsByUser(@Param("user") User user);
+    
+    @Query("SELECT new com.epicgoals.api.dto.GoalView(g.id, g.timeframe, g.type, g.name, g.description, g.targetValue, " +
+           "g.currentValue, c.id, c.name, g.parentGoalId, g.isActive, g.createdAt, g.updatedAt) " +
+           "FROM Goal g LEFT JOIN g.category c WHERE g.user = :user AND g.timeframe = :timeframe AND g.isActive = true")
+    List<GoalView> findActiveGoalViewsByUserAndTimeframe(@Param("user") User user, @Param("timeframe") GoalTimeframe timeframe);
+    
+    @Query("SELECT new com.epicgoals.api.dto.GoalView(g.id, g.timeframe, g.type, g.name, g.description, g.targetValue, " +
+           "g.currentValue, c.id, c.name, g.parentGoalId, g.isActive, g.createdAt, g.updatedAt) " +
+           "FROM Goal g LEFT JOIN g.category c WHERE g.user = :user AND g.parentGoalId = :parentGoalId AND g.isActive = true")
+    List<GoalView> findActiveGoalViewsByUserAndParent(@Param("user") User user, @Param("parentGoalId") UUID parentGoalId);
+    
+    @Query("SELECT COUNT(g) FROM Goal g WHERE g.user.id = :userId AND g.completedAt >= :from AND g.completedAt < :to")
+    long countCompletedBetween(@Param("userId") UUID userId, @Param("from") Instant from, @Param("to") Instant to);
+    
+    // Native so inactive goals are moved too and no goal rows are loaded; clears the persistence
+    // context so no managed habit or goal keeps pointing at the old category
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE goals SET category_id = :newCategoryId, version = version + 1 WHERE category_id = :oldCategoryId",
+           nativeQuery = true)
+    int reassignGoalsToCategory(@Param("oldCategoryId") UUID oldCategoryId, @Param("newCategoryId") UUID newCategoryId);
+}
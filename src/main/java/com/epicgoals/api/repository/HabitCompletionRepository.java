@@ -2,24 +2,56 @@
 // ABOUT_ME: Provides methods for tracking daily habit completions with date range queries
 package com.epicgoals.api.repository;
 
+import com.epicgoals.api.dto.CompletionDay;
 import com.epicgoals.api.entity.Habit;
 import com.epicgoals.api.entity.HabitCompletion;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
-public interface HabitCompletionRepository extends JpaRepository<HabitCompletion, UUID> {
+public interface HabitCompletionRepository extends JpaRepository<HabitCompletion, UUID>, HabitCompletionRepositoryCustom {
     
     List<HabitCompletion> findByHabitAndDateBetween(Habit habit, LocalDate startDate, LocalDate endDate);
     
-    Optional<HabitCompletion> findByHabitAndDate(Habit habit, LocalDate date);
+    // By habit id so completions of deleted habits still count towards the weeks they were done in
+    @Query("SELECT new com.epicgoals.api.dto.CompletionDay(c.habit.id, c.date) FROM HabitCompletion c " +
+           "WHERE c.habit.id IN :habitIds AND c.date BETWEEN :startDate AND :endDate AND c.completed = true " +
+           "ORDER BY c.date")
+    List<CompletionDay> findCompletedDaysBetween(@Param("habitIds") Collection<UUID> habitIds,
+                                                 @Param("startDate") LocalDate startDate,
+                                                 @Param("endDate") LocalDate endDate);
     
-    List<HabitCompletion> findByHabitInAndDateBetween(List<Habit> habits, LocalDate startDate, LocalDate endDate);
+    @Query("SELECT c.date FROM HabitCompletion c WHERE c.habit.id = :habitId AND c.completed = true ORDER BY c.date")
+    List<LocalDate> findCompletedDatesByHabitId(@Param("habitId") UUID habitId);
     
-    void deleteByHabit(Habit habit);
+    // Whole-table ordered scan for streak rebuilds; callers must consume it inside a transaction and close it
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.epicgoals.api.dto.CompletionDay(h.id, c.date) FROM HabitCompletion c JOIN c.habit h " +
+           "WHERE c.completed = true AND h.deletedAt IS NULL ORDER BY h.id, c.date")
+    Stream<CompletionDay> streamAllCompletedDays();
+    
+    // As above for the habits of a batch of users, for heatmap rebuilds
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.epicgoals.api.dto.CompletionDay(h.id, c.date) FROM HabitCompletion c JOIN c.habit h " +
+           "WHERE c.completed = true AND h.deletedAt IS NULL AND h.user.id IN :userIds ORDER BY h.id, c.date")
+    Stream<CompletionDay> streamCompletedDaysOfUsers(@Param("userIds") Collection<UUID> userIds);
+    
+    // Bounded so purging years of history never runs as one long statement
+    @Modifying
+    @Query(value = "DELETE FROM habit_completions WHERE id IN " +
+                   "(SELECT id FROM habit_completions WHERE habit_id = :habitId LIMIT :limit)",
+           nativeQuery = true)
+    int deleteBatchForHabit(@Param("habitId") UUID habitId, @Param("limit") int limit);
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+// ABOUT_ME: Custom repository fragment for atomic habit completion writes
+// ABOUT_ME: Declares single-statement upserts that replace the find-then-save toggle sequence
+package com.epicgoals.api.repository;
+
+import com.epicgoals.api.dto.HabitCompletionDto;
+
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface HabitCompletionRepositoryCustom {
+
+    /**
+     * Atomically inserts a completed row or flips the existing one for the habit and date.
+     * Returns empty when the habit does not exist or does not belong to the user.
+     */
+    Optional<HabitCompletionDto> toggleCompletion(UUID userId, UUID habitId, LocalDate date);
+
+    /**
+     * Atomically sets the completion state for the habit and date.
+     * Returns empty when the habit does not exist or does not belong to the user.
+     */
+    Optional<HabitCompletionDto> setCompletion(UUID userId, UUID habitId, LocalDate date, boolean completed);
+}
@@ -0,0 +1,129 @@
+// ABOUT_ME: Native-SQL implementation of atomic habit completion upserts
+// ABOUT_ME: Uses INSERT ... ON CONFLICT ... RETURNING on PostgreSQL and an equivalent MERGE on other databases
+package com.epicgoals.api.repository;
+
+import com.epicgoals.api.dto.HabitCompletionDto;
+import org.hibernate.query.NativeQuery;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public class HabitCompletionRepositoryImpl extends NativeSqlSupport implements HabitCompletionRepositoryCustom {
+
+    private static final String RETURNED_COLUMNS = "id, habit_id, date, completed, created_at, updated_at";
+
+    // The SELECT only yields a row for a live habit owned by the user, which doubles as the ownership check
+    private static final String PG_TOGGLE =
+            "INSERT INTO habit_completions (id, habit_id, date, completed, created_at, updated_at) " +
+            "SELECT :id, h.id, :date, true, now(), now() FROM habits h " +
+            "WHERE h.id = :habitId AND h.user_id = :userId AND h.deleted_at IS NULL " +
+            "ON CONFLICT (habit_id, date) DO UPDATE SET completed = NOT habit_completions.completed, updated_at = now() " +
+            "RETURNING " + RETURNED_COLUMNS;
+
+    private static final String PG_SET =
+            "INSERT INTO habit_completions (id, habit_id, date, completed, created_at, updated_at) " +
+            "SELECT :id, h.id, :date, :completed, now(), now() FROM habits h " +
+            "WHERE h.id = :habitId AND h.user_id = :userId AND h.deleted_at IS NULL " +
+            "ON CONFLICT (habit_id, date) DO UPDATE SET completed = EXCLUDED.completed, updated_at = now() " +
+            "RETURNING " + RETURNED_COLUMNS;
+
+    private static final String MERGE_SOURCE =
+            "USING (SELECT CAST(:id AS UUID) AS new_id, h.id AS habit_id, CAST(:date AS DATE) AS d " +
+            "FROM habits h WHERE h.id = :habitId AND h.user_id = :userId AND h.deleted_at IS NULL) s " +
+            "ON t.habit_id = s.habit_id AND t.date = s.d ";
+
+    private static final String MERGE_TOGGLE =
+            "MERGE INTO habit_completions t " + MERGE_SOURCE +
+            "WHEN MATCHED THEN UPDATE SET completed = NOT t.completed, updated_at = CURRENT_TIMESTAMP " +
+            "WHEN NOT MATCHED THEN INSERT (id, habit_id, date, completed, created_at, updated_at) " +
+            "VALUES (s.new_id, s.habit_id, s.d, TRUE, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)";
+
+    private static final String MERGE_SET =
+            "MERGE INTO habit_completions t " + MERGE_SOURCE +
+            "WHEN MATCHED THEN UPDATE SET completed = :completed, updated_at = CURRENT_TIMESTAMP " +
+            "WHEN NOT MATCHED THEN INSERT (id, habit_id, date, completed, created_at, updated_at) " +
+            "VALUES (s.new_id, s.habit_id, s.d, :completed, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)";
+
+    private static final String SELECT_OWNED =
+            "SELECT c.id, c.habit_id, c.date, c.completed, c.created_at, c.updated_at " +
+            "FROM habit_completions c JOIN habits h ON h.id = c.habit_id " +
+            "WHERE c.habit_id = :habitId AND c.date = :date AND h.user_id = :userId";
+
+    @Override
+    public Optional<HabitCompletionDto> toggleCompletion(UUID userId, UUID habitId, LocalDate date) {
+        if (isPostgres()) {
+            NativeQuery<?> query = completionQuery(PG_TOGGLE);
+            bindKey(query, userId, habitId, date);
+            return first(query);
+        }
+
+        NativeQuery<?> merge = nativeQuery(MERGE_TOGGLE);
+        bindKey(merge, userId, habitId, date);
+        if (merge.executeUpdate() == 0) {
+            return Optional.empty();
+        }
+        return findOwned(userId, habitId, date);
+    }
+
+    @Override
+    public Optional<HabitCompletionDto> setCompletion(UUID userId, UUID habitId, LocalDate date, boolean completed) {
+        if (isPostgres()) {
+            NativeQuery<?> query = completionQuery(PG_SET);
+            bindKey(query, userId, habitId, date);
+            query.setParameter("completed", completed);
+            return first(query);
+        }
+
+        NativeQuery<?> merge = nativeQuery(MERGE_SET);
+        bindKey(merge, userId, habitId, date);
+        merge.setParameter("completed", completed);
+        if (merge.executeUpdate() == 0) {
+            return Optional.empty();
+        }
+        return findOwned(userId, habitId, date);
+    }
+
+    private Optional<HabitCompletionDto> findOwned(UUID userId, UUID habitId, LocalDate date) {
+        NativeQuery<?> query = completionQuery(SELECT_OWNED);
+        query.setParameter("userId", userId);
+        query.setParameter("habitId", habitId);
+        query.setParameter("date", date);
+        return first(query);
+    }
+
+    private void bindKey(NativeQuery<?> query, UUID userId, UUID habitId, LocalDate date) {
+        query.setParameter("id", UUID.randomUUID());
+        query.setParameter("userId", userId);
+        query.setParameter("habitId", habitId);
+        query.setParameter("date", date);
+    }
+
+    private NativeQuery<?> completionQuery(String sql) {
+        return nativeQuery(sql)
+                .addScalar("id", UUID.class)
+                .addScalar("habit_id", UUID.class)
+                .addScalar("date", LocalDate.class)
+                .addScalar("completed", Boolean.class)
+                .addScalar("created_at", Instant.class)
+                .addScalar("updated_at", Instant.class);
+    }
+
+    private Optional<HabitCompletionDto> first(NativeQuery<?> query) {
+        List<?> rows = query.getResultList();
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        Object[] row = (Object[]) rows.get(0);
+        return Optional.of(new HabitCompletionDto(
+                (UUID) row[0],
+                (UUID) row[1],
+                (LocalDate) row[2],
+                (Boolean) row[3],
+                (Instant) row[4],
+                (Instant) row[5]
+        ));
+    }
+}
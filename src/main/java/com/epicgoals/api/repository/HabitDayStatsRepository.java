@@ -0,0 +1,32 @@
+// ABOUT_ME: This file defines the repository interface for HabitDayStats data access
+// ABOUT_ME: Provides the locked per-habit lookup used to serialize heatmap updates and bulk deletes for rebuilds
+package com.epicgoals.api.repository;
+
+import com.epicgoals.api.entity.HabitDayStats;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface HabitDayStatsRepository extends JpaRepository<HabitDayStats, UUID> {
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM HabitDayStats s WHERE s.habitId = :habitId")
+    Optional<HabitDayStats> findForUpdate(@Param("habitId") UUID habitId);
+    
+    @Modifying
+    @Query("DELETE FROM HabitDayStats s WHERE s.habitId = :habitId")
+    void deleteByHabitId(@Param("habitId") UUID habitId);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM HabitDayStats s WHERE s.habitId IN :habitIds")
+    void deleteByHabitIdIn(@Param("habitIds") Collection<UUID> habitIds);
+}
@@ -0,0 +1,32 @@
+// ABOUT_ME: This file defines the repository interface for HabitMonthStats rollups
+// ABOUT_ME: Provides single-month lookups for incremental updates and bounded range reads for heatmaps
+package com.epicgoals.api.repository;
+
+import com.epicgoals.api.entity.HabitMonthStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface HabitMonthStatsRepository extends JpaRepository<HabitMonthStats, UUID> {
+    
+    Optional<HabitMonthStats> findByHabitIdAndMonthStart(UUID habitId, LocalDate monthStart);
+    
+    List<HabitMonthStats> findByHabitIdAndMonthStartGreaterThanEqualOrderByMonthStart(UUID habitId, LocalDate from);
+    
+    @Modifying
+    @Query("DELETE FROM HabitMonthStats m WHERE m.habitId = :habitId")
+    void deleteByHabitId(@Param("habitId") UUID habitId);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM HabitMonthStats m WHERE m.habitId IN :habitIds")
+    void deleteByHabitIdIn(@Param("habitIds") Collection<UUID> habitIds);
+}
@@ -2,15 +2,21 @@
 // ABOUT_ME: Includes methods for habit management with user isolation and counting active habits
 package com.epicgoals.api.repository;
 
-import com.epicgoals.api.entity.Category;
+import com.epicgoals.api.dto.HabitDefinition;
+import com.epicgoals.api.dto.HabitDto;
+import com.epicgoals.api.dto.HabitStart;
 import com.epicgoals.api.entity.Habit;
 import com.epicgoals.api.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -18,15 +24,40 @@ import java.util.UUID;
 @Repository
 public interface HabitRepository extends JpaRepository<Habit, UUID> {
     
-    List<Habit> findByUserAndIsActiveTrueOrderByName(User user);
+    @Query("SELECT new com.epicgoals.api.dto.HabitDto(h.id, h.name, h.frequency, h.isActive, c.id, c.name, h.createdAt, h.updatedAt) " +
+           "FROM Habit h JOIN h.category c WHERE h.user = :user AND h.isActive = true ORDER BY h.name")
+    List<HabitDto> findActiveHabitDtosByUser(@Param("user") User user);
+    
+    // Current definitions of the user's active habits that had taken effect by the given day
+    @Query("SELECT new com.epicgoals.api.dto.HabitDefinition(h.id, h.category.id, h.frequency, h.effectiveFrom) " +
+           "FROM Habit h WHERE h.user.id = :userId AND h.isActive = true AND h.effectiveFrom <= :day")
+    List<HabitDefinition> findActiveDefinitionsFrom(@Param("userId") UUID userId, @Param("day") LocalDate day);
     
     Optional<Habit> findByIdAndUser(UUID id, User user);
     
-    List<Habit> findByCategory(Category category);
+    boolean existsByIdAndUser(UUID id, User user);
+    
+    // Keyset page over the owners of habits within a user id range
+    @Query("SELECT DISTINCT h.user.id FROM Habit h WHERE h.user.id > :afterId AND h.user.id <= :lastId ORDER BY h.user.id")
+    List<UUID> findOwnerIdsBetween(@Param("afterId") UUID afterId, @Param("lastId") UUID lastId, Pageable pageable);
+    
+    @Query("SELECT new com.epicgoals.api.dto.HabitStart(h.id, h.user.id, h.createdAt) FROM Habit h WHERE h.user.id IN :userIds")
+    List<HabitStart> findHabitStartsOfUsers(@Param("userIds") Collection<UUID> userIds);
     
     int countByUserAndIsActiveTrue(User user);
     
+    // Native so deleted habits that still reference the category are moved as well
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE habits SET category_id = :newCategoryId, version = version + 1 WHERE category_id = :oldCategoryId",
+           nativeQuery = true)
+    int reassignHabitsToCategory(@Param("oldCategoryId") UUID oldCategoryId, @Param("newCategoryId") UUID newCategoryId);
+    
+    // Native because tombstones are hidden from JPQL; the id is read as text so both databases map it the same way
+    @Query(value = "SELECT CAST(id AS VARCHAR(36)) FROM habits WHERE deleted_at < :cutoff ORDER BY deleted_at LIMIT 1",
+           nativeQuery = true)
+    Optional<String> findFirstDeletedBefore(@Param("cutoff") Instant cutoff);
+    
     @Modifying
-    @Query("UPDATE Habit h SET h.category = :newCategory WHERE h.category = :oldCategory")
-    void reassignHabitsToCategory(@Param("oldCategory") Category oldCategory, @Param("newCategory") Category newCategory);
+    @Query(value = "DELETE FROM habits WHERE id = :habitId AND deleted_at IS NOT NULL", nativeQuery = true)
+    int deleteTombstone(@Param("habitId") UUID habitId);
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+// ABOUT_ME: This file defines the repository interface for HabitStreak summary data access
+// ABOUT_ME: Provides the locked per-habit lookup used to serialize streak updates and the Habits tab read
+package com.epicgoals.api.repository;
+
+import com.epicgoals.api.entity.HabitStreak;
+import com.epicgoals.api.entity.User;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface HabitStreakRepository extends JpaRepository<HabitStreak, UUID>, HabitStreakRepositoryCustom {
+    
+    // Row lock per habit: concurrent toggles of one habit apply their run edits one after another
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM HabitStreak s WHERE s.habitId = :habitId")
+    Optional<HabitStreak> findForUpdate(@Param("habitId") UUID habitId);
+    
+    @Query("SELECT s FROM HabitStreak s JOIN s.habit h WHERE h.user = :user AND h.isActive = true ORDER BY h.name")
+    List<HabitStreak> findActiveByUser(@Param("user") User user);
+    
+    // Tombstoned habits are left for the purge, which deletes their streak rows
+    @Query("SELECT h.id FROM Habit h WHERE h.deletedAt IS NULL " +
+           "AND NOT EXISTS (SELECT 1 FROM HabitStreak s WHERE s.habitId = h.id)")
+    List<UUID> findHabitIdsWithoutStreak();
+    
+    @Modifying
+    @Query("DELETE FROM HabitStreak s WHERE s.habitId = :habitId")
+    void deleteByHabitId(@Param("habitId") UUID habitId);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM HabitStreak s")
+    void deleteAllStreaks();
+}
@@ -0,0 +1,14 @@
+// ABOUT_ME: Custom repository fragment for creating a habit's streak summary row atomically
+// ABOUT_ME: Lets concurrent rebuilds of one habit create the row once and then take turns on its lock
+package com.epicgoals.api.repository;
+
+import java.util.UUID;
+
+public interface HabitStreakRepositoryCustom {
+
+    /**
+     * Inserts an empty summary for the habit unless it has one, in one statement that does nothing
+     * when a concurrent transaction inserted it first. Returns the number of rows inserted.
+     */
+    int insertEmptyIfAbsent(UUID habitId);
+}
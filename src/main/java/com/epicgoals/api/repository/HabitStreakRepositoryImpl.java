@@ -0,0 +1,22 @@
+// ABOUT_ME: Native-SQL implementation of creating an empty streak summary
+// ABOUT_ME: Uses INSERT ... ON CONFLICT DO NOTHING on PostgreSQL and an equivalent MERGE on other databases
+package com.epicgoals.api.repository;
+
+import java.util.UUID;
+
+public class HabitStreakRepositoryImpl extends NativeSqlSupport implements HabitStreakRepositoryCustom {
+
+    private static final String PG_INSERT =
+            "INSERT INTO habit_streaks (habit_id, longest_streak, version, updated_at) VALUES (?, 0, 0, now()) " +
+            "ON CONFLICT (habit_id) DO NOTHING";
+
+    private static final String MERGE_INSERT =
+            "MERGE INTO habit_streaks t USING (SELECT CAST(? AS UUID) AS habit_id) s ON t.habit_id = s.habit_id " +
+            "WHEN NOT MATCHED THEN INSERT (habit_id, longest_streak, version, updated_at) " +
+            "VALUES (s.habit_id, 0, 0, CURRENT_TIMESTAMP)";
+
+    @Override
+    public int insertEmptyIfAbsent(UUID habitId) {
+        return insertIfAbsent(PG_INSERT, MERGE_INSERT, habitId);
+    }
+}
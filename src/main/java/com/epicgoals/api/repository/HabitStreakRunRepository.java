@@ -0,0 +1,38 @@
+// ABOUT_ME: This file defines the repository interface for HabitStreakRun data access operations
+// ABOUT_ME: Provides neighbour lookups for incremental streak maintenance and bulk deletes for rebuilds
+package com.epicgoals.api.repository;
+
+import com.epicgoals.api.entity.HabitStreakRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface HabitStreakRunRepository extends JpaRepository<HabitStreakRun, UUID> {
+    
+    // Runs overlapping [from, to]; with from = day - 1 and to = day + 1 that is the run holding the day and its neighbours
+    @Query("SELECT r FROM HabitStreakRun r WHERE r.habitId = :habitId AND r.startDate <= :to AND r.endDate >= :from")
+    List<HabitStreakRun> findTouching(@Param("habitId") UUID habitId,
+                                      @Param("from") LocalDate from,
+                                      @Param("to") LocalDate to);
+    
+    Optional<HabitStreakRun> findFirstByHabitIdOrderByEndDateDesc(UUID habitId);
+    
+    @Query("SELECT COALESCE(MAX(r.length), 0) FROM HabitStreakRun r WHERE r.habitId = :habitId")
+    int findLongestLength(@Param("habitId") UUID habitId);
+    
+    @Modifying
+    @Query("DELETE FROM HabitStreakRun r WHERE r.habitId = :habitId")
+    void deleteByHabitId(@Param("habitId") UUID habitId);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM HabitStreakRun r")
+    void deleteAllRuns();
+}
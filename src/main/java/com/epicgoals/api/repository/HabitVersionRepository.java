@@ -0,0 +1,41 @@
+// ABOUT_ME: This file defines the repository interface for superseded habit definitions
+// ABOUT_ME: Supplies the definitions that applied to past weeks so their scores can be recomputed exactly
+package com.epicgoals.api.repository;
+
+import com.epicgoals.api.dto.HabitDefinition;
+import com.epicgoals.api.dto.HabitLifetime;
+import com.epicgoals.api.entity.HabitVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface HabitVersionRepository extends JpaRepository<HabitVersion, Long> {
+    
+    // Days the habit counted in; empty when it never outlived the day it was created or last changed
+    @Query("SELECT new com.epicgoals.api.dto.HabitLifetime(v.userId, MIN(v.effectiveFrom), MAX(v.effectiveTo)) " +
+           "FROM HabitVersion v WHERE v.habitId = :habitId AND v.active = true GROUP BY v.userId")
+    Optional<HabitLifetime> findLifetime(@Param("habitId") UUID habitId);
+    
+    @Query("SELECT new com.epicgoals.api.dto.HabitDefinition(v.habitId, v.categoryId, v.frequency, v.effectiveFrom, v.effectiveTo) " +
+           "FROM HabitVersion v WHERE v.userId = :userId AND v.active = true " +
+           "AND v.effectiveFrom <= :lastDay AND v.effectiveTo > :firstDay")
+    List<HabitDefinition> findActiveDefinitionsOverlapping(@Param("userId") UUID userId,
+                                                           @Param("firstDay") LocalDate firstDay,
+                                                           @Param("lastDay") LocalDate lastDay);
+    
+    @Modifying
+    @Query("UPDATE HabitVersion v SET v.categoryId = :newCategoryId WHERE v.categoryId = :oldCategoryId")
+    int reassignCategory(@Param("oldCategoryId") UUID oldCategoryId, @Param("newCategoryId") UUID newCategoryId);
+    
+    @Modifying
+    @Query("DELETE FROM HabitVersion v WHERE v.habitId = :habitId")
+    int deleteByHabitId(@Param("habitId") UUID habitId);
+}
@@ -0,0 +1,29 @@
+// ABOUT_ME: This file defines the repository interface for idempotency keys
+// ABOUT_ME: Keys are claimed with one atomic insert, then read back or completed with their result
+package com.epicgoals.api.repository;
+
+import com.epicgoals.api.entity.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, UUID>, IdempotencyKeyRepositoryCustom {
+    
+    // The response is empty while the key's request has not stored its result
+    Optional<IdempotencyKey> findByUserIdAndKey(UUID userId, String key);
+    
+    @Modifying
+    @Query("UPDATE IdempotencyKey k SET k.response = :response WHERE k.userId = :userId AND k.key = :key")
+    int storeResponse(@Param("userId") UUID userId, @Param("key") String key, @Param("response") String response);
+    
+    @Modifying
+    @Query("DELETE FROM IdempotencyKey k WHERE k.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") Instant cutoff);
+}
@@ -0,0 +1,16 @@
+// ABOUT_ME: Custom repository fragment for claiming an idempotency key atomically
+// ABOUT_ME: Lets concurrent requests with one key agree on a single one that runs
+package com.epicgoals.api.repository;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public interface IdempotencyKeyRepositoryCustom {
+
+    /**
+     * Records the user's key with the request's fingerprint unless it is already recorded and was created at or after the expiry cutoff;
+     * an expired record is taken over. One statement, so of concurrent claims of a key exactly one
+     * succeeds. Returns whether this call claimed the key.
+     */
+    boolean claim(UUID userId, String key, String requestHash, Instant now, Instant expiredBefore);
+}
@@ -0,0 +1,33 @@
+// ABOUT_ME: Native-SQL implementation of claiming an idempotency key
+// ABOUT_ME: Uses INSERT ... ON CONFLICT DO UPDATE on PostgreSQL and an equivalent MERGE on other databases
+package com.epicgoals.api.repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.UUID;
+
+public class IdempotencyKeyRepositoryImpl extends NativeSqlSupport implements IdempotencyKeyRepositoryCustom {
+
+    // The update only applies to an expired record, which is claimed afresh; a live one is left alone
+    private static final String PG_CLAIM =
+            "INSERT INTO idempotency_keys (id, user_id, idempotency_key, request_hash, created_at) VALUES (?, ?, ?, ?, ?) " +
+            "ON CONFLICT (user_id, idempotency_key) DO UPDATE SET id = EXCLUDED.id, request_hash = EXCLUDED.request_hash, " +
+            "response = NULL, created_at = EXCLUDED.created_at WHERE idempotency_keys.created_at < ?";
+
+    private static final String MERGE_CLAIM =
+            "MERGE INTO idempotency_keys t " +
+            "USING (SELECT CAST(? AS UUID) AS id, CAST(? AS UUID) AS user_id, CAST(? AS VARCHAR) AS idempotency_key, " +
+            "CAST(? AS VARCHAR) AS request_hash, " +
+            "CAST(? AS TIMESTAMP WITH TIME ZONE) AS created_at, CAST(? AS TIMESTAMP WITH TIME ZONE) AS cutoff) s " +
+            "ON t.user_id = s.user_id AND t.idempotency_key = s.idempotency_key " +
+            "WHEN MATCHED AND t.created_at < s.cutoff THEN UPDATE SET id = s.id, request_hash = s.request_hash, " +
+            "response = NULL, created_at = s.created_at " +
+            "WHEN NOT MATCHED THEN INSERT (id, user_id, idempotency_key, request_hash, created_at) " +
+            "VALUES (s.id, s.user_id, s.idempotency_key, s.request_hash, s.created_at)";
+
+    @Override
+    public boolean claim(UUID userId, String key, String requestHash, Instant now, Instant expiredBefore) {
+        return insertIfAbsent(PG_CLAIM, MERGE_CLAIM, UUID.randomUUID(), userId, key, requestHash,
+                Timestamp.from(now), Timestamp.from(expiredBefore)) > 0;
+    }
+}
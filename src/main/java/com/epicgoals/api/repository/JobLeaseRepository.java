@@ -0,0 +1,61 @@
+// ABOUT_ME: This file defines the repository interface for job leases
+// ABOUT_ME: Every claim, renewal and release is one conditional update, so two instances can never both succeed
+package com.epicgoals.api.repository;
+
+import com.epicgoals.api.entity.JobLease;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface JobLeaseRepository extends JpaRepository<JobLease, String> {
+
+    // Takes a free or expired lease and bumps its fencing token; cleared so the new token is read back from the row
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE JobLease l SET l.owner = :owner, l.fencingToken = l.fencingToken + 1, l.expiresAt = :expiresAt " +
+           "WHERE l.name = :name AND (l.owner IS NULL OR l.expiresAt <= :now)")
+    int claim(@Param("name") String name, @Param("owner") String owner,
+              @Param("now") Instant now, @Param("expiresAt") Instant expiresAt);
+
+    // As claim, but only while the shard has not been finished in the given run
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE JobLease l SET l.owner = :owner, l.fencingToken = l.fencingToken + 1, l.expiresAt = :expiresAt " +
+           "WHERE l.name = :name AND (l.owner IS NULL OR l.expiresAt <= :now) " +
+           "AND (l.completedRun IS NULL OR l.completedRun <> :run)")
+    int claimForRun(@Param("name") String name, @Param("owner") String owner, @Param("run") String run,
+                    @Param("now") Instant now, @Param("expiresAt") Instant expiresAt);
+
+    // Fails once another instance has taken the lease over, even if this one never noticed it expire
+    @Modifying
+    @Query("UPDATE JobLease l SET l.expiresAt = :expiresAt " +
+           "WHERE l.name = :name AND l.owner = :owner AND l.fencingToken = :fencingToken AND l.expiresAt > :now")
+    int renew(@Param("name") String name, @Param("owner") String owner, @Param("fencingToken") long fencingToken,
+              @Param("now") Instant now, @Param("expiresAt") Instant expiresAt);
+
+    // Fencing for batch writes: the row stays locked by the writer's transaction while it still carries the token
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM JobLease l WHERE l.name = :name AND l.owner = :owner AND l.fencingToken = :fencingToken")
+    Optional<JobLease> findHeldForUpdate(@Param("name") String name, @Param("owner") String owner,
+                                         @Param("fencingToken") long fencingToken);
+
+    @Modifying
+    @Query("UPDATE JobLease l SET l.owner = NULL, l.expiresAt = :now, l.completedRun = COALESCE(:completedRun, l.completedRun) " +
+           "WHERE l.name = :name AND l.owner = :owner AND l.fencingToken = :fencingToken")
+    int release(@Param("name") String name, @Param("owner") String owner, @Param("fencingToken") long fencingToken,
+                @Param("completedRun") String completedRun, @Param("now") Instant now);
+
+    @Query("SELECT l.name FROM JobLease l WHERE l.name IN :names AND l.completedRun = :run")
+    List<String> findCompletedForRun(@Param("names") Collection<String> names, @Param("run") String run);
+
+    @Query("SELECT COUNT(l) FROM JobLease l WHERE l.name LIKE :prefix AND l.owner IS NOT NULL AND l.expiresAt > :now")
+    long countHeldWithPrefix(@Param("prefix") String prefix, @Param("now") Instant now);
+}
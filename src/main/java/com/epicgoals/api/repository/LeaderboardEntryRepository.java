@@ -0,0 +1,31 @@
+// ABOUT_ME: This file defines the repository interface for LeaderboardEntry data access operations
+// ABOUT_ME: A viewer's board for a week is a single range scan of the (viewer, week, score) index
+package com.epicgoals.api.repository;
+
+import com.epicgoals.api.entity.LeaderboardEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface LeaderboardEntryRepository extends JpaRepository<LeaderboardEntry, UUID>, LeaderboardEntryRepositoryCustom {
+    
+    @Query("SELECT e FROM LeaderboardEntry e WHERE e.viewerId = :viewerId AND e.weekStartDate = :weekStart " +
+           "ORDER BY e.score DESC, e.memberEmail")
+    List<LeaderboardEntry> findBoard(@Param("viewerId") UUID viewerId, @Param("weekStart") LocalDate weekStart);
+    
+    // Drops each user's rows from the other's board when a friendship ends
+    @Modifying
+    @Query("DELETE FROM LeaderboardEntry e WHERE (e.viewerId = :a AND e.memberId = :b) OR (e.viewerId = :b AND e.memberId = :a)")
+    int deleteBetween(@Param("a") UUID a, @Param("b") UUID b);
+    
+    @Modifying
+    @Query("DELETE FROM LeaderboardEntry e WHERE e.weekStartDate < :cutoff")
+    int deleteWeeksBefore(@Param("cutoff") LocalDate cutoff);
+}
@@ -0,0 +1,21 @@
+// ABOUT_ME: Custom repository fragment for fanning a member's weekly score out to the leaderboards that show it
+// ABOUT_ME: Implemented with native upserts so concurrent recalculations cannot insert duplicate rows
+package com.epicgoals.api.repository;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+public interface LeaderboardEntryRepositoryCustom {
+
+    /**
+     * Writes the member's score to their own board and to the board of every accepted friend
+     * in a single statement, returning the number of rows written.
+     */
+    int upsertForMemberAndFriends(UUID memberId, LocalDate weekStart, int score, int completedHabits, int totalHabits);
+
+    /**
+     * Copies the member's own row for the week onto the viewer's board if the member has one,
+     * so a new friend shows up without waiting for the member's next score change.
+     */
+    int copyToViewer(UUID memberId, UUID viewerId, LocalDate weekStart);
+}
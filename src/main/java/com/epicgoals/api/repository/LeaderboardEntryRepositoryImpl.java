@@ -0,0 +1,65 @@
+// ABOUT_ME: Native-SQL implementation of the leaderboard fan-out
+// ABOUT_ME: Uses INSERT ... SELECT ... ON CONFLICT on PostgreSQL and an equivalent MERGE on other databases
+package com.epicgoals.api.repository;
+
+import org.hibernate.query.NativeQuery;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+public class LeaderboardEntryRepositoryImpl extends NativeSqlSupport implements LeaderboardEntryRepositoryCustom {
+
+    // The member's own board plus the board of every accepted friend
+    private static final String VIEWERS =
+            "SELECT CAST(:memberId AS UUID) AS viewer_id " +
+            "UNION ALL SELECT f.friend_id FROM friendships f WHERE f.user_id = :memberId AND f.status = 'ACCEPTED'";
+
+    private static final String PG_FAN_OUT =
+            "INSERT INTO leaderboard_entries (id, viewer_id, member_id, member_email, week_start_date, score, " +
+            "completed_habits, total_habits, updated_at) " +
+            "SELECT gen_random_uuid(), v.viewer_id, u.id, u.email, :weekStart, :score, :completed, :total, now() " +
+            "FROM users u CROSS JOIN (" + VIEWERS + ") v WHERE u.id = :memberId " +
+            "ON CONFLICT (viewer_id, week_start_date, member_id) DO UPDATE SET score = EXCLUDED.score, " +
+            "completed_habits = EXCLUDED.completed_habits, total_habits = EXCLUDED.total_habits, updated_at = EXCLUDED.updated_at";
+
+    private static final String MERGE_FAN_OUT =
+            "MERGE INTO leaderboard_entries t " +
+            "USING (SELECT v.viewer_id, u.id AS member_id, u.email FROM users u CROSS JOIN (" + VIEWERS + ") v " +
+            "WHERE u.id = :memberId) s " +
+            "ON t.viewer_id = s.viewer_id AND t.member_id = s.member_id AND t.week_start_date = :weekStart " +
+            "WHEN MATCHED THEN UPDATE SET score = :score, completed_habits = :completed, total_habits = :total, " +
+            "updated_at = CURRENT_TIMESTAMP " +
+            "WHEN NOT MATCHED THEN INSERT (id, viewer_id, member_id, member_email, week_start_date, score, " +
+            "completed_habits, total_habits, updated_at) " +
+            "VALUES (RANDOM_UUID(), s.viewer_id, s.member_id, s.email, :weekStart, :score, :completed, :total, CURRENT_TIMESTAMP)";
+
+    private static final String COPY_TO_VIEWER =
+            "INSERT INTO leaderboard_entries (id, viewer_id, member_id, member_email, week_start_date, score, " +
+            "completed_habits, total_habits, updated_at) " +
+            "SELECT :id, :viewerId, e.member_id, e.member_email, e.week_start_date, e.score, e.completed_habits, " +
+            "e.total_habits, e.updated_at FROM leaderboard_entries e " +
+            "WHERE e.viewer_id = :memberId AND e.member_id = :memberId AND e.week_start_date = :weekStart " +
+            "AND NOT EXISTS (SELECT 1 FROM leaderboard_entries x WHERE x.viewer_id = :viewerId " +
+            "AND x.member_id = :memberId AND x.week_start_date = :weekStart)";
+
+    @Override
+    public int upsertForMemberAndFriends(UUID memberId, LocalDate weekStart, int score, int completedHabits, int totalHabits) {
+        NativeQuery<?> query = nativeQuery(isPostgres() ? PG_FAN_OUT : MERGE_FAN_OUT);
+        query.setParameter("memberId", memberId);
+        query.setParameter("weekStart", weekStart);
+        query.setParameter("score", score);
+        query.setParameter("completed", completedHabits);
+        query.setParameter("total", totalHabits);
+        return query.executeUpdate();
+    }
+
+    @Override
+    public int copyToViewer(UUID memberId, UUID viewerId, LocalDate weekStart) {
+        NativeQuery<?> query = nativeQuery(COPY_TO_VIEWER);
+        query.setParameter("id", UUID.randomUUID());
+        query.setParameter("memberId", memberId);
+        query.setParameter("viewerId", viewerId);
+        query.setParameter("weekStart", weekStart);
+        return query.executeUpdate();
+    }
+}
@@ -0,0 +1,61 @@
+// ABOUT_ME: Shared base for custom repository fragments that issue native SQL
+// ABOUT_ME: Resolves the active dialect once so fragments can pick PostgreSQL or portable statements
+package com.epicgoals.api.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.query.NativeQuery;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLIntegrityConstraintViolationException;
+
+abstract class NativeSqlSupport {
+
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    @PersistenceContext
+    protected EntityManager entityManager;
+
+    private Boolean postgres;
+
+    protected NativeQuery<?> nativeQuery(String sql) {
+        return entityManager.createNativeQuery(sql).unwrap(NativeQuery.class);
+    }
+
+    /**
+     * Runs an insert that must do nothing when the row already exists: PostgreSQL's statement says so with
+     * ON CONFLICT DO NOTHING, which also waits out a concurrent insert of the same key. The portable MERGE
+     * fails instead; on those databases the failed statement alone is rolled back, so it runs on the
+     * session's connection and counts as "already there". Parameters are positional. Returns the rows inserted.
+     */
+    protected int insertIfAbsent(String postgresSql, String portableSql, Object... parameters) {
+        String sql = isPostgres() ? postgresSql : portableSql;
+        entityManager.flush();
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement insert = connection.prepareStatement(sql)) {
+                for (int i = 0; i < parameters.length; i++) {
+                    insert.setObject(i + 1, parameters[i]);
+                }
+                return insert.executeUpdate();
+            } catch (SQLIntegrityConstraintViolationException ex) {
+                if (UNIQUE_VIOLATION.equals(ex.getSQLState())) {
+                    return 0;
+                }
+                throw ex;
+            }
+        });
+    }
+
+    protected boolean isPostgres() {
+        if (postgres == null) {
+            postgres = entityManager.getEntityManagerFactory()
+                    .unwrap(SessionFactoryImplementor.class)
+                    .getJdbcServices()
+                    .getDialect() instanceof PostgreSQLDialect;
+        }
+        return postgres;
+    }
+}
@@ -0,0 +1,48 @@
+// ABOUT_ME: This file defines the repository interface for OutboxEvent data access
+// ABOUT_ME: Status transitions are single-statement updates so dispatch never re-reads the event row
+package com.epicgoals.api.repository;
+
+import com.epicgoals.api.entity.OutboxEvent;
+import com.epicgoals.api.entity.OutboxStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    
+    // Only a user's head event ever backs off, since later ones are not attempted while it is pending; leaving
+    // out that user's events keeps a failing user from filling every batch and starving everyone behind them
+    @Query("SELECT e FROM OutboxEvent e WHERE e.status = com.epicgoals.api.entity.OutboxStatus.PENDING " +
+           "AND NOT EXISTS (SELECT h.id FROM OutboxEvent h WHERE h.userId = e.userId " +
+           "AND h.status = com.epicgoals.api.entity.OutboxStatus.PENDING AND h.id <= e.id AND h.availableAt > :now) " +
+           "ORDER BY e.id")
+    List<OutboxEvent> findPending(@Param("now") Instant now, Pageable page);
+    
+    // Matches only a pending event, so of two deliveries of one event only the first marks it; the row lock
+    // makes the second wait for the first to commit and then see it processed
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = com.epicgoals.api.entity.OutboxStatus.PROCESSED, e.processedAt = :now " +
+           "WHERE e.id = :id AND e.status = com.epicgoals.api.entity.OutboxStatus.PENDING")
+    int markProcessed(@Param("id") Long id, @Param("now") Instant now);
+    
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = :status, e.attempts = :attempts, e.availableAt = :availableAt, " +
+           "e.lastError = :error WHERE e.id = :id AND e.status = com.epicgoals.api.entity.OutboxStatus.PENDING")
+    void recordFailure(@Param("id") Long id,
+                       @Param("status") OutboxStatus status,
+                       @Param("attempts") int attempts,
+                       @Param("availableAt") Instant availableAt,
+                       @Param("error") String error);
+    
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.status = com.epicgoals.api.entity.OutboxStatus.PROCESSED " +
+           "AND e.processedAt < :cutoff")
+    int deleteProcessedBefore(@Param("cutoff") Instant cutoff);
+}
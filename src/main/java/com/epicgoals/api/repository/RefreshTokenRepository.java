@@ -0,0 +1,45 @@
+// ABOUT_ME: This file defines the repository interface for refresh token rotation and revocation
+// ABOUT_ME: Rotation and revocation are single conditional updates so concurrent refreshes cannot both succeed
+package com.epicgoals.api.repository;
+
+import com.epicgoals.api.dto.FamilyRevocation;
+import com.epicgoals.api.entity.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, UUID> {
+    
+    // Returns 0 when the token was already used, revoked or expired
+    @Modifying
+    @Query("UPDATE RefreshToken t SET t.usedAt = :now " +
+           "WHERE t.id = :id AND t.usedAt IS NULL AND t.revokedAt IS NULL AND t.expiresAt > :now")
+    int markUsed(@Param("id") UUID id, @Param("now") Instant now);
+    
+    @Modifying
+    @Query("UPDATE RefreshToken t SET t.revokedAt = :now WHERE t.familyId = :familyId AND t.revokedAt IS NULL")
+    int revokeFamily(@Param("familyId") UUID familyId, @Param("now") Instant now);
+    
+    @Query("SELECT DISTINCT t.familyId FROM RefreshToken t " +
+           "WHERE t.userId = :userId AND t.revokedAt IS NULL AND t.expiresAt > :now")
+    List<UUID> findLiveFamilyIds(@Param("userId") UUID userId, @Param("now") Instant now);
+    
+    @Modifying
+    @Query("UPDATE RefreshToken t SET t.revokedAt = :now WHERE t.userId = :userId AND t.revokedAt IS NULL")
+    int revokeAllForUser(@Param("userId") UUID userId, @Param("now") Instant now);
+    
+    @Query("SELECT new com.epicgoals.api.dto.FamilyRevocation(t.familyId, MAX(t.revokedAt)) FROM RefreshToken t " +
+           "WHERE t.revokedAt > :since GROUP BY t.familyId")
+    List<FamilyRevocation> findFamiliesRevokedSince(@Param("since") Instant since);
+    
+    @Modifying
+    @Query("DELETE FROM RefreshToken t WHERE t.expiresAt < :cutoff")
+    int deleteExpiredBefore(@Param("cutoff") Instant cutoff);
+}
@@ -1,11 +1,16 @@
 // ABOUT_ME: Repository interface for User entity database operations
-// ABOUT_ME: Provides methods to find users by email and check existence
+// ABOUT_ME: Provides methods to find users by email, check existence, select users by time zone and bump data versions
 package com.epicgoals.api.repository;
 
 import com.epicgoals.api.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -15,4 +20,23 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     Optional<User> findByEmail(String email);
     
     boolean existsByEmail(String email);
+    
+    @Query("SELECT u.timeZone FROM User u WHERE u.id = :id")
+    Optional<String> findTimeZoneById(@Param("id") UUID id);
+    
+    @Query("SELECT u.dataVersion FROM User u WHERE u.id = :id")
+    Optional<Long> findDataVersionById(@Param("id") UUID id);
+    
+    @Modifying
+    @Query("UPDATE User u SET u.dataVersion = u.dataVersion + 1 WHERE u.id = :id")
+    int incrementDataVersion(@Param("id") UUID id);
+    
+    @Query("SELECT DISTINCT u.timeZone FROM User u WHERE u.timeZone IS NOT NULL")
+    List<String> findDistinctTimeZones();
+    
+    // Keyset page over the users of a set of zones within an id range; users without a zone follow the server zone
+    @Query("SELECT u FROM User u WHERE (u.timeZone IN :zones OR (:includeUnset = true AND u.timeZone IS NULL)) " +
+           "AND u.id > :afterId AND u.id <= :lastId ORDER BY u.id")
+    List<User> findByTimeZoneBand(@Param("zones") List<String> zones, @Param("includeUnset") boolean includeUnset,
+                                  @Param("afterId") UUID afterId, @Param("lastId") UUID lastId, Pageable pageable);
 }
\ No newline at end of file
@@ -0,0 +1,13 @@
+// ABOUT_ME: This file defines the repository interface for UserTrendStats data access
+// ABOUT_ME: Trend rows are keyed by user id and read or locked one at a time
+package com.epicgoals.api.repository;
+
+import com.epicgoals.api.entity.UserTrendStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+@Repository
+public interface UserTrendStatsRepository extends JpaRepository<UserTrendStats, UUID>, UserTrendStatsRepositoryCustom {
+}
@@ -0,0 +1,14 @@
+// ABOUT_ME: Custom repository fragment for creating a user's trend row atomically
+// ABOUT_ME: Lets concurrent first writes for one user create the row once and then take turns on its lock
+package com.epicgoals.api.repository;
+
+import java.util.UUID;
+
+public interface UserTrendStatsRepositoryCustom {
+
+    /**
+     * Inserts empty trend stats for the user unless they have a row, in one statement that does nothing
+     * when a concurrent transaction inserted it first. Returns the number of rows inserted.
+     */
+    int insertEmptyIfAbsent(UUID userId);
+}
@@ -0,0 +1,33 @@
+// ABOUT_ME: Native-SQL implementation of creating empty trend stats
+// ABOUT_ME: Uses INSERT ... ON CONFLICT DO NOTHING on PostgreSQL and an equivalent MERGE on other databases
+package com.epicgoals.api.repository;
+
+import com.epicgoals.api.entity.IntegerListConverter;
+import com.epicgoals.api.entity.UserTrendStats;
+
+import java.util.UUID;
+
+public class UserTrendStatsRepositoryImpl extends NativeSqlSupport implements UserTrendStatsRepositoryCustom {
+
+    private static final String PG_INSERT =
+            "INSERT INTO user_trend_stats (user_id, weekly_scores, weekday_completions, version, updated_at) " +
+            "VALUES (?, ?, ?, 0, now()) ON CONFLICT (user_id) DO NOTHING";
+
+    private static final String MERGE_INSERT =
+            "MERGE INTO user_trend_stats t " +
+            "USING (SELECT CAST(? AS UUID) AS user_id, CAST(? AS VARCHAR) AS weekly_scores, " +
+            "CAST(? AS VARCHAR) AS weekday_completions) s ON t.user_id = s.user_id " +
+            "WHEN NOT MATCHED THEN INSERT (user_id, weekly_scores, weekday_completions, version, updated_at) " +
+            "VALUES (s.user_id, s.weekly_scores, s.weekday_completions, 0, CURRENT_TIMESTAMP)";
+
+    private final IntegerListConverter listConverter = new IntegerListConverter();
+
+    @Override
+    public int insertEmptyIfAbsent(UUID userId) {
+        // Columns take the same defaults as a new entity
+        UserTrendStats empty = new UserTrendStats(userId);
+        return insertIfAbsent(PG_INSERT, MERGE_INSERT, userId,
+                listConverter.convertToDatabaseColumn(empty.getWeeklyScores()),
+                listConverter.convertToDatabaseColumn(empty.getWeekdayCompletions()));
+    }
+}
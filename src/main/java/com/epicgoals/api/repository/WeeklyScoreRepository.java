@@ -2,9 +2,11 @@
 // ABOUT_ME: Provides methods for querying weekly scores with user isolation and date ranges
 package com.epicgoals.api.repository;
 
+import com.epicgoals.api.dto.CycleScoreTotals;
 import com.epicgoals.api.entity.User;
 import com.epicgoals.api.entity.WeeklyScore;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -15,7 +17,7 @@ import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface WeeklyScoreRepository extends JpaRepository<WeeklyScore, UUID> {
+public interface WeeklyScoreRepository extends JpaRepository<WeeklyScore, UUID>, WeeklyScoreRepositoryCustom {
     
     Optional<WeeklyScore> findByUserAndWeekStartDate(User user, LocalDate weekStartDate);
     
@@ -24,8 +26,24 @@ public interface WeeklyScoreRepository extends JpaRepository<WeeklyScore, UUID>
     @Query("SELECT ws FROM WeeklyScore ws WHERE ws.user = :user AND ws.weekStartDate >= :startDate ORDER BY ws.weekStartDate DESC")
     List<WeeklyScore> findByUserAndWeekStartDateAfterOrderByWeekStartDateDesc(@Param("user") User user, @Param("startDate") LocalDate startDate);
     
-    @Query("SELECT ws FROM WeeklyScore ws WHERE ws.user = :user ORDER BY ws.weekStartDate DESC")
-    List<WeeklyScore> findTop12ByUserOrderByWeekStartDateDesc(@Param("user") User user);
+    // Derived so the Top12 prefix applies a row limit; an explicit @Query would return the whole history
+    List<WeeklyScore> findTop12ByUserOrderByWeekStartDateDesc(User user);
     
-    void deleteByUser(User user);
+    List<WeeklyScore> findByUserAndWeekStartDateBetweenOrderByWeekStartDate(User user, LocalDate from, LocalDate to);
+    
+    @Query("SELECT new com.epicgoals.api.dto.CycleScoreTotals(AVG(ws.score), COUNT(ws), SUM(ws.completedHabits), SUM(ws.totalHabits)) " +
+           "FROM WeeklyScore ws WHERE ws.user.id = :userId AND ws.weekStartDate BETWEEN :from AND :to")
+    CycleScoreTotals summarizeBetween(@Param("userId") UUID userId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+    
+    @Query("SELECT ws FROM WeeklyScore ws WHERE ws.user.id = :userId AND ws.frozen = true " +
+           "AND ws.weekStartDate BETWEEN :from AND :to")
+    List<WeeklyScore> findFrozenBetween(@Param("userId") UUID userId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+    
+    @Modifying
+    @Query("UPDATE WeeklyScore ws SET ws.frozen = true WHERE ws.user.id = :userId AND ws.weekStartDate BETWEEN :from AND :to")
+    int freezeBetween(@Param("userId") UUID userId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+    
+    @Modifying
+    @Query("DELETE FROM WeeklyScore ws WHERE ws.user = :user")
+    int deleteByUser(@Param("user") User user);
 }
\ No newline at end of file
@@ -0,0 +1,18 @@
+// ABOUT_ME: Custom repository fragment for atomic weekly score snapshot writes
+// ABOUT_ME: Declares the upsert used by recalculation so concurrent recomputes cannot collide
+package com.epicgoals.api.repository;
+
+import com.epicgoals.api.dto.WeeklyScoreDto;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+public interface WeeklyScoreRepositoryCustom {
+
+    /**
+     * Inserts or overwrites the snapshot for the user's week in one statement and bumps its version.
+     * Concurrent recalculations of the same week converge on a single row instead of failing
+     * on the (user_id, week_start_date) unique constraint. A frozen snapshot is returned unchanged.
+     */
+    WeeklyScoreDto upsertScore(UUID userId, LocalDate weekStart, int score, int completedHabits, int totalHabits);
+}
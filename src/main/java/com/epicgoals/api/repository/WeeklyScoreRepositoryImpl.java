@@ -0,0 +1,89 @@
+// ABOUT_ME: Native-SQL implementation of the weekly score snapshot upsert
+// ABOUT_ME: Uses INSERT ... ON CONFLICT ... RETURNING on PostgreSQL and an equivalent MERGE on other databases; frozen rows are kept
+package com.epicgoals.api.repository;
+
+import com.epicgoals.api.dto.WeeklyScoreDto;
+import org.hibernate.query.NativeQuery;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+public class WeeklyScoreRepositoryImpl extends NativeSqlSupport implements WeeklyScoreRepositoryCustom {
+
+    private static final String RETURNED_COLUMNS = "id, week_start_date, score, completed_habits, total_habits, calculated_at";
+
+    private static final String PG_UPSERT =
+            "INSERT INTO weekly_scores (id, user_id, week_start_date, score, completed_habits, total_habits, frozen, version, calculated_at) " +
+            "VALUES (:id, :userId, :weekStart, :score, :completed, :total, false, 0, now()) " +
+            "ON CONFLICT (user_id, week_start_date) DO UPDATE SET score = EXCLUDED.score, " +
+            "completed_habits = EXCLUDED.completed_habits, total_habits = EXCLUDED.total_habits, " +
+            "version = weekly_scores.version + 1 WHERE NOT weekly_scores.frozen " +
+            "RETURNING " + RETURNED_COLUMNS;
+
+    private static final String MERGE_UPSERT =
+            "MERGE INTO weekly_scores t " +
+            "USING (SELECT CAST(:id AS UUID) AS new_id, CAST(:userId AS UUID) AS user_id, CAST(:weekStart AS DATE) AS week_start) s " +
+            "ON t.user_id = s.user_id AND t.week_start_date = s.week_start " +
+            "WHEN MATCHED AND NOT t.frozen THEN UPDATE SET score = :score, completed_habits = :completed, total_habits = :total, " +
+            "version = t.version + 1 " +
+            "WHEN NOT MATCHED THEN INSERT (id, user_id, week_start_date, score, completed_habits, total_habits, frozen, version, calculated_at) " +
+            "VALUES (s.new_id, s.user_id, s.week_start, :score, :completed, :total, FALSE, 0, CURRENT_TIMESTAMP)";
+
+    private static final String SELECT_SCORE =
+            "SELECT " + RETURNED_COLUMNS + " FROM weekly_scores WHERE user_id = :userId AND week_start_date = :weekStart";
+
+    @Override
+    public WeeklyScoreDto upsertScore(UUID userId, LocalDate weekStart, int score, int completedHabits, int totalHabits) {
+        if (isPostgres()) {
+            NativeQuery<?> query = scoreQuery(PG_UPSERT);
+            bind(query, userId, weekStart, score, completedHabits, totalHabits);
+            // A frozen row is left untouched and returns nothing, so it is read back below
+            List<?> upserted = query.getResultList();
+            if (!upserted.isEmpty()) {
+                return toDto(upserted.get(0));
+            }
+        } else {
+            NativeQuery<?> merge = nativeQuery(MERGE_UPSERT);
+            bind(merge, userId, weekStart, score, completedHabits, totalHabits);
+            merge.executeUpdate();
+        }
+
+        NativeQuery<?> select = scoreQuery(SELECT_SCORE);
+        select.setParameter("userId", userId);
+        select.setParameter("weekStart", weekStart);
+        return toDto(select.getSingleResult());
+    }
+
+    private void bind(NativeQuery<?> query, UUID userId, LocalDate weekStart, int score, int completed, int total) {
+        query.setParameter("id", UUID.randomUUID());
+        query.setParameter("userId", userId);
+        query.setParameter("weekStart", weekStart);
+        query.setParameter("score", score);
+        query.setParameter("completed", completed);
+        query.setParameter("total", total);
+    }
+
+    private NativeQuery<?> scoreQuery(String sql) {
+        return nativeQuery(sql)
+                .addScalar("id", UUID.class)
+                .addScalar("week_start_date", LocalDate.class)
+                .addScalar("score", Integer.class)
+                .addScalar("completed_habits", Integer.class)
+                .addScalar("total_habits", Integer.class)
+                .addScalar("calculated_at", Instant.class);
+    }
+
+    private WeeklyScoreDto toDto(Object result) {
+        Object[] row = (Object[]) result;
+        return new WeeklyScoreDto(
+                (UUID) row[0],
+                (LocalDate) row[1],
+                (Integer) row[2],
+                (Integer) row[3],
+                (Integer) row[4],
+                (Instant) row[5]
+        );
+    }
+}
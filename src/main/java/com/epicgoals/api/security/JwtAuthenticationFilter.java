@@ -2,8 +2,10 @@
 // ABOUT_ME: Validates tokens and sets Spring Security authentication context
 package com.epicgoals.api.security;
 
+import com.epicgoals.api.datasource.ReplicaRoutingDataSource;
 import com.epicgoals.api.entity.User;
 import com.epicgoals.api.repository.UserRepository;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -23,10 +25,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
     private final JwtService jwtService;
     private final UserRepository userRepository;
+    private final TokenRevocationRegistry revocationRegistry;
     
-    public JwtAuthenticationFilter(JwtService jwtService, UserRepository userRepository) {
+    public JwtAuthenticationFilter(JwtService jwtService, UserRepository userRepository,
+                                   TokenRevocationRegistry revocationRegistry) {
         this.jwtService = jwtService;
         this.userRepository = userRepository;
+        this.revocationRegistry = revocationRegistry;
     }
     
     @Override
@@ -43,20 +48,23 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         String token = authHeader.substring(7);
         
         try {
-            if (jwtService.isTokenValid(token)) {
-                String tokenType = jwtService.extractTokenType(token);
+            // Parsing verifies the signature and rejects expired tokens; done once per request
+            Claims claims = jwtService.parseToken(token);
+            
+            // Only accept access tokens for API requests, and only from sessions that were not logged out;
+            // a token without a session family could never be revoked, so it is not accepted at all
+            UUID familyId = jwtService.extractFamilyId(claims);
+            if ("access".equals(claims.get("type", String.class))
+                    && familyId != null && !revocationRegistry.isRevoked(familyId)) {
+                UUID userId = UUID.fromString(claims.getSubject());
+                // A lagging replica may not have the user yet, which would turn a valid token into a 401
+                User user = ReplicaRoutingDataSource.onPrimary(() -> userRepository.findById(userId)).orElse(null);
                 
-                // Only accept access tokens for API requests
-                if ("access".equals(tokenType)) {
-                    UUID userId = jwtService.extractUserId(token);
-                    User user = userRepository.findById(userId).orElse(null);
-                    
-                    if (user != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                        UsernamePasswordAuthenticationToken authentication = 
-                            new UsernamePasswordAuthenticationToken(user, null, new ArrayList<>());
-                        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                        SecurityContextHolder.getContext().setAuthentication(authentication);
-                    }
+                if (user != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+                    UsernamePasswordAuthenticationToken authentication = 
+                        new UsernamePasswordAuthenticationToken(user, null, new ArrayList<>());
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
                 }
             }
         } catch (Exception e) {
@@ -1,7 +1,8 @@
 // ABOUT_ME: Service for JWT token generation, validation and parsing operations
-// ABOUT_ME: Handles access tokens (24h) and refresh tokens (30d) with user claims
+// ABOUT_ME: Handles access tokens (24h) and refresh tokens (30d) with user claims and the session family they belong to
 package com.epicgoals.api.security;
 
+import com.epicgoals.api.entity.RefreshToken;
 import com.epicgoals.api.entity.User;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
@@ -10,6 +11,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Date;
@@ -18,6 +20,9 @@ import java.util.UUID;
 @Service
 public class JwtService {
     
+    // Claim naming the refresh token family (login session) an access or refresh token was issued for
+    static final String FAMILY_CLAIM = "fam";
+    
     private final SecretKey secretKey;
     private final long accessTokenExpirationHours;
     private final long refreshTokenExpirationDays;
@@ -31,7 +36,7 @@ public class JwtService {
         this.refreshTokenExpirationDays = refreshTokenExpirationDays;
     }
     
-    public String generateAccessToken(User user) {
+    public String generateAccessToken(User user, UUID familyId) {
         Instant now = Instant.now();
         Instant expiration = now.plus(accessTokenExpirationHours, ChronoUnit.HOURS);
         
@@ -39,22 +44,22 @@ public class JwtService {
                 .subject(user.getId().toString())
                 .claim("email", user.getEmail())
                 .claim("type", "access")
+                .claim(FAMILY_CLAIM, familyId.toString())
                 .issuedAt(Date.from(now))
                 .expiration(Date.from(expiration))
                 .signWith(secretKey)
                 .compact();
     }
     
-    public String generateRefreshToken(User user) {
-        Instant now = Instant.now();
-        Instant expiration = now.plus(refreshTokenExpirationDays, ChronoUnit.DAYS);
-        
+    public String generateRefreshToken(User user, RefreshToken stored) {
         return Jwts.builder()
+                .id(stored.getId().toString())
                 .subject(user.getId().toString())
                 .claim("email", user.getEmail())
                 .claim("type", "refresh")
-                .issuedAt(Date.from(now))
-                .expiration(Date.from(expiration))
+                .claim(FAMILY_CLAIM, stored.getFamilyId().toString())
+                .issuedAt(new Date())
+                .expiration(Date.from(stored.getExpiresAt()))
                 .signWith(secretKey)
                 .compact();
     }
@@ -91,6 +96,23 @@ public class JwtService {
         return claims.get("type", String.class);
     }
     
+    public UUID extractTokenId(Claims claims) {
+        return claims.getId() != null ? UUID.fromString(claims.getId()) : null;
+    }
+    
+    public UUID extractFamilyId(Claims claims) {
+        String familyId = claims.get(FAMILY_CLAIM, String.class);
+        return familyId != null ? UUID.fromString(familyId) : null;
+    }
+    
+    public Duration getAccessTokenLifetime() {
+        return Duration.ofHours(accessTokenExpirationHours);
+    }
+    
+    public Duration getRefreshTokenLifetime() {
+        return Duration.ofDays(refreshTokenExpirationDays);
+    }
+    
     public long getAccessTokenExpirationSeconds() {
         return accessTokenExpirationHours * 3600;
     }
@@ -0,0 +1,50 @@
+// ABOUT_ME: In-memory set of recently revoked refresh token families, consulted on every authenticated request
+// ABOUT_ME: Entries live only as long as an access token issued before the revocation could still be valid
+package com.epicgoals.api.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class TokenRevocationRegistry {
+
+    // Family id -> epoch millis after which no token of the family can still pass signature and expiry checks
+    private final ConcurrentHashMap<UUID, Long> revokedFamilies = new ConcurrentHashMap<>();
+
+    private final long retentionMillis;
+
+    public TokenRevocationRegistry(@Value("${app.jwt.access-token.expiration-hours:24}") long accessTokenExpirationHours) {
+        this.retentionMillis = Duration.ofHours(accessTokenExpirationHours).toMillis();
+    }
+
+    public boolean isRevoked(UUID familyId) {
+        return familyId != null && revokedFamilies.containsKey(familyId);
+    }
+
+    public void revoke(UUID familyId, Instant revokedAt) {
+        revokedFamilies.merge(familyId, revokedAt.toEpochMilli() + retentionMillis, Math::max);
+    }
+
+    public void revokeAll(Collection<UUID> familyIds, Instant revokedAt) {
+        for (UUID familyId : familyIds) {
+            revoke(familyId, revokedAt);
+        }
+    }
+
+    public int prune(Instant now) {
+        long nowMillis = now.toEpochMilli();
+        int before = revokedFamilies.size();
+        revokedFamilies.values().removeIf(keepUntil -> keepUntil < nowMillis);
+        return before - revokedFamilies.size();
+    }
+
+    int size() {
+        return revokedFamilies.size();
+    }
+}
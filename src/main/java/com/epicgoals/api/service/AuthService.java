@@ -1,17 +1,26 @@
 // ABOUT_ME: Service for user authentication operations including registration and login
-// ABOUT_ME: Handles password validation, BCrypt hashing, and JWT token generation
+// ABOUT_ME: Handles password validation, BCrypt hashing, JWT issuance and refresh token rotation and revocation
 package com.epicgoals.api.service;
 
+import com.epicgoals.api.datasource.ReplicaRoutingDataSource;
 import com.epicgoals.api.dto.AuthResponse;
 import com.epicgoals.api.dto.LoginRequest;
 import com.epicgoals.api.dto.RegisterRequest;
+import com.epicgoals.api.entity.RefreshToken;
 import com.epicgoals.api.entity.User;
 import com.epicgoals.api.repository.UserRepository;
 import com.epicgoals.api.security.JwtService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.Locale;
 import java.util.UUID;
 
 @Service
@@ -21,13 +30,18 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
     private final CategoryService categoryService;
+    private final RefreshTokenService refreshTokenService;
+    private final TransactionTemplate transactionTemplate;
     
     public AuthService(UserRepository userRepository, PasswordEncoder passwordEncoder, 
-                      JwtService jwtService, CategoryService categoryService) {
+                      JwtService jwtService, CategoryService categoryService,
+                      RefreshTokenService refreshTokenService, PlatformTransactionManager transactionManager) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.jwtService = jwtService;
         this.categoryService = categoryService;
+        this.refreshTokenService = refreshTokenService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
     
     public AuthResponse register(RegisterRequest request) {
@@ -36,34 +50,31 @@ public class AuthService {
             throw new IllegalArgumentException("Passwords do not match");
         }
         
-        // Check if email already exists
-        if (userRepository.existsByEmail(request.email())) {
-            throw new IllegalArgumentException("Email already registered");
-        }
-        
-        // Create and save user
-        User user = new User(request.email(), passwordEncoder.encode(request.password()));
-        user = userRepository.save(user);
-        
-        // Create default categories for new user
-        categoryService.createDefaultCategoriesForUser(user);
+        // Hash before the transaction starts so the deliberately slow BCrypt work never holds a connection
+        String passwordHash = passwordEncoder.encode(request.password());
         
-        // Generate tokens
-        String accessToken = jwtService.generateAccessToken(user);
-        String refreshToken = jwtService.generateRefreshToken(user);
+        // User and default categories commit together: one user insert and one batched category insert
+        Session session;
+        try {
+            session = transactionTemplate.execute(status -> {
+                User created = userRepository.saveAndFlush(new User(request.email(), passwordHash));
+                categoryService.provisionDefaultCategories(created);
+                return new Session(created, refreshTokenService.startFamily(created));
+            });
+        } catch (DataIntegrityViolationException ex) {
+            // The unique email constraint replaces a separate existence check; any other violation is a fault
+            if (violates(ex, User.EMAIL_CONSTRAINT)) {
+                throw new IllegalArgumentException("Email already registered");
+            }
+            throw ex;
+        }
         
-        return new AuthResponse(
-            user.getId(),
-            user.getEmail(),
-            accessToken,
-            refreshToken,
-            jwtService.getAccessTokenExpirationSeconds()
-        );
+        return buildResponse(session.user(), session.refreshToken());
     }
     
     public AuthResponse login(LoginRequest request) {
-        // Find user by email
-        User user = userRepository.findByEmail(request.email())
+        // Find user by email; on the primary, since the account may have been created moments ago
+        User user = ReplicaRoutingDataSource.onPrimary(() -> userRepository.findByEmail(request.email()))
                 .orElseThrow(() -> new BadCredentialsException("Invalid email or password"));
         
         // Check password
@@ -71,45 +82,78 @@ public class AuthService {
             throw new BadCredentialsException("Invalid email or password");
         }
         
-        // Generate tokens
-        String accessToken = jwtService.generateAccessToken(user);
-        String refreshToken = jwtService.generateRefreshToken(user);
-        
-        return new AuthResponse(
-            user.getId(),
-            user.getEmail(),
-            accessToken,
-            refreshToken,
-            jwtService.getAccessTokenExpirationSeconds()
-        );
+        // Each login starts its own token family so devices can be logged out independently
+        return buildResponse(user, refreshTokenService.startFamily(user));
     }
     
     public AuthResponse refreshToken(String refreshToken) {
-        // Validate refresh token
-        if (!jwtService.isTokenValid(refreshToken)) {
+        Claims claims = parseRefreshToken(refreshToken);
+        UUID tokenId = jwtService.extractTokenId(claims);
+        UUID familyId = jwtService.extractFamilyId(claims);
+        if (tokenId == null || familyId == null) {
             throw new BadCredentialsException("Invalid or expired refresh token");
         }
         
-        // Check token type
-        String tokenType = jwtService.extractTokenType(refreshToken);
-        if (!"refresh".equals(tokenType)) {
-            throw new BadCredentialsException("Invalid token type");
-        }
+        // Marks the presented token used; a second presentation revokes the family
+        UUID userId = UUID.fromString(claims.getSubject());
+        RefreshToken rotated = refreshTokenService.rotate(tokenId, familyId, userId);
         
-        // Extract user and generate new tokens
-        UUID userId = jwtService.extractUserId(refreshToken);
-        User user = userRepository.findById(userId)
+        User user = ReplicaRoutingDataSource.onPrimary(() -> userRepository.findById(userId))
                 .orElseThrow(() -> new BadCredentialsException("User not found"));
+        return buildResponse(user, rotated);
+    }
+    
+    public void logout(String refreshToken) {
+        // Logging out with a token that no longer parses leaves nothing to revoke
+        try {
+            UUID familyId = jwtService.extractFamilyId(parseRefreshToken(refreshToken));
+            if (familyId != null) {
+                refreshTokenService.revokeFamily(familyId);
+            }
+        } catch (BadCredentialsException ignored) {
+            // Already unusable
+        }
+    }
+    
+    public void logoutEverywhere(User user) {
+        refreshTokenService.revokeAllForUser(user.getId());
+    }
+    
+    private Claims parseRefreshToken(String refreshToken) {
+        Claims claims;
+        try {
+            claims = jwtService.parseToken(refreshToken);
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new BadCredentialsException("Invalid or expired refresh token");
+        }
         
-        String newAccessToken = jwtService.generateAccessToken(user);
-        String newRefreshToken = jwtService.generateRefreshToken(user);
-        
+        // Check token type
+        if (!"refresh".equals(claims.get("type", String.class))) {
+            throw new BadCredentialsException("Invalid token type");
+        }
+        return claims;
+    }
+    
+    private AuthResponse buildResponse(User user, RefreshToken refreshToken) {
         return new AuthResponse(
             user.getId(),
             user.getEmail(),
-            newAccessToken,
-            newRefreshToken,
+            jwtService.generateAccessToken(user, refreshToken.getFamilyId()),
+            jwtService.generateRefreshToken(user, refreshToken),
             jwtService.getAccessTokenExpirationSeconds()
         );
     }
-}
\ No newline at end of file
+    
+    private record Session(User user, RefreshToken refreshToken) {}
+    
+    // Drivers report the name differently (H2 adds schema and index details), so it is matched loosely
+    private static boolean violates(DataIntegrityViolationException ex, String constraint) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                String name = violation.getConstraintName();
+                return name != null && name.toLowerCase(Locale.ROOT).contains(constraint);
+            }
+        }
+        return false;
+    }
+}
@@ -1,21 +1,25 @@
 // ABOUT_ME: This file provides business logic for category management operations
-// ABOUT_ME: Handles category CRUD operations, default category creation, and habit reassignment
+// ABOUT_ME: Handles category CRUD operations, default category creation, and habit and goal reassignment
 package com.epicgoals.api.service;
 
 import com.epicgoals.api.dto.CategoryDto;
 import com.epicgoals.api.dto.CreateCategoryRequest;
 import com.epicgoals.api.dto.UpdateCategoryRequest;
 import com.epicgoals.api.entity.Category;
-import com.epicgoals.api.entity.Habit;
 import com.epicgoals.api.entity.User;
+import com.epicgoals.api.event.CategoryDeleted;
+import com.epicgoals.api.event.DomainEventPublisher;
 import com.epicgoals.api.repository.CategoryRepository;
+import com.epicgoals.api.repository.GoalRepository;
 import com.epicgoals.api.repository.HabitRepository;
+import com.epicgoals.api.repository.HabitVersionRepository;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -25,22 +29,44 @@ public class CategoryService {
 
     private final CategoryRepository categoryRepository;
     private final HabitRepository habitRepository;
+    private final HabitVersionRepository habitVersionRepository;
+    private final GoalRepository goalRepository;
+    private final UserDataVersionService dataVersionService;
+    private final DomainEventPublisher eventPublisher;
     
     @Autowired
-    public CategoryService(CategoryRepository categoryRepository, HabitRepository habitRepository) {
+    public CategoryService(CategoryRepository categoryRepository, HabitRepository habitRepository,
+                           HabitVersionRepository habitVersionRepository, GoalRepository goalRepository,
+                           UserDataVersionService dataVersionService, DomainEventPublisher eventPublisher) {
         this.categoryRepository = categoryRepository;
         this.habitRepository = habitRepository;
+        this.habitVersionRepository = habitVersionRepository;
+        this.goalRepository = goalRepository;
+        this.dataVersionService = dataVersionService;
+        this.eventPublisher = eventPublisher;
     }
     
+    static final List<String> DEFAULT_CATEGORY_NAMES = List.of("Career", "Health", "Family", "Finances", "Wisdom");
+    
     public void createDefaultCategoriesForUser(User user) {
-        String[] defaultCategoryNames = {"Career", "Health", "Family", "Finances", "Wisdom"};
-        
-        for (String categoryName : defaultCategoryNames) {
-            if (!categoryRepository.existsByUserAndName(user, categoryName)) {
-                Category category = new Category(user, categoryName, true);
-                categoryRepository.save(category);
-            }
-        }
+        // One read of the existing names, then the missing defaults go out as a single JDBC batch
+        Set<String> existing = categoryRepository.findByUserOrderByName(user).stream()
+                .map(Category::getName)
+                .collect(Collectors.toSet());
+        categoryRepository.saveAll(DEFAULT_CATEGORY_NAMES.stream()
+                .filter(name -> !existing.contains(name))
+                .map(name -> new Category(user, name, true))
+                .toList());
+    }
+    
+    /**
+     * Inserts the default categories for a user created in the same transaction as one JDBC batch,
+     * skipping the existence check a brand-new user cannot need.
+     */
+    public void provisionDefaultCategories(User newUser) {
+        categoryRepository.saveAll(DEFAULT_CATEGORY_NAMES.stream()
+                .map(name -> new Category(newUser, name, true))
+                .toList());
     }
     
     @Transactional(readOnly = true)
@@ -58,6 +84,7 @@ public class CategoryService {
         
         Category category = new Category(user, request.getName(), false);
         Category savedCategory = categoryRepository.save(category);
+        dataVersionService.markChanged(user.getId());
         return convertToDto(savedCategory);
     }
     
@@ -76,6 +103,7 @@ public class CategoryService {
         
         category.setName(request.getName());
         Category savedCategory = categoryRepository.save(category);
+        dataVersionService.markChanged(user.getId());
         return convertToDto(savedCategory);
     }
     
@@ -90,14 +118,16 @@ public class CategoryService {
         // Find or create "Uncategorized" category
         Category uncategorizedCategory = getOrCreateUncategorizedCategory(user);
         
-        // Reassign habits to uncategorized
-        List<Habit> habits = habitRepository.findByCategory(category);
-        for (Habit habit : habits) {
-            habit.setCategory(uncategorizedCategory);
-            habitRepository.save(habit);
-        }
+        // One bulk statement per table however many rows reference the category, including
+        // deleted habits awaiting purge, past habit definitions and inactive goals; scores and trends
+        // follow via the event
+        habitRepository.reassignHabitsToCategory(category.getId(), uncategorizedCategory.getId());
+        habitVersionRepository.reassignCategory(category.getId(), uncategorizedCategory.getId());
+        goalRepository.reassignGoalsToCategory(category.getId(), uncategorizedCategory.getId());
         
-        categoryRepository.delete(category);
+        categoryRepository.deleteCategoryById(category.getId());
+        eventPublisher.publish(new CategoryDeleted(user.getId(), categoryId, uncategorizedCategory.getId()));
+        dataVersionService.markChanged(user.getId());
     }
     
     @Transactional(readOnly = true)
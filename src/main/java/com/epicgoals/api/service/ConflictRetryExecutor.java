@@ -0,0 +1,66 @@
+// ABOUT_ME: Runs idempotent work in its own transaction and retries it on concurrency conflicts
+// ABOUT_ME: Used for score recomputation, which can safely be replayed from source data
+package com.epicgoals.api.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+@Component
+public class ConflictRetryExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(ConflictRetryExecutor.class);
+
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final long backoffMillis;
+
+    @Autowired
+    public ConflictRetryExecutor(PlatformTransactionManager transactionManager,
+                                 @Value("${app.retry.max-attempts:3}") int maxAttempts,
+                                 @Value("${app.retry.backoff-ms:25}") long backoffMillis) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMillis = backoffMillis;
+    }
+
+    /**
+     * Executes the work in a fresh transaction. Optimistic lock failures, lock timeouts and
+     * duplicate-key races roll that transaction back and the work is replayed with jittered backoff.
+     * Other integrity violations, such as a missing parent row, would fail again and propagate at once.
+     * Only pass work that is safe to repeat.
+     */
+    public <T> T execute(Supplier<T> work) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> work.get());
+            } catch (ConcurrencyFailureException | DuplicateKeyException ex) {
+                if (attempt >= maxAttempts) {
+                    throw ex;
+                }
+                log.debug("Retrying after concurrency conflict (attempt {}/{}): {}", attempt, maxAttempts, ex.getMessage());
+                sleep(backoffMillis * attempt + ThreadLocalRandom.current().nextLong(backoffMillis + 1));
+            }
+        }
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to retry", ex);
+        }
+    }
+}
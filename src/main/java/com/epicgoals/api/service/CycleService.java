@@ -0,0 +1,306 @@
+// ABOUT_ME: This file provides business logic for 12-week cycles and their review summaries
+// ABOUT_ME: Summaries are computed once when a cycle closes so review screens read a single row
+package com.epicgoals.api.service;
+
+import com.epicgoals.api.dto.CompletionDay;
+import com.epicgoals.api.dto.CurrentCycleDto;
+import com.epicgoals.api.dto.CycleDto;
+import com.epicgoals.api.dto.CycleScoreTotals;
+import com.epicgoals.api.dto.HabitCycleCompletion;
+import com.epicgoals.api.dto.HabitDefinition;
+import com.epicgoals.api.dto.UserIdRange;
+import com.epicgoals.api.dto.WeeklyScoreDto;
+import com.epicgoals.api.entity.Cycle;
+import com.epicgoals.api.entity.CycleStatus;
+import com.epicgoals.api.entity.User;
+import com.epicgoals.api.repository.CategoryRepository;
+import com.epicgoals.api.repository.CycleRepository;
+import com.epicgoals.api.repository.GoalRepository;
+import com.epicgoals.api.repository.HabitCompletionRepository;
+import com.epicgoals.api.repository.HabitRepository;
+import com.epicgoals.api.repository.HabitVersionRepository;
+import com.epicgoals.api.repository.WeeklyScoreRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@Service
+@Transactional
+public class CycleService {
+
+    private static final TypeReference<List<CycleDto.CategoryAverage>> CATEGORY_AVERAGES_TYPE = new TypeReference<>() {};
+
+    // Reads of the open cycle that may come back empty because it was replaced under a concurrent request
+    private static final int OPEN_CYCLE_ATTEMPTS = 3;
+
+    private final CycleRepository cycleRepository;
+    private final WeeklyScoreRepository weeklyScoreRepository;
+    private final HabitCompletionRepository habitCompletionRepository;
+    private final HabitRepository habitRepository;
+    private final HabitVersionRepository habitVersionRepository;
+    private final CategoryRepository categoryRepository;
+    private final GoalRepository goalRepository;
+    private final ObjectMapper objectMapper;
+    private final UserSettingsService userSettingsService;
+
+    @Autowired
+    public CycleService(CycleRepository cycleRepository,
+                        WeeklyScoreRepository weeklyScoreRepository,
+                        HabitCompletionRepository habitCompletionRepository,
+                        HabitRepository habitRepository,
+                        HabitVersionRepository habitVersionRepository,
+                        CategoryRepository categoryRepository,
+                        GoalRepository goalRepository,
+                        ObjectMapper objectMapper,
+                        UserSettingsService userSettingsService) {
+        this.cycleRepository = cycleRepository;
+        this.weeklyScoreRepository = weeklyScoreRepository;
+        this.habitCompletionRepository = habitCompletionRepository;
+        this.habitRepository = habitRepository;
+        this.habitVersionRepository = habitVersionRepository;
+        this.categoryRepository = categoryRepository;
+        this.goalRepository = goalRepository;
+        this.objectMapper = objectMapper;
+        this.userSettingsService = userSettingsService;
+    }
+
+    /**
+     * Returns the running cycle with its weekly snapshots so far. A user's first cycle starts
+     * in the week they first open it; cycles that ended before the close job ran are closed here.
+     */
+    public CurrentCycleDto getCurrentCycle(User user) {
+        ZoneId zone = userSettingsService.zoneOf(user);
+        LocalDate today = userSettingsService.today(user);
+        Cycle cycle = currentCycle(user.getId(), today, zone);
+        List<WeeklyScoreDto> weeks = weeklyScoreRepository
+                .findByUserAndWeekStartDateBetweenOrderByWeekStartDate(user, cycle.getStartDate(), cycle.getEndDate())
+                .stream()
+                .map(score -> new WeeklyScoreDto(score.getId(), score.getWeekStartDate(), score.getScore(),
+                        score.getCompletedHabits(), score.getTotalHabits(), score.getCalculatedAt()))
+                .toList();
+        int weekNumber = (int) ChronoUnit.WEEKS.between(cycle.getStartDate(), today) + 1;
+        return new CurrentCycleDto(cycle.getId(), cycle.getStartDate(), cycle.getEndDate(), weekNumber, weeks);
+    }
+
+    @Transactional(readOnly = true)
+    public List<CycleDto> getClosedCycles(User user, int limit) {
+        return cycleRepository.findByUserIdAndStatusOrderByStartDateDesc(user.getId(), CycleStatus.CLOSED,
+                        PageRequest.of(0, limit))
+                .stream()
+                .map(this::convertToDto)
+                .toList();
+    }
+
+    @Transactional(readOnly = true)
+    public CycleDto getCycle(User user, UUID cycleId) {
+        return cycleRepository.findByIdAndUserId(cycleId, user.getId())
+                .map(this::convertToDto)
+                .orElseThrow(() -> new EntityNotFoundException("Cycle not found"));
+    }
+
+    /**
+     * Closes one batch of cycles that had ended by the given instant in their user's time zone and opens
+     * each user's next cycle. Returns the number closed so the caller can repeat while batches are full.
+     */
+    public int closeEndedCycles(Instant now, int batchSize) {
+        return closeEndedCycles(now, UserIdRange.all(), batchSize);
+    }
+
+    // As above, limited to the users of one shard
+    public int closeEndedCycles(Instant now, UserIdRange users, int batchSize) {
+        // Candidates ended before the latest date anywhere; the ones whose user's day has not ended yet
+        // sort last and are skipped, which ends the caller's loop before it would fetch them again
+        List<Cycle> ended = cycleRepository.findEndedOpenCycles(LocalDate.ofInstant(now, ZoneOffset.MAX),
+                users.afterId(), users.lastId(), PageRequest.of(0, batchSize));
+        int closed = 0;
+        for (Cycle cycle : ended) {
+            ZoneId zone = userSettingsService.zoneOf(cycle.getUserId());
+            if (!cycle.getEndDate().isBefore(LocalDate.ofInstant(now, zone))) {
+                continue;
+            }
+            close(cycle, zone);
+            // A user who was away for longer than a cycle gets the successor closed in a later batch
+            cycleRepository.save(new Cycle(cycle.getUserId(), cycle.getEndDate().plusDays(1)));
+            closed++;
+        }
+        return closed;
+    }
+
+    private Cycle currentCycle(UUID userId, LocalDate today, ZoneId zone) {
+        Cycle cycle = lockOpenCycle(userId, today);
+        while (cycle.getEndDate().isBefore(today)) {
+            close(cycle, zone);
+            cycle = cycleRepository.save(new Cycle(userId, cycle.getEndDate().plusDays(1)));
+        }
+        return cycle;
+    }
+
+    /**
+     * Locks the user's open cycle until the transaction ends, so concurrent requests and the close job
+     * take turns closing it. A user's first cycle is opened with an insert that concurrent first
+     * requests cannot duplicate.
+     */
+    private Cycle lockOpenCycle(UUID userId, LocalDate today) {
+        for (int attempt = 0; attempt < OPEN_CYCLE_ATTEMPTS; attempt++) {
+            Optional<Cycle> open = cycleRepository.findOpenForUpdate(userId);
+            if (open.isPresent()) {
+                return open.get();
+            }
+            // Empty also when the open cycle was closed while this waited for its lock; the successor is
+            // then visible to the next read and the insert does nothing
+            cycleRepository.insertFirstCycle(userId, today.with(DayOfWeek.MONDAY));
+        }
+        throw new IllegalStateException("No open cycle for user " + userId);
+    }
+
+    private void close(Cycle cycle, ZoneId zone) {
+        CycleScoreTotals totals = weeklyScoreRepository.summarizeBetween(
+                cycle.getUserId(), cycle.getStartDate(), cycle.getEndDate());
+        List<HabitCycleCompletion> habits = tallyHabits(cycle);
+        long goalsCompleted = goalRepository.countCompletedBetween(cycle.getUserId(),
+                startOfDay(cycle.getStartDate(), zone), startOfDay(cycle.getEndDate().plusDays(1), zone));
+
+        cycle.setAverageScore(totals.averageScore() != null ? round(totals.averageScore()) : null);
+        cycle.setWeeksScored((int) totals.weeksScored());
+        cycle.setCompletedHabits(totals.completedHabits() != null ? totals.completedHabits().intValue() : 0);
+        cycle.setTotalHabits(totals.totalHabits() != null ? totals.totalHabits().intValue() : 0);
+        cycle.setGoalsCompleted((int) goalsCompleted);
+        cycle.setCategoryAverages(writeCategoryAverages(categoryAverages(habits)));
+        cycle.setStatus(CycleStatus.CLOSED);
+        cycle.setClosedAt(Instant.now());
+        cycleRepository.save(cycle);
+    }
+
+    /**
+     * Tallies each habit over the cycle's weeks with the definition in effect on each week's Sunday, the way
+     * weekly scores count it, so habits added, edited or deleted during the cycle count only the weeks they applied.
+     */
+    private List<HabitCycleCompletion> tallyHabits(Cycle cycle) {
+        UUID userId = cycle.getUserId();
+        LocalDate start = cycle.getStartDate();
+        LocalDate end = cycle.getEndDate();
+        List<HabitDefinition> definitions = new ArrayList<>(habitRepository.findActiveDefinitionsFrom(userId, end));
+        definitions.addAll(habitVersionRepository.findActiveDefinitionsOverlapping(userId, start.plusDays(6), end));
+        if (definitions.isEmpty()) {
+            return List.of();
+        }
+
+        Map<UUID, int[]> completedByWeek = new HashMap<>(); // habit id -> completed days in each week
+        Set<UUID> habitIds = definitions.stream().map(HabitDefinition::habitId).collect(Collectors.toSet());
+        for (CompletionDay day : habitCompletionRepository.findCompletedDaysBetween(habitIds, start, end)) {
+            int week = (int) ChronoUnit.WEEKS.between(start, day.date());
+            completedByWeek.computeIfAbsent(day.habitId(), id -> new int[Cycle.WEEKS])[week]++;
+        }
+
+        Map<UUID, UUID> categories = new LinkedHashMap<>(); // habit id -> category of its latest counted week
+        Map<UUID, int[]> totals = new HashMap<>(); // habit id -> {expected, completed}
+        for (int week = 0; week < Cycle.WEEKS; week++) {
+            LocalDate sunday = start.plusWeeks(week).plusDays(6);
+            for (HabitDefinition definition : definitions) {
+                if (!definition.appliesOn(sunday)) {
+                    continue;
+                }
+                int[] completed = completedByWeek.get(definition.habitId());
+                int[] total = totals.computeIfAbsent(definition.habitId(), id -> new int[2]);
+                total[0] += Math.min(definition.frequency(), 7);
+                total[1] += completed != null ? completed[week] : 0;
+                categories.put(definition.habitId(), definition.categoryId());
+            }
+        }
+
+        Map<UUID, String> names = new HashMap<>();
+        categoryRepository.findAllById(new HashSet<>(categories.values()))
+                .forEach(category -> names.put(category.getId(), category.getName()));
+        List<HabitCycleCompletion> habits = new ArrayList<>();
+        categories.forEach((habitId, categoryId) -> habits.add(new HabitCycleCompletion(habitId, categoryId,
+                names.get(categoryId), totals.get(habitId)[0], totals.get(habitId)[1])));
+        return habits;
+    }
+
+    /**
+     * Averages per-habit cycle scores within each category, scoring a habit the same way a
+     * week is scored but against its expected completions over the whole cycle.
+     */
+    static List<CycleDto.CategoryAverage> categoryAverages(List<HabitCycleCompletion> habits) {
+        Map<UUID, String> names = new LinkedHashMap<>();
+        Map<UUID, double[]> totals = new LinkedHashMap<>(); // category id -> {score sum, habit count}
+        for (HabitCycleCompletion habit : habits) {
+            int expected = habit.expected();
+            double score = expected > 0 ? Math.min(100.0, habit.completed() * 100.0 / expected) : 0.0;
+            names.put(habit.categoryId(), habit.categoryName());
+            double[] total = totals.computeIfAbsent(habit.categoryId(), id -> new double[2]);
+            total[0] += score;
+            total[1]++;
+        }
+
+        List<CycleDto.CategoryAverage> averages = new ArrayList<>();
+        totals.forEach((id, total) -> averages.add(new CycleDto.CategoryAverage(id, names.get(id), round(total[0] / total[1]))));
+        averages.sort(Comparator.comparing(CycleDto.CategoryAverage::average).reversed());
+        return averages;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+
+    private static Instant startOfDay(LocalDate date, ZoneId zone) {
+        return date.atStartOfDay(zone).toInstant();
+    }
+
+    private CycleDto convertToDto(Cycle cycle) {
+        return new CycleDto(
+                cycle.getId(),
+                cycle.getStartDate(),
+                cycle.getEndDate(),
+                cycle.getStatus(),
+                cycle.getAverageScore(),
+                cycle.getWeeksScored(),
+                cycle.getCompletedHabits(),
+                cycle.getTotalHabits(),
+                cycle.getGoalsCompleted(),
+                readCategoryAverages(cycle.getCategoryAverages())
+        );
+    }
+
+    private List<CycleDto.CategoryAverage> readCategoryAverages(String json) {
+        if (json == null || json.isEmpty()) {
+            return List.of();
+        }
+        try {
+            return objectMapper.readValue(json, CATEGORY_AVERAGES_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Corrupt cycle summary data", e);
+        }
+    }
+
+    private String writeCategoryAverages(List<CycleDto.CategoryAverage> averages) {
+        try {
+            return objectMapper.writeValueAsString(averages);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize cycle summary data", e);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+// ABOUT_ME: This file records milestones to the friends activity feed and serves feed pages
+// ABOUT_ME: Activities fan out to friends' timelines on write unless the actor has more friends than the fan-out limit
+package com.epicgoals.api.service;
+
+import com.epicgoals.api.dto.FeedItemDto;
+import com.epicgoals.api.dto.FeedPageDto;
+import com.epicgoals.api.entity.FeedActivity;
+import com.epicgoals.api.entity.FeedActivityType;
+import com.epicgoals.api.entity.User;
+import com.epicgoals.api.repository.FeedActivityRepository;
+import com.epicgoals.api.repository.FeedItemRepository;
+import com.epicgoals.api.repository.FriendshipRepository;
+import com.epicgoals.api.repository.UserRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@Service
+@Transactional
+public class FeedService {
+
+    private final FeedActivityRepository feedActivityRepository;
+    private final FeedItemRepository feedItemRepository;
+    private final FriendshipRepository friendshipRepository;
+    private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+    private final long fanOutLimit;
+
+    @Autowired
+    public FeedService(FeedActivityRepository feedActivityRepository,
+                       FeedItemRepository feedItemRepository,
+                       FriendshipRepository friendshipRepository,
+                       UserRepository userRepository,
+                       ObjectMapper objectMapper,
+                       @Value("${app.feed.fanout-limit:500}") long fanOutLimit) {
+        this.feedActivityRepository = feedActivityRepository;
+        this.feedItemRepository = feedItemRepository;
+        this.friendshipRepository = friendshipRepository;
+        this.userRepository = userRepository;
+        this.objectMapper = objectMapper;
+        this.fanOutLimit = fanOutLimit;
+    }
+
+    /**
+     * Returns feed items older than the cursor, newest first. The materialized timeline is merged
+     * with activities of friends whose posts were too widely shared to fan out.
+     */
+    @Transactional(readOnly = true)
+    public FeedPageDto getFeed(User user, Long before, int limit) {
+        long cursor = before != null ? before : Long.MAX_VALUE;
+        PageRequest page = PageRequest.of(0, limit);
+
+        List<FeedItemDto> items = new ArrayList<>(feedItemRepository.findTimeline(user.getId(), cursor, page));
+        items.addAll(feedActivityRepository.findUnfannedFromFriends(user.getId(), cursor, page));
+        items.sort(Comparator.comparing(FeedItemDto::id).reversed());
+
+        List<FeedItemDto> pageItems = items.size() > limit ? items.subList(0, limit) : items;
+        Long nextCursor = pageItems.size() == limit ? pageItems.get(limit - 1).id() : null;
+        return new FeedPageDto(List.copyOf(pageItems), nextCursor);
+    }
+
+    /**
+     * Records a milestone once per dedupe key and returns whether it was new.
+     */
+    public boolean record(UUID actorId, FeedActivityType type, String dedupeKey, Map<String, Object> details) {
+        if (feedActivityRepository.existsByActorIdAndDedupeKey(actorId, dedupeKey)) {
+            return false;
+        }
+        String email = userRepository.findById(actorId).map(User::getEmail).orElse(null);
+        if (email == null) {
+            return false;
+        }
+
+        boolean fanOut = friendshipRepository.countFriends(actorId) <= fanOutLimit;
+        FeedActivity activity = feedActivityRepository.save(
+                new FeedActivity(actorId, email, type, dedupeKey, toJson(details), fanOut));
+        if (fanOut) {
+            feedItemRepository.fanOutToActorAndFriends(actorId, activity.getId());
+        } else {
+            // Friends pull this activity at read time; only the actor's own timeline gets a row
+            feedItemRepository.addToActorTimeline(actorId, activity.getId());
+        }
+        return true;
+    }
+
+    // Fanned-out activities stay on the timelines of users who are no longer friends unless removed here
+    public void unlinkFriends(UUID userId, UUID friendId) {
+        feedItemRepository.deleteBetween(userId, friendId);
+    }
+
+    // Oldest first, with their timeline rows; returns the activities deleted so the caller can repeat while batches are full
+    public int purgeBatchCreatedBefore(Instant cutoff, int batchSize) {
+        List<Long> activityIds = feedActivityRepository.findIdsCreatedBefore(cutoff, PageRequest.of(0, batchSize));
+        if (activityIds.isEmpty()) {
+            return 0;
+        }
+        feedItemRepository.deleteByActivityIds(activityIds);
+        return feedActivityRepository.deleteByIds(activityIds);
+    }
+
+    private String toJson(Map<String, Object> details) {
+        try {
+            return objectMapper.writeValueAsString(details);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Cannot serialize feed details", ex);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+// ABOUT_ME: This file provides business logic for friend requests and friendships
+// ABOUT_ME: Keeps the mirrored friendship rows and the precomputed leaderboards consistent with each other
+package com.epicgoals.api.service;
+
+import com.epicgoals.api.dto.FriendDto;
+import com.epicgoals.api.entity.Friendship;
+import com.epicgoals.api.entity.FriendshipStatus;
+import com.epicgoals.api.entity.User;
+import com.epicgoals.api.repository.FriendshipRepository;
+import com.epicgoals.api.repository.UserRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Service
+@Transactional
+public class FriendshipService {
+
+    private final FriendshipRepository friendshipRepository;
+    private final UserRepository userRepository;
+    private final LeaderboardService leaderboardService;
+    private final ScoreService scoreService;
+    private final FeedService feedService;
+
+    @Autowired
+    public FriendshipService(FriendshipRepository friendshipRepository, UserRepository userRepository,
+                             LeaderboardService leaderboardService, ScoreService scoreService,
+                             FeedService feedService) {
+        this.friendshipRepository = friendshipRepository;
+        this.userRepository = userRepository;
+        this.leaderboardService = leaderboardService;
+        this.scoreService = scoreService;
+        this.feedService = feedService;
+    }
+
+    @Transactional(readOnly = true)
+    public List<FriendDto> getFriends(User user) {
+        return friendshipRepository.findFriends(user.getId());
+    }
+
+    @Transactional(readOnly = true)
+    public List<FriendDto> getIncomingRequests(User user) {
+        return friendshipRepository.findIncomingRequests(user.getId());
+    }
+
+    public FriendDto sendRequest(User user, String email) {
+        User target = userRepository.findByEmail(email)
+                .orElseThrow(() -> new EntityNotFoundException("User not found"));
+        if (target.getId().equals(user.getId())) {
+            throw new IllegalArgumentException("Cannot send a friend request to yourself");
+        }
+
+        Optional<Friendship> existing = friendshipRepository.findByUserIdAndFriendId(user.getId(), target.getId());
+        if (existing.isPresent()) {
+            if (existing.get().getStatus() == FriendshipStatus.ACCEPTED) {
+                throw new IllegalArgumentException("Already friends");
+            }
+            return toDto(target, existing.get());
+        }
+
+        // Requesting someone who already asked us is the same as accepting their request
+        Optional<Friendship> reverse = friendshipRepository.findByUserIdAndFriendId(target.getId(), user.getId());
+        if (reverse.isPresent()) {
+            return toDto(target, accept(user, reverse.get()));
+        }
+
+        Friendship request = friendshipRepository.save(new Friendship(user.getId(), target.getId(), FriendshipStatus.PENDING));
+        return toDto(target, request);
+    }
+
+    public FriendDto acceptRequest(User user, UUID requesterId) {
+        Friendship request = findIncoming(user, requesterId);
+        User requester = userRepository.findById(requesterId)
+                .orElseThrow(() -> new EntityNotFoundException("User not found"));
+        return toDto(requester, accept(user, request));
+    }
+
+    public void declineRequest(User user, UUID requesterId) {
+        friendshipRepository.delete(findIncoming(user, requesterId));
+    }
+
+    public void removeFriend(User user, UUID friendId) {
+        if (friendshipRepository.deleteBetween(user.getId(), friendId) == 0) {
+            throw new EntityNotFoundException("Friend not found");
+        }
+        leaderboardService.unlinkFriends(user.getId(), friendId);
+        feedService.unlinkFriends(user.getId(), friendId);
+    }
+
+    private Friendship findIncoming(User user, UUID requesterId) {
+        return friendshipRepository.findByUserIdAndFriendId(requesterId, user.getId())
+                .filter(request -> request.getStatus() == FriendshipStatus.PENDING)
+                .orElseThrow(() -> new EntityNotFoundException("Friend request not found"));
+    }
+
+    private Friendship accept(User user, Friendship request) {
+        request.setStatus(FriendshipStatus.ACCEPTED);
+        friendshipRepository.save(request);
+        Friendship mirror = friendshipRepository.save(new Friendship(user.getId(), request.getUserId(), FriendshipStatus.ACCEPTED));
+        leaderboardService.linkFriends(user.getId(), request.getUserId(), scoreService.getCurrentWeekStart(user));
+        return mirror;
+    }
+
+    private FriendDto toDto(User other, Friendship friendship) {
+        return new FriendDto(other.getId(), other.getEmail(), friendship.getStatus(), friendship.getCreatedAt());
+    }
+}
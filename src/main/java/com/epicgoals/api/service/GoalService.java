@@ -5,7 +5,11 @@ package com.epicgoals.api.service;
 import com.epicgoals.api.dto.GoalCreateRequest;
 import com.epicgoals.api.dto.GoalResponse;
 import com.epicgoals.api.dto.GoalUpdateRequest;
+import com.epicgoals.api.dto.GoalView;
 import com.epicgoals.api.entity.*;
+import com.epicgoals.api.event.DomainEventPublisher;
+import com.epicgoals.api.event.GoalCompleted;
+import com.epicgoals.api.event.GoalUpdated;
 import com.epicgoals.api.repository.GoalRepository;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -15,6 +19,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -26,17 +31,22 @@ public class GoalService {
     private final GoalRepository goalRepository;
     private final CategoryService categoryService;
     private final ObjectMapper objectMapper;
+    private final UserDataVersionService dataVersionService;
+    private final DomainEventPublisher eventPublisher;
     
     @Autowired
-    public GoalService(GoalRepository goalRepository, CategoryService categoryService, ObjectMapper objectMapper) {
+    public GoalService(GoalRepository goalRepository, CategoryService categoryService, ObjectMapper objectMapper,
+                       UserDataVersionService dataVersionService, DomainEventPublisher eventPublisher) {
         this.goalRepository = goalRepository;
         this.categoryService = categoryService;
         this.objectMapper = objectMapper;
+        this.dataVersionService = dataVersionService;
+        this.eventPublisher = eventPublisher;
     }
     
     @Transactional(readOnly = true)
     public List<GoalResponse> getUserGoals(User user) {
-        List<Goal> goals = goalRepository.findByUserAndIsActiveTrue(user);
+        List<GoalView> goals = goalRepository.findActiveGoalViewsByUser(user);
         return goals.stream()
                    .map(this::convertToResponse)
                    .collect(Collectors.toList());
@@ -44,7 +54,7 @@ public class GoalService {
     
     @Transactional(readOnly = true)
     public List<GoalResponse> getUserGoalsByTimeframe(User user, GoalTimeframe timeframe) {
-        List<Goal> goals = goalRepository.findByUserAndTimeframeAndIsActiveTrue(user, timeframe);
+        List<GoalView> goals = goalRepository.findActiveGoalViewsByUserAndTimeframe(user, timeframe);
         return goals.stream()
                    .map(this::convertToResponse)
                    .collect(Collectors.toList());
@@ -52,7 +62,7 @@ public class GoalService {
     
     @Transactional(readOnly = true)
     public List<GoalResponse> getChildGoals(User user, UUID parentGoalId) {
-        List<Goal> goals = goalRepository.findByUserAndParentGoalIdAndIsActiveTrue(user, parentGoalId);
+        List<GoalView> goals = goalRepository.findActiveGoalViewsByUserAndParent(user, parentGoalId);
         return goals.stream()
                    .map(this::convertToResponse)
                    .collect(Collectors.toList());
@@ -78,6 +88,8 @@ public class GoalService {
         goal.setParentGoalId(request.parentGoalId());
         
         Goal savedGoal = goalRepository.save(goal);
+        dataVersionService.markChanged(user.getId());
+        eventPublisher.publish(new GoalUpdated(user.getId(), savedGoal.getId(), GoalUpdated.Change.CREATED));
         return convertToResponse(savedGoal);
     }
     
@@ -85,6 +97,12 @@ public class GoalService {
         Goal goal = goalRepository.findByUserAndIdAndIsActiveTrue(user, goalId)
                                  .orElseThrow(() -> new EntityNotFoundException("Goal not found"));
         
+        // A sync write made on a device before the last applied one loses
+        if (LastWriteWins.isStale(goal.getClientUpdatedAt(), request.clientUpdatedAt())) {
+            return convertToResponse(goal);
+        }
+        boolean wasComplete = isComplete(goal);
+        
         if (request.name() != null) {
             goal.setName(request.name());
         }
@@ -112,7 +130,21 @@ public class GoalService {
             goal.setIsActive(request.isActive());
         }
         
+        if (request.clientUpdatedAt() != null) {
+            goal.setClientUpdatedAt(request.clientUpdatedAt());
+        }
+        
+        boolean complete = isComplete(goal);
+        if (complete != wasComplete) {
+            goal.setCompletedAt(complete ? Instant.now() : null);
+        }
+        
         Goal savedGoal = goalRepository.save(goal);
+        dataVersionService.markChanged(user.getId());
+        eventPublisher.publish(new GoalUpdated(user.getId(), savedGoal.getId(), GoalUpdated.Change.UPDATED));
+        if (!wasComplete && complete) {
+            eventPublisher.publish(new GoalCompleted(user.getId(), savedGoal.getId(), savedGoal.getName()));
+        }
         return convertToResponse(savedGoal);
     }
     
@@ -122,6 +154,8 @@ public class GoalService {
         
         goal.setIsActive(false);
         goalRepository.save(goal);
+        dataVersionService.markChanged(user.getId());
+        eventPublisher.publish(new GoalUpdated(user.getId(), goalId, GoalUpdated.Change.DELETED));
     }
     
     private void validateGoalTypeData(GoalType type, String jsonData) {
@@ -162,16 +196,20 @@ public class GoalService {
         }
     }
     
-    private Double calculateProgressPercentage(Goal goal) {
-        if (goal.getCurrentValue() == null || goal.getTargetValue() == null) {
+    private boolean isComplete(Goal goal) {
+        return calculateProgressPercentage(goal.getType(), goal.getCurrentValue(), goal.getTargetValue()) >= 100.0;
+    }
+    
+    private Double calculateProgressPercentage(GoalType type, String currentValueJson, String targetValueJson) {
+        if (currentValueJson == null || targetValueJson == null) {
             return 0.0;
         }
         
         try {
-            JsonNode currentNode = objectMapper.readTree(goal.getCurrentValue());
-            JsonNode targetNode = objectMapper.readTree(goal.getTargetValue());
+            JsonNode currentNode = objectMapper.readTree(currentValueJson);
+            JsonNode targetNode = objectMapper.readTree(targetValueJson);
             
-            switch (goal.getType()) {
+            switch (type) {
                 case QUANTIFIABLE:
                     double currentValue = currentNode.get("value").asDouble();
                     double targetValue = targetNode.get("value").asDouble();
@@ -217,7 +255,7 @@ public class GoalService {
     private GoalResponse convertToResponse(Goal goal) {
         String categoryName = goal.getCategory() != null ? goal.getCategory().getName() : null;
         UUID categoryId = goal.getCategory() != null ? goal.getCategory().getId() : null;
-        Double progressPercentage = calculateProgressPercentage(goal);
+        Double progressPercentage = calculateProgressPercentage(goal.getType(), goal.getCurrentValue(), goal.getTargetValue());
         
         return new GoalResponse(
             goal.getId(),
@@ -236,4 +274,23 @@ public class GoalService {
             goal.getUpdatedAt()
         );
     }
+    
+    private GoalResponse convertToResponse(GoalView goal) {
+        return new GoalResponse(
+            goal.id(),
+            goal.timeframe(),
+            goal.type(),
+            goal.name(),
+            goal.description(),
+            goal.targetValue(),
+            goal.currentValue(),
+            goal.categoryId(),
+            goal.categoryName(),
+            goal.parentGoalId(),
+            goal.isActive(),
+            calculateProgressPercentage(goal.type(), goal.currentValue(), goal.targetValue()),
+            goal.createdAt(),
+            goal.updatedAt()
+        );
+    }
 }
\ No newline at end of file
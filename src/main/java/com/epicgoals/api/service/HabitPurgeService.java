@@ -0,0 +1,64 @@
+// ABOUT_ME: This file removes deleted habits and their history in bounded batches
+// ABOUT_ME: Habit deletion only writes a tombstone, so its cost never depends on how much history the habit has
+package com.epicgoals.api.service;
+
+import com.epicgoals.api.repository.HabitCompletionRepository;
+import com.epicgoals.api.repository.HabitRepository;
+import com.epicgoals.api.repository.HabitVersionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+@Service
+@Transactional
+public class HabitPurgeService {
+
+    private final HabitRepository habitRepository;
+    private final HabitCompletionRepository habitCompletionRepository;
+    private final HabitVersionRepository habitVersionRepository;
+    private final StreakService streakService;
+    private final HeatmapService heatmapService;
+    private final ScoreService scoreService;
+
+    @Autowired
+    public HabitPurgeService(HabitRepository habitRepository,
+                             HabitCompletionRepository habitCompletionRepository,
+                             HabitVersionRepository habitVersionRepository,
+                             StreakService streakService,
+                             HeatmapService heatmapService,
+                             ScoreService scoreService) {
+        this.habitRepository = habitRepository;
+        this.habitCompletionRepository = habitCompletionRepository;
+        this.habitVersionRepository = habitVersionRepository;
+        this.streakService = streakService;
+        this.heatmapService = heatmapService;
+        this.scoreService = scoreService;
+    }
+
+    /**
+     * Deletes up to one batch of completions of the oldest habit deleted before the cutoff, and the
+     * habit itself with its derived rows once no completions are left. The weekly snapshots the habit
+     * counted in are frozen first, since recomputing them without its history would change past scores.
+     * Returns the rows deleted, zero when there is nothing left to purge.
+     */
+    public int purgeNextBatch(Instant cutoff, int batchSize) {
+        Optional<UUID> habitId = habitRepository.findFirstDeletedBefore(cutoff).map(UUID::fromString);
+        if (habitId.isEmpty()) {
+            return 0;
+        }
+
+        scoreService.freezeWeeksOfHabit(habitId.get());
+        int deleted = habitCompletionRepository.deleteBatchForHabit(habitId.get(), batchSize);
+        if (deleted < batchSize) {
+            streakService.deleteForHabit(habitId.get());
+            heatmapService.deleteForHabit(habitId.get());
+            habitVersionRepository.deleteByHabitId(habitId.get());
+            deleted += habitRepository.deleteTombstone(habitId.get());
+        }
+        return deleted;
+    }
+}
@@ -9,17 +9,23 @@ import com.epicgoals.api.dto.UpdateHabitRequest;
 import com.epicgoals.api.entity.Category;
 import com.epicgoals.api.entity.Habit;
 import com.epicgoals.api.entity.HabitCompletion;
+import com.epicgoals.api.entity.HabitVersion;
 import com.epicgoals.api.entity.User;
+import com.epicgoals.api.event.DomainEventPublisher;
+import com.epicgoals.api.event.HabitChanged;
+import com.epicgoals.api.event.HabitCompletionToggled;
 import com.epicgoals.api.repository.HabitCompletionRepository;
 import com.epicgoals.api.repository.HabitRepository;
+import com.epicgoals.api.repository.HabitVersionRepository;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.List;
-import java.util.Optional;
+import java.util.Objects;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -33,24 +39,43 @@ public class HabitService {
     private final HabitCompletionRepository habitCompletionRepository;
     private final CategoryService categoryService;
     private final ScoreService scoreService;
+    private final UserDataVersionService dataVersionService;
+    private final StreakService streakService;
+    private final HeatmapService heatmapService;
+    private final DomainEventPublisher eventPublisher;
+    private final HabitVersionRepository habitVersionRepository;
+    private final UserSettingsService userSettingsService;
+    private final IdempotencyService idempotencyService;
     
     @Autowired
     public HabitService(HabitRepository habitRepository, 
                        HabitCompletionRepository habitCompletionRepository,
                        CategoryService categoryService,
-                       ScoreService scoreService) {
+                       ScoreService scoreService,
+                       UserDataVersionService dataVersionService,
+                       StreakService streakService,
+                       HeatmapService heatmapService,
+                       DomainEventPublisher eventPublisher,
+                       HabitVersionRepository habitVersionRepository,
+                       UserSettingsService userSettingsService,
+                       IdempotencyService idempotencyService) {
         this.habitRepository = habitRepository;
         this.habitCompletionRepository = habitCompletionRepository;
         this.categoryService = categoryService;
         this.scoreService = scoreService;
+        this.dataVersionService = dataVersionService;
+        this.streakService = streakService;
+        this.heatmapService = heatmapService;
+        this.eventPublisher = eventPublisher;
+        this.habitVersionRepository = habitVersionRepository;
+        this.userSettingsService = userSettingsService;
+        this.idempotencyService = idempotencyService;
     }
     
     @Transactional(readOnly = true)
     public List<HabitDto> getUserHabits(User user) {
-        List<Habit> habits = habitRepository.findByUserAndIsActiveTrueOrderByName(user);
-        return habits.stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        // Projection joins the category name so the list costs a single query
+        return habitRepository.findActiveHabitDtosByUser(user);
     }
     
     public HabitDto createHabit(User user, CreateHabitRequest request) {
@@ -64,10 +89,15 @@ public class HabitService {
         Category category = categoryService.getCategoryByIdAndUser(request.getCategoryId(), user);
         
         Habit habit = new Habit(user, category, request.getName(), request.getFrequency());
+        habit.setEffectiveFrom(userSettingsService.today(user));
         Habit savedHabit = habitRepository.save(habit);
+        streakService.initialize(savedHabit.getId());
+        heatmapService.initialize(savedHabit.getId(), userSettingsService.today(user));
         
-        // Recalculate scores when a new habit is added
-        scoreService.recalculateOnHabitChange(user);
+        // Score recalculation follows from the event once the habit is committed
+        eventPublisher.publish(new HabitChanged(user.getId(), savedHabit.getId(), HabitChanged.Change.CREATED));
+        scoreService.evictCurrentWeek(user);
+        dataVersionService.markChanged(user.getId());
         
         return convertToDto(savedHabit);
     }
@@ -76,18 +106,32 @@ public class HabitService {
         Habit habit = habitRepository.findByIdAndUser(habitId, user)
                 .orElseThrow(() -> new EntityNotFoundException("Habit not found"));
         
+        // A sync write made on a device before the last applied one loses
+        if (LastWriteWins.isStale(habit.getClientUpdatedAt(), request.getClientUpdatedAt())) {
+            return convertToDto(habit);
+        }
+        
         // Verify category belongs to user
         Category category = categoryService.getCategoryByIdAndUser(request.getCategoryId(), user);
         
+        if (!Objects.equals(habit.getFrequency(), request.getFrequency())
+                || !Objects.equals(habit.getIsActive(), request.getIsActive())
+                || !Objects.equals(habit.getCategory().getId(), category.getId())) {
+            supersedeDefinition(user, habit);
+        }
         habit.setName(request.getName());
         habit.setCategory(category);
         habit.setFrequency(request.getFrequency());
         habit.setIsActive(request.getIsActive());
+        if (request.getClientUpdatedAt() != null) {
+            habit.setClientUpdatedAt(request.getClientUpdatedAt());
+        }
         
         Habit savedHabit = habitRepository.save(habit);
         
-        // Recalculate scores when a habit is updated
-        scoreService.recalculateOnHabitChange(user);
+        eventPublisher.publish(new HabitChanged(user.getId(), habitId, HabitChanged.Change.UPDATED));
+        scoreService.evictCurrentWeek(user);
+        dataVersionService.markChanged(user.getId());
         
         return convertToDto(savedHabit);
     }
@@ -96,14 +140,15 @@ public class HabitService {
         Habit habit = habitRepository.findByIdAndUser(habitId, user)
                 .orElseThrow(() -> new EntityNotFoundException("Habit not found"));
         
-        // Delete all completions for this habit
-        habitCompletionRepository.deleteByHabit(habit);
-        
-        // Delete the habit
-        habitRepository.delete(habit);
+        // Only tombstone the habit; its history and derived rows are removed by the purge job
+        supersedeDefinition(user, habit);
+        habit.setDeletedAt(Instant.now());
+        habit.setIsActive(false);
+        habitRepository.save(habit);
         
-        // Recalculate scores when a habit is deleted
-        scoreService.recalculateOnHabitChange(user);
+        eventPublisher.publish(new HabitChanged(user.getId(), habitId, HabitChanged.Change.DELETED));
+        scoreService.evictCurrentWeek(user);
+        dataVersionService.markChanged(user.getId());
     }
     
     @Transactional(readOnly = true)
@@ -118,29 +163,44 @@ public class HabitService {
     }
     
     public HabitCompletionDto toggleHabitCompletion(User user, UUID habitId, LocalDate date) {
-        Habit habit = habitRepository.findByIdAndUser(habitId, user)
+        // Single atomic upsert: concurrent toggles from several devices cannot collide on the unique key
+        HabitCompletionDto result = habitCompletionRepository.toggleCompletion(user.getId(), habitId, date)
                 .orElseThrow(() -> new EntityNotFoundException("Habit not found"));
         
-        Optional<HabitCompletion> existingCompletion = habitCompletionRepository.findByHabitAndDate(habit, date);
-        
-        HabitCompletionDto result;
-        if (existingCompletion.isPresent()) {
-            HabitCompletion completion = existingCompletion.get();
-            completion.setCompleted(!completion.getCompleted());
-            HabitCompletion savedCompletion = habitCompletionRepository.save(completion);
-            result = convertToCompletionDto(savedCompletion);
-        } else {
-            HabitCompletion newCompletion = new HabitCompletion(habit, date, true);
-            HabitCompletion savedCompletion = habitCompletionRepository.save(newCompletion);
-            result = convertToCompletionDto(savedCompletion);
-        }
-        
-        // Recalculate scores when a habit completion is toggled
-        scoreService.recalculateCurrentWeek(user);
+        // Streaks, trends, heatmap and the score snapshot are updated when the event is delivered
+        eventPublisher.publish(new HabitCompletionToggled(user.getId(), habitId, date, result.getCompleted()));
+        scoreService.evictCurrentWeek(user);
+        dataVersionService.markChanged(user.getId());
         
         return result;
     }
     
+    public HabitCompletionDto setHabitCompletion(User user, UUID habitId, LocalDate date,
+                                                 boolean completed, String idempotencyKey) {
+        // A replayed key returns the first request's result and repeats none of its side effects
+        SetCompletion request = new SetCompletion(habitId, date, completed);
+        return idempotencyService.execute(user.getId(), idempotencyKey, request, HabitCompletionDto.class, () -> {
+            HabitCompletionDto result = habitCompletionRepository.setCompletion(user.getId(), habitId, date, completed)
+                    .orElseThrow(() -> new EntityNotFoundException("Habit not found"));
+            
+            eventPublisher.publish(new HabitCompletionToggled(user.getId(), habitId, date, result.getCompleted()));
+            scoreService.evictCurrentWeek(user);
+            dataVersionService.markChanged(user.getId());
+            
+            return result;
+        });
+    }
+    
+    // Keeps the definition being replaced for the days it applied, so past weeks still score with it
+    private void supersedeDefinition(User user, Habit habit) {
+        LocalDate today = userSettingsService.today(user);
+        // Inactive periods need no row: a week without a definition for the habit does not count it
+        if (habit.getEffectiveFrom().isBefore(today) && Boolean.TRUE.equals(habit.getIsActive())) {
+            habitVersionRepository.save(new HabitVersion(habit, today));
+        }
+        habit.setEffectiveFrom(today);
+    }
+    
     @Transactional(readOnly = true)
     public Habit getHabitByIdAndUser(UUID habitId, User user) {
         return habitRepository.findByIdAndUser(habitId, user)
@@ -170,4 +230,7 @@ public class HabitService {
                 completion.getUpdatedAt()
         );
     }
-}
\ No newline at end of file
+    
+    // Parameters a completion's Idempotency-Key is bound to
+    private record SetCompletion(UUID habitId, LocalDate date, boolean completed) {}
+}
@@ -0,0 +1,253 @@
+// ABOUT_ME: This file provides the per-habit day-of-week and monthly completion heatmap
+// ABOUT_ME: Maintains weekday counters and monthly rollups on completion changes and rebuilds them per batch of users
+package com.epicgoals.api.service;
+
+import com.epicgoals.api.dto.CompletionDay;
+import com.epicgoals.api.dto.HabitHeatmapDto;
+import com.epicgoals.api.dto.HabitStart;
+import com.epicgoals.api.dto.UserIdRange;
+import com.epicgoals.api.entity.HabitDayStats;
+import com.epicgoals.api.entity.HabitMonthStats;
+import com.epicgoals.api.entity.User;
+import com.epicgoals.api.repository.HabitCompletionRepository;
+import com.epicgoals.api.repository.HabitDayStatsRepository;
+import com.epicgoals.api.repository.HabitMonthStatsRepository;
+import com.epicgoals.api.repository.HabitRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Service
+@Transactional
+public class HeatmapService {
+
+    private static final Logger log = LoggerFactory.getLogger(HeatmapService.class);
+    private static final int MAX_MONTHS = 24;
+    private static final int REBUILD_FLUSH_SIZE = 500;
+
+    private final HabitDayStatsRepository dayStatsRepository;
+    private final HabitMonthStatsRepository monthStatsRepository;
+    private final HabitRepository habitRepository;
+    private final HabitCompletionRepository habitCompletionRepository;
+    private final UserSettingsService userSettingsService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public HeatmapService(HabitDayStatsRepository dayStatsRepository,
+                          HabitMonthStatsRepository monthStatsRepository,
+                          HabitRepository habitRepository,
+                          HabitCompletionRepository habitCompletionRepository,
+                          UserSettingsService userSettingsService) {
+        this.dayStatsRepository = dayStatsRepository;
+        this.monthStatsRepository = monthStatsRepository;
+        this.habitRepository = habitRepository;
+        this.habitCompletionRepository = habitCompletionRepository;
+        this.userSettingsService = userSettingsService;
+    }
+
+    @Transactional(readOnly = true)
+    public HabitHeatmapDto getHeatmap(User user, UUID habitId, int months) {
+        if (months < 1 || months > MAX_MONTHS) {
+            throw new IllegalArgumentException("Months must be between 1 and " + MAX_MONTHS);
+        }
+        if (!habitRepository.existsByIdAndUser(habitId, user)) {
+            throw new EntityNotFoundException("Habit not found");
+        }
+
+        LocalDate today = userSettingsService.today(user);
+        HabitDayStats stats = dayStatsRepository.findById(habitId)
+                .orElseGet(() -> new HabitDayStats(habitId, today));
+
+        List<HabitHeatmapDto.WeekdayCell> weekdays = new ArrayList<>();
+        for (DayOfWeek day : DayOfWeek.values()) {
+            int completions = stats.getWeekdayCompletions().get(day.getValue() - 1);
+            int opportunities = countWeekdays(stats.getTrackingStart(), today, day);
+            double rate = opportunities > 0 ? Math.round(completions * 1000.0 / opportunities) / 10.0 : 0.0;
+            weekdays.add(new HabitHeatmapDto.WeekdayCell(day, completions, opportunities, rate));
+        }
+
+        // Fill months without a rollup row so the client always gets a dense range
+        LocalDate firstMonth = today.withDayOfMonth(1).minusMonths(months - 1);
+        Map<LocalDate, Integer> rollups = monthStatsRepository
+                .findByHabitIdAndMonthStartGreaterThanEqualOrderByMonthStart(habitId, firstMonth).stream()
+                .collect(Collectors.toMap(HabitMonthStats::getMonthStart, HabitMonthStats::getCompletions));
+        List<HabitHeatmapDto.MonthCell> monthCells = new ArrayList<>();
+        for (LocalDate month = firstMonth; !month.isAfter(today); month = month.plusMonths(1)) {
+            monthCells.add(new HabitHeatmapDto.MonthCell(month, rollups.getOrDefault(month, 0), month.lengthOfMonth()));
+        }
+
+        return new HabitHeatmapDto(habitId, stats.getTrackingStart(), weekdays, monthCells);
+    }
+
+    // Tracking starts on the owner's current date, which the caller resolves in their zone
+    public void initialize(UUID habitId, LocalDate today) {
+        dayStatsRepository.save(new HabitDayStats(habitId, today));
+    }
+
+    public void deleteForHabit(UUID habitId) {
+        monthStatsRepository.deleteByHabitId(habitId);
+        dayStatsRepository.deleteByHabitId(habitId);
+    }
+
+    /**
+     * Applies one change of a day's completed state. Callers only pass real changes, so the
+     * counters move by exactly one; the per-habit row lock serializes concurrent toggles.
+     */
+    public void recordCompletionChange(UUID habitId, LocalDate date, boolean completed) {
+        HabitDayStats stats = dayStatsRepository.findForUpdate(habitId).orElse(null);
+        if (stats == null) {
+            // Habit predates heatmap tracking; its history already includes this change
+            rebuildHabit(habitId);
+            return;
+        }
+
+        int delta = completed ? 1 : -1;
+        List<Integer> counts = new ArrayList<>(stats.getWeekdayCompletions());
+        int day = date.getDayOfWeek().getValue() - 1;
+        counts.set(day, Math.max(0, counts.get(day) + delta));
+        stats.setWeekdayCompletions(counts);
+        if (completed && date.isBefore(stats.getTrackingStart())) {
+            stats.setTrackingStart(date);
+        }
+
+        LocalDate month = date.withDayOfMonth(1);
+        HabitMonthStats rollup = monthStatsRepository.findByHabitIdAndMonthStart(habitId, month)
+                .orElseGet(() -> new HabitMonthStats(habitId, month, 0));
+        rollup.setCompletions(Math.max(0, rollup.getCompletions() + delta));
+        monthStatsRepository.save(rollup);
+    }
+
+    /**
+     * Recomputes the counters and monthly rollups of every habit of the next batch of users in the range
+     * from completion history in a single ordered pass. Returns the ids of the users rebuilt, in id order,
+     * so the caller can page through the range one short transaction per batch.
+     */
+    public List<UUID> rebuildUsers(UserIdRange range, int batchSize) {
+        List<UUID> userIds = habitRepository.findOwnerIdsBetween(range.afterId(), range.lastId(),
+                PageRequest.of(0, batchSize));
+        if (userIds.isEmpty()) {
+            return userIds;
+        }
+
+        Map<UUID, LocalDate> createdOn = habitRepository.findHabitStartsOfUsers(userIds).stream()
+                .collect(Collectors.toMap(HabitStart::habitId,
+                        start -> toDate(start.createdAt(), userSettingsService.zoneOf(start.userId()))));
+        monthStatsRepository.deleteByHabitIdIn(createdOn.keySet());
+        dayStatsRepository.deleteByHabitIdIn(createdOn.keySet());
+
+        int habits = 0;
+        int pending = 0;
+        Accumulator accumulator = null;
+        try (Stream<CompletionDay> days = habitCompletionRepository.streamCompletedDaysOfUsers(userIds)) {
+            for (CompletionDay day : (Iterable<CompletionDay>) days::iterator) {
+                if (accumulator == null || !accumulator.habitId.equals(day.habitId())) {
+                    if (accumulator != null) {
+                        pending += persist(accumulator, createdOn.remove(accumulator.habitId));
+                        habits++;
+                    }
+                    accumulator = new Accumulator(day.habitId());
+                }
+                accumulator.add(day.date());
+                if (pending >= REBUILD_FLUSH_SIZE) {
+                    entityManager.flush();
+                    entityManager.clear();
+                    pending = 0;
+                }
+            }
+        }
+        if (accumulator != null) {
+            persist(accumulator, createdOn.remove(accumulator.habitId));
+            habits++;
+        }
+
+        // Habits never completed still get empty counters
+        createdOn.forEach((habitId, created) -> dayStatsRepository.save(new HabitDayStats(habitId, created)));
+        habits += createdOn.size();
+        log.debug("Rebuilt heatmap aggregates for {} habits of {} users", habits, userIds.size());
+        return userIds;
+    }
+
+    public void rebuildHabit(UUID habitId) {
+        deleteForHabit(habitId);
+        Accumulator accumulator = new Accumulator(habitId);
+        habitCompletionRepository.findCompletedDatesByHabitId(habitId).forEach(accumulator::add);
+        LocalDate created = habitRepository.findById(habitId)
+                .map(habit -> toDate(habit.getCreatedAt(), userSettingsService.zoneOf(habit.getUser())))
+                .orElse(null);
+        if (created == null && accumulator.firstDay == null) {
+            // The habit is gone and left no history, so there is nothing to track
+            return;
+        }
+        persist(accumulator, created);
+    }
+
+    private int persist(Accumulator accumulator, LocalDate created) {
+        LocalDate trackingStart = created;
+        if (accumulator.firstDay != null && (trackingStart == null || accumulator.firstDay.isBefore(trackingStart))) {
+            trackingStart = accumulator.firstDay;
+        }
+        HabitDayStats stats = new HabitDayStats(accumulator.habitId, trackingStart);
+        stats.setWeekdayCompletions(accumulator.weekdays);
+        dayStatsRepository.save(stats);
+
+        accumulator.months.forEach((month, count) ->
+                monthStatsRepository.save(new HabitMonthStats(accumulator.habitId, month, count)));
+        return accumulator.months.size() + 1;
+    }
+
+    static int countWeekdays(LocalDate from, LocalDate to, DayOfWeek day) {
+        if (to.isBefore(from)) {
+            return 0;
+        }
+        // Days until the first matching weekday, then one more every seven days
+        int shift = (day.getValue() - from.getDayOfWeek().getValue() + 7) % 7;
+        long span = ChronoUnit.DAYS.between(from, to) - shift;
+        return span < 0 ? 0 : (int) (span / 7) + 1;
+    }
+
+    private static LocalDate toDate(Instant instant, ZoneId zone) {
+        return instant != null ? LocalDate.ofInstant(instant, zone) : null;
+    }
+
+    private static final class Accumulator {
+
+        private final UUID habitId;
+        private final List<Integer> weekdays = new ArrayList<>(List.of(0, 0, 0, 0, 0, 0, 0));
+        private final Map<LocalDate, Integer> months = new TreeMap<>();
+        private LocalDate firstDay;
+
+        private Accumulator(UUID habitId) {
+            this.habitId = habitId;
+        }
+
+        private void add(LocalDate date) {
+            if (firstDay == null) {
+                firstDay = date;
+            }
+            int day = date.getDayOfWeek().getValue() - 1;
+            weekdays.set(day, weekdays.get(day) + 1);
+            months.merge(date.withDayOfMonth(1), 1, Integer::sum);
+        }
+    }
+}
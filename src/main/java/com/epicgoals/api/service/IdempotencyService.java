@@ -0,0 +1,105 @@
+// ABOUT_ME: Service applying a write at most once per client Idempotency-Key within the key's lifetime
+// ABOUT_ME: The first request with a key runs and stores its result; replays get that stored result back
+package com.epicgoals.api.service;
+
+import com.epicgoals.api.entity.IdempotencyKey;
+import com.epicgoals.api.exception.IdempotencyKeyReusedException;
+import com.epicgoals.api.repository.IdempotencyKeyRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+@Service
+@Transactional
+public class IdempotencyService {
+    
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final ObjectMapper objectMapper;
+    private final Duration keyLifetime;
+    
+    @Autowired
+    public IdempotencyService(IdempotencyKeyRepository idempotencyKeyRepository, ObjectMapper objectMapper,
+                              @Value("${app.idempotency.ttl-hours:24}") long ttlHours) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.objectMapper = objectMapper;
+        this.keyLifetime = Duration.ofHours(ttlHours);
+    }
+    
+    /**
+     * Runs the work unless the user already sent the key, in which case the result stored for it is returned
+     * instead. The request, a record of the operation's parameters, must match the one the key was first
+     * sent with. Runs in the caller's transaction, so the key is only taken if the work commits; a
+     * concurrent request with the same key waits on the claim and then gets the committed result. Without
+     * a key the work simply runs.
+     */
+    public <T> T execute(UUID userId, String key, Record request, Class<T> resultType, Supplier<T> work) {
+        if (key == null) {
+            return work.get();
+        }
+        String requestHash = fingerprint(request);
+        Instant now = Instant.now();
+        if (idempotencyKeyRepository.claim(userId, key, requestHash, now, now.minus(keyLifetime))) {
+            T result = work.get();
+            idempotencyKeyRepository.storeResponse(userId, key, write(result));
+            return result;
+        }
+        IdempotencyKey stored = idempotencyKeyRepository.findByUserIdAndKey(userId, key)
+                .orElseThrow(IdempotencyService::inProgress);
+        if (!stored.getRequestHash().equals(requestHash)) {
+            throw new IdempotencyKeyReusedException();
+        }
+        if (stored.getResponse() == null) {
+            throw inProgress();
+        }
+        return read(stored.getResponse(), resultType);
+    }
+    
+    public int purgeExpired() {
+        return idempotencyKeyRepository.deleteCreatedBefore(Instant.now().minus(keyLifetime));
+    }
+    
+    // The record's type names the operation and its JSON carries the parameters
+    private String fingerprint(Record request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(request.getClass().getName().getBytes(StandardCharsets.UTF_8));
+            digest.update(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException | JsonProcessingException ex) {
+            throw new IllegalStateException("Could not fingerprint idempotent request", ex);
+        }
+    }
+    
+    private static OptimisticLockingFailureException inProgress() {
+        return new OptimisticLockingFailureException("A request with this Idempotency-Key is still in progress");
+    }
+    
+    private String write(Object result) {
+        try {
+            return objectMapper.writeValueAsString(result);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not store idempotent result", ex);
+        }
+    }
+    
+    private <T> T read(String stored, Class<T> resultType) {
+        try {
+            return objectMapper.readValue(stored, resultType);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not read stored idempotent result", ex);
+        }
+    }
+}
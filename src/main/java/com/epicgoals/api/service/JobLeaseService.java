@@ -0,0 +1,87 @@
+// ABOUT_ME: Service for claiming, renewing and releasing job leases in the job_leases table
+// ABOUT_ME: Each operation runs in its own short transaction; a lease is only as good as its fencing token
+package com.epicgoals.api.service;
+
+import com.epicgoals.api.entity.JobLease;
+import com.epicgoals.api.repository.JobLeaseRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+@Service
+@Transactional
+public class JobLeaseService {
+
+    private final JobLeaseRepository jobLeaseRepository;
+
+    @Autowired
+    public JobLeaseService(JobLeaseRepository jobLeaseRepository) {
+        this.jobLeaseRepository = jobLeaseRepository;
+    }
+
+    /**
+     * Claims the lease if it is free or expired, or was never used. With a run, a shard already finished
+     * in that run is not claimed again. Two instances inserting a new lease at once race on its primary
+     * key; the loser gets a DataIntegrityViolationException and should treat the lease as taken.
+     */
+    public Optional<Lease> claim(String name, String owner, String run, Duration ttl) {
+        Instant now = Instant.now();
+        Instant expiresAt = now.plus(ttl);
+        int claimed = run == null
+                ? jobLeaseRepository.claim(name, owner, now, expiresAt)
+                : jobLeaseRepository.claimForRun(name, owner, run, now, expiresAt);
+        if (claimed == 0) {
+            if (jobLeaseRepository.existsById(name)) {
+                return Optional.empty();
+            }
+            JobLease created = jobLeaseRepository.saveAndFlush(new JobLease(name, owner, expiresAt));
+            return Optional.of(new Lease(name, owner, created.getFencingToken(), expiresAt));
+        }
+        long fencingToken = jobLeaseRepository.findById(name).orElseThrow().getFencingToken();
+        return Optional.of(new Lease(name, owner, fencingToken, expiresAt));
+    }
+
+    // Empty once another instance has taken the lease over
+    public Optional<Lease> renew(Lease lease, Duration ttl) {
+        Instant now = Instant.now();
+        Instant expiresAt = now.plus(ttl);
+        if (jobLeaseRepository.renew(lease.name(), lease.owner(), lease.fencingToken(), now, expiresAt) == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(new Lease(lease.name(), lease.owner(), lease.fencingToken(), expiresAt));
+    }
+
+    /**
+     * Locks the lease in the caller's transaction if it still carries the given owner and fencing token.
+     * Writes made in the same transaction are then fenced: they commit only while the lease is held, and a
+     * claim by another instance waits until they have.
+     */
+    public boolean lockIfHeld(Lease lease) {
+        return jobLeaseRepository.findHeldForUpdate(lease.name(), lease.owner(), lease.fencingToken()).isPresent();
+    }
+
+    // A completed run is recorded with the release so no instance claims the shard again for that run
+    public boolean release(Lease lease, String completedRun) {
+        return jobLeaseRepository.release(lease.name(), lease.owner(), lease.fencingToken(), completedRun, Instant.now()) > 0;
+    }
+
+    @Transactional(readOnly = true)
+    public Set<String> completedForRun(Collection<String> names, String run) {
+        return new HashSet<>(jobLeaseRepository.findCompletedForRun(names, run));
+    }
+
+    @Transactional(readOnly = true)
+    public long countHeld(String prefix) {
+        return jobLeaseRepository.countHeldWithPrefix(prefix + "%", Instant.now());
+    }
+
+    public record Lease(String name, String owner, long fencingToken, Instant expiresAt) {
+    }
+}
@@ -0,0 +1,18 @@
+// ABOUT_ME: Last-write-wins conflict resolution for sync writes carrying client timestamps
+// ABOUT_ME: Decides whether an incoming offline edit is older than the one already applied
+package com.epicgoals.api.service;
+
+import java.time.Instant;
+
+final class LastWriteWins {
+
+    private LastWriteWins() {}
+
+    /**
+     * A write is stale when both sides carry a client timestamp and the incoming one is older.
+     * Writes without a timestamp (plain online edits) always apply.
+     */
+    static boolean isStale(Instant stored, Instant incoming) {
+        return stored != null && incoming != null && incoming.isBefore(stored);
+    }
+}
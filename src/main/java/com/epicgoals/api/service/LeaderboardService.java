@@ -0,0 +1,68 @@
+// ABOUT_ME: This file maintains and serves the precomputed friends leaderboards
+// ABOUT_ME: Score changes are fanned out to every friend's board on write so reading a board is a single indexed query
+package com.epicgoals.api.service;
+
+import com.epicgoals.api.dto.LeaderboardDto;
+import com.epicgoals.api.dto.WeeklyScoreDto;
+import com.epicgoals.api.entity.LeaderboardEntry;
+import com.epicgoals.api.entity.User;
+import com.epicgoals.api.repository.LeaderboardEntryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+@Service
+@Transactional
+public class LeaderboardService {
+
+    private final LeaderboardEntryRepository leaderboardEntryRepository;
+
+    @Autowired
+    public LeaderboardService(LeaderboardEntryRepository leaderboardEntryRepository) {
+        this.leaderboardEntryRepository = leaderboardEntryRepository;
+    }
+
+    @Transactional(readOnly = true)
+    public LeaderboardDto getLeaderboard(User user, LocalDate weekStart) {
+        List<LeaderboardEntry> rows = leaderboardEntryRepository.findBoard(user.getId(), weekStart);
+
+        // Standard competition ranking: equal scores share a rank and the next rank skips ahead
+        List<LeaderboardDto.Entry> entries = new ArrayList<>(rows.size());
+        int rank = 0;
+        Integer previousScore = null;
+        for (int i = 0; i < rows.size(); i++) {
+            LeaderboardEntry row = rows.get(i);
+            if (!row.getScore().equals(previousScore)) {
+                rank = i + 1;
+                previousScore = row.getScore();
+            }
+            entries.add(new LeaderboardDto.Entry(rank, row.getMemberId(), row.getMemberEmail(), row.getScore(),
+                    row.getCompletedHabits(), row.getTotalHabits(), row.getMemberId().equals(user.getId())));
+        }
+        return new LeaderboardDto(weekStart, entries);
+    }
+
+    public void recordScore(UUID userId, WeeklyScoreDto score) {
+        leaderboardEntryRepository.upsertForMemberAndFriends(userId, score.getWeekStartDate(), score.getScore(),
+                score.getCompletedHabits(), score.getTotalHabits());
+    }
+
+    public void linkFriends(UUID userId, UUID friendId, LocalDate weekStart) {
+        // Each side already has its own row if it has a score this week; later weeks come from the fan-out
+        leaderboardEntryRepository.copyToViewer(userId, friendId, weekStart);
+        leaderboardEntryRepository.copyToViewer(friendId, userId, weekStart);
+    }
+
+    public void unlinkFriends(UUID userId, UUID friendId) {
+        leaderboardEntryRepository.deleteBetween(userId, friendId);
+    }
+
+    public int purgeWeeksBefore(LocalDate cutoff) {
+        return leaderboardEntryRepository.deleteWeeksBefore(cutoff);
+    }
+}
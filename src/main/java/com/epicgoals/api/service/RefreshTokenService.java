@@ -0,0 +1,96 @@
+// ABOUT_ME: Service managing refresh token families: issuing on login, rotating on refresh and revoking on logout
+// ABOUT_ME: A refresh token presented twice is treated as stolen and its whole family is revoked
+package com.epicgoals.api.service;
+
+import com.epicgoals.api.dto.FamilyRevocation;
+import com.epicgoals.api.entity.RefreshToken;
+import com.epicgoals.api.entity.User;
+import com.epicgoals.api.repository.RefreshTokenRepository;
+import com.epicgoals.api.security.JwtService;
+import com.epicgoals.api.security.TokenRevocationRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+@Service
+@Transactional
+public class RefreshTokenService {
+    
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final TokenRevocationRegistry revocationRegistry;
+    private final JwtService jwtService;
+    
+    @Autowired
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               TokenRevocationRegistry revocationRegistry, JwtService jwtService) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.revocationRegistry = revocationRegistry;
+        this.jwtService = jwtService;
+    }
+    
+    public RefreshToken startFamily(User user) {
+        return issue(user.getId(), UUID.randomUUID());
+    }
+    
+    // The revocation written on reuse must commit even though the caller is rejected
+    @Transactional(noRollbackFor = BadCredentialsException.class)
+    public RefreshToken rotate(UUID tokenId, UUID familyId, UUID userId) {
+        // Revoked families are answered from memory without touching the database
+        if (revocationRegistry.isRevoked(familyId)) {
+            throw new BadCredentialsException("Refresh token revoked");
+        }
+        
+        Instant now = Instant.now();
+        if (refreshTokenRepository.markUsed(tokenId, now) == 0) {
+            // Already used, revoked or unknown: whoever holds the family's tokens can no longer be trusted
+            refreshTokenRepository.revokeFamily(familyId, now);
+            revocationRegistry.revoke(familyId, now);
+            throw new BadCredentialsException("Refresh token reuse detected");
+        }
+        return issue(userId, familyId);
+    }
+    
+    public void revokeFamily(UUID familyId) {
+        Instant now = Instant.now();
+        refreshTokenRepository.revokeFamily(familyId, now);
+        revocationRegistry.revoke(familyId, now);
+    }
+    
+    public int revokeAllForUser(UUID userId) {
+        Instant now = Instant.now();
+        List<UUID> familyIds = refreshTokenRepository.findLiveFamilyIds(userId, now);
+        refreshTokenRepository.revokeAllForUser(userId, now);
+        revocationRegistry.revokeAll(familyIds, now);
+        return familyIds.size();
+    }
+    
+    /**
+     * Loads families revoked by any instance within the access token lifetime into this instance's registry,
+     * and drops entries whose tokens have all expired.
+     */
+    @Transactional(readOnly = true)
+    public int syncRevocations() {
+        Instant now = Instant.now();
+        List<FamilyRevocation> revoked = refreshTokenRepository.findFamiliesRevokedSince(now.minus(jwtService.getAccessTokenLifetime()));
+        // Stamped with the stored revocation time so entries expire when they do on the revoking instance
+        for (FamilyRevocation revocation : revoked) {
+            revocationRegistry.revoke(revocation.familyId(), revocation.revokedAt());
+        }
+        revocationRegistry.prune(now);
+        return revoked.size();
+    }
+    
+    public int purgeExpiredBefore(Instant cutoff) {
+        return refreshTokenRepository.deleteExpiredBefore(cutoff);
+    }
+    
+    private RefreshToken issue(UUID userId, UUID familyId) {
+        Instant expiresAt = Instant.now().plus(jwtService.getRefreshTokenLifetime());
+        return refreshTokenRepository.save(new RefreshToken(userId, familyId, expiresAt));
+    }
+}
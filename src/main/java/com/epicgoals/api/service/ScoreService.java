@@ -2,49 +2,94 @@
 // ABOUT_ME: Handles habit completion scoring with caching and historical preservation
 package com.epicgoals.api.service;
 
+import com.epicgoals.api.dto.CompletionDay;
+import com.epicgoals.api.dto.HabitDefinition;
+import com.epicgoals.api.dto.HabitLifetime;
+import com.epicgoals.api.dto.UserIdRange;
 import com.epicgoals.api.dto.WeeklyScoreDto;
-import com.epicgoals.api.entity.Habit;
-import com.epicgoals.api.entity.HabitCompletion;
 import com.epicgoals.api.entity.User;
 import com.epicgoals.api.entity.WeeklyScore;
+import com.epicgoals.api.realtime.LiveEvent;
+import com.epicgoals.api.realtime.LiveEventPublisher;
 import com.epicgoals.api.repository.HabitCompletionRepository;
 import com.epicgoals.api.repository.HabitRepository;
+import com.epicgoals.api.repository.HabitVersionRepository;
+import com.epicgoals.api.repository.UserRepository;
 import com.epicgoals.api.repository.WeeklyScoreRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class ScoreService {
 
+    // The week is part of the key so a cached score never outlives the week it was computed for
+    private static final String CURRENT_WEEK_KEY = "#user.id + ':' + #root.target.getCurrentWeekStart(#user)";
+
     private final WeeklyScoreRepository weeklyScoreRepository;
     private final HabitRepository habitRepository;
     private final HabitCompletionRepository habitCompletionRepository;
+    private final HabitVersionRepository habitVersionRepository;
+    private final TrendService trendService;
+    private final LeaderboardService leaderboardService;
+    private final LiveEventPublisher liveEventPublisher;
+    private final UserSettingsService userSettingsService;
+    private final UserRepository userRepository;
+    private final CacheManager cacheManager;
 
     @Autowired
     public ScoreService(WeeklyScoreRepository weeklyScoreRepository, 
                        HabitRepository habitRepository,
-                       HabitCompletionRepository habitCompletionRepository) {
+                       HabitCompletionRepository habitCompletionRepository,
+                       HabitVersionRepository habitVersionRepository,
+                       TrendService trendService,
+                       LeaderboardService leaderboardService,
+                       LiveEventPublisher liveEventPublisher,
+                       UserSettingsService userSettingsService,
+                       UserRepository userRepository,
+                       CacheManager cacheManager) {
         this.weeklyScoreRepository = weeklyScoreRepository;
         this.habitRepository = habitRepository;
         this.habitCompletionRepository = habitCompletionRepository;
+        this.habitVersionRepository = habitVersionRepository;
+        this.trendService = trendService;
+        this.leaderboardService = leaderboardService;
+        this.liveEventPublisher = liveEventPublisher;
+        this.userSettingsService = userSettingsService;
+        this.userRepository = userRepository;
+        this.cacheManager = cacheManager;
     }
 
-    @Cacheable(value = "currentWeekScores", key = "#user.id")
+    @Cacheable(value = "currentWeekScores", key = CURRENT_WEEK_KEY)
     public WeeklyScoreDto getCurrentWeekScore(User user) {
-        LocalDate weekStart = getWeekStart(LocalDate.now());
+        LocalDate weekStart = getCurrentWeekStart(user);
         return calculateWeekScore(user, weekStart);
     }
 
+    // Weeks start on Monday in the user's own time zone
+    public LocalDate getCurrentWeekStart(User user) {
+        return getWeekStart(userSettingsService.today(user));
+    }
+
     public WeeklyScoreDto getWeekScore(User user, LocalDate weekStart) {
         // Ensure we're using the actual week start (Monday)
         LocalDate actualWeekStart = getWeekStart(weekStart);
@@ -61,53 +106,235 @@ public class ScoreService {
 
     @Transactional(readOnly = true)
     public List<WeeklyScoreDto> getHistoricalScores(User user, int weeks) {
-        LocalDate startDate = getWeekStart(LocalDate.now().minusWeeks(weeks - 1));
+        LocalDate startDate = getCurrentWeekStart(user).minusWeeks(weeks - 1);
         List<WeeklyScore> scores = weeklyScoreRepository.findByUserAndWeekStartDateAfterOrderByWeekStartDateDesc(user, startDate);
         return scores.stream()
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
     }
 
-    @CacheEvict(value = "currentWeekScores", key = "#user.id")
+    @CacheEvict(value = "currentWeekScores", key = CURRENT_WEEK_KEY)
     public void recalculateCurrentWeek(User user) {
-        LocalDate weekStart = getWeekStart(LocalDate.now());
-        calculateAndStoreWeekScore(user, weekStart);
+        LocalDate weekStart = getCurrentWeekStart(user);
+        WeeklyScoreDto score = calculateWeekScore(user, weekStart);
+        liveEventPublisher.publish(user.getId(), LiveEvent.SCORE, score);
+    }
+
+    @CacheEvict(value = "currentWeekScores", key = CURRENT_WEEK_KEY)
+    public void evictCurrentWeek(User user) {
+        // Writes evict right away; the snapshot itself is recalculated when their outbox event is delivered
+    }
+
+    /**
+     * Finalizes the snapshot of the week that just ended for one batch of users in the given zones
+     * and drops their cached score for it. Pass the range remaining after the last user processed to get the
+     * next batch; returns the users processed, in id order.
+     */
+    public List<UUID> rollOverWeeks(UserSettingsService.RolloverBand band, UserIdRange range, int batchSize) {
+        List<User> users = userRepository.findByTimeZoneBand(band.zones(), band.includesUnset(), range.afterId(),
+                range.lastId(), PageRequest.of(0, batchSize));
+        Cache currentWeekScores = cacheManager.getCache("currentWeekScores");
+        for (User user : users) {
+            LocalDate endedWeek = getCurrentWeekStart(user).minusWeeks(1);
+            calculateWeekScore(user, endedWeek);
+            if (currentWeekScores != null) {
+                currentWeekScores.evict(user.getId() + ":" + endedWeek);
+            }
+        }
+        return users.stream().map(User::getId).toList();
+    }
+
+    /**
+     * Returns one snapshot per week, newest first, for the last {@code weeks} weeks the user has had an
+     * account. Weeks without a stored snapshot are scored together from one pass over their completions
+     * and inserted in a single batch, so a full year of history costs a handful of statements and
+     * later reads of it cost one.
+     */
+    public List<WeeklyScoreDto> getScoreSeries(User user, int weeks) {
+        LocalDate currentWeek = getCurrentWeekStart(user);
+        LocalDate firstWeek = currentWeek.minusWeeks(weeks - 1);
+        if (user.getCreatedAt() != null) {
+            LocalDate signupWeek = getWeekStart(LocalDate.ofInstant(user.getCreatedAt(), userSettingsService.zoneOf(user)));
+            if (signupWeek.isAfter(firstWeek)) {
+                firstWeek = signupWeek.isAfter(currentWeek) ? currentWeek : signupWeek;
+            }
+        }
+        int weekCount = (int) ChronoUnit.WEEKS.between(firstWeek, currentWeek) + 1;
+
+        WeeklyScoreDto[] series = new WeeklyScoreDto[weekCount];
+        int firstMissing = weekCount;
+        int lastMissing = -1;
+        for (WeeklyScore stored : weeklyScoreRepository.findByUserAndWeekStartDateBetweenOrderByWeekStartDate(
+                user, firstWeek, currentWeek)) {
+            series[(int) ChronoUnit.WEEKS.between(firstWeek, stored.getWeekStartDate())] = convertToDto(stored);
+        }
+        for (int week = 0; week < weekCount; week++) {
+            if (series[week] == null) {
+                firstMissing = Math.min(firstMissing, week);
+                lastMissing = week;
+            }
+        }
+
+        if (lastMissing >= 0) {
+            LocalDate missingFrom = firstWeek.plusWeeks(firstMissing);
+            List<WeekTally> tallies = tallyWeeks(user, missingFrom, lastMissing - firstMissing + 1);
+            List<WeeklyScore> created = new ArrayList<>();
+            List<TrendService.WeekScore> trendScores = new ArrayList<>();
+            for (WeekTally tally : tallies) {
+                int week = (int) ChronoUnit.WEEKS.between(firstWeek, tally.weekStart());
+                if (series[week] != null) {
+                    continue;
+                }
+                created.add(new WeeklyScore(user, tally.weekStart(), tally.score(), tally.completed(), tally.expected()));
+                trendScores.add(new TrendService.WeekScore(tally.weekStart(), tally.score(), tally.categoryScores()));
+            }
+            // New rows only, so they go out as one batched insert; a concurrent writer of the same week
+            // trips the unique constraint and the caller retries against the stored row
+            for (WeeklyScore snapshot : weeklyScoreRepository.saveAll(created)) {
+                WeeklyScoreDto dto = convertToDto(snapshot);
+                series[(int) ChronoUnit.WEEKS.between(firstWeek, snapshot.getWeekStartDate())] = dto;
+                if (snapshot.getWeekStartDate().equals(currentWeek)) {
+                    recordSnapshot(user, dto);
+                }
+            }
+            trendService.recordWeekScores(user, trendScores);
+        }
+
+        List<WeeklyScoreDto> newestFirst = new ArrayList<>(Arrays.asList(series));
+        Collections.reverse(newestFirst);
+        return newestFirst;
+    }
+
+    /**
+     * Recomputes and stores the snapshots of every week from the one containing {@code from} to the one
+     * containing {@code to}, reading habit definitions and completions once for the whole range. Each habit
+     * counts with the definition in effect on the week's Sunday, so a past week recomputes to the same score
+     * after later habit edits and backfills or cache rebuilds are safe. Weeks frozen when a habit they counted
+     * was purged keep their stored snapshot.
+     */
+    public List<WeeklyScoreDto> recalculateWeeks(User user, LocalDate from, LocalDate to) {
+        LocalDate firstWeek = getWeekStart(from);
+        LocalDate lastWeek = getWeekStart(to);
+        if (lastWeek.isBefore(firstWeek)) {
+            throw new IllegalArgumentException("Range must end on or after its start");
+        }
+        int weeks = (int) ChronoUnit.WEEKS.between(firstWeek, lastWeek) + 1;
+
+        // Only weeks that have ended can be frozen
+        Map<LocalDate, WeeklyScore> frozen = new HashMap<>();
+        if (firstWeek.isBefore(getCurrentWeekStart(user))) {
+            for (WeeklyScore score : weeklyScoreRepository.findFrozenBetween(user.getId(), firstWeek, lastWeek)) {
+                frozen.put(score.getWeekStartDate(), score);
+            }
+        }
+
+        List<WeeklyScoreDto> snapshots = new ArrayList<>(weeks);
+        for (WeekTally tally : tallyWeeks(user, firstWeek, weeks)) {
+            WeeklyScore frozenScore = frozen.get(tally.weekStart());
+            if (frozenScore != null) {
+                snapshots.add(recordSnapshot(user, convertToDto(frozenScore)));
+                continue;
+            }
+            trendService.recordWeekScore(user, tally.weekStart(), tally.score(), tally.categoryScores());
+            // Store the calculated score; the upsert makes concurrent recalculations of one week safe
+            snapshots.add(recordSnapshot(user, weeklyScoreRepository.upsertScore(user.getId(), tally.weekStart(),
+                    tally.score(), tally.completed(), tally.expected())));
+        }
+        return snapshots;
+    }
+
+    /**
+     * Recomputes and freezes the snapshots of every week the habit counted in, so they keep their scores once
+     * its versions and completions are purged. Must run before the purge deletes anything.
+     */
+    public void freezeWeeksOfHabit(UUID habitId) {
+        Optional<HabitLifetime> lifetime = habitVersionRepository.findLifetime(habitId);
+        if (lifetime.isEmpty()) {
+            return;
+        }
+        // A habit counts in a week when it applied on the week's Sunday, which is before the day it ended
+        LocalDate firstWeek = getWeekStart(lifetime.get().firstDay());
+        LocalDate lastWeek = getWeekStart(lifetime.get().endDay().minusDays(7));
+        if (lastWeek.isBefore(firstWeek)) {
+            return;
+        }
+        UUID userId = lifetime.get().userId();
+        long weeks = ChronoUnit.WEEKS.between(firstWeek, lastWeek) + 1;
+        // A purge resumed after a failed batch finds the weeks already frozen
+        if (weeklyScoreRepository.findFrozenBetween(userId, firstWeek, lastWeek).size() == weeks) {
+            return;
+        }
+        User user = userRepository.findById(userId).orElseThrow();
+        recalculateWeeks(user, firstWeek, lastWeek);
+        weeklyScoreRepository.freezeBetween(userId, firstWeek, lastWeek);
     }
 
-    @CacheEvict(value = "currentWeekScores", key = "#user.id")
-    public void recalculateOnHabitChange(User user) {
-        // Recalculate current week when habits are added/removed/modified
-        recalculateCurrentWeek(user);
+    @CacheEvict(value = "currentWeekScores", key = CURRENT_WEEK_KEY)
+    public List<WeeklyScoreDto> recalculateRecentWeeks(User user, int weeks) {
+        LocalDate currentWeek = getCurrentWeekStart(user);
+        return recalculateWeeks(user, currentWeek.minusWeeks(weeks - 1), currentWeek);
     }
 
     private WeeklyScoreDto calculateWeekScore(User user, LocalDate weekStart) {
-        LocalDate weekEnd = weekStart.plusDays(6); // Sunday
-        
-        // Get all active habits for the user
-        List<Habit> activeHabits = habitRepository.findByUserAndIsActiveTrueOrderByName(user);
-        
-        if (activeHabits.isEmpty()) {
-            // If no habits, return 0 score
-            WeeklyScore weeklyScore = new WeeklyScore(user, weekStart, 0, 0, 0);
-            WeeklyScore savedScore = weeklyScoreRepository.save(weeklyScore);
-            return convertToDto(savedScore);
+        return recalculateWeeks(user, weekStart, weekStart).get(0);
+    }
+
+    private List<WeekTally> tallyWeeks(User user, LocalDate firstWeek, int weeks) {
+        LocalDate firstSunday = firstWeek.plusDays(6);
+        LocalDate lastSunday = firstWeek.plusWeeks(weeks - 1).plusDays(6);
+
+        List<HabitDefinition> definitions = new ArrayList<>(
+                habitRepository.findActiveDefinitionsFrom(user.getId(), lastSunday));
+        // Superseded definitions all ended by today, so weeks ending today or later never need them
+        if (firstSunday.isBefore(userSettingsService.today(user))) {
+            definitions.addAll(habitVersionRepository.findActiveDefinitionsOverlapping(user.getId(), firstSunday, lastSunday));
         }
 
-        // Get all completions for the week
-        List<HabitCompletion> completions = habitCompletionRepository.findByHabitInAndDateBetween(
-                activeHabits, weekStart, weekEnd);
+        // Completions arrive ordered by date, so one linear pass with a moving week boundary
+        // buckets them into a flat habit-by-week count array
+        Map<UUID, Integer> habitIndex = new HashMap<>();
+        for (HabitDefinition definition : definitions) {
+            habitIndex.putIfAbsent(definition.habitId(), habitIndex.size());
+        }
+        int[] completed = new int[habitIndex.size() * weeks];
+        if (!habitIndex.isEmpty()) {
+            int week = 0;
+            LocalDate nextWeek = firstWeek.plusWeeks(1);
+            for (CompletionDay day : habitCompletionRepository.findCompletedDaysBetween(habitIndex.keySet(), firstWeek, lastSunday)) {
+                while (!day.date().isBefore(nextWeek)) {
+                    week++;
+                    nextWeek = nextWeek.plusWeeks(1);
+                }
+                completed[habitIndex.get(day.habitId()) * weeks + week]++;
+            }
+        }
+
+        List<WeekTally> tallies = new ArrayList<>(weeks);
+        for (int week = 0; week < weeks; week++) {
+            tallies.add(tallyWeek(firstWeek.plusWeeks(week), definitions, habitIndex, completed, weeks, week));
+        }
+        return tallies;
+    }
+
+    private WeekTally tallyWeek(LocalDate weekStart, List<HabitDefinition> definitions, Map<UUID, Integer> habitIndex,
+                                int[] completed, int weeks, int week) {
+        LocalDate sunday = weekStart.plusDays(6);
 
-        // Calculate score for each habit
+        // Calculate score for each habit defined for the week
         double totalScore = 0.0;
+        int habitCount = 0;
         int totalExpectedCompletions = 0;
         int totalActualCompletions = 0;
+        Map<UUID, double[]> categoryTotals = new HashMap<>(); // category id -> {score sum, habit count}
 
-        for (Habit habit : activeHabits) {
-            int expectedCompletions = Math.min(habit.getFrequency(), 7); // Max 7 days in a week
-            int actualCompletions = (int) completions.stream()
-                    .filter(c -> c.getHabit().getId().equals(habit.getId()) && c.getCompleted())
-                    .count();
+        for (HabitDefinition definition : definitions) {
+            if (!definition.appliesOn(sunday)) {
+                continue;
+            }
+            int expectedCompletions = Math.min(definition.frequency(), 7); // Max 7 days in a week
+            int actualCompletions = completed[habitIndex.get(definition.habitId()) * weeks + week];
 
+            habitCount++;
             totalExpectedCompletions += expectedCompletions;
             totalActualCompletions += actualCompletions;
             
@@ -115,33 +342,24 @@ public class ScoreService {
             double habitScore = expectedCompletions > 0 ? 
                     (double) actualCompletions / expectedCompletions * 100.0 : 0.0;
             totalScore += habitScore;
+            
+            double[] categoryTotal = categoryTotals.computeIfAbsent(definition.categoryId(), id -> new double[2]);
+            categoryTotal[0] += habitScore;
+            categoryTotal[1]++;
         }
 
         // Overall score: average of all habit scores
-        int overallScore = activeHabits.size() > 0 ? 
-                (int) Math.round(totalScore / activeHabits.size()) : 0;
+        int overallScore = habitCount > 0 ? (int) Math.round(totalScore / habitCount) : 0;
 
-        // Store the calculated score
-        WeeklyScore weeklyScore = new WeeklyScore(user, weekStart, overallScore, 
-                totalActualCompletions, totalExpectedCompletions);
-        
-        // Check if score already exists for this week, update if so
-        Optional<WeeklyScore> existingScore = weeklyScoreRepository.findByUserAndWeekStartDate(user, weekStart);
-        if (existingScore.isPresent()) {
-            WeeklyScore existing = existingScore.get();
-            existing.setScore(overallScore);
-            existing.setCompletedHabits(totalActualCompletions);
-            existing.setTotalHabits(totalExpectedCompletions);
-            WeeklyScore savedScore = weeklyScoreRepository.save(existing);
-            return convertToDto(savedScore);
-        } else {
-            WeeklyScore savedScore = weeklyScoreRepository.save(weeklyScore);
-            return convertToDto(savedScore);
-        }
+        Map<UUID, Integer> categoryScores = new HashMap<>();
+        categoryTotals.forEach((categoryId, total) -> categoryScores.put(categoryId, (int) Math.round(total[0] / total[1])));
+        return new WeekTally(weekStart, overallScore, totalActualCompletions, totalExpectedCompletions, categoryScores);
     }
 
-    private void calculateAndStoreWeekScore(User user, LocalDate weekStart) {
-        calculateWeekScore(user, weekStart);
+    private WeeklyScoreDto recordSnapshot(User user, WeeklyScoreDto snapshot) {
+        // Friends' leaderboards are updated with the snapshot so reading a board never recomputes scores
+        leaderboardService.recordScore(user.getId(), snapshot);
+        return snapshot;
     }
 
     private LocalDate getWeekStart(LocalDate date) {
@@ -159,4 +377,7 @@ public class ScoreService {
                 weeklyScore.getCalculatedAt()
         );
     }
-}
\ No newline at end of file
+
+    private record WeekTally(LocalDate weekStart, int score, int completed, int expected, Map<UUID, Integer> categoryScores) {
+    }
+}
@@ -0,0 +1,281 @@
+// ABOUT_ME: This file provides business logic for habit streak tracking
+// ABOUT_ME: Maintains streak runs incrementally on completion changes and rebuilds them from history in one pass
+package com.epicgoals.api.service;
+
+import com.epicgoals.api.dto.CompletionDay;
+import com.epicgoals.api.dto.HabitStreakDto;
+import com.epicgoals.api.entity.HabitStreak;
+import com.epicgoals.api.entity.HabitStreakRun;
+import com.epicgoals.api.entity.User;
+import com.epicgoals.api.repository.HabitCompletionRepository;
+import com.epicgoals.api.repository.HabitStreakRepository;
+import com.epicgoals.api.repository.HabitStreakRunRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Service
+@Transactional
+public class StreakService {
+
+    private static final Logger log = LoggerFactory.getLogger(StreakService.class);
+    private static final int REBUILD_FLUSH_SIZE = 500;
+
+    private final HabitStreakRepository streakRepository;
+    private final HabitStreakRunRepository runRepository;
+    private final HabitCompletionRepository habitCompletionRepository;
+    private final UserSettingsService userSettingsService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public StreakService(HabitStreakRepository streakRepository,
+                         HabitStreakRunRepository runRepository,
+                         HabitCompletionRepository habitCompletionRepository,
+                         UserSettingsService userSettingsService) {
+        this.streakRepository = streakRepository;
+        this.runRepository = runRepository;
+        this.habitCompletionRepository = habitCompletionRepository;
+        this.userSettingsService = userSettingsService;
+    }
+
+    @Transactional(readOnly = true)
+    public List<HabitStreakDto> getUserStreaks(User user) {
+        LocalDate today = userSettingsService.today(user);
+        return streakRepository.findActiveByUser(user).stream()
+                .map(streak -> convertToDto(streak, today))
+                .collect(Collectors.toList());
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<HabitStreakDto> getStreak(UUID userId, UUID habitId) {
+        LocalDate today = LocalDate.now(userSettingsService.zoneOf(userId));
+        return streakRepository.findById(habitId).map(streak -> convertToDto(streak, today));
+    }
+
+    public void initialize(UUID habitId) {
+        streakRepository.save(new HabitStreak(habitId));
+    }
+
+    public void deleteForHabit(UUID habitId) {
+        runRepository.deleteByHabitId(habitId);
+        streakRepository.deleteByHabitId(habitId);
+    }
+
+    /**
+     * Applies one completion change to the habit's runs. Marking a day joins or extends the
+     * neighbouring runs; clearing a day shrinks or splits the run holding it. Repeating a change
+     * that is already reflected is a no-op, so replays are harmless.
+     *
+     * @return whether the day's completed state actually changed; false when the runs had to be rebuilt
+     */
+    public boolean applyCompletion(UUID habitId, LocalDate date, boolean completed) {
+        HabitStreak streak = streakRepository.findForUpdate(habitId).orElse(null);
+        if (streak == null) {
+            // Habit predates streak tracking; its history already includes this change, and whether the change
+            // was new cannot be told any more, so it is not reported as one for others to count again
+            rebuildHabit(habitId);
+            return false;
+        }
+
+        List<HabitStreakRun> nearby = runRepository.findTouching(habitId, date.minusDays(1), date.plusDays(1));
+        HabitStreakRun holding = nearby.stream().filter(run -> run.contains(date)).findFirst().orElse(null);
+
+        if (completed && holding == null) {
+            markDay(streak, habitId, date, nearby);
+            return true;
+        }
+        if (!completed && holding != null) {
+            clearDay(streak, habitId, date, holding);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Recomputes runs and summaries for every habit from completion history in a single ordered pass.
+     */
+    public void rebuildAll() {
+        runRepository.deleteAllRuns();
+        streakRepository.deleteAllStreaks();
+
+        int habits = 0;
+        int pending = 0;
+        RunBuilder builder = null;
+        try (Stream<CompletionDay> days = habitCompletionRepository.streamAllCompletedDays()) {
+            for (CompletionDay day : (Iterable<CompletionDay>) days::iterator) {
+                if (builder == null || !builder.habitId.equals(day.habitId())) {
+                    if (builder != null) {
+                        pending += persist(builder);
+                        habits++;
+                    }
+                    builder = new RunBuilder(day.habitId());
+                }
+                builder.add(day.date());
+                if (pending >= REBUILD_FLUSH_SIZE) {
+                    entityManager.flush();
+                    entityManager.clear();
+                    pending = 0;
+                }
+            }
+        }
+        if (builder != null) {
+            persist(builder);
+            habits++;
+        }
+
+        // Habits with no completed days still get an empty summary
+        for (UUID habitId : streakRepository.findHabitIdsWithoutStreak()) {
+            streakRepository.save(new HabitStreak(habitId));
+        }
+        log.info("Rebuilt streaks for {} habits with completion history", habits);
+    }
+
+    /**
+     * Recomputes one habit's runs and summary from its history. The summary row is created if missing and
+     * locked first, so concurrent rebuilds of the habit run one after the other instead of both inserting it.
+     */
+    public void rebuildHabit(UUID habitId) {
+        streakRepository.insertEmptyIfAbsent(habitId);
+        HabitStreak streak = streakRepository.findForUpdate(habitId).orElseThrow();
+        runRepository.deleteByHabitId(habitId);
+
+        RunBuilder builder = new RunBuilder(habitId);
+        habitCompletionRepository.findCompletedDatesByHabitId(habitId).forEach(builder::add);
+        List<HabitStreakRun> runs = builder.finish();
+        runRepository.saveAll(runs);
+        summarize(streak, runs);
+    }
+
+    private void markDay(HabitStreak streak, UUID habitId, LocalDate date, List<HabitStreakRun> nearby) {
+        HabitStreakRun left = nearby.stream().filter(run -> run.getEndDate().equals(date.minusDays(1))).findFirst().orElse(null);
+        HabitStreakRun right = nearby.stream().filter(run -> run.getStartDate().equals(date.plusDays(1))).findFirst().orElse(null);
+
+        HabitStreakRun grown;
+        if (left != null && right != null) {
+            // The day bridges two runs: fold the right one into the left
+            runRepository.delete(right);
+            left.setBounds(left.getStartDate(), right.getEndDate());
+            grown = left;
+        } else if (left != null) {
+            left.setBounds(left.getStartDate(), date);
+            grown = left;
+        } else if (right != null) {
+            right.setBounds(date, right.getEndDate());
+            grown = right;
+        } else {
+            grown = runRepository.save(new HabitStreakRun(habitId, date, date));
+        }
+
+        // Growing a run can only raise the longest streak, and it is the latest run if it reaches past the old one
+        streak.setLongestStreak(Math.max(streak.getLongestStreak(), grown.getLength()));
+        if (streak.getLastRunEnd() == null || !grown.getEndDate().isBefore(streak.getLastRunEnd())) {
+            streak.setLastRun(grown);
+        }
+    }
+
+    private void clearDay(HabitStreak streak, UUID habitId, LocalDate date, HabitStreakRun holding) {
+        LocalDate start = holding.getStartDate();
+        LocalDate end = holding.getEndDate();
+        int removedLength = holding.getLength();
+        boolean wasLatest = end.equals(streak.getLastRunEnd());
+
+        HabitStreakRun latest = holding;
+        if (start.equals(end)) {
+            runRepository.delete(holding);
+            latest = null;
+        } else if (date.equals(start)) {
+            holding.setBounds(start.plusDays(1), end);
+        } else if (date.equals(end)) {
+            holding.setBounds(start, end.minusDays(1));
+        } else {
+            // Clearing a day inside a run splits it in two
+            holding.setBounds(start, date.minusDays(1));
+            latest = runRepository.save(new HabitStreakRun(habitId, date.plusDays(1), end));
+        }
+
+        // Shrinking the longest run needs one MAX() over the habit's runs; other runs cannot have grown
+        if (removedLength >= streak.getLongestStreak()) {
+            streak.setLongestStreak(runRepository.findLongestLength(habitId));
+        }
+        if (wasLatest) {
+            streak.setLastRun(latest != null ? latest
+                    : runRepository.findFirstByHabitIdOrderByEndDateDesc(habitId).orElse(null));
+        }
+    }
+
+    private int persist(RunBuilder builder) {
+        List<HabitStreakRun> runs = builder.finish();
+        runRepository.saveAll(runs);
+        streakRepository.save(summarize(new HabitStreak(builder.habitId), runs));
+        return runs.size() + 1;
+    }
+
+    private static HabitStreak summarize(HabitStreak streak, List<HabitStreakRun> runs) {
+        streak.setLongestStreak(runs.stream().mapToInt(HabitStreakRun::getLength).max().orElse(0));
+        streak.setLastRun(runs.isEmpty() ? null : runs.get(runs.size() - 1));
+        return streak;
+    }
+
+    private HabitStreakDto convertToDto(HabitStreak streak, LocalDate today) {
+        return new HabitStreakDto(
+                streak.getHabitId(),
+                streak.currentStreak(today),
+                streak.getLongestStreak(),
+                streak.getLastRunEnd()
+        );
+    }
+
+    /**
+     * Collapses ascending completed dates of one habit into maximal runs of consecutive days.
+     */
+    static final class RunBuilder {
+
+        private final UUID habitId;
+        private final List<HabitStreakRun> runs = new ArrayList<>();
+        private LocalDate runStart;
+        private LocalDate runEnd;
+
+        RunBuilder(UUID habitId) {
+            this.habitId = habitId;
+        }
+
+        void add(LocalDate date) {
+            if (runEnd != null && !date.isAfter(runEnd)) {
+                return;
+            }
+            if (runEnd != null && date.equals(runEnd.plusDays(1))) {
+                runEnd = date;
+                return;
+            }
+            close();
+            runStart = date;
+            runEnd = date;
+        }
+
+        List<HabitStreakRun> finish() {
+            close();
+            return runs;
+        }
+
+        private void close() {
+            if (runStart != null) {
+                runs.add(new HabitStreakRun(habitId, runStart, runEnd));
+                runStart = null;
+            }
+        }
+    }
+}
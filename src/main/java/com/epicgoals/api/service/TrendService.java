@@ -0,0 +1,330 @@
+// ABOUT_ME: This file provides trend analytics over weekly scores
+// ABOUT_ME: Maintains per-user rolling aggregates incrementally as snapshots and completions are written
+package com.epicgoals.api.service;
+
+import com.epicgoals.api.dto.TrendDto;
+import com.epicgoals.api.entity.Category;
+import com.epicgoals.api.entity.User;
+import com.epicgoals.api.entity.UserTrendStats;
+import com.epicgoals.api.repository.CategoryRepository;
+import com.epicgoals.api.repository.UserTrendStatsRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@Service
+@Transactional
+public class TrendService {
+
+    static final int SCORE_WINDOW_WEEKS = 52;
+    static final int CATEGORY_WINDOW_WEEKS = 12;
+    // Slopes within this many points per week count as flat
+    private static final double STABLE_SLOPE = 1.0;
+
+    private static final TypeReference<Map<UUID, List<Integer>>> CATEGORY_SCORES_TYPE = new TypeReference<>() {};
+
+    private final UserTrendStatsRepository trendStatsRepository;
+    private final CategoryRepository categoryRepository;
+    private final ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public TrendService(UserTrendStatsRepository trendStatsRepository,
+                        CategoryRepository categoryRepository,
+                        ObjectMapper objectMapper) {
+        this.trendStatsRepository = trendStatsRepository;
+        this.categoryRepository = categoryRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @Transactional(readOnly = true)
+    public TrendDto getTrends(User user) {
+        UserTrendStats stats = trendStatsRepository.findById(user.getId()).orElseGet(() -> new UserTrendStats(user.getId()));
+
+        Map<UUID, String> categoryNames = new LinkedHashMap<>();
+        List<UUID> categoryIds = new ArrayList<>();
+        if (stats.getBestCategoryId() != null) {
+            categoryIds.add(stats.getBestCategoryId());
+        }
+        if (stats.getWorstCategoryId() != null) {
+            categoryIds.add(stats.getWorstCategoryId());
+        }
+        if (!categoryIds.isEmpty()) {
+            categoryNames = categoryRepository.findAllById(categoryIds).stream()
+                    .collect(Collectors.toMap(Category::getId, Category::getName));
+        }
+
+        return new TrendDto(
+                stats.getWindowEndWeek(),
+                (int) stats.getWeeklyScores().stream().filter(score -> score != null).count(),
+                stats.getMovingAverage4(),
+                stats.getMovingAverage12(),
+                stats.getMovingAverage52(),
+                stats.getSlope12(),
+                direction(stats.getSlope12()),
+                categoryTrend(stats.getBestCategoryId(), stats.getBestCategoryAverage(), categoryNames),
+                categoryTrend(stats.getWorstCategoryId(), stats.getWorstCategoryAverage(), categoryNames),
+                dayOfWeekShares(stats.getWeekdayCompletions())
+        );
+    }
+
+    /**
+     * Folds one weekly snapshot into the user's rolling windows and refreshes the derived
+     * aggregates. Work is bounded by the window sizes, never by the length of the history.
+     */
+    public void recordWeekScore(User user, LocalDate weekStart, int score, Map<UUID, Integer> categoryScores) {
+        recordWeekScores(user, List.of(new WeekScore(weekStart, score, categoryScores)));
+    }
+
+    /**
+     * Folds several weekly snapshots, oldest first, under one row lock and one write, so filling
+     * gaps in a user's history costs the same as recording a single week.
+     */
+    public void recordWeekScores(User user, List<WeekScore> scores) {
+        if (scores.isEmpty()) {
+            return;
+        }
+        UserTrendStats stats = lockOrCreate(user.getId());
+        Map<UUID, List<Integer>> categories = readCategoryScores(stats.getCategoryScores());
+
+        LocalDate windowEnd = stats.getWindowEndWeek();
+        List<Integer> weekly = new ArrayList<>(stats.getWeeklyScores());
+        if (windowEnd == null || weekly.isEmpty()) {
+            windowEnd = scores.get(0).weekStart();
+            weekly = new ArrayList<>(Collections.singletonList(null));
+        }
+
+        boolean changed = false;
+        for (WeekScore week : scores) {
+            // A newer week slides every window forward, padding skipped weeks with empty slots
+            long offset = ChronoUnit.WEEKS.between(windowEnd, week.weekStart());
+            if (offset > 0) {
+                weekly = slide(weekly, offset, SCORE_WINDOW_WEEKS);
+                for (Map.Entry<UUID, List<Integer>> entry : categories.entrySet()) {
+                    entry.setValue(slide(entry.getValue(), offset, CATEGORY_WINDOW_WEEKS));
+                }
+                windowEnd = week.weekStart();
+                offset = 0;
+            }
+
+            int index = weekly.size() - 1 + (int) offset;
+            if (index < 0) {
+                // Older than the window; nothing to update
+                continue;
+            }
+            weekly.set(index, week.score());
+            changed = true;
+
+            int categoryIndex = CATEGORY_WINDOW_WEEKS - 1 + (int) offset;
+            if (categoryIndex >= 0) {
+                for (Map.Entry<UUID, Integer> entry : week.categoryScores().entrySet()) {
+                    categories.computeIfAbsent(entry.getKey(), id -> new ArrayList<>(Collections.nCopies(CATEGORY_WINDOW_WEEKS, null)))
+                            .set(categoryIndex, entry.getValue());
+                }
+                // Categories without habits that week no longer score for it
+                categories.forEach((id, categoryScores) -> {
+                    if (!week.categoryScores().containsKey(id)) {
+                        categoryScores.set(categoryIndex, null);
+                    }
+                });
+                categories.values().removeIf(categoryScores -> categoryScores.stream().allMatch(value -> value == null));
+            }
+        }
+        if (!changed) {
+            return;
+        }
+
+        stats.setWindowEndWeek(windowEnd);
+        stats.setWeeklyScores(weekly);
+        stats.setCategoryScores(writeCategoryScores(categories));
+        stats.setMovingAverage4(average(tail(weekly, 4)));
+        stats.setMovingAverage12(average(tail(weekly, 12)));
+        stats.setMovingAverage52(average(weekly));
+        stats.setSlope12(slope(tail(weekly, 12)));
+        refreshCategoryExtremes(stats, categories);
+        trendStatsRepository.save(stats);
+    }
+
+    /**
+     * Folds a deleted category's weekly scores into the category its habits moved to, so best and
+     * worst categories never point at a category that no longer exists. Weeks scored in both are
+     * averaged, which is as close as the stored per-category averages allow.
+     */
+    public void reassignCategory(User user, UUID fromCategoryId, UUID toCategoryId) {
+        UserTrendStats stats = entityManager.find(UserTrendStats.class, user.getId(), LockModeType.PESSIMISTIC_WRITE);
+        if (stats == null) {
+            return;
+        }
+        Map<UUID, List<Integer>> categories = readCategoryScores(stats.getCategoryScores());
+        List<Integer> moved = categories.remove(fromCategoryId);
+        if (moved == null) {
+            return;
+        }
+
+        List<Integer> target = categories.computeIfAbsent(toCategoryId,
+                id -> new ArrayList<>(Collections.nCopies(moved.size(), null)));
+        for (int i = 0; i < Math.min(moved.size(), target.size()); i++) {
+            Integer from = moved.get(i);
+            Integer to = target.get(i);
+            if (from != null) {
+                target.set(i, to == null ? from : (int) Math.round((from + to) / 2.0));
+            }
+        }
+
+        stats.setCategoryScores(writeCategoryScores(categories));
+        refreshCategoryExtremes(stats, categories);
+        trendStatsRepository.save(stats);
+    }
+
+    private void refreshCategoryExtremes(UserTrendStats stats, Map<UUID, List<Integer>> categories) {
+        Map<UUID, Double> categoryAverages = new LinkedHashMap<>();
+        categories.forEach((id, scores) -> categoryAverages.put(id, average(scores)));
+        Map.Entry<UUID, Double> best = categoryAverages.entrySet().stream().max(Map.Entry.comparingByValue()).orElse(null);
+        Map.Entry<UUID, Double> worst = categoryAverages.entrySet().stream().min(Map.Entry.comparingByValue()).orElse(null);
+        stats.setBestCategoryId(best != null ? best.getKey() : null);
+        stats.setBestCategoryAverage(best != null ? best.getValue() : null);
+        stats.setWorstCategoryId(worst != null ? worst.getKey() : null);
+        stats.setWorstCategoryAverage(worst != null ? worst.getValue() : null);
+    }
+
+    public void recordCompletionChange(User user, LocalDate date, boolean completed) {
+        UserTrendStats stats = lockOrCreate(user.getId());
+        List<Integer> counts = new ArrayList<>(stats.getWeekdayCompletions());
+        int day = date.getDayOfWeek().getValue() - 1;
+        counts.set(day, Math.max(0, counts.get(day) + (completed ? 1 : -1)));
+        stats.setWeekdayCompletions(counts);
+        trendStatsRepository.save(stats);
+    }
+
+    private UserTrendStats lockOrCreate(UUID userId) {
+        // find() with a lock reuses the row if this transaction already locked it, so repeat calls cost nothing.
+        // A missing row is inserted empty first, so concurrent first writes for the user both end up waiting
+        // on the same row lock instead of both inserting it.
+        UserTrendStats stats = entityManager.find(UserTrendStats.class, userId, LockModeType.PESSIMISTIC_WRITE);
+        if (stats != null) {
+            return stats;
+        }
+        trendStatsRepository.insertEmptyIfAbsent(userId);
+        return entityManager.find(UserTrendStats.class, userId, LockModeType.PESSIMISTIC_WRITE);
+    }
+
+    static List<Integer> slide(List<Integer> window, long weeks, int capacity) {
+        List<Integer> slid = new ArrayList<>(window);
+        for (long i = 0; i < Math.min(weeks, capacity); i++) {
+            slid.add(null);
+        }
+        while (slid.size() > capacity) {
+            slid.remove(0);
+        }
+        return slid;
+    }
+
+    static List<Integer> tail(List<Integer> window, int weeks) {
+        return window.subList(Math.max(0, window.size() - weeks), window.size());
+    }
+
+    static Double average(List<Integer> window) {
+        OptionalDouble average = window.stream().filter(value -> value != null)
+                .mapToInt(Integer::intValue)
+                .average();
+        return average.isPresent() ? round(average.getAsDouble()) : null;
+    }
+
+    /**
+     * Least-squares slope over the window's filled slots, using slot position as the x axis
+     * so skipped weeks keep their spacing.
+     */
+    static Double slope(List<Integer> window) {
+        int n = 0;
+        double sumX = 0, sumY = 0, sumXY = 0, sumXX = 0;
+        for (int x = 0; x < window.size(); x++) {
+            Integer y = window.get(x);
+            if (y == null) {
+                continue;
+            }
+            n++;
+            sumX += x;
+            sumY += y;
+            sumXY += (double) x * y;
+            sumXX += (double) x * x;
+        }
+        double denominator = n * sumXX - sumX * sumX;
+        if (n < 2 || denominator == 0) {
+            return null;
+        }
+        return round((n * sumXY - sumX * sumY) / denominator);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+
+    private TrendDto.Direction direction(Double slope) {
+        if (slope == null || Math.abs(slope) < STABLE_SLOPE) {
+            return TrendDto.Direction.STABLE;
+        }
+        return slope > 0 ? TrendDto.Direction.IMPROVING : TrendDto.Direction.DECLINING;
+    }
+
+    private TrendDto.CategoryTrend categoryTrend(UUID categoryId, Double average, Map<UUID, String> names) {
+        if (categoryId == null || !names.containsKey(categoryId)) {
+            return null;
+        }
+        return new TrendDto.CategoryTrend(categoryId, names.get(categoryId), average);
+    }
+
+    private List<TrendDto.DayOfWeekShare> dayOfWeekShares(List<Integer> counts) {
+        int total = counts.stream().mapToInt(Integer::intValue).sum();
+        List<TrendDto.DayOfWeekShare> shares = new ArrayList<>();
+        for (DayOfWeek day : DayOfWeek.values()) {
+            int completions = counts.get(day.getValue() - 1);
+            double share = total > 0 ? round(completions * 100.0 / total) : 0.0;
+            shares.add(new TrendDto.DayOfWeekShare(day, completions, share));
+        }
+        return shares;
+    }
+
+    private Map<UUID, List<Integer>> readCategoryScores(String json) {
+        if (json == null || json.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+        try {
+            return objectMapper.readValue(json, CATEGORY_SCORES_TYPE).entrySet().stream()
+                    .collect(Collectors.toMap(Map.Entry::getKey, entry -> new ArrayList<>(entry.getValue()),
+                            (a, b) -> a, LinkedHashMap::new));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Corrupt category trend data", e);
+        }
+    }
+
+    private String writeCategoryScores(Map<UUID, List<Integer>> categories) {
+        try {
+            return objectMapper.writeValueAsString(categories);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize category trend data", e);
+        }
+    }
+
+    public record WeekScore(LocalDate weekStart, int score, Map<UUID, Integer> categoryScores) {
+    }
+}
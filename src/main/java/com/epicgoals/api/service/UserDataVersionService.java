@@ -0,0 +1,59 @@
+// ABOUT_ME: Tracks a per-user data version that is bumped with every committed habit, completion, goal or category write
+// ABOUT_ME: Used to build strong ETags so unchanged reads can be answered with 304 before touching the repositories
+package com.epicgoals.api.service;
+
+import com.epicgoals.api.datasource.ReplicaRoutingDataSource;
+import com.epicgoals.api.repository.UserRepository;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+
+@Service
+public class UserDataVersionService {
+
+    static final String VERSIONS_CACHE = "userDataVersions";
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    // The version lives on the user row, so every instance tags the same data alike; this only saves the
+    // lookup. Entries expire with the other caches and are evicted on every instance when a write commits
+    private final Cache versions;
+
+    public UserDataVersionService(UserRepository userRepository, PlatformTransactionManager transactionManager,
+                                  CacheManager cacheManager) {
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.versions = cacheManager.getCache(VERSIONS_CACHE);
+    }
+
+    public long currentVersion(UUID userId) {
+        // From the primary: a lagging replica would hand out an older version for data that already changed
+        Long version = versions.get(userId, () -> ReplicaRoutingDataSource.onPrimary(
+                () -> userRepository.findDataVersionById(userId).orElse(0L)));
+        return version != null ? version : 0L;
+    }
+
+    public void markChanged(UUID userId) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            // Bumped with the write so both commit together. The cache drops the entry again and tells the
+            // other instances once the new version is visible, which also drops an old one read back meanwhile
+            userRepository.incrementDataVersion(userId);
+        } else {
+            transactionTemplate.executeWithoutResult(status -> userRepository.incrementDataVersion(userId));
+        }
+        versions.evict(userId);
+    }
+
+    public String etag(UUID userId, Object... qualifiers) {
+        StringBuilder etag = new StringBuilder("\"").append(currentVersion(userId));
+        for (Object qualifier : qualifiers) {
+            etag.append('-').append(qualifier);
+        }
+        return etag.append('"').toString();
+    }
+}
@@ -0,0 +1,165 @@
+// ABOUT_ME: Service for per-user settings stored as JSON on the user, including the user's time zone
+// ABOUT_ME: Resolves each user's zone once and caches it so week boundaries cost no parsing or query per request
+package com.epicgoals.api.service;
+
+import com.epicgoals.api.entity.User;
+import com.epicgoals.api.repository.UserRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@Service
+@Transactional
+public class UserSettingsService {
+
+    public static final String TIME_ZONE = "timeZone";
+
+    private static final TypeReference<LinkedHashMap<String, Object>> SETTINGS_TYPE = new TypeReference<>() {};
+
+    private final UserRepository userRepository;
+    private final UserDataVersionService dataVersionService;
+    private final ObjectMapper objectMapper;
+    private final ZoneId defaultZone = ZoneId.systemDefault();
+    // Shared cache so a zone change made on one instance is evicted on the others
+    private final Cache zonesByUser;
+
+    @Autowired
+    public UserSettingsService(UserRepository userRepository, UserDataVersionService dataVersionService,
+                               ObjectMapper objectMapper, CacheManager cacheManager) {
+        this.userRepository = userRepository;
+        this.dataVersionService = dataVersionService;
+        this.objectMapper = objectMapper;
+        this.zonesByUser = cacheManager.getCache("userZones");
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Object> getSettings(User user) {
+        return parse(user.getSettings());
+    }
+
+    /**
+     * Merges the given keys into the user's settings; a null value removes the key.
+     * The time zone is validated and mirrored into its own column for rollover scheduling.
+     */
+    public Map<String, Object> updateSettings(User user, Map<String, Object> changes) {
+        Map<String, Object> settings = parse(user.getSettings());
+        changes.forEach((key, value) -> {
+            if (value == null) {
+                settings.remove(key);
+            } else {
+                settings.put(key, value);
+            }
+        });
+
+        ZoneId zone = null;
+        if (settings.get(TIME_ZONE) != null) {
+            zone = toZone(settings.get(TIME_ZONE));
+            settings.put(TIME_ZONE, zone.getId());
+        }
+
+        try {
+            user.setSettings(objectMapper.writeValueAsString(settings));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Settings could not be stored", e);
+        }
+        user.setTimeZone(zone != null ? zone.getId() : null);
+        userRepository.save(user);
+
+        zonesByUser.evict(user.getId());
+        zonesByUser.put(user.getId(), zone != null ? zone : defaultZone);
+        dataVersionService.markChanged(user.getId());
+        return settings;
+    }
+
+    public ZoneId zoneOf(User user) {
+        ZoneId cached = zonesByUser.get(user.getId(), ZoneId.class);
+        if (cached != null) {
+            return cached;
+        }
+        // A loaded user already carries the column; a lazy reference costs one narrow lookup, once
+        String zoneId = Hibernate.isInitialized(user)
+                ? user.getTimeZone()
+                : userRepository.findTimeZoneById(user.getId()).orElse(null);
+        ZoneId zone = zoneId != null ? ZoneId.of(zoneId) : defaultZone;
+        zonesByUser.put(user.getId(), zone);
+        return zone;
+    }
+
+    // For work that holds only the user's id, such as batch jobs over other tables
+    public ZoneId zoneOf(UUID userId) {
+        ZoneId cached = zonesByUser.get(userId, ZoneId.class);
+        if (cached != null) {
+            return cached;
+        }
+        ZoneId zone = userRepository.findTimeZoneById(userId).map(ZoneId::of).orElse(defaultZone);
+        zonesByUser.put(userId, zone);
+        return zone;
+    }
+
+    public LocalDate today(User user) {
+        return LocalDate.now(zoneOf(user));
+    }
+
+    /**
+     * Returns the zones whose local week started within the hour containing the given instant,
+     * so the rollover work for each zone runs once, shortly after its own Monday midnight.
+     */
+    @Transactional(readOnly = true)
+    public RolloverBand bandStartingWeekAt(Instant now) {
+        List<String> zones = userRepository.findDistinctTimeZones().stream()
+                .filter(zoneId -> isFirstHourOfWeek(now, ZoneId.of(zoneId)))
+                .toList();
+        return new RolloverBand(zones, isFirstHourOfWeek(now, defaultZone));
+    }
+
+    private boolean isFirstHourOfWeek(Instant now, ZoneId zone) {
+        ZonedDateTime local = now.atZone(zone);
+        return local.getDayOfWeek() == DayOfWeek.MONDAY && local.getHour() == 0;
+    }
+
+    private ZoneId toZone(Object value) {
+        if (!(value instanceof String zoneId)) {
+            throw new IllegalArgumentException("timeZone must be an IANA zone id such as Europe/Madrid");
+        }
+        try {
+            return ZoneId.of(zoneId);
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Unknown time zone: " + zoneId);
+        }
+    }
+
+    private Map<String, Object> parse(String json) {
+        if (json == null || json.isBlank()) {
+            return new LinkedHashMap<>();
+        }
+        try {
+            return objectMapper.readValue(json, SETTINGS_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored settings are not valid JSON", e);
+        }
+    }
+
+    public record RolloverBand(List<String> zones, boolean includesUnset) {
+
+        public boolean isEmpty() {
+            return zones.isEmpty() && !includesUnset;
+        }
+    }
+}
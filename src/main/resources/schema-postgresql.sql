@@ -0,0 +1,16 @@
+-- ABOUT_ME: PostgreSQL-only index refinements applied after Hibernate creates the schema
+-- ABOUT_ME: Upgrades entity-declared indexes to partial/covering forms that JPA annotations cannot express
+
+-- Habit lists and the 15-habit limit only ever read active habits
+DROP INDEX IF EXISTS idx_habits_user_active_name;
+CREATE INDEX idx_habits_user_active_name ON habits (user_id, name) WHERE is_active = true;
+
+-- Goal lists filter on is_active = true for every access path
+DROP INDEX IF EXISTS idx_goals_user_timeframe_active;
+CREATE INDEX idx_goals_user_timeframe_active ON goals (user_id, timeframe) WHERE is_active = true;
+
+DROP INDEX IF EXISTS idx_goals_user_parent_active;
+CREATE INDEX idx_goals_user_parent_active ON goals (user_id, parent_goal_id) WHERE is_active = true;
+
+-- Covers the weekly scoring aggregate (count of completed days per habit) with an index-only scan
+CREATE INDEX IF NOT EXISTS idx_habit_completions_completed ON habit_completions (habit_id, date) WHERE completed = true;
@@ -0,0 +1,163 @@
+// ABOUT_ME: Unit tests for cross-instance cache invalidation through CacheInvalidationBus
+// ABOUT_ME: Two buses on one in-process transport stand in for two API instances
+package com.epicgoals.api.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheInvalidationBusTest {
+
+    private final List<String> published = new ArrayList<>();
+    private final LocalCacheInvalidationTransport transport = new LocalCacheInvalidationTransport() {
+        @Override
+        public void publish(String payload) {
+            published.add(payload);
+            super.publish(payload);
+        }
+    };
+
+    private CacheInvalidationBus busA;
+    private CacheInvalidationBus busB;
+    private Cache scoresA;
+    private Cache scoresB;
+
+    @BeforeEach
+    void setUp() {
+        busA = new CacheInvalidationBus(new ConcurrentMapCacheManager(), transport);
+        busB = new CacheInvalidationBus(new ConcurrentMapCacheManager(), transport);
+        scoresA = new BroadcastingCacheManager(busA).getCache("currentWeekScores");
+        scoresB = new BroadcastingCacheManager(busB).getCache("currentWeekScores");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void evict_ShouldRemoveTheKeyOnOtherInstancesOnceFlushed() {
+        // Given - both instances cached the same user's score
+        scoresA.put("user-1:2025-01-06", 80);
+        scoresB.put("user-1:2025-01-06", 80);
+        scoresB.put("user-2:2025-01-06", 60);
+
+        // When
+        scoresA.evict("user-1:2025-01-06");
+        assertEquals(80, scoresB.get("user-1:2025-01-06", Integer.class));
+        busA.flush();
+
+        // Then - only the evicted key is gone on the other instance
+        assertNull(scoresB.get("user-1:2025-01-06"));
+        assertEquals(60, scoresB.get("user-2:2025-01-06", Integer.class));
+    }
+
+    @Test
+    void evict_ShouldMatchNonStringKeysByTheirStringForm() {
+        UUID userId = UUID.randomUUID();
+        scoresB.put(userId, 70);
+
+        scoresA.evict(userId);
+        busA.flush();
+
+        assertNull(scoresB.get(userId));
+    }
+
+    @Test
+    void evict_InTransaction_ShouldBroadcastOnlyAfterCommit() {
+        // Given
+        scoresB.put("user-1:2025-01-06", 80);
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When - flushed before the commit
+        scoresA.evict("user-1:2025-01-06");
+        assertEquals(0, busA.flush());
+
+        // Then - the eviction goes out with the first flush after the commit
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertEquals(1, busA.flush());
+        assertNull(scoresB.get("user-1:2025-01-06"));
+    }
+
+    @Test
+    void evict_InTransaction_ShouldDropAValueReloadedHereBeforeTheCommit() {
+        // Given
+        scoresA.put("user-1:2025-01-06", 80);
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When - a concurrent read reloads the old score between the eviction and the commit
+        scoresA.evict("user-1:2025-01-06");
+        scoresA.put("user-1:2025-01-06", 80);
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        // Then
+        assertNull(scoresA.get("user-1:2025-01-06"));
+    }
+
+    @Test
+    void flush_ShouldCollapseABurstIntoOneMessagePerCache() {
+        // When - a burst of evictions, with repeats, across two caches
+        for (int i = 0; i < 50; i++) {
+            scoresA.evict("user-" + (i % 10) + ":2025-01-06");
+        }
+        new BroadcastingCacheManager(busA).getCache("userZones").clear();
+
+        // Then
+        assertEquals(2, busA.flush());
+        assertEquals(2, published.size());
+        assertEquals(0, busA.flush());
+    }
+
+    @Test
+    void flush_ShouldSplitMessagesThatWouldExceedThePayloadLimit() {
+        for (int i = 0; i < 500; i++) {
+            scoresA.evict(UUID.randomUUID() + ":2025-01-06");
+        }
+
+        int messages = busA.flush();
+
+        assertTrue(messages > 1);
+        assertTrue(published.stream().allMatch(payload -> payload.length() <= CacheInvalidationBus.MAX_PAYLOAD_CHARS));
+    }
+
+    @Test
+    void missedMessages_ShouldClearEverythingCachedLocally() {
+        scoresB.put("user-1:2025-01-06", 80);
+
+        busB.onMissedMessages();
+
+        assertNull(scoresB.get("user-1:2025-01-06"));
+    }
+
+    @Test
+    void expiringCache_ShouldReloadEntriesOlderThanTheTtl() {
+        // Given - a TTL short enough that every entry is already expired when read
+        CacheManager expiring = new ConcurrentMapCacheManager() {
+            @Override
+            protected Cache createConcurrentMapCache(String name) {
+                return new ExpiringConcurrentMapCache(name, Duration.ZERO, false);
+            }
+        };
+        Cache cache = expiring.getCache("currentWeekScores");
+        cache.put("user-1:2025-01-06", 80);
+
+        // When / Then - lost invalidations are bounded by the TTL
+        assertNull(cache.get("user-1:2025-01-06"));
+        assertEquals(90, cache.get("user-1:2025-01-06", () -> 90));
+        assertEquals(1, ((ExpiringConcurrentMapCache) cache).evictExpired());
+    }
+}
@@ -3,10 +3,22 @@
 package com.epicgoals.api.controller;
 
 import com.epicgoals.api.dto.CategoryDto;
+import com.epicgoals.api.dto.TrendDto;
+import com.epicgoals.api.entity.Category;
+import com.epicgoals.api.entity.Goal;
+import com.epicgoals.api.entity.GoalTimeframe;
+import com.epicgoals.api.entity.GoalType;
+import com.epicgoals.api.entity.Habit;
 import com.epicgoals.api.entity.User;
+import com.epicgoals.api.event.OutboxDispatcher;
+import com.epicgoals.api.job.JobCoordinator.Checkpoint;
 import com.epicgoals.api.repository.CategoryRepository;
+import com.epicgoals.api.repository.GoalRepository;
+import com.epicgoals.api.repository.HabitRepository;
 import com.epicgoals.api.repository.UserRepository;
 import com.epicgoals.api.service.CategoryService;
+import com.epicgoals.api.service.TrendService;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,15 +28,23 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
 
 @SpringBootTest
 @ActiveProfiles("test")
 @Transactional
 class CategoryControllerTest {
 
+    // Dispatch runs under the job lease in production; no other instance competes for it here
+    private final Checkpoint lease = mock(Checkpoint.class);
+
     @Autowired
     private UserRepository userRepository;
 
@@ -34,6 +54,21 @@ class CategoryControllerTest {
     @Autowired
     private CategoryService categoryService;
 
+    @Autowired
+    private HabitRepository habitRepository;
+
+    @Autowired
+    private GoalRepository goalRepository;
+
+    @Autowired
+    private TrendService trendService;
+
+    @Autowired
+    private OutboxDispatcher outboxDispatcher;
+
+    @Autowired
+    private EntityManager entityManager;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
@@ -48,6 +83,8 @@ class CategoryControllerTest {
 
     @AfterEach
     void tearDown() {
+        goalRepository.deleteAll();
+        habitRepository.deleteAll();
         categoryRepository.deleteAll();
         userRepository.deleteAll();
     }
@@ -74,4 +111,35 @@ class CategoryControllerTest {
         assertTrue(categories.stream().anyMatch(c -> "Finances".equals(c.getName()) && c.getIsDefault()));
         assertTrue(categories.stream().anyMatch(c -> "Wisdom".equals(c.getName()) && c.getIsDefault()));
     }
-}
\ No newline at end of file
+
+    @Test
+    void deleteCategory_ShouldMoveHabitsGoalsAndTrendHistoryToUncategorized() {
+        Category sideProject = categoryRepository.save(new Category(testUser, "Side project", false));
+        Habit habit = habitRepository.save(new Habit(testUser, sideProject, "Ship", 7));
+        Goal activeGoal = goalRepository.save(new Goal(testUser, sideProject, GoalTimeframe.TWELVE_WEEK,
+                GoalType.QUANTIFIABLE, "Launch", null, null));
+        Goal inactiveGoal = new Goal(testUser, sideProject, GoalTimeframe.FOUR_WEEK, GoalType.QUANTIFIABLE,
+                "Beta", null, null);
+        inactiveGoal.setIsActive(false);
+        goalRepository.save(inactiveGoal);
+        LocalDate lastWeek = LocalDate.now().with(DayOfWeek.MONDAY).minusWeeks(1);
+        trendService.recordWeekScore(testUser, lastWeek, 80, Map.of(sideProject.getId(), 80));
+
+        categoryService.deleteCategory(testUser, sideProject.getId());
+        outboxDispatcher.dispatchPending(lease);
+        entityManager.flush();
+        entityManager.clear();
+
+        UUID uncategorizedId = categoryService.getUserCategories(testUser).stream()
+                .filter(category -> "Uncategorized".equals(category.getName()))
+                .findFirst().orElseThrow().getId();
+        assertEquals(uncategorizedId, habitRepository.findById(habit.getId()).orElseThrow().getCategory().getId());
+        assertEquals(uncategorizedId, goalRepository.findById(activeGoal.getId()).orElseThrow().getCategory().getId());
+        assertEquals(uncategorizedId, goalRepository.findById(inactiveGoal.getId()).orElseThrow().getCategory().getId());
+
+        // Last week's score moved with the habits; this week was rescored from scratch
+        TrendDto trends = trendService.getTrends(testUser);
+        assertEquals("Uncategorized", trends.bestCategory().name());
+        assertEquals(40.0, trends.bestCategory().average());
+    }
+}
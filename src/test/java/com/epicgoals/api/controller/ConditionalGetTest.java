@@ -0,0 +1,163 @@
+// ABOUT_ME: Integration tests for ETag-based conditional GETs on habits, goals and current-week progress
+// ABOUT_ME: Verifies 304 responses for unchanged data and fresh ETags after committed writes
+package com.epicgoals.api.controller;
+
+import com.epicgoals.api.dto.CreateHabitRequest;
+import com.epicgoals.api.entity.Category;
+import com.epicgoals.api.entity.User;
+import com.epicgoals.api.repository.CategoryRepository;
+import com.epicgoals.api.repository.FeedActivityRepository;
+import com.epicgoals.api.repository.FeedItemRepository;
+import com.epicgoals.api.repository.GoalRepository;
+import com.epicgoals.api.repository.HabitCompletionRepository;
+import com.epicgoals.api.repository.HabitDayStatsRepository;
+import com.epicgoals.api.repository.HabitMonthStatsRepository;
+import com.epicgoals.api.repository.HabitRepository;
+import com.epicgoals.api.repository.HabitStreakRepository;
+import com.epicgoals.api.repository.LeaderboardEntryRepository;
+import com.epicgoals.api.repository.OutboxEventRepository;
+import com.epicgoals.api.repository.UserRepository;
+import com.epicgoals.api.repository.UserTrendStatsRepository;
+import com.epicgoals.api.repository.WeeklyScoreRepository;
+import com.epicgoals.api.security.JwtService;
+import com.epicgoals.api.service.HabitService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ConditionalGetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private FeedItemRepository feedItemRepository;
+
+    @Autowired
+    private FeedActivityRepository feedActivityRepository;
+
+    @Autowired
+    private LeaderboardEntryRepository leaderboardEntryRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private HabitRepository habitRepository;
+
+    @Autowired
+    private HabitCompletionRepository habitCompletionRepository;
+
+    @Autowired
+    private GoalRepository goalRepository;
+
+    @Autowired
+    private WeeklyScoreRepository weeklyScoreRepository;
+
+    @Autowired
+    private HabitStreakRepository habitStreakRepository;
+
+    @Autowired
+    private UserTrendStatsRepository userTrendStatsRepository;
+
+    @Autowired
+    private HabitDayStatsRepository habitDayStatsRepository;
+
+    @Autowired
+    private HabitMonthStatsRepository habitMonthStatsRepository;
+
+    @Autowired
+    private HabitService habitService;
+
+    @Autowired
+    private JwtService jwtService;
+
+    private User testUser;
+    private Category testCategory;
+    private String bearer;
+
+    @BeforeEach
+    void setUp() {
+        testUser = userRepository.save(new User("etag@example.com", "hashedPassword"));
+        testCategory = categoryRepository.save(new Category(testUser, "Health", true));
+        bearer = "Bearer " + jwtService.generateAccessToken(testUser, UUID.randomUUID());
+    }
+
+    @AfterEach
+    void tearDown() {
+        feedItemRepository.deleteAll();
+        feedActivityRepository.deleteAll();
+        outboxEventRepository.deleteAll();
+        leaderboardEntryRepository.deleteAll();
+        weeklyScoreRepository.deleteAll();
+        userTrendStatsRepository.deleteAll();
+        habitCompletionRepository.deleteAll();
+        habitStreakRepository.deleteAll();
+        habitMonthStatsRepository.deleteAll();
+        habitDayStatsRepository.deleteAll();
+        habitRepository.deleteAll();
+        goalRepository.deleteAll();
+        categoryRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void habits_ShouldReturn304WhenUnchangedAndNewEtagAfterWrite() throws Exception {
+        String etag = fetchEtag("/api/habits");
+
+        mockMvc.perform(get("/api/habits")
+                        .header(HttpHeaders.AUTHORIZATION, bearer)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        habitService.createHabit(testUser, new CreateHabitRequest("Exercise", testCategory.getId(), 5));
+
+        mockMvc.perform(get("/api/habits")
+                        .header(HttpHeaders.AUTHORIZATION, bearer)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("Exercise"));
+        assertNotEquals(etag, fetchEtag("/api/habits"));
+    }
+
+    @Test
+    void goalsAndProgress_ShouldHonorIfNoneMatch() throws Exception {
+        for (String path : new String[] {"/api/goals", "/api/progress/current-week"}) {
+            String etag = fetchEtag(path);
+
+            mockMvc.perform(get(path)
+                            .header(HttpHeaders.AUTHORIZATION, bearer)
+                            .header(HttpHeaders.IF_NONE_MATCH, etag))
+                    .andExpect(status().isNotModified());
+        }
+    }
+
+    private String fetchEtag(String path) throws Exception {
+        String etag = mockMvc.perform(get(path).header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag, "Missing ETag on " + path);
+        return etag;
+    }
+}
@@ -0,0 +1,266 @@
+// ABOUT_ME: Integration tests for 12-week cycles and their precomputed review summaries
+// ABOUT_ME: Verifies cycle opening, batch closing with summary aggregates, the successor cycle and concurrent access
+package com.epicgoals.api.controller;
+
+import com.epicgoals.api.dto.CurrentCycleDto;
+import com.epicgoals.api.dto.CycleDto;
+import com.epicgoals.api.entity.Category;
+import com.epicgoals.api.entity.Cycle;
+import com.epicgoals.api.entity.CycleStatus;
+import com.epicgoals.api.entity.Goal;
+import com.epicgoals.api.entity.GoalTimeframe;
+import com.epicgoals.api.entity.GoalType;
+import com.epicgoals.api.entity.Habit;
+import com.epicgoals.api.entity.HabitCompletion;
+import com.epicgoals.api.entity.HabitVersion;
+import com.epicgoals.api.entity.User;
+import com.epicgoals.api.entity.WeeklyScore;
+import com.epicgoals.api.repository.CategoryRepository;
+import com.epicgoals.api.repository.CycleRepository;
+import com.epicgoals.api.repository.GoalRepository;
+import com.epicgoals.api.repository.HabitCompletionRepository;
+import com.epicgoals.api.repository.HabitRepository;
+import com.epicgoals.api.repository.HabitVersionRepository;
+import com.epicgoals.api.repository.UserRepository;
+import com.epicgoals.api.repository.WeeklyScoreRepository;
+import com.epicgoals.api.service.CycleService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class CycleControllerTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private HabitRepository habitRepository;
+
+    @Autowired
+    private HabitCompletionRepository habitCompletionRepository;
+
+    @Autowired
+    private HabitVersionRepository habitVersionRepository;
+
+    @Autowired
+    private WeeklyScoreRepository weeklyScoreRepository;
+
+    @Autowired
+    private GoalRepository goalRepository;
+
+    @Autowired
+    private CycleRepository cycleRepository;
+
+    @Autowired
+    private CycleService cycleService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User testUser;
+    private LocalDate thisMonday;
+
+    @BeforeEach
+    void setUp() {
+        testUser = userRepository.save(new User("cycle@example.com", "hashedPassword"));
+        thisMonday = LocalDate.now().with(DayOfWeek.MONDAY);
+    }
+
+    // Only the concurrent tests commit, and they write nothing but cycles; the others roll back anyway
+    @AfterEach
+    void tearDown() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            jdbcTemplate.update("DELETE FROM cycles WHERE user_id = ?", testUser.getId());
+            jdbcTemplate.update("DELETE FROM users WHERE id = ?", testUser.getId());
+        }
+    }
+
+    @Test
+    void getCurrentCycle_ShouldOpenTwelveWeekCycleAndOnlyReturnItsWeeks() {
+        weeklyScoreRepository.save(new WeeklyScore(testUser, thisMonday.minusWeeks(1), 40, 2, 5));
+        weeklyScoreRepository.save(new WeeklyScore(testUser, thisMonday, 60, 3, 5));
+
+        CurrentCycleDto cycle = cycleService.getCurrentCycle(testUser);
+
+        assertEquals(thisMonday, cycle.startDate());
+        assertEquals(thisMonday.plusWeeks(12).minusDays(1), cycle.endDate());
+        assertEquals(1, cycle.weekNumber());
+        assertEquals(1, cycle.weeks().size());
+        assertEquals(60, cycle.weeks().get(0).getScore());
+
+        // Reading again reuses the open cycle
+        assertEquals(cycle.id(), cycleService.getCurrentCycle(testUser).id());
+    }
+
+    @Test
+    void closeEndedCycles_ShouldStoreSummaryAndOpenSuccessor() {
+        LocalDate start = thisMonday.minusWeeks(12);
+        Cycle ended = cycleRepository.save(new Cycle(testUser.getId(), start));
+
+        weeklyScoreRepository.save(new WeeklyScore(testUser, start, 50, 7, 14));
+        weeklyScoreRepository.save(new WeeklyScore(testUser, start.plusWeeks(1), 75, 10, 14));
+        // Outside the cycle
+        weeklyScoreRepository.save(new WeeklyScore(testUser, thisMonday, 100, 14, 14));
+
+        Category health = categoryRepository.save(new Category(testUser, "Health", true));
+        Category work = categoryRepository.save(new Category(testUser, "Work", false));
+        Habit daily = habitRepository.save(habitFrom(start, health, "Run"));
+        habitRepository.save(habitFrom(start, work, "Inbox zero"));
+        for (int day = 0; day < 42; day++) {
+            habitCompletionRepository.save(new HabitCompletion(daily, start.plusDays(day), true));
+        }
+
+        Goal goal = new Goal(testUser, health, GoalTimeframe.TWELVE_WEEK, GoalType.QUANTIFIABLE, "10k", null, null);
+        goal.setCompletedAt(start.plusWeeks(3).atStartOfDay(ZoneId.systemDefault()).toInstant());
+        goalRepository.save(goal);
+
+        assertEquals(1, cycleService.closeEndedCycles(Instant.now(), 10));
+        assertEquals(0, cycleService.closeEndedCycles(Instant.now(), 10));
+
+        CycleDto summary = cycleService.getCycle(testUser, ended.getId());
+        assertEquals(CycleStatus.CLOSED, summary.status());
+        assertEquals(62.5, summary.averageScore());
+        assertEquals(2, summary.weeksScored());
+        assertEquals(17, summary.completedHabits());
+        assertEquals(28, summary.totalHabits());
+        assertEquals(1, summary.goalsCompleted());
+        assertEquals(List.of("Health", "Work"), summary.categoryAverages().stream().map(CycleDto.CategoryAverage::name).toList());
+        assertEquals(50.0, summary.categoryAverages().get(0).average());
+        assertEquals(0.0, summary.categoryAverages().get(1).average());
+
+        CurrentCycleDto successor = cycleService.getCurrentCycle(testUser);
+        assertEquals(thisMonday, successor.startDate());
+        assertEquals(List.of(summary), cycleService.getClosedCycles(testUser, 4));
+    }
+
+    @Test
+    void closeEndedCycles_ShouldScoreHabitsOnlyForTheWeeksTheyAppliedDuringTheCycle() {
+        // Given - one habit added halfway through the cycle and one deleted halfway through it
+        LocalDate start = thisMonday.minusWeeks(12);
+        LocalDate halfway = start.plusWeeks(6);
+        Cycle ended = cycleRepository.save(new Cycle(testUser.getId(), start));
+        Category health = categoryRepository.save(new Category(testUser, "Health", true));
+        Category work = categoryRepository.save(new Category(testUser, "Work", false));
+
+        Habit added = habitRepository.save(habitFrom(halfway, health, "Run"));
+        Habit deleted = habitRepository.save(habitFrom(start, work, "Inbox zero"));
+        habitVersionRepository.save(new HabitVersion(deleted, halfway));
+        deleted.setEffectiveFrom(halfway);
+        deleted.setIsActive(false);
+        deleted.setDeletedAt(halfway.atStartOfDay(ZoneId.systemDefault()).toInstant());
+        habitRepository.save(deleted);
+
+        // Each was done every day it applied
+        for (int day = 0; day < 42; day++) {
+            habitCompletionRepository.save(new HabitCompletion(added, halfway.plusDays(day), true));
+            habitCompletionRepository.save(new HabitCompletion(deleted, start.plusDays(day), true));
+        }
+
+        // When
+        assertEquals(1, cycleService.closeEndedCycles(Instant.now(), 10));
+
+        // Then - neither is penalised for the weeks it did not exist
+        CycleDto summary = cycleService.getCycle(testUser, ended.getId());
+        assertEquals(List.of(new CycleDto.CategoryAverage(health.getId(), "Health", 100.0),
+                        new CycleDto.CategoryAverage(work.getId(), "Work", 100.0)),
+                summary.categoryAverages().stream()
+                        .sorted(Comparator.comparing(CycleDto.CategoryAverage::name))
+                        .toList());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void getCurrentCycle_ShouldOpenOneCycleForConcurrentFirstRequests() throws Exception {
+        // Given - a user without any cycle opens the review screen on several devices at once
+        List<Callable<UUID>> requests = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            requests.add(() -> cycleService.getCurrentCycle(testUser).id());
+        }
+
+        // When
+        List<UUID> ids = runTogether(requests);
+
+        // Then - every request got the same cycle
+        assertEquals(1, ids.stream().distinct().count());
+        assertEquals(1, countCycles(CycleStatus.OPEN));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void closing_ShouldHappenOnceWhenTheJobAndARequestRace() throws Exception {
+        // Given - a cycle that has ended and is still open
+        cycleRepository.save(new Cycle(testUser.getId(), thisMonday.minusWeeks(12)));
+
+        // When - the close job and the user's request both find it ended
+        runTogether(List.of(
+                () -> cycleService.closeEndedCycles(Instant.now(), 10),
+                () -> cycleService.getCurrentCycle(testUser).startDate()));
+
+        // Then - closed once, with one successor
+        assertEquals(1, countCycles(CycleStatus.CLOSED));
+        assertEquals(1, countCycles(CycleStatus.OPEN));
+        assertEquals(thisMonday, cycleService.getCurrentCycle(testUser).startDate());
+    }
+
+    private Habit habitFrom(LocalDate effectiveFrom, Category category, String name) {
+        Habit habit = new Habit(testUser, category, name, 7);
+        habit.setEffectiveFrom(effectiveFrom);
+        return habit;
+    }
+
+    private <T> List<T> runTogether(List<Callable<T>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (Callable<T> task : tasks) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private int countCycles(CycleStatus status) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM cycles WHERE user_id = ? AND status = ?",
+                Integer.class, testUser.getId(), status.name());
+    }
+}
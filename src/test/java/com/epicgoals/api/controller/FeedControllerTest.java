@@ -0,0 +1,146 @@
+// ABOUT_ME: Integration tests for the friends activity feed
+// ABOUT_ME: Verifies milestones delivered through the outbox fan out to friends once and page by activity id
+package com.epicgoals.api.controller;
+
+import com.epicgoals.api.dto.FeedItemDto;
+import com.epicgoals.api.dto.FeedPageDto;
+import com.epicgoals.api.dto.GoalCreateRequest;
+import com.epicgoals.api.dto.GoalResponse;
+import com.epicgoals.api.dto.GoalUpdateRequest;
+import com.epicgoals.api.dto.HabitDto;
+import com.epicgoals.api.dto.CreateHabitRequest;
+import com.epicgoals.api.entity.Category;
+import com.epicgoals.api.entity.FeedActivityType;
+import com.epicgoals.api.entity.GoalTimeframe;
+import com.epicgoals.api.entity.GoalType;
+import com.epicgoals.api.entity.User;
+import com.epicgoals.api.event.OutboxDispatcher;
+import com.epicgoals.api.job.JobCoordinator.Checkpoint;
+import com.epicgoals.api.repository.CategoryRepository;
+import com.epicgoals.api.repository.UserRepository;
+import com.epicgoals.api.service.FeedService;
+import com.epicgoals.api.service.FriendshipService;
+import com.epicgoals.api.service.GoalService;
+import com.epicgoals.api.service.HabitService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class FeedControllerTest {
+
+    // Dispatch runs under the job lease in production; no other instance competes for it here
+    private final Checkpoint lease = mock(Checkpoint.class);
+
+    private static final String TARGET = "{\"value\": 10, \"unit\": \"km\"}";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private FriendshipService friendshipService;
+
+    @Autowired
+    private GoalService goalService;
+
+    @Autowired
+    private HabitService habitService;
+
+    @Autowired
+    private FeedService feedService;
+
+    @Autowired
+    private OutboxDispatcher outboxDispatcher;
+
+    private User alice;
+    private User bob;
+    private User carol;
+
+    @BeforeEach
+    void setUp() {
+        alice = userRepository.save(new User("alice@example.com", "hashedPassword"));
+        bob = userRepository.save(new User("bob@example.com", "hashedPassword"));
+        carol = userRepository.save(new User("carol@example.com", "hashedPassword"));
+        friendshipService.sendRequest(alice, "bob@example.com");
+        friendshipService.acceptRequest(bob, alice.getId());
+    }
+
+    @Test
+    void goalCompletion_ShouldReachActorAndFriendsOnce() {
+        GoalResponse goal = createGoal(alice, "Run 10k");
+
+        complete(alice, goal);
+        // Still complete after a further update, so no second milestone
+        goalService.updateGoal(alice, goal.id(), new GoalUpdateRequest(null, null, null,
+                "{\"value\": 12, \"unit\": \"km\"}", null, null));
+        outboxDispatcher.dispatchPending(lease);
+
+        List<FeedItemDto> bobFeed = feedService.getFeed(bob, null, 20).items();
+        assertEquals(1, bobFeed.size());
+        assertEquals(FeedActivityType.GOAL_COMPLETED, bobFeed.get(0).type());
+        assertEquals("alice@example.com", bobFeed.get(0).actorEmail());
+        assertTrue(bobFeed.get(0).details().contains("Run 10k"));
+
+        assertEquals(1, feedService.getFeed(alice, null, 20).items().size());
+        assertTrue(feedService.getFeed(carol, null, 20).items().isEmpty());
+    }
+
+    @Test
+    void streakMilestone_ShouldPostOnTheSeventhConsecutiveDay() {
+        Category category = categoryRepository.save(new Category(alice, "Health", true));
+        HabitDto habit = habitService.createHabit(alice, new CreateHabitRequest("Exercise", category.getId(), 7));
+        LocalDate today = LocalDate.now();
+        for (int daysAgo = 6; daysAgo >= 0; daysAgo--) {
+            habitService.toggleHabitCompletion(alice, habit.getId(), today.minusDays(daysAgo));
+        }
+
+        outboxDispatcher.dispatchPending(lease);
+
+        List<FeedItemDto> streaks = feedService.getFeed(bob, null, 20).items().stream()
+                .filter(item -> item.type() == FeedActivityType.STREAK_MILESTONE)
+                .toList();
+        assertEquals(1, streaks.size());
+        assertTrue(streaks.get(0).details().contains("\"days\":7"));
+    }
+
+    @Test
+    void getFeed_ShouldPageByActivityIdNewestFirst() {
+        for (int i = 0; i < 3; i++) {
+            complete(alice, createGoal(alice, "Goal " + i));
+        }
+
+        FeedPageDto first = feedService.getFeed(bob, null, 2);
+        assertEquals(2, first.items().size());
+        assertTrue(first.items().get(0).id() > first.items().get(1).id());
+        assertNotNull(first.nextCursor());
+
+        FeedPageDto second = feedService.getFeed(bob, first.nextCursor(), 2);
+        assertEquals(1, second.items().size());
+        assertTrue(second.items().get(0).id() < first.nextCursor());
+        assertNull(second.nextCursor());
+    }
+
+    private GoalResponse createGoal(User user, String name) {
+        return goalService.createGoal(user, new GoalCreateRequest(GoalTimeframe.TWELVE_WEEK, GoalType.QUANTIFIABLE,
+                name, null, TARGET, "{\"value\": 0, \"unit\": \"km\"}", null, null));
+    }
+
+    private void complete(User user, GoalResponse goal) {
+        goalService.updateGoal(user, goal.id(), new GoalUpdateRequest(null, null, null, TARGET, null, null));
+        outboxDispatcher.dispatchPending(lease);
+    }
+}
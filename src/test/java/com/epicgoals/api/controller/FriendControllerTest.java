@@ -0,0 +1,204 @@
+// ABOUT_ME: Integration tests for friendships and the precomputed friends leaderboard
+// ABOUT_ME: Verifies fan-out on score changes, linking on accept, unlinking boards and feeds on removal and the single-query board read
+package com.epicgoals.api.controller;
+
+import com.epicgoals.api.dto.FeedItemDto;
+import com.epicgoals.api.dto.FriendDto;
+import com.epicgoals.api.dto.LeaderboardDto;
+import com.epicgoals.api.entity.Category;
+import com.epicgoals.api.entity.FeedActivityType;
+import com.epicgoals.api.entity.FriendshipStatus;
+import com.epicgoals.api.entity.Habit;
+import com.epicgoals.api.entity.HabitCompletion;
+import com.epicgoals.api.entity.User;
+import com.epicgoals.api.monitoring.QueryCountHolder;
+import com.epicgoals.api.repository.CategoryRepository;
+import com.epicgoals.api.repository.HabitCompletionRepository;
+import com.epicgoals.api.repository.HabitRepository;
+import com.epicgoals.api.repository.UserRepository;
+import com.epicgoals.api.service.FeedService;
+import com.epicgoals.api.service.FriendshipService;
+import com.epicgoals.api.service.LeaderboardService;
+import com.epicgoals.api.service.ScoreService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class FriendControllerTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private HabitRepository habitRepository;
+
+    @Autowired
+    private HabitCompletionRepository habitCompletionRepository;
+
+    @Autowired
+    private FriendshipService friendshipService;
+
+    @Autowired
+    private LeaderboardService leaderboardService;
+
+    @Autowired
+    private ScoreService scoreService;
+
+    @Autowired
+    private FeedService feedService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private User alice;
+    private User bob;
+    private LocalDate weekStart;
+
+    @BeforeEach
+    void setUp() {
+        alice = userRepository.save(new User("alice@example.com", "hashedPassword"));
+        bob = userRepository.save(new User("bob@example.com", "hashedPassword"));
+        weekStart = LocalDate.now().with(DayOfWeek.MONDAY);
+    }
+
+    @Test
+    void sendRequest_ShouldStayPendingUntilAccepted() {
+        FriendDto request = friendshipService.sendRequest(alice, "bob@example.com");
+
+        assertEquals(FriendshipStatus.PENDING, request.status());
+        assertTrue(friendshipService.getFriends(alice).isEmpty());
+        assertEquals("alice@example.com", friendshipService.getIncomingRequests(bob).get(0).email());
+
+        friendshipService.acceptRequest(bob, alice.getId());
+
+        assertEquals(List.of(bob.getId()), friendshipService.getFriends(alice).stream().map(FriendDto::userId).toList());
+        assertEquals(List.of(alice.getId()), friendshipService.getFriends(bob).stream().map(FriendDto::userId).toList());
+        assertTrue(friendshipService.getIncomingRequests(bob).isEmpty());
+    }
+
+    @Test
+    void sendRequest_ShouldAcceptWhenOtherUserAlreadyAsked() {
+        friendshipService.sendRequest(bob, "alice@example.com");
+
+        FriendDto result = friendshipService.sendRequest(alice, "bob@example.com");
+
+        assertEquals(FriendshipStatus.ACCEPTED, result.status());
+        assertEquals(1, friendshipService.getFriends(bob).size());
+    }
+
+    @Test
+    void leaderboard_ShouldFollowScoreChangesOfFriends() {
+        // Given - both have a score before they become friends
+        Habit aliceHabit = dailyHabit(alice);
+        Habit bobHabit = dailyHabit(bob);
+        habitCompletionRepository.save(new HabitCompletion(aliceHabit, weekStart, true));
+        scoreService.recalculateCurrentWeek(alice);
+        scoreService.recalculateCurrentWeek(bob);
+
+        // When - the friendship is accepted, existing scores are linked onto each other's board
+        friendshipService.sendRequest(alice, "bob@example.com");
+        friendshipService.acceptRequest(bob, alice.getId());
+        LeaderboardDto bobsBoard = leaderboardService.getLeaderboard(bob, weekStart);
+
+        // Then
+        assertEquals(2, bobsBoard.entries().size());
+        assertEquals(alice.getId(), bobsBoard.entries().get(0).userId());
+        assertEquals(14, bobsBoard.entries().get(0).score());
+        assertTrue(bobsBoard.entries().get(1).self());
+
+        // When - Bob catches up, his friend's board is updated by the fan-out
+        habitCompletionRepository.save(new HabitCompletion(bobHabit, weekStart, true));
+        scoreService.recalculateCurrentWeek(bob);
+        entityManager.clear();
+        LeaderboardDto alicesBoard = leaderboardService.getLeaderboard(alice, weekStart);
+
+        // Then - equal scores share the first rank
+        assertEquals(List.of(1, 1), alicesBoard.entries().stream().map(LeaderboardDto.Entry::rank).toList());
+        assertEquals(List.of("alice@example.com", "bob@example.com"),
+                alicesBoard.entries().stream().map(LeaderboardDto.Entry::email).toList());
+    }
+
+    @Test
+    void removeFriend_ShouldDropEachOtherFromBoards() {
+        dailyHabit(alice);
+        dailyHabit(bob);
+        friendshipService.sendRequest(alice, "bob@example.com");
+        friendshipService.acceptRequest(bob, alice.getId());
+        scoreService.recalculateCurrentWeek(alice);
+        scoreService.recalculateCurrentWeek(bob);
+        assertEquals(2, leaderboardService.getLeaderboard(alice, weekStart).entries().size());
+
+        friendshipService.removeFriend(alice, bob.getId());
+
+        assertTrue(friendshipService.getFriends(bob).isEmpty());
+        assertEquals(1, leaderboardService.getLeaderboard(alice, weekStart).entries().size());
+        assertEquals(1, leaderboardService.getLeaderboard(bob, weekStart).entries().size());
+    }
+
+    @Test
+    void removeFriend_ShouldDropEachOthersActivitiesFromTheirFeeds() {
+        // Given - both shared a milestone while friends; alice also keeps a friendship with carol
+        User carol = userRepository.save(new User("carol@example.com", "hashedPassword"));
+        friendshipService.sendRequest(alice, "bob@example.com");
+        friendshipService.acceptRequest(bob, alice.getId());
+        friendshipService.sendRequest(alice, "carol@example.com");
+        friendshipService.acceptRequest(carol, alice.getId());
+        feedService.record(alice.getId(), FeedActivityType.PERFECT_WEEK, "alice-week", Map.of("score", 100));
+        feedService.record(bob.getId(), FeedActivityType.PERFECT_WEEK, "bob-week", Map.of("score", 100));
+
+        // When
+        friendshipService.removeFriend(alice, bob.getId());
+
+        // Then - each keeps only their own activity; carol still sees alice's
+        assertEquals(List.of(alice.getId()), feedActors(alice));
+        assertEquals(List.of(bob.getId()), feedActors(bob));
+        assertEquals(List.of(alice.getId()), feedActors(carol));
+    }
+
+    @Test
+    void leaderboard_ShouldBeSingleQueryRegardlessOfFriendCount() {
+        for (int i = 0; i < 20; i++) {
+            User friend = userRepository.save(new User("friend" + i + "@example.com", "hashedPassword"));
+            friendshipService.sendRequest(alice, friend.getEmail());
+            friendshipService.acceptRequest(friend, alice.getId());
+            scoreService.recalculateCurrentWeek(friend);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        QueryCountHolder.reset();
+        LeaderboardDto board = leaderboardService.getLeaderboard(alice, weekStart);
+        int statements = QueryCountHolder.get();
+        QueryCountHolder.clear();
+
+        assertEquals(20, board.entries().size());
+        assertEquals(1, statements, "leaderboard read issued " + statements + " statements");
+    }
+
+    private List<UUID> feedActors(User user) {
+        return feedService.getFeed(user, null, 10).items().stream().map(FeedItemDto::actorId).toList();
+    }
+
+    private Habit dailyHabit(User user) {
+        Category category = categoryRepository.save(new Category(user, "Health", false));
+        return habitRepository.save(new Habit(user, category, "Exercise", 7));
+    }
+}
@@ -3,33 +3,70 @@
 package com.epicgoals.api.controller;
 
 import com.epicgoals.api.dto.CreateHabitRequest;
+import com.epicgoals.api.dto.HabitCompletionDto;
 import com.epicgoals.api.dto.HabitDto;
+import com.epicgoals.api.dto.HabitHeatmapDto;
+import com.epicgoals.api.dto.HabitStreakDto;
+import com.epicgoals.api.dto.UserIdRange;
 import com.epicgoals.api.entity.Category;
 import com.epicgoals.api.entity.Habit;
+import com.epicgoals.api.entity.HabitCompletion;
 import com.epicgoals.api.entity.User;
+import com.epicgoals.api.event.CompletionStatsHandler;
+import com.epicgoals.api.event.HabitCompletionToggled;
+import com.epicgoals.api.event.OutboxDispatcher;
+import com.epicgoals.api.exception.IdempotencyKeyReusedException;
+import com.epicgoals.api.job.JobCoordinator.Checkpoint;
 import com.epicgoals.api.repository.CategoryRepository;
 import com.epicgoals.api.repository.HabitCompletionRepository;
 import com.epicgoals.api.repository.HabitRepository;
+import com.epicgoals.api.repository.OutboxEventRepository;
 import com.epicgoals.api.repository.UserRepository;
+import com.epicgoals.api.service.HabitPurgeService;
 import com.epicgoals.api.service.HabitService;
+import com.epicgoals.api.service.HeatmapService;
+import com.epicgoals.api.service.IdempotencyService;
+import com.epicgoals.api.service.StreakService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
 
 @SpringBootTest
 @ActiveProfiles("test")
 @Transactional
 class HabitControllerTest {
 
+    // Dispatch runs under the job lease in production; no other instance competes for it here
+    private final Checkpoint lease = mock(Checkpoint.class);
+
     @Autowired
     private UserRepository userRepository;
 
@@ -45,9 +82,36 @@ class HabitControllerTest {
     @Autowired
     private HabitService habitService;
 
+    @Autowired
+    private StreakService streakService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private CompletionStatsHandler completionStatsHandler;
+
+    @Autowired
+    private HeatmapService heatmapService;
+
+    @Autowired
+    private OutboxDispatcher outboxDispatcher;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private HabitPurgeService habitPurgeService;
+
+    @Autowired
+    private EntityManager entityManager;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     private User testUser;
     private Category testCategory;
 
@@ -108,4 +172,326 @@ class HabitControllerTest {
         );
         assertTrue(exception.getMessage().contains("Maximum of 15 habits allowed"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void toggleHabitCompletion_ShouldFlipSingleRow() {
+        HabitDto habit = habitService.createHabit(testUser, new CreateHabitRequest("Exercise", testCategory.getId(), 5));
+        LocalDate date = LocalDate.of(2024, 1, 1);
+
+        HabitCompletionDto first = habitService.toggleHabitCompletion(testUser, habit.getId(), date);
+        HabitCompletionDto second = habitService.toggleHabitCompletion(testUser, habit.getId(), date);
+
+        assertTrue(first.getCompleted());
+        assertFalse(second.getCompleted());
+        assertEquals(first.getId(), second.getId());
+        assertEquals(1, habitCompletionRepository.count());
+    }
+
+    @Test
+    void toggleHabitCompletion_ShouldRejectOtherUsersHabit() {
+        HabitDto habit = habitService.createHabit(testUser, new CreateHabitRequest("Exercise", testCategory.getId(), 5));
+        User otherUser = userRepository.save(new User("other@example.com", passwordEncoder.encode("password")));
+
+        assertThrows(EntityNotFoundException.class, () ->
+            habitService.toggleHabitCompletion(otherUser, habit.getId(), LocalDate.of(2024, 1, 1))
+        );
+        assertEquals(0, habitCompletionRepository.count());
+    }
+
+    @Test
+    void setHabitCompletion_ShouldReturnTheStoredResultForEveryReplayedIdempotencyKey() {
+        HabitDto habit = habitService.createHabit(testUser, new CreateHabitRequest("Exercise", testCategory.getId(), 5));
+        LocalDate date = LocalDate.of(2024, 1, 1);
+
+        habitService.setHabitCompletion(testUser, habit.getId(), date, true, "key-1");
+        habitService.setHabitCompletion(testUser, habit.getId(), date, false, "key-2");
+        HabitCompletionDto replayed = habitService.setHabitCompletion(testUser, habit.getId(), date, false, "key-2");
+        HabitCompletionDto olderReplay = habitService.setHabitCompletion(testUser, habit.getId(), date, true, "key-1");
+
+        // Each key answers with what its first request returned, and the older retry does not undo key-2
+        assertFalse(replayed.getCompleted());
+        assertTrue(olderReplay.getCompleted());
+        assertFalse(habitCompletionRepository.findByHabitAndDateBetween(habitRepository.findById(habit.getId()).orElseThrow(),
+                date, date).get(0).getCompleted());
+
+        HabitCompletionDto unkeyed = habitService.setHabitCompletion(testUser, habit.getId(), date, true, null);
+        assertTrue(unkeyed.getCompleted());
+        assertEquals(1, habitCompletionRepository.count());
+    }
+
+    @Test
+    void setHabitCompletion_ShouldRejectAnIdempotencyKeyReusedForADifferentRequest() {
+        HabitDto habit = habitService.createHabit(testUser, new CreateHabitRequest("Exercise", testCategory.getId(), 5));
+        LocalDate date = LocalDate.of(2024, 1, 1);
+        habitService.setHabitCompletion(testUser, habit.getId(), date, true, "key-1");
+
+        assertThrows(IdempotencyKeyReusedException.class, () ->
+            habitService.setHabitCompletion(testUser, habit.getId(), date, false, "key-1"));
+        assertThrows(IdempotencyKeyReusedException.class, () ->
+            habitService.setHabitCompletion(testUser, habit.getId(), date.plusDays(1), true, "key-1"));
+    }
+
+    @Test
+    void setHabitCompletion_ShouldApplyAnIdempotencyKeyAgainOnceItExpired() {
+        HabitDto habit = habitService.createHabit(testUser, new CreateHabitRequest("Exercise", testCategory.getId(), 5));
+        LocalDate date = LocalDate.of(2024, 1, 1);
+        habitService.setHabitCompletion(testUser, habit.getId(), date, true, "key-1");
+        jdbcTemplate.update("UPDATE idempotency_keys SET created_at = ? WHERE user_id = ?",
+                Timestamp.from(Instant.now().minus(Duration.ofDays(2))), testUser.getId());
+
+        HabitCompletionDto reused = habitService.setHabitCompletion(testUser, habit.getId(), date, false, "key-1");
+
+        // The key was taken afresh, so it is not purged with the expired ones
+        assertFalse(reused.getCompleted());
+        assertEquals(0, idempotencyService.purgeExpired());
+    }
+
+    @Test
+    void streaks_ShouldJoinAndSplitRunsOnBackDatedToggles() {
+        HabitDto habit = habitService.createHabit(testUser, new CreateHabitRequest("Exercise", testCategory.getId(), 7));
+        LocalDate today = LocalDate.now();
+
+        // Two runs separated by a gap two days ago: [today-4, today-3] and [today-1, today]
+        for (int daysAgo : new int[] {4, 3, 1, 0}) {
+            habitService.toggleHabitCompletion(testUser, habit.getId(), today.minusDays(daysAgo));
+        }
+        HabitStreakDto split = streakFor(habit);
+        assertEquals(2, split.currentStreak());
+        assertEquals(2, split.longestStreak());
+
+        // Back-dating the missing day joins both runs
+        habitService.toggleHabitCompletion(testUser, habit.getId(), today.minusDays(2));
+        HabitStreakDto joined = streakFor(habit);
+        assertEquals(5, joined.currentStreak());
+        assertEquals(5, joined.longestStreak());
+
+        // Clearing a day in the middle splits the run again and the longest streak shrinks
+        habitService.toggleHabitCompletion(testUser, habit.getId(), today.minusDays(3));
+        HabitStreakDto resplit = streakFor(habit);
+        assertEquals(3, resplit.currentStreak());
+        assertEquals(3, resplit.longestStreak());
+        assertEquals(today, resplit.lastCompletedDate());
+    }
+
+    @Test
+    void streaks_RebuildShouldMatchIncrementalState() {
+        HabitDto habit = habitService.createHabit(testUser, new CreateHabitRequest("Exercise", testCategory.getId(), 7));
+        LocalDate today = LocalDate.now();
+        for (int daysAgo : new int[] {9, 8, 7, 5, 1, 0, 8}) {
+            habitService.toggleHabitCompletion(testUser, habit.getId(), today.minusDays(daysAgo));
+        }
+        HabitStreakDto incremental = streakFor(habit);
+
+        streakService.rebuildAll();
+
+        assertEquals(incremental, streakFor(habit));
+        assertEquals(2, incremental.currentStreak());
+        assertEquals(2, incremental.longestStreak());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void streaks_ConcurrentRebuildsOfAHabitWithoutSummaryShouldCreateItOnce() throws Exception {
+        // Given - a committed habit with history and no summary row, as left before the streak tables existed
+        Habit habit = habitRepository.save(new Habit(testUser, testCategory, "Exercise", 7));
+        LocalDate today = LocalDate.now();
+        for (int daysAgo : new int[] {3, 2, 0}) {
+            habitCompletionRepository.save(new HabitCompletion(habit, today.minusDays(daysAgo), true));
+        }
+        try {
+            // When - several rebuilds of it run at once
+            List<Callable<Boolean>> rebuilds = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                rebuilds.add(() -> {
+                    streakService.rebuildHabit(habit.getId());
+                    return true;
+                });
+            }
+            runTogether(rebuilds);
+
+            // Then - each one succeeded and the habit ends with one summary and one set of runs
+            assertEquals(1, jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM habit_streaks WHERE habit_id = ?", Integer.class, habit.getId()));
+            assertEquals(2, jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM habit_streak_runs WHERE habit_id = ?", Integer.class, habit.getId()));
+            assertEquals(2, jdbcTemplate.queryForObject(
+                    "SELECT longest_streak FROM habit_streaks WHERE habit_id = ?", Integer.class, habit.getId()));
+        } finally {
+            jdbcTemplate.update("DELETE FROM habit_streak_runs WHERE habit_id = ?", habit.getId());
+            jdbcTemplate.update("DELETE FROM habit_streaks WHERE habit_id = ?", habit.getId());
+        }
+    }
+
+    @Test
+    void toggleHabitCompletion_ShouldDeferDerivedDataToOutbox() {
+        HabitDto habit = habitService.createHabit(testUser, new CreateHabitRequest("Exercise", testCategory.getId(), 7));
+        outboxDispatcher.dispatchPending(lease);
+
+        habitService.toggleHabitCompletion(testUser, habit.getId(), LocalDate.now());
+
+        // The request only records the completion and its event
+        assertEquals(0, streakService.getUserStreaks(testUser).get(0).currentStreak());
+        assertEquals(1, outboxEventRepository.findPending(Instant.now(), PageRequest.of(0, 10)).size());
+
+        assertEquals(1, outboxDispatcher.dispatchPending(lease));
+        assertEquals(1, streakFor(habit).currentStreak());
+        assertTrue(outboxEventRepository.findPending(Instant.now(), PageRequest.of(0, 10)).isEmpty());
+    }
+
+    @Test
+    void completionEvent_ShouldNotBeCountedAgainWhenTheStreakHadToBeRebuilt() {
+        // Given - a completion already counted, then the habit's streak rows go missing
+        HabitDto habit = habitService.createHabit(testUser, new CreateHabitRequest("Exercise", testCategory.getId(), 7));
+        LocalDate monday = LocalDate.now().with(DayOfWeek.MONDAY);
+        habitService.toggleHabitCompletion(testUser, habit.getId(), monday);
+        outboxDispatcher.dispatchPending(lease);
+        jdbcTemplate.update("DELETE FROM habit_streak_runs WHERE habit_id = ?", habit.getId());
+        jdbcTemplate.update("DELETE FROM habit_streaks WHERE habit_id = ?", habit.getId());
+
+        // When - the event is replayed
+        completionStatsHandler.handle(new HabitCompletionToggled(testUser.getId(), habit.getId(), monday, true));
+
+        // Then - the streak is rebuilt from history and the heatmap still counts the day once
+        assertEquals(1, streakFor(habit).longestStreak());
+        assertEquals(1, heatmapService.getHeatmap(testUser, habit.getId(), 1).weekdays().get(0).completions());
+    }
+
+    private User userInZone(String email, String zone) {
+        User user = new User(email, passwordEncoder.encode("password"));
+        user.setTimeZone(zone);
+        return user;
+    }
+
+    private HabitStreakDto streakFor(HabitDto habit) {
+        outboxDispatcher.dispatchPending(lease);
+        return streakService.getUserStreaks(testUser).stream()
+                .filter(streak -> streak.habitId().equals(habit.getId()))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Test
+    void heatmap_ShouldCountWeekdaysAndMonthsAndMatchRebuild() {
+        HabitDto habit = habitService.createHabit(testUser, new CreateHabitRequest("Exercise", testCategory.getId(), 7));
+        // Two Mondays and a Wednesday, one Monday cleared again
+        LocalDate monday = LocalDate.now().with(DayOfWeek.MONDAY).minusWeeks(2);
+        habitService.toggleHabitCompletion(testUser, habit.getId(), monday);
+        habitService.toggleHabitCompletion(testUser, habit.getId(), monday.plusWeeks(1));
+        habitService.toggleHabitCompletion(testUser, habit.getId(), monday.plusDays(2));
+        habitService.toggleHabitCompletion(testUser, habit.getId(), monday.plusWeeks(1));
+
+        outboxDispatcher.dispatchPending(lease);
+        HabitHeatmapDto incremental = heatmapService.getHeatmap(testUser, habit.getId(), 3);
+
+        // Back-dated completion moves the tracking start to the first Monday
+        assertEquals(monday, incremental.trackingStart());
+        assertEquals(1, incremental.weekdays().get(0).completions());
+        assertEquals(1, incremental.weekdays().get(2).completions());
+        assertEquals(3, incremental.months().size());
+        assertEquals(2, incremental.months().stream().mapToInt(HabitHeatmapDto.MonthCell::completions).sum());
+
+        heatmapService.rebuildUsers(UserIdRange.all(), Integer.MAX_VALUE);
+        assertEquals(incremental, heatmapService.getHeatmap(testUser, habit.getId(), 3));
+    }
+
+    @Test
+    void heatmapRebuild_ShouldPageThroughOwnersOneBatchAtATime() {
+        // Given - two owners whose counters have drifted away
+        User other = userRepository.save(new User("heatmap-other@example.com", "hashedPassword"));
+        Habit mine = habitRepository.save(new Habit(testUser, testCategory, "Read", 7));
+        Habit theirs = habitRepository.save(new Habit(other, categoryRepository.save(new Category(other, "Health", true)), "Run", 7));
+        LocalDate monday = LocalDate.now().with(DayOfWeek.MONDAY);
+        habitCompletionRepository.save(new HabitCompletion(mine, monday, true));
+        habitCompletionRepository.save(new HabitCompletion(theirs, monday, true));
+
+        // When - batches of one owner, each resuming after the last one rebuilt
+        List<UUID> rebuilt = new ArrayList<>();
+        UserIdRange remaining = UserIdRange.all();
+        List<UUID> batch;
+        while (!(batch = heatmapService.rebuildUsers(remaining, 1)).isEmpty()) {
+            rebuilt.addAll(batch);
+            remaining = remaining.after(batch.get(0));
+        }
+
+        // Then - each owner rebuilt exactly once
+        assertEquals(rebuilt.stream().distinct().toList(), rebuilt);
+        assertTrue(rebuilt.containsAll(List.of(testUser.getId(), other.getId())));
+        assertEquals(1, heatmapService.getHeatmap(testUser, mine.getId(), 1).weekdays().get(0).completions());
+        assertEquals(1, heatmapService.getHeatmap(other, theirs.getId(), 1).weekdays().get(0).completions());
+    }
+
+    @Test
+    void heatmap_ShouldStartTrackingOnTheOwnersDate() {
+        // Given - owners at both ends of the clock, whose dates always differ
+        User ahead = userRepository.save(userInZone("ahead@example.com", "Pacific/Kiritimati"));
+        User behind = userRepository.save(userInZone("behind@example.com", "Etc/GMT+12"));
+
+        // When
+        HabitDto aheadHabit = habitService.createHabit(ahead,
+                new CreateHabitRequest("Exercise", categoryRepository.save(new Category(ahead, "Health", true)).getId(), 7));
+        HabitDto behindHabit = habitService.createHabit(behind,
+                new CreateHabitRequest("Exercise", categoryRepository.save(new Category(behind, "Health", true)).getId(), 7));
+
+        // Then
+        assertEquals(LocalDate.now(ZoneId.of("Pacific/Kiritimati")),
+                heatmapService.getHeatmap(ahead, aheadHabit.getId(), 1).trackingStart());
+        assertEquals(LocalDate.now(ZoneId.of("Etc/GMT+12")),
+                heatmapService.getHeatmap(behind, behindHabit.getId(), 1).trackingStart());
+    }
+
+    @Test
+    void deleteHabit_ShouldTombstoneThenPurgeHistoryInBatches() {
+        HabitDto habit = habitService.createHabit(testUser, new CreateHabitRequest("Exercise", testCategory.getId(), 7));
+        LocalDate today = LocalDate.now();
+        for (int daysAgo = 0; daysAgo < 5; daysAgo++) {
+            habitService.toggleHabitCompletion(testUser, habit.getId(), today.minusDays(daysAgo));
+        }
+        outboxDispatcher.dispatchPending(lease);
+
+        habitService.deleteHabit(testUser, habit.getId());
+        entityManager.flush();
+        entityManager.clear();
+
+        // The request leaves history in place but the habit is gone from every read
+        assertTrue(habitRepository.findById(habit.getId()).isEmpty());
+        assertTrue(streakService.getUserStreaks(testUser).isEmpty());
+        assertEquals(5, habitCompletionRepository.count());
+        assertThrows(EntityNotFoundException.class, () ->
+            habitService.toggleHabitCompletion(testUser, habit.getId(), today)
+        );
+
+        // Nothing is purged inside the grace period
+        Instant cutoff = Instant.now().minusSeconds(60);
+        assertEquals(0, habitPurgeService.purgeNextBatch(cutoff, 2));
+
+        cutoff = Instant.now().plusSeconds(1);
+        assertEquals(2, habitPurgeService.purgeNextBatch(cutoff, 2));
+        assertEquals(2, habitPurgeService.purgeNextBatch(cutoff, 2));
+        // Last completion plus the habit row
+        assertEquals(2, habitPurgeService.purgeNextBatch(cutoff, 2));
+        assertEquals(0, habitPurgeService.purgeNextBatch(cutoff, 2));
+        assertEquals(0, habitCompletionRepository.count());
+    }
+
+    private <T> List<T> runTogether(List<Callable<T>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (Callable<T> task : tasks) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -2,27 +2,45 @@
 // ABOUT_ME: Tests progress endpoints and service integration without full web layer
 package com.epicgoals.api.controller;
 
+import com.epicgoals.api.dto.TrendDto;
+import com.epicgoals.api.dto.UpdateHabitRequest;
 import com.epicgoals.api.dto.WeeklyScoreDto;
 import com.epicgoals.api.entity.Category;
 import com.epicgoals.api.entity.Habit;
+import com.epicgoals.api.entity.HabitCompletion;
 import com.epicgoals.api.entity.User;
+import com.epicgoals.api.entity.WeeklyScore;
 import com.epicgoals.api.repository.CategoryRepository;
+import com.epicgoals.api.repository.HabitCompletionRepository;
 import com.epicgoals.api.repository.HabitRepository;
 import com.epicgoals.api.repository.UserRepository;
 import com.epicgoals.api.repository.WeeklyScoreRepository;
+import com.epicgoals.api.service.HabitPurgeService;
+import com.epicgoals.api.service.HabitService;
 import com.epicgoals.api.service.ScoreService;
+import com.epicgoals.api.service.TrendService;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.DayOfWeek;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -43,12 +61,30 @@ class ProgressControllerTest {
     @Autowired
     private WeeklyScoreRepository weeklyScoreRepository;
 
+    @Autowired
+    private HabitCompletionRepository habitCompletionRepository;
+
     @Autowired
     private ScoreService scoreService;
 
+    @Autowired
+    private TrendService trendService;
+
+    @Autowired
+    private HabitService habitService;
+
+    @Autowired
+    private HabitPurgeService habitPurgeService;
+
+    @Autowired
+    private EntityManager entityManager;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     private User testUser;
     private Category testCategory;
 
@@ -66,6 +102,7 @@ class ProgressControllerTest {
     @AfterEach
     void tearDown() {
         weeklyScoreRepository.deleteAll();
+        habitCompletionRepository.deleteAll();
         habitRepository.deleteAll();
         categoryRepository.deleteAll();
         userRepository.deleteAll();
@@ -137,4 +174,181 @@ class ProgressControllerTest {
         ).isPresent();
         assertTrue(scoreExists);
     }
-}
\ No newline at end of file
+
+    @Test
+    void recalculateCurrentWeek_ShouldOverwriteSnapshotAndBumpVersion() {
+        // Given
+        habitRepository.save(new Habit(testUser, testCategory, "Exercise", 7));
+        LocalDate weekStart = LocalDate.now().with(DayOfWeek.MONDAY);
+
+        // When - Recalculate the same week twice
+        scoreService.recalculateCurrentWeek(testUser);
+        scoreService.recalculateCurrentWeek(testUser);
+
+        // Then - A single snapshot row exists and was updated in place
+        assertEquals(1, weeklyScoreRepository.findByUserOrderByWeekStartDateDesc(testUser).size());
+        WeeklyScore stored = weeklyScoreRepository.findByUserAndWeekStartDate(testUser, weekStart).orElseThrow();
+        assertEquals(1L, stored.getVersion());
+    }
+
+    @Test
+    void getTrends_ShouldReflectSnapshotsWithoutScanningHistory() {
+        // Given - a daily habit, defined since before the weeks scored, completed 2, 4 and 6 days
+        // in three consecutive past weeks
+        LocalDate thisWeek = LocalDate.now().with(DayOfWeek.MONDAY);
+        Habit habit = new Habit(testUser, testCategory, "Exercise", 7);
+        habit.setEffectiveFrom(thisWeek.minusWeeks(4));
+        habit = habitRepository.save(habit);
+        int[] completedDays = {2, 4, 6};
+        for (int i = 0; i < completedDays.length; i++) {
+            LocalDate weekStart = thisWeek.minusWeeks(3 - i);
+            for (int day = 0; day < completedDays[i]; day++) {
+                habitCompletionRepository.save(new HabitCompletion(habit, weekStart.plusDays(day), true));
+            }
+        }
+
+        // When - each week's snapshot is written
+        for (int i = 0; i < completedDays.length; i++) {
+            scoreService.getWeekScore(testUser, thisWeek.minusWeeks(3 - i));
+        }
+        TrendDto trends = trendService.getTrends(testUser);
+
+        // Then - scores 29, 57, 86 rise about 28 points a week
+        assertEquals(3, trends.weeksTracked());
+        assertEquals(thisWeek.minusWeeks(1), trends.latestWeek());
+        assertEquals(TrendDto.Direction.IMPROVING, trends.direction());
+        assertEquals(28.5, trends.slope());
+        assertEquals(57.33, trends.movingAverage4());
+        assertEquals("Health", trends.bestCategory().name());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void recordCompletionChange_ShouldCountEveryChangeWhenAUsersFirstWritesRace() throws Exception {
+        // Given - a user without trend stats
+        LocalDate monday = LocalDate.now().with(DayOfWeek.MONDAY);
+
+        try {
+            // When - several completions are recorded at once
+            List<Callable<Boolean>> changes = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                changes.add(() -> {
+                    trendService.recordCompletionChange(testUser, monday, true);
+                    return true;
+                });
+            }
+            runTogether(changes);
+
+            // Then - one row was created and no change was lost
+            TrendDto trends = trendService.getTrends(testUser);
+            assertEquals(4, trends.dayOfWeek().get(0).completions());
+        } finally {
+            jdbcTemplate.update("DELETE FROM user_trend_stats WHERE user_id = ?", testUser.getId());
+        }
+    }
+
+    @Test
+    void recalculateWeeks_ShouldReproducePastScoresAfterHabitChanges() {
+        // Given - two daily habits; last week one was done every day and the other never
+        LocalDate thisWeek = LocalDate.now().with(DayOfWeek.MONDAY);
+        LocalDate lastWeek = thisWeek.minusWeeks(1);
+        Habit kept = new Habit(testUser, testCategory, "Exercise", 7);
+        kept.setEffectiveFrom(thisWeek.minusWeeks(4));
+        kept = habitRepository.save(kept);
+        Habit removed = new Habit(testUser, testCategory, "Reading", 7);
+        removed.setEffectiveFrom(thisWeek.minusWeeks(4));
+        removed = habitRepository.save(removed);
+        for (int day = 0; day < 7; day++) {
+            habitCompletionRepository.save(new HabitCompletion(kept, lastWeek.plusDays(day), true));
+        }
+        WeeklyScoreDto before = scoreService.getWeekScore(testUser, lastWeek);
+
+        // When - the first habit drops to 3 times a week and the second is deleted
+        habitService.updateHabit(testUser, kept.getId(), new UpdateHabitRequest("Exercise", testCategory.getId(), 3, true));
+        habitService.deleteHabit(testUser, removed.getId());
+        entityManager.flush();
+        entityManager.clear();
+        List<WeeklyScoreDto> rebuilt = scoreService.recalculateWeeks(testUser, lastWeek, thisWeek);
+
+        // Then - last week is unchanged while this week uses the new definitions
+        assertEquals(50, before.getScore());
+        assertEquals(before.getScore(), rebuilt.get(0).getScore());
+        assertEquals(before.getTotalHabits(), rebuilt.get(0).getTotalHabits());
+        assertEquals(3, rebuilt.get(1).getTotalHabits());
+    }
+
+    @Test
+    void recalculateWeeks_ShouldKeepPastScoresAfterADeletedHabitIsPurged() {
+        // Given - last week one daily habit was done every day and the other once
+        LocalDate thisWeek = LocalDate.now().with(DayOfWeek.MONDAY);
+        LocalDate lastWeek = thisWeek.minusWeeks(1);
+        Habit kept = new Habit(testUser, testCategory, "Exercise", 7);
+        kept.setEffectiveFrom(thisWeek.minusWeeks(4));
+        kept = habitRepository.save(kept);
+        Habit removed = new Habit(testUser, testCategory, "Reading", 7);
+        removed.setEffectiveFrom(thisWeek.minusWeeks(4));
+        removed = habitRepository.save(removed);
+        for (int day = 0; day < 7; day++) {
+            habitCompletionRepository.save(new HabitCompletion(kept, lastWeek.plusDays(day), true));
+        }
+        habitCompletionRepository.save(new HabitCompletion(removed, lastWeek, true));
+        WeeklyScoreDto before = scoreService.getWeekScore(testUser, lastWeek);
+
+        // When - the second habit is deleted, purged with all its history, and the scores rebuilt
+        habitService.deleteHabit(testUser, removed.getId());
+        entityManager.flush();
+        entityManager.clear();
+        while (habitPurgeService.purgeNextBatch(Instant.now().plusSeconds(1), 1000) > 0) {
+            entityManager.flush();
+        }
+        entityManager.clear();
+        List<WeeklyScoreDto> rebuilt = scoreService.recalculateWeeks(testUser, thisWeek.minusWeeks(4), thisWeek);
+
+        // Then - the habit is gone, yet last week still counts it; this week no longer does
+        assertTrue(habitRepository.findById(removed.getId()).isEmpty());
+        assertEquals(57, before.getScore());
+        assertEquals(before.getScore(), rebuilt.get(3).getScore());
+        assertEquals(before.getTotalHabits(), rebuilt.get(3).getTotalHabits());
+        assertEquals(before.getScore(), weeklyScoreRepository.findByUserAndWeekStartDate(testUser, lastWeek).orElseThrow().getScore());
+        assertEquals(7, rebuilt.get(4).getTotalHabits());
+    }
+
+    @Test
+    void findTop12_ShouldReturnOnlyTheLatestTwelveWeeks() {
+        // Given - fourteen weekly snapshots
+        LocalDate thisWeek = LocalDate.now().with(DayOfWeek.MONDAY);
+        for (int i = 0; i < 14; i++) {
+            weeklyScoreRepository.save(new WeeklyScore(testUser, thisWeek.minusWeeks(i), i, 0, 0));
+        }
+
+        // When
+        List<WeeklyScore> latest = weeklyScoreRepository.findTop12ByUserOrderByWeekStartDateDesc(testUser);
+
+        // Then
+        assertEquals(12, latest.size());
+        assertEquals(thisWeek, latest.get(0).getWeekStartDate());
+        assertEquals(thisWeek.minusWeeks(11), latest.get(11).getWeekStartDate());
+    }
+
+    private <T> List<T> runTogether(List<Callable<T>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (Callable<T> task : tasks) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
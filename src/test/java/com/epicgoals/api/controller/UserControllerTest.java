@@ -0,0 +1,113 @@
+// ABOUT_ME: Integration tests for user settings and time-zone-aware week boundaries
+// ABOUT_ME: Verifies the stored zone drives the current week and selects users for the hourly week rollover
+package com.epicgoals.api.controller;
+
+import com.epicgoals.api.dto.UserIdRange;
+import com.epicgoals.api.entity.User;
+import com.epicgoals.api.repository.UserRepository;
+import com.epicgoals.api.repository.WeeklyScoreRepository;
+import com.epicgoals.api.service.ScoreService;
+import com.epicgoals.api.service.UserSettingsService;
+import com.epicgoals.api.service.UserSettingsService.RolloverBand;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class UserControllerTest {
+
+    private static final ZoneId KIRITIMATI = ZoneId.of("Pacific/Kiritimati");
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private WeeklyScoreRepository weeklyScoreRepository;
+
+    @Autowired
+    private UserSettingsService userSettingsService;
+
+    @Autowired
+    private ScoreService scoreService;
+
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        testUser = userRepository.save(new User("zone@example.com", "hashedPassword"));
+    }
+
+    @Test
+    void updateSettings_ShouldMergeKeysAndDriveWeekStart() {
+        // Given
+        userSettingsService.updateSettings(testUser, Map.of("theme", "dark"));
+
+        // When
+        Map<String, Object> settings = userSettingsService.updateSettings(testUser, Map.of("timeZone", "Pacific/Kiritimati"));
+
+        // Then
+        assertEquals("dark", settings.get("theme"));
+        assertEquals("Pacific/Kiritimati", userRepository.findById(testUser.getId()).orElseThrow().getTimeZone());
+        assertEquals(LocalDate.now(KIRITIMATI).with(DayOfWeek.MONDAY), scoreService.getCurrentWeekStart(testUser));
+        assertEquals(LocalDate.now(KIRITIMATI).with(DayOfWeek.MONDAY),
+                scoreService.getCurrentWeekScore(testUser).getWeekStartDate());
+    }
+
+    @Test
+    void updateSettings_WithNullTimeZone_ShouldFallBackToServerZone() {
+        // Given
+        userSettingsService.updateSettings(testUser, Map.of("timeZone", "Pacific/Kiritimati"));
+        Map<String, Object> clear = new HashMap<>();
+        clear.put("timeZone", null);
+
+        // When
+        userSettingsService.updateSettings(testUser, clear);
+
+        // Then
+        assertNull(testUser.getTimeZone());
+        assertEquals(LocalDate.now().with(DayOfWeek.MONDAY), scoreService.getCurrentWeekStart(testUser));
+    }
+
+    @Test
+    void updateSettings_WithUnknownZone_ShouldBeRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> userSettingsService.updateSettings(testUser, Map.of("timeZone", "Mars/Olympus_Mons")));
+    }
+
+    @Test
+    void weekRollover_ShouldOnlySelectZonesAtTheirMondayMidnight() {
+        // Given - one user far east, one far west
+        userSettingsService.updateSettings(testUser, Map.of("timeZone", "Pacific/Kiritimati"));
+        User westUser = userRepository.save(new User("west@example.com", "hashedPassword"));
+        userSettingsService.updateSettings(westUser, Map.of("timeZone", "Pacific/Pago_Pago"));
+        Instant kiritimatiMonday = LocalDate.now(KIRITIMATI).with(TemporalAdjusters.next(DayOfWeek.MONDAY))
+                .atTime(0, 30).atZone(KIRITIMATI).toInstant();
+
+        // When
+        RolloverBand band = userSettingsService.bandStartingWeekAt(kiritimatiMonday);
+        List<UUID> rolled = scoreService.rollOverWeeks(band, UserIdRange.all(), 10);
+
+        // Then - only the eastern user is processed and last week's snapshot is written in their zone
+        assertEquals(List.of("Pacific/Kiritimati"), band.zones());
+        assertEquals(List.of(testUser.getId()), rolled);
+        LocalDate endedWeek = LocalDate.now(KIRITIMATI).with(DayOfWeek.MONDAY).minusWeeks(1);
+        assertTrue(weeklyScoreRepository.findByUserAndWeekStartDate(testUser, endedWeek).isPresent());
+    }
+}
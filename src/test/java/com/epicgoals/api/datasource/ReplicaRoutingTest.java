@@ -0,0 +1,172 @@
+// ABOUT_ME: Integration tests for read replica routing against a read-only replica that has none of the primary's rows
+// ABOUT_ME: Verifies logins and token checks stay on the primary, reads use the replica, and a user's own writes pin reads
+package com.epicgoals.api.datasource;
+
+import com.epicgoals.api.dto.AuthResponse;
+import com.epicgoals.api.dto.LoginRequest;
+import com.epicgoals.api.dto.RegisterRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.env.Environment;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.empty;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "app.datasource.replica.url=" + ReplicaRoutingTest.REPLICA_URL,
+        "app.datasource.replica.username=reader",
+        "app.datasource.replica.password=reader"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ReplicaRoutingTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:replica";
+
+    // Schema only: the replica stands in for one that has not replayed anything yet. Created once and kept
+    // open by its admin connection's DB_CLOSE_DELAY, which the read-only user may not set itself
+    private static boolean replicaCreated;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primary;
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockitoBean
+    private ReplicaHealth replicaHealth;
+
+    private String email;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        if (!replicaCreated) {
+            createReadOnlyReplica();
+            replicaCreated = true;
+        }
+        when(replicaHealth.isUsable()).thenReturn(true);
+        email = "replica-" + UUID.randomUUID() + "@example.com";
+    }
+
+    @AfterEach
+    void tearDown() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(primary);
+        List<UUID> userIds = jdbcTemplate.queryForList("SELECT id FROM users WHERE email = ?", UUID.class, email);
+        for (UUID userId : userIds) {
+            jdbcTemplate.update("DELETE FROM refresh_tokens WHERE user_id = ?", userId);
+            jdbcTemplate.update("DELETE FROM categories WHERE user_id = ?", userId);
+            jdbcTemplate.update("DELETE FROM users WHERE id = ?", userId);
+        }
+    }
+
+    @Test
+    void connectionHandling_ShouldReleaseConnectionsPerTransaction() {
+        assertEquals("false", environment.getProperty("spring.jpa.open-in-view"));
+        assertEquals("DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION",
+                entityManagerFactory.getProperties().get("hibernate.connection.handling_mode"));
+    }
+
+    @Test
+    void login_ShouldSucceedRightAfterRegisteringWhileReplicaLags() throws Exception {
+        // Given - the account exists only on the primary
+        register();
+
+        // When - login reads the user, then writes a refresh token in the same request
+        String body = mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new LoginRequest(email, "TestPass123"))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String accessToken = objectMapper.readValue(body, AuthResponse.class).accessToken();
+
+        // Then - the token is accepted, and the category list is read from the (empty) replica
+        mockMvc.perform(get("/api/categories").header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+        verify(replicaHealth, never()).markFailed(any());
+    }
+
+    @Test
+    void reads_ShouldUsePrimaryAfterTheUsersOwnWrite() throws Exception {
+        // Given
+        String accessToken = register();
+
+        // When - the user commits a write of their own
+        mockMvc.perform(patch("/api/users/me/settings")
+                        .header("Authorization", "Bearer " + accessToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"timeZone\":\"Europe/Madrid\"}"))
+                .andExpect(status().isOk());
+
+        // Then - their reads see the primary, including the default categories created at registration
+        mockMvc.perform(get("/api/categories").header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", not(empty())));
+        verify(replicaHealth, never()).markFailed(any());
+    }
+
+    private String register() throws Exception {
+        String body = mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new RegisterRequest(email, "TestPass123", "TestPass123"))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(body, AuthResponse.class).accessToken();
+    }
+
+    private void createReadOnlyReplica() throws SQLException {
+        List<String> schema = new JdbcTemplate(primary).queryForList("SCRIPT NODATA", String.class);
+        try (Connection connection = DriverManager.getConnection(REPLICA_URL + ";DB_CLOSE_DELAY=-1", "sa", "");
+             Statement statement = connection.createStatement()) {
+            for (String sql : schema) {
+                statement.execute(sql);
+            }
+            // The application connects as a user that may only read, like a hot standby
+            statement.execute("CREATE USER reader PASSWORD 'reader'");
+            statement.execute("GRANT SELECT ON SCHEMA PUBLIC TO reader");
+        }
+    }
+}
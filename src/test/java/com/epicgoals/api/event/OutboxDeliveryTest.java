@@ -0,0 +1,122 @@
+// ABOUT_ME: Integration tests for outbox delivery against the database, where the pending query picks each batch
+// ABOUT_ME: Verifies a user whose head event keeps failing never holds back other users' events
+package com.epicgoals.api.event;
+
+import com.epicgoals.api.entity.OutboxEvent;
+import com.epicgoals.api.entity.OutboxStatus;
+import com.epicgoals.api.job.JobCoordinator.Checkpoint;
+import com.epicgoals.api.repository.OutboxEventRepository;
+import com.epicgoals.api.service.UserDataVersionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+// Not transactional: each delivery and failure commits on its own, as it does under the scheduled poller
+@SpringBootTest
+@ActiveProfiles("test")
+class OutboxDeliveryTest {
+
+    // Dispatch runs under the job lease in production; no other instance competes for it here
+    private final Checkpoint lease = mock(Checkpoint.class);
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserDataVersionService dataVersionService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final UUID failingUser = UUID.randomUUID();
+    private final UUID otherUser = UUID.randomUUID();
+    private final List<DomainEvent> handled = new ArrayList<>();
+    private OutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        DomainEventHandler handler = new DomainEventHandler() {
+            @Override
+            public Set<Class<? extends DomainEvent>> eventTypes() {
+                return Set.of(HabitChanged.class);
+            }
+
+            @Override
+            public void handle(DomainEvent event) {
+                if (event.userId().equals(failingUser)) {
+                    throw new IllegalStateException("boom");
+                }
+                handled.add(event);
+            }
+        };
+        // Batches of two, so the failing user's backlog alone would fill every batch
+        dispatcher = new OutboxDispatcher(outboxEventRepository, objectMapper, dataVersionService,
+                transactionManager, List.of(handler), 2, 10, 60_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM outbox_events WHERE user_id IN (?, ?)", failingUser, otherUser);
+    }
+
+    @Test
+    void dispatchPending_ShouldDeliverOtherUsersWhileOneUsersHeadEventKeepsFailing() throws Exception {
+        // Given - the failing user's three events are ahead of the other user's two
+        OutboxEvent head = record(new HabitChanged(failingUser, UUID.randomUUID(), HabitChanged.Change.CREATED));
+        record(new HabitChanged(failingUser, UUID.randomUUID(), HabitChanged.Change.UPDATED));
+        record(new HabitChanged(failingUser, UUID.randomUUID(), HabitChanged.Change.UPDATED));
+        HabitChanged first = new HabitChanged(otherUser, UUID.randomUUID(), HabitChanged.Change.CREATED);
+        HabitChanged second = new HabitChanged(otherUser, UUID.randomUUID(), HabitChanged.Change.UPDATED);
+        record(first);
+        record(second);
+
+        // When - three times the head event's backoff runs out, a poll retries it and it fails again,
+        // and the next poll comes while it is backing off
+        for (int retry = 0; retry < 3; retry++) {
+            jdbcTemplate.update("UPDATE outbox_events SET available_at = CURRENT_TIMESTAMP - INTERVAL '1' SECOND WHERE id = ?",
+                    head.getId());
+            poll();
+            poll();
+        }
+
+        // Then - the other user's events went out in order; the failing user's stay queued behind the head
+        assertEquals(List.of(first, second), handled.stream().filter(event -> event.userId().equals(otherUser)).toList());
+        OutboxEvent retried = outboxEventRepository.findById(head.getId()).orElseThrow();
+        assertEquals(OutboxStatus.PENDING, retried.getStatus());
+        assertEquals(3, retried.getAttempts());
+        assertEquals(3, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM outbox_events WHERE user_id = ? AND status = 'PENDING'", Integer.class, failingUser));
+    }
+
+    // Drains like the scheduled job: keeps going while batches come back full
+    private void poll() {
+        while (dispatcher.dispatchPending(lease) >= dispatcher.getBatchSize()) {
+            // next batch
+        }
+    }
+
+    private OutboxEvent record(DomainEvent event) throws Exception {
+        return outboxEventRepository.save(new OutboxEvent(event.userId(), event.getClass().getSimpleName(),
+                objectMapper.writeValueAsString(event)));
+    }
+}
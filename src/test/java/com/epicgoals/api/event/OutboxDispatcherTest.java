@@ -0,0 +1,209 @@
+// ABOUT_ME: Unit tests for OutboxDispatcher delivery order, retry backoff and dead-lettering
+// ABOUT_ME: Uses mocked repositories and a no-op transaction manager so each delivery runs synchronously
+package com.epicgoals.api.event;
+
+import com.epicgoals.api.entity.OutboxEvent;
+import com.epicgoals.api.entity.OutboxStatus;
+import com.epicgoals.api.job.JobCoordinator.Checkpoint;
+import com.epicgoals.api.job.JobCoordinator.LeaseLostException;
+import com.epicgoals.api.repository.OutboxEventRepository;
+import com.epicgoals.api.service.UserDataVersionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxDispatcherTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private UserDataVersionService dataVersionService;
+
+    @Mock
+    private Checkpoint checkpoint;
+
+    private ObjectMapper objectMapper;
+    private RecordingHandler handler;
+    private OutboxDispatcher dispatcher;
+    private long nextId;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        handler = new RecordingHandler();
+        dispatcher = new OutboxDispatcher(outboxEventRepository, objectMapper, dataVersionService,
+                new NoOpTransactionManager(), List.of(handler), 100, 3, 1000);
+        lenient().when(outboxEventRepository.markProcessed(any(), any())).thenReturn(1);
+    }
+
+    @Test
+    void dispatchPending_ShouldDeliverEventsAndMarkThemProcessed() throws Exception {
+        // Given
+        UUID userId = UUID.randomUUID();
+        HabitCompletionToggled toggled = new HabitCompletionToggled(userId, UUID.randomUUID(), LocalDate.of(2024, 1, 1), true);
+        OutboxEvent event = outboxEvent(toggled);
+        when(outboxEventRepository.findPending(any(), any())).thenReturn(List.of(event));
+
+        // When
+        int processed = dispatcher.dispatchPending(checkpoint);
+
+        // Then
+        assertEquals(1, processed);
+        assertEquals(List.of(toggled), handler.handled);
+        verify(outboxEventRepository).markProcessed(eq(event.getId()), any());
+        verify(dataVersionService).markChanged(userId);
+    }
+
+    @Test
+    void dispatchPending_ShouldHoldBackLaterEventsOfUserAfterFailure() throws Exception {
+        // Given - the first event of one user fails, another user's event is independent
+        UUID userId = UUID.randomUUID();
+        UUID otherUserId = UUID.randomUUID();
+        HabitChanged failing = new HabitChanged(userId, UUID.randomUUID(), HabitChanged.Change.CREATED);
+        HabitChanged later = new HabitChanged(userId, UUID.randomUUID(), HabitChanged.Change.UPDATED);
+        HabitChanged other = new HabitChanged(otherUserId, UUID.randomUUID(), HabitChanged.Change.CREATED);
+        handler.failOn = failing;
+        OutboxEvent failed = outboxEvent(failing);
+        when(outboxEventRepository.findPending(any(), any())).thenReturn(List.of(failed, outboxEvent(later), outboxEvent(other)));
+
+        // When
+        int processed = dispatcher.dispatchPending(checkpoint);
+
+        // Then - the later event of the same user waits for the failed one to be retried
+        assertEquals(1, processed);
+        assertEquals(List.of(other), handler.handled);
+        verify(outboxEventRepository).recordFailure(eq(failed.getId()), eq(OutboxStatus.PENDING), eq(1),
+                argThat(availableAt -> availableAt.isAfter(Instant.now().plusMillis(500))), eq("boom"));
+    }
+
+    @Test
+    void dispatchPending_ShouldSkipUserWhoseHeadEventIsBackingOff() throws Exception {
+        // Given
+        UUID userId = UUID.randomUUID();
+        OutboxEvent waiting = outboxEvent(new HabitChanged(userId, UUID.randomUUID(), HabitChanged.Change.CREATED));
+        waiting.setAvailableAt(Instant.now().plusSeconds(60));
+        OutboxEvent behind = outboxEvent(new HabitChanged(userId, UUID.randomUUID(), HabitChanged.Change.UPDATED));
+        when(outboxEventRepository.findPending(any(), any())).thenReturn(List.of(waiting, behind));
+
+        // When
+        int processed = dispatcher.dispatchPending(checkpoint);
+
+        // Then
+        assertEquals(0, processed);
+        assertTrue(handler.handled.isEmpty());
+    }
+
+    @Test
+    void dispatchPending_ShouldParkEventAfterMaxAttempts() throws Exception {
+        // Given
+        HabitChanged failing = new HabitChanged(UUID.randomUUID(), UUID.randomUUID(), HabitChanged.Change.DELETED);
+        handler.failOn = failing;
+        OutboxEvent event = outboxEvent(failing);
+        event.setAttempts(2);
+        when(outboxEventRepository.findPending(any(), any())).thenReturn(List.of(event));
+
+        // When
+        dispatcher.dispatchPending(checkpoint);
+
+        // Then
+        verify(outboxEventRepository).recordFailure(eq(event.getId()), eq(OutboxStatus.FAILED), eq(3), any(), eq("boom"));
+        verify(dataVersionService, never()).markChanged(any());
+    }
+
+    @Test
+    void dispatchPending_ShouldNotRunHandlersForAnEventAlreadyDelivered() throws Exception {
+        // Given - an instance that lost the lease mid-batch delivered the event first
+        OutboxEvent event = outboxEvent(new HabitChanged(UUID.randomUUID(), UUID.randomUUID(), HabitChanged.Change.CREATED));
+        when(outboxEventRepository.findPending(any(), any())).thenReturn(List.of(event));
+        when(outboxEventRepository.markProcessed(eq(event.getId()), any())).thenReturn(0);
+
+        // When
+        int processed = dispatcher.dispatchPending(checkpoint);
+
+        // Then
+        assertEquals(0, processed);
+        assertTrue(handler.handled.isEmpty());
+        verify(outboxEventRepository, never()).recordFailure(any(), any(), anyInt(), any(), any());
+    }
+
+    @Test
+    void dispatchPending_ShouldStopDeliveringOnceTheLeaseIsLost() throws Exception {
+        // Given - another instance takes the lease over after the first delivery
+        OutboxEvent first = outboxEvent(new HabitChanged(UUID.randomUUID(), UUID.randomUUID(), HabitChanged.Change.CREATED));
+        OutboxEvent second = outboxEvent(new HabitChanged(UUID.randomUUID(), UUID.randomUUID(), HabitChanged.Change.CREATED));
+        when(outboxEventRepository.findPending(any(), any())).thenReturn(List.of(first, second));
+        doNothing().doThrow(new LeaseLostException("outbox-dispatch")).when(checkpoint).fence();
+
+        // When / Then - the fenced delivery is neither made nor recorded as a failure
+        assertThrows(LeaseLostException.class, () -> dispatcher.dispatchPending(checkpoint));
+        assertEquals(1, handler.handled.size());
+        verify(outboxEventRepository, never()).recordFailure(any(), any(), anyInt(), any(), any());
+    }
+
+    private OutboxEvent outboxEvent(DomainEvent event) throws Exception {
+        OutboxEvent outboxEvent = new OutboxEvent(event.userId(), event.getClass().getSimpleName(),
+                objectMapper.writeValueAsString(event));
+        outboxEvent.setId(++nextId);
+        return outboxEvent;
+    }
+
+    private static class RecordingHandler implements DomainEventHandler {
+
+        private final List<DomainEvent> handled = new ArrayList<>();
+        private DomainEvent failOn;
+
+        @Override
+        public Set<Class<? extends DomainEvent>> eventTypes() {
+            return Set.of(HabitCompletionToggled.class, HabitChanged.class);
+        }
+
+        @Override
+        public void handle(DomainEvent event) {
+            if (event.equals(failOn)) {
+                throw new IllegalStateException("boom");
+            }
+            handled.add(event);
+        }
+    }
+
+    private static class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,48 @@
+// ABOUT_ME: Unit tests for the habit_completions partition maintenance job
+// ABOUT_ME: Checks partition naming, month ranges and the generated DDL as text; the tests run on H2, so no DDL is executed
+package com.epicgoals.api.job;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompletionPartitionJobTest {
+
+    @Test
+    void monthsToEnsure_ShouldIncludeCurrentAndUpcomingMonths() {
+        List<YearMonth> months = CompletionPartitionJob.monthsToEnsure(YearMonth.of(2024, 11), 3);
+
+        assertEquals(List.of(YearMonth.of(2024, 11), YearMonth.of(2024, 12),
+                YearMonth.of(2025, 1), YearMonth.of(2025, 2)), months);
+    }
+
+    @Test
+    void partitionName_ShouldBeZeroPadded() {
+        assertEquals("habit_completions_y2025m03", CompletionPartitionJob.partitionName(YearMonth.of(2025, 3)));
+    }
+
+    @Test
+    void createPartitionSql_ShouldUseHalfOpenMonthBounds() {
+        String sql = CompletionPartitionJob.createPartitionSql(YearMonth.of(2024, 12));
+
+        assertEquals("CREATE TABLE IF NOT EXISTS habit_completions_y2024m12 PARTITION OF habit_completions "
+                + "FOR VALUES FROM ('2024-12-01') TO ('2025-01-01')", sql);
+    }
+
+    @Test
+    void createPartitionFromDefaultSql_ShouldMoveTheMonthsRowsWhileTheDefaultIsDetached() {
+        List<String> sql = CompletionPartitionJob.createPartitionFromDefaultSql(YearMonth.of(2025, 2));
+
+        assertEquals(List.of(
+                "ALTER TABLE habit_completions DETACH PARTITION habit_completions_default",
+                "CREATE TABLE IF NOT EXISTS habit_completions_y2025m02 PARTITION OF habit_completions "
+                        + "FOR VALUES FROM ('2025-02-01') TO ('2025-03-01')",
+                "INSERT INTO habit_completions_y2025m02 SELECT * FROM habit_completions_default "
+                        + "WHERE date >= '2025-02-01' AND date < '2025-03-01'",
+                "DELETE FROM habit_completions_default WHERE date >= '2025-02-01' AND date < '2025-03-01'",
+                "ALTER TABLE habit_completions ATTACH PARTITION habit_completions_default DEFAULT"), sql);
+    }
+}
@@ -0,0 +1,168 @@
+// ABOUT_ME: Integration tests for job leases and the coordinator that shards scheduled work across instances
+// ABOUT_ME: Verifies exclusive claims, fencing on takeover and at batch checkpoints, once-per-run shards and user-id range coverage
+package com.epicgoals.api.job;
+
+import com.epicgoals.api.dto.UserIdRange;
+import com.epicgoals.api.service.JobLeaseService;
+import com.epicgoals.api.service.JobLeaseService.Lease;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class JobCoordinatorTest {
+
+    private static final Duration TTL = Duration.ofSeconds(30);
+
+    @Autowired
+    private JobLeaseService jobLeaseService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void claim_ShouldBeRefusedWhileAnotherInstanceHoldsTheLease() {
+        // Given
+        String job = "test-" + UUID.randomUUID();
+        Lease held = jobLeaseService.claim(job, "node-a", null, TTL).orElseThrow();
+
+        // When
+        Optional<Lease> other = jobLeaseService.claim(job, "node-b", null, TTL);
+
+        // Then
+        assertTrue(other.isEmpty());
+        assertTrue(jobLeaseService.renew(held, TTL).isPresent());
+    }
+
+    @Test
+    void claim_ShouldFenceOffThePreviousOwnerOnTakeover() {
+        // Given - node-a stops renewing and its lease runs out
+        String job = "test-" + UUID.randomUUID();
+        Lease stale = jobLeaseService.claim(job, "node-a", null, Duration.ZERO).orElseThrow();
+
+        // When
+        Lease taken = jobLeaseService.claim(job, "node-b", null, TTL).orElseThrow();
+
+        // Then - node-a can neither renew nor release what node-b now holds
+        assertEquals(stale.fencingToken() + 1, taken.fencingToken());
+        assertTrue(jobLeaseService.renew(stale, TTL).isEmpty());
+        assertFalse(jobLeaseService.release(stale, null));
+        assertTrue(jobLeaseService.release(taken, null));
+    }
+
+    @Test
+    void claimForRun_ShouldSkipShardsAlreadyFinishedInTheRun() {
+        // Given
+        String shard = "test-" + UUID.randomUUID() + "#0";
+        Lease lease = jobLeaseService.claim(shard, "node-a", "run-1", TTL).orElseThrow();
+        jobLeaseService.release(lease, "run-1");
+
+        // When / Then
+        assertTrue(jobLeaseService.claim(shard, "node-b", "run-1", TTL).isEmpty());
+        assertEquals(1, jobLeaseService.completedForRun(List.of(shard), "run-1").size());
+        assertTrue(jobLeaseService.claim(shard, "node-b", "run-2", TTL).isPresent());
+    }
+
+    @Test
+    void runSharded_ShouldTakeOverExpiredShardsAndProcessEachOncePerRun() {
+        // Given - a dead instance left shard 3 claimed mid-run
+        String job = "test-" + UUID.randomUUID();
+        jobLeaseService.claim(job + "#3", "dead-node", "run-1", Duration.ZERO);
+        JobCoordinator coordinator = new JobCoordinator(jobLeaseService, TTL.toMillis());
+        List<UserIdRange> ranges = new ArrayList<>();
+
+        // When
+        int first = coordinator.runSharded(job, "run-1", 8, (users, checkpoint) -> {
+            checkpoint.check();
+            ranges.add(users);
+        });
+        int again = coordinator.runSharded(job, "run-1", 8, (users, checkpoint) -> ranges.add(users));
+
+        // Then
+        assertEquals(8, first);
+        assertEquals(0, again);
+        assertEquals(8, new HashSet<>(ranges).size());
+        assertTrue(ranges.contains(UserIdRange.shard(3, 8)));
+    }
+
+    @Test
+    void runExclusive_ShouldRunEveryBatchWhileTheLeaseIsHeld() {
+        // Given
+        String job = "test-" + UUID.randomUUID();
+        JobCoordinator coordinator = new JobCoordinator(jobLeaseService, TTL.toMillis());
+        List<Integer> batches = new ArrayList<>();
+
+        // When
+        boolean finished = coordinator.runExclusive(job, checkpoint -> {
+            for (int batch = 0; batch < 3; batch++) {
+                checkpoint.check();
+                checkpoint.fence();
+                batches.add(batch);
+            }
+        });
+
+        // Then
+        assertTrue(finished);
+        assertEquals(List.of(0, 1, 2), batches);
+    }
+
+    @Test
+    void runExclusive_ShouldFenceOffBatchesOnceAnotherInstanceTookTheLeaseOver() {
+        // Given
+        String job = "test-" + UUID.randomUUID();
+        JobCoordinator coordinator = new JobCoordinator(jobLeaseService, TTL.toMillis());
+        List<Integer> batches = new ArrayList<>();
+
+        // When - after the first batch this instance stalls past its lease and node-b claims the job
+        boolean finished = coordinator.runExclusive(job, checkpoint -> {
+            for (int batch = 0; batch < 3; batch++) {
+                checkpoint.check();
+                checkpoint.fence();
+                batches.add(batch);
+                if (batch == 0) {
+                    jdbcTemplate.update("UPDATE job_leases SET expires_at = ? WHERE name = ?",
+                            Timestamp.from(Instant.now().minusSeconds(1)), job);
+                    jobLeaseService.claim(job, "node-b", null, TTL).orElseThrow();
+                }
+            }
+        });
+
+        // Then - its own view of the lease had not expired yet, but the stale token stopped the next batch
+        assertFalse(finished);
+        assertEquals(List.of(0), batches);
+    }
+
+    @Test
+    void shards_ShouldCoverTheIdSpaceInDatabaseOrder() {
+        // Given
+        int count = 5;
+
+        // When / Then - consecutive shards meet exactly, from the lowest to the highest id
+        assertEquals(UserIdRange.all().afterId(), UserIdRange.shard(0, count).afterId());
+        assertEquals(UserIdRange.all().lastId(), UserIdRange.shard(count - 1, count).lastId());
+        for (int i = 1; i < count; i++) {
+            assertEquals(UserIdRange.shard(i - 1, count).lastId(), UserIdRange.shard(i, count).afterId());
+        }
+        // The database compares ids as unsigned, so the upper half of the id space sorts last
+        UUID lowerHalf = UserIdRange.shard(0, 2).lastId();
+        UUID upperHalf = UserIdRange.shard(1, 2).lastId();
+        assertEquals(Boolean.TRUE, jdbcTemplate.queryForObject("SELECT CAST(? AS UUID) < CAST(? AS UUID)",
+                Boolean.class, lowerHalf.toString(), upperHalf.toString()));
+    }
+}
@@ -0,0 +1,264 @@
+// ABOUT_ME: Integration tests enforcing SQL statement budgets on the hottest service paths
+// ABOUT_ME: Fails when a code path starts issuing per-row queries (N+1) instead of a fixed number of statements
+package com.epicgoals.api.monitoring;
+
+import com.epicgoals.api.dto.HabitDto;
+import com.epicgoals.api.dto.RegisterRequest;
+import com.epicgoals.api.dto.UserIdRange;
+import com.epicgoals.api.dto.WeeklyScoreDto;
+import com.epicgoals.api.entity.Category;
+import com.epicgoals.api.entity.Goal;
+import com.epicgoals.api.entity.GoalTimeframe;
+import com.epicgoals.api.entity.GoalType;
+import com.epicgoals.api.entity.Habit;
+import com.epicgoals.api.entity.HabitCompletion;
+import com.epicgoals.api.entity.User;
+import com.epicgoals.api.entity.UserTrendStats;
+import com.epicgoals.api.event.OutboxDispatcher;
+import com.epicgoals.api.job.JobCoordinator.Checkpoint;
+import com.epicgoals.api.repository.CategoryRepository;
+import com.epicgoals.api.repository.GoalRepository;
+import com.epicgoals.api.repository.HabitCompletionRepository;
+import com.epicgoals.api.repository.HabitRepository;
+import com.epicgoals.api.repository.UserRepository;
+import com.epicgoals.api.repository.UserTrendStatsRepository;
+import com.epicgoals.api.service.AuthService;
+import com.epicgoals.api.service.CategoryService;
+import com.epicgoals.api.service.GoalService;
+import com.epicgoals.api.service.HeatmapService;
+import com.epicgoals.api.service.HabitService;
+import com.epicgoals.api.service.ScoreService;
+import com.epicgoals.api.service.StreakService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class QueryBudgetTest {
+
+    // Dispatch runs under the job lease in production; no other instance competes for it here
+    private final Checkpoint lease = mock(Checkpoint.class);
+
+    private static final int HABIT_COUNT = 12;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private HabitRepository habitRepository;
+
+    @Autowired
+    private HabitCompletionRepository habitCompletionRepository;
+
+    @Autowired
+    private GoalRepository goalRepository;
+
+    @Autowired
+    private HabitService habitService;
+
+    @Autowired
+    private GoalService goalService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ScoreService scoreService;
+
+    @Autowired
+    private StreakService streakService;
+
+    @Autowired
+    private HeatmapService heatmapService;
+
+    @Autowired
+    private UserTrendStatsRepository userTrendStatsRepository;
+
+    @Autowired
+    private OutboxDispatcher outboxDispatcher;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private User testUser;
+    private List<Habit> habits;
+
+    @BeforeEach
+    void setUp() {
+        testUser = userRepository.save(new User("budget@example.com", "hashedPassword"));
+
+        // One category per habit so lazy category loading would cost one query per row
+        habits = new ArrayList<>();
+        LocalDate monday = LocalDate.now().with(DayOfWeek.MONDAY);
+        for (int i = 0; i < HABIT_COUNT; i++) {
+            Category category = categoryRepository.save(new Category(testUser, "Category " + i, false));
+            Habit habit = habitRepository.save(new Habit(testUser, category, "Habit " + i, 5));
+            goalRepository.save(new Goal(testUser, category, GoalTimeframe.TWELVE_WEEK, GoalType.QUANTIFIABLE,
+                    "Goal " + i, null, "{\"value\": 10, \"unit\": \"km\"}"));
+            habitCompletionRepository.save(new HabitCompletion(habit, monday, true));
+            habits.add(habit);
+        }
+        streakService.rebuildAll();
+        heatmapService.rebuildUsers(UserIdRange.all(), Integer.MAX_VALUE);
+        userTrendStatsRepository.save(new UserTrendStats(testUser.getId()));
+    }
+
+    @Test
+    void getUserHabits_ShouldUseSingleQuery() {
+        AtomicReference<List<HabitDto>> result = new AtomicReference<>();
+        int statements = measure(() -> result.set(habitService.getUserHabits(testUser)));
+
+        assertEquals(HABIT_COUNT, result.get().size());
+        assertEquals("Category 0", result.get().get(0).getCategoryName());
+        assertEquals(1, statements, "getUserHabits issued " + statements + " statements");
+    }
+
+    @Test
+    void goalLists_ShouldUseSingleQuery() {
+        int statements = measure(() -> goalService.getUserGoals(testUser));
+        assertEquals(1, statements, "getUserGoals issued " + statements + " statements");
+
+        statements = measure(() -> goalService.getUserGoalsByTimeframe(testUser, GoalTimeframe.TWELVE_WEEK));
+        assertEquals(1, statements, "getUserGoalsByTimeframe issued " + statements + " statements");
+    }
+
+    @Test
+    void getCurrentWeekScore_ShouldStayWithinBudget() {
+        int statements = measure(() -> scoreService.getCurrentWeekScore(testUser));
+
+        // habits + completions + trend row lock and write + snapshot upsert (MERGE and read-back on H2)
+        // + leaderboard fan-out
+        assertTrue(statements <= 7, "getCurrentWeekScore issued " + statements + " statements");
+    }
+
+    @Test
+    void scoreSeries_ShouldNotScaleWithWeeks() {
+        // A year-old account with no stored snapshots yet
+        testUser.setCreatedAt(Instant.now().minus(Duration.ofDays(400)));
+
+        AtomicReference<List<WeeklyScoreDto>> result = new AtomicReference<>();
+        int statements = measure(() -> result.set(scoreService.getScoreSeries(testUser, 52)));
+
+        // stored snapshots + current and superseded definitions + completions + one batched insert
+        // + trend row lock and write + leaderboard fan-out for the current week + data version bump
+        assertEquals(52, result.get().size());
+        assertTrue(statements <= 9, "filling a 52-week series issued " + statements + " statements");
+
+        statements = measure(() -> scoreService.getScoreSeries(testUser, 52));
+        assertEquals(1, statements, "reading a stored 52-week series issued " + statements + " statements");
+    }
+
+    @Test
+    void getHabitCompletions_ShouldStayWithinBudget() {
+        LocalDate monday = LocalDate.now().with(DayOfWeek.MONDAY);
+
+        int statements = measure(() ->
+                habitService.getHabitCompletions(testUser, habits.get(0).getId(), monday, monday.plusDays(6)));
+
+        // habit ownership lookup + completions
+        assertEquals(2, statements, "getHabitCompletions issued " + statements + " statements");
+    }
+
+    @Test
+    void toggleHabitCompletion_ShouldNotScaleWithHabitCount() {
+        LocalDate date = LocalDate.now().with(DayOfWeek.MONDAY).plusDays(1);
+
+        int statements = measure(() -> habitService.toggleHabitCompletion(testUser, habits.get(0).getId(), date));
+
+        // upsert (MERGE and read-back on H2) + outbox insert + data version bump; derived data is updated
+        // by the dispatcher
+        assertTrue(statements <= 4, "toggleHabitCompletion issued " + statements + " statements");
+    }
+
+    @Test
+    void completionEventDelivery_ShouldNotScaleWithHabitCount() {
+        LocalDate date = LocalDate.now().with(DayOfWeek.MONDAY).plusDays(1);
+        habitService.toggleHabitCompletion(testUser, habits.get(0).getId(), date);
+
+        int statements = measure(() -> assertEquals(1, outboxDispatcher.dispatchPending(lease)));
+
+        // pending batch + streak lock, neighbours, summary and run writes + trend row lock and write
+        // + heatmap row lock, month lookup and both writes + week recalculation (4) + mark processed
+        // + data version bump; must not grow with the number of habits
+        assertTrue(statements <= 19, "completion event delivery issued " + statements + " statements");
+    }
+
+    @Test
+    void deleteHabit_ShouldNotScaleWithHistory() {
+        Habit habit = habits.get(0);
+        LocalDate monday = LocalDate.now().with(DayOfWeek.MONDAY);
+        for (int week = 1; week <= 20; week++) {
+            habitCompletionRepository.save(new HabitCompletion(habit, monday.minusWeeks(week), true));
+        }
+
+        int statements = measure(() -> habitService.deleteHabit(testUser, habit.getId()));
+
+        // habit lookup + tombstone update + outbox insert + data version bump; history is left to the purge job
+        assertTrue(statements <= 4, "deleteHabit issued " + statements + " statements");
+    }
+
+    @Test
+    void deleteCategory_ShouldNotScaleWithHabitsOrGoals() {
+        Category shared = categoryRepository.save(new Category(testUser, "Shared", false));
+        for (int i = 0; i < HABIT_COUNT; i++) {
+            habitRepository.save(new Habit(testUser, shared, "Shared habit " + i, 3));
+            goalRepository.save(new Goal(testUser, shared, GoalTimeframe.ONE_WEEK, GoalType.QUANTIFIABLE,
+                    "Shared goal " + i, null, null));
+        }
+
+        int statements = measure(() -> categoryService.deleteCategory(testUser, shared.getId()));
+
+        // category lookup + default lookup + Uncategorized insert + habit, habit version and goal
+        // reassignment + category delete + outbox insert + data version bump
+        assertTrue(statements <= 9, "deleteCategory issued " + statements + " statements");
+    }
+
+    @Test
+    void register_ShouldProvisionDefaultsInOneBatch() {
+        RegisterRequest request = new RegisterRequest("fresh@example.com", "password123", "password123");
+
+        int statements = measure(() -> authService.register(request));
+
+        // user insert + one batched insert of the default categories + refresh token insert;
+        // no email or category existence checks
+        User registered = userRepository.findByEmail("fresh@example.com").orElseThrow();
+        assertEquals(5, categoryRepository.findByUserOrderByName(registered).size());
+        assertTrue(statements <= 3, "register issued " + statements + " statements");
+    }
+
+    private int measure(Runnable action) {
+        entityManager.flush();
+        entityManager.clear();
+        QueryCountHolder.reset();
+
+        action.run();
+        entityManager.flush();
+
+        int statements = QueryCountHolder.get();
+        QueryCountHolder.clear();
+        return statements;
+    }
+}
@@ -0,0 +1,101 @@
+// ABOUT_ME: Unit tests for LiveEventPublisher fan-out across instances over the cache invalidation channel
+// ABOUT_ME: Two publishers with their own registries and buses on one in-process transport stand in for two API instances
+package com.epicgoals.api.realtime;
+
+import com.epicgoals.api.cache.CacheInvalidationBus;
+import com.epicgoals.api.cache.LocalCacheInvalidationTransport;
+import com.epicgoals.api.realtime.LiveEventRegistryTest.CapturingEmitter;
+import com.epicgoals.api.realtime.LiveEventRegistryTest.ManualExecutor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LiveEventPublisherTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final LocalCacheInvalidationTransport transport = new LocalCacheInvalidationTransport();
+
+    private ManualExecutor executorA;
+    private ManualExecutor executorB;
+    private LiveEventRegistry registryA;
+    private LiveEventRegistry registryB;
+    private CacheInvalidationBus busB;
+    private LiveEventPublisher publisherA;
+    private UUID userId;
+
+    @BeforeEach
+    void setUp() {
+        executorA = new ManualExecutor();
+        executorB = new ManualExecutor();
+        registryA = new LiveEventRegistry(executorA, objectMapper, 60_000, 8, 8);
+        registryB = new LiveEventRegistry(executorB, objectMapper, 60_000, 8, 8);
+        publisherA = new LiveEventPublisher(registryA,
+                new CacheInvalidationBus(new ConcurrentMapCacheManager(), transport), objectMapper);
+        busB = new CacheInvalidationBus(new ConcurrentMapCacheManager(), transport);
+        new LiveEventPublisher(registryB, busB, objectMapper);
+        userId = UUID.randomUUID();
+    }
+
+    @Test
+    void publish_ShouldReachConnectionsOnEveryInstanceOnce() {
+        // Given - the user's phone is connected to instance A and the laptop to instance B
+        CapturingEmitter phone = register(registryA, userId);
+        CapturingEmitter laptop = register(registryB, userId);
+        CapturingEmitter stranger = register(registryB, UUID.randomUUID());
+
+        // When - instance A commits a change
+        publisherA.publish(userId, LiveEvent.GOAL, new Goal("Run 5k", LocalDate.of(2025, 3, 1)));
+        executorA.runAll();
+        executorB.runAll();
+
+        // Then - both devices get the same frame, each from its own instance
+        assertEquals(List.of("id:1\nevent:goal\ndata:{\"title\":\"Run 5k\",\"due\":\"2025-03-01\"}\n\n"), phone.sent);
+        assertArrayEquals(phone.bytes(), laptop.bytes());
+        assertTrue(stranger.sent.isEmpty());
+    }
+
+    @Test
+    void publish_ShouldNotEchoBackToTheSendingInstance() {
+        // Given
+        CapturingEmitter phone = register(registryA, userId);
+
+        // When
+        publisherA.publish(userId, LiveEvent.SCORE, 80);
+        publisherA.publish(userId, LiveEvent.SCORE, 85);
+        executorA.runAll();
+
+        // Then - delivered locally once each, in order
+        assertEquals(List.of("id:1\nevent:score\ndata:80\n\n", "id:2\nevent:score\ndata:85\n\n"), phone.sent);
+    }
+
+    @Test
+    void missedMessages_ShouldNotSendAnythingToConnections() {
+        // Given
+        CapturingEmitter laptop = register(registryB, userId);
+
+        // When - instance B reconnects to the channel and may have missed events
+        busB.onMissedMessages();
+        executorB.runAll();
+
+        // Then
+        assertTrue(laptop.sent.isEmpty());
+        assertEquals(1, registryB.connectionCount(userId));
+    }
+
+    private CapturingEmitter register(LiveEventRegistry registry, UUID owner) {
+        CapturingEmitter emitter = new CapturingEmitter();
+        registry.register(owner, emitter);
+        return emitter;
+    }
+
+    private record Goal(String title, LocalDate due) {}
+}
@@ -0,0 +1,235 @@
+// ABOUT_ME: Unit tests for LiveEventRegistry covering per-user fan-out, bounded buffers and connection cleanup
+// ABOUT_ME: Uses a capturing emitter and a manually drained executor instead of real HTTP connections; both are shared with other realtime tests
+package com.epicgoals.api.realtime;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LiveEventRegistryTest {
+
+    private ManualExecutor executor;
+    private LiveEventRegistry registry;
+    private UUID userId;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ManualExecutor();
+        registry = new LiveEventRegistry(executor, new ObjectMapper(), 60_000, 3, 2);
+        userId = UUID.randomUUID();
+    }
+
+    @Test
+    void publish_ShouldDeliverOnlyToConnectionsOfThatUser() {
+        // Given
+        CapturingEmitter phone = register(userId);
+        CapturingEmitter laptop = register(userId);
+        CapturingEmitter stranger = register(UUID.randomUUID());
+
+        // When
+        registry.publish(userId, new LiveEvent(LiveEvent.SCORE, 80));
+        executor.runAll();
+
+        // Then
+        assertEquals(List.of("id:1\nevent:score\ndata:80\n\n"), phone.sent);
+        assertEquals(List.of("id:1\nevent:score\ndata:80\n\n"), laptop.sent);
+        assertTrue(stranger.sent.isEmpty());
+    }
+
+    @Test
+    void publish_ShouldSendIdenticalFramesToEveryConnectionOfTheUser() {
+        // Given
+        CapturingEmitter phone = register(userId);
+        CapturingEmitter laptop = register(userId);
+
+        // When
+        registry.publish(userId, new LiveEvent(LiveEvent.GOAL, Map.of("title", "Run 5k")));
+        registry.publish(userId, new LiveEvent(LiveEvent.SCORE, Map.of("score", 72)));
+        executor.runAll();
+
+        // Then - same ids, names and JSON bytes on both devices, in publish order
+        List<String> expected = List.of(
+                "id:1\nevent:goal\ndata:{\"title\":\"Run 5k\"}\n\n",
+                "id:2\nevent:score\ndata:{\"score\":72}\n\n");
+        assertEquals(expected, phone.sent);
+        assertEquals(expected, laptop.sent);
+        assertArrayEquals(phone.bytes(), laptop.bytes());
+    }
+
+    @Test
+    void publish_ShouldDropOldestEventsWhenConnectionFallsBehind() {
+        // Given
+        CapturingEmitter phone = register(userId);
+
+        // When - five events queue up before the dispatcher gets to run
+        for (int i = 0; i < 5; i++) {
+            registry.publish(userId, new LiveEvent(LiveEvent.SCORE, i));
+        }
+        executor.runAll();
+
+        // Then - only the newest three (buffer size) are delivered, in order
+        assertEquals(3, phone.sent.size());
+        assertTrue(phone.sent.get(0).contains("id:3"));
+        assertTrue(phone.sent.get(2).contains("id:5"));
+        assertEquals(1, executor.scheduled, "one drain task per connection while events are pending");
+    }
+
+    @Test
+    void publish_ShouldRemoveConnectionWhenSendFails() {
+        // Given
+        CapturingEmitter phone = register(userId);
+        phone.failing = true;
+
+        // When
+        registry.publish(userId, new LiveEvent(LiveEvent.GOAL, "x"));
+        executor.runAll();
+
+        // Then
+        assertEquals(0, registry.connectionCount(userId));
+    }
+
+    @Test
+    void register_ShouldCloseOldestConnectionWhenUserExceedsLimit() {
+        // Given
+        register(userId);
+        register(userId);
+
+        // When
+        register(userId);
+
+        // Then
+        assertEquals(2, registry.connectionCount(userId));
+    }
+
+    @Test
+    void register_ShouldKeepNewConnectionWhenUsersLastConnectionIsRemovedConcurrently() throws Exception {
+        for (int i = 0; i < 2_000; i++) {
+            // Given - the only connection is about to fail its next write
+            UUID owner = UUID.randomUUID();
+            register(owner).failing = true;
+            registry.publish(owner, new LiveEvent(LiveEvent.SCORE, i));
+            CyclicBarrier start = new CyclicBarrier(2);
+
+            // When - the failed write removes it while the same user reconnects
+            Thread dropper = new Thread(() -> {
+                await(start);
+                executor.runAll();
+            });
+            dropper.start();
+            await(start);
+            register(owner);
+            dropper.join();
+
+            // Then
+            assertEquals(1, registry.connectionCount(owner), "reconnect must not land in a discarded set");
+        }
+    }
+
+    @Test
+    void heartbeat_ShouldSendCommentToEveryConnection() {
+        // Given
+        CapturingEmitter phone = register(userId);
+
+        // When
+        registry.heartbeat();
+        executor.runAll();
+
+        // Then
+        assertEquals(1, phone.sent.size());
+        assertTrue(phone.sent.get(0).startsWith(":heartbeat"));
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await();
+        } catch (InterruptedException | BrokenBarrierException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private CapturingEmitter register(UUID owner) {
+        CapturingEmitter emitter = new CapturingEmitter();
+        registry.register(owner, emitter);
+        return emitter;
+    }
+
+    static class CapturingEmitter extends SseEmitter {
+
+        final List<String> sent = new ArrayList<>();
+        private boolean failing;
+
+        @Override
+        public void send(Set<DataWithMediaType> frame) throws IOException {
+            if (failing) {
+                throw new IOException("Broken pipe");
+            }
+            // Every part is text: the SSE fields and the payload the registry already serialized
+            StringBuilder text = new StringBuilder();
+            frame.forEach(part -> text.append((String) part.getData()));
+            sent.add(text.toString());
+        }
+
+        byte[] bytes() {
+            return String.join("", sent).getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    static class ManualExecutor extends AbstractExecutorService {
+
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+        private int scheduled;
+
+        @Override
+        public void execute(Runnable command) {
+            scheduled++;
+            tasks.add(command);
+        }
+
+        void runAll() {
+            while (!tasks.isEmpty()) {
+                tasks.poll().run();
+            }
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return List.of();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+// ABOUT_ME: Integration tests that EXPLAIN the hot repository queries and assert they use index access paths
+// ABOUT_ME: Guards the entity-declared index plan (PERF-005) against sequential scans on H2
+package com.epicgoals.api.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class IndexUsageTest {
+
+    private static final String USER_ID = "'" + UUID.randomUUID() + "'";
+    private static final String OTHER_ID = "'" + UUID.randomUUID() + "'";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void activeHabitList_ShouldUseUserActiveIndex() {
+        assertUsesIndex("SELECT * FROM habits WHERE user_id = " + USER_ID + " AND is_active = TRUE ORDER BY name",
+                "IDX_HABITS_USER_ACTIVE_NAME");
+    }
+
+    @Test
+    void habitsByCategory_ShouldUseCategoryIndex() {
+        assertUsesIndex("SELECT * FROM habits WHERE category_id = " + OTHER_ID,
+                "IDX_HABITS_CATEGORY");
+    }
+
+    @Test
+    void completionRange_ShouldUseHabitDateIndex() {
+        assertUsesIndex("SELECT * FROM habit_completions WHERE habit_id = " + USER_ID
+                + " AND date BETWEEN DATE '2024-01-01' AND DATE '2024-01-07'",
+                "UK_HABIT_COMPLETIONS_HABIT_DATE");
+    }
+
+    @Test
+    void scoringAggregate_ShouldUseHabitDateIndex() {
+        assertUsesIndex("SELECT habit_id, COUNT(*) FROM habit_completions WHERE habit_id IN (" + USER_ID + ", " + OTHER_ID
+                + ") AND date BETWEEN DATE '2024-01-01' AND DATE '2024-01-07' AND completed = TRUE GROUP BY habit_id",
+                "UK_HABIT_COMPLETIONS_HABIT_DATE");
+    }
+
+    @Test
+    void goalsByTimeframe_ShouldUseTimeframeIndex() {
+        assertUsesIndex("SELECT * FROM goals WHERE user_id = " + USER_ID + " AND timeframe = 'TWELVE_WEEK' AND is_active = TRUE",
+                "IDX_GOALS_USER_TIMEFRAME_ACTIVE");
+    }
+
+    @Test
+    void childGoals_ShouldUseParentIndex() {
+        assertUsesIndex("SELECT * FROM goals WHERE user_id = " + USER_ID + " AND parent_goal_id = " + OTHER_ID
+                + " AND is_active = TRUE",
+                "IDX_GOALS_USER_PARENT_ACTIVE");
+    }
+
+    @Test
+    void categoryNameLookup_ShouldUseUniqueUserNameIndex() {
+        assertUsesIndex("SELECT COUNT(*) FROM categories WHERE user_id = " + USER_ID + " AND name = 'Health'",
+                "UK_CATEGORIES_USER_NAME");
+    }
+
+    @Test
+    void weeklyScoreHistory_ShouldUseUserWeekIndex() {
+        assertUsesIndex("SELECT * FROM weekly_scores WHERE user_id = " + USER_ID
+                + " AND week_start_date >= DATE '2024-01-01' ORDER BY week_start_date DESC",
+                "UK_WEEKLY_SCORES_USER_WEEK");
+    }
+
+    private void assertUsesIndex(String sql, String expectedIndex) {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+
+        assertNotNull(plan);
+        assertFalse(plan.contains("tableScan"), "Expected index access but got a table scan:\n" + plan);
+        assertTrue(plan.toUpperCase().contains(expectedIndex), "Expected " + expectedIndex + " in plan:\n" + plan);
+    }
+}
@@ -2,11 +2,14 @@
 // ABOUT_ME: Tests token generation, validation, parsing, and claims extraction
 package com.epicgoals.api.security;
 
+import com.epicgoals.api.entity.RefreshToken;
 import com.epicgoals.api.entity.User;
 import io.jsonwebtoken.Claims;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -16,6 +19,7 @@ class JwtServiceTest {
     
     private JwtService jwtService;
     private User testUser;
+    private final UUID familyId = UUID.randomUUID();
     
     @BeforeEach
     void setUp() {
@@ -28,25 +32,32 @@ class JwtServiceTest {
     
     @Test
     void shouldGenerateValidAccessToken() {
-        String token = jwtService.generateAccessToken(testUser);
+        String token = jwtService.generateAccessToken(testUser, familyId);
         
         assertThat(token).isNotEmpty();
         assertThat(jwtService.isTokenValid(token)).isTrue();
         assertThat(jwtService.extractTokenType(token)).isEqualTo("access");
+        assertThat(jwtService.extractFamilyId(jwtService.parseToken(token))).isEqualTo(familyId);
     }
     
     @Test
     void shouldGenerateValidRefreshToken() {
-        String token = jwtService.generateRefreshToken(testUser);
+        RefreshToken stored = new RefreshToken(testUser.getId(), UUID.randomUUID(), Instant.now().plus(Duration.ofDays(30)));
+        stored.setId(UUID.randomUUID());
+        String token = jwtService.generateRefreshToken(testUser, stored);
         
         assertThat(token).isNotEmpty();
         assertThat(jwtService.isTokenValid(token)).isTrue();
         assertThat(jwtService.extractTokenType(token)).isEqualTo("refresh");
+        
+        Claims claims = jwtService.parseToken(token);
+        assertThat(jwtService.extractTokenId(claims)).isEqualTo(stored.getId());
+        assertThat(jwtService.extractFamilyId(claims)).isEqualTo(stored.getFamilyId());
     }
     
     @Test
     void shouldExtractCorrectClaims() {
-        String token = jwtService.generateAccessToken(testUser);
+        String token = jwtService.generateAccessToken(testUser, familyId);
         
         UUID extractedUserId = jwtService.extractUserId(token);
         String extractedEmail = jwtService.extractEmail(token);
@@ -57,7 +68,7 @@ class JwtServiceTest {
     
     @Test
     void shouldParseTokenClaims() {
-        String token = jwtService.generateAccessToken(testUser);
+        String token = jwtService.generateAccessToken(testUser, familyId);
         
         Claims claims = jwtService.parseToken(token);
         
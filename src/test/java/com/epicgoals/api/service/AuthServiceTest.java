@@ -0,0 +1,79 @@
+// ABOUT_ME: Unit tests for AuthService registration error mapping
+// ABOUT_ME: Verifies only the unique email constraint is reported as a taken email; other violations surface as they are
+package com.epicgoals.api.service;
+
+import com.epicgoals.api.dto.RegisterRequest;
+import com.epicgoals.api.entity.User;
+import com.epicgoals.api.repository.UserRepository;
+import com.epicgoals.api.security.JwtService;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AuthServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @Mock
+    private CategoryService categoryService;
+
+    @Mock
+    private RefreshTokenService refreshTokenService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final RegisterRequest request = new RegisterRequest("test@example.com", "TestPass123", "TestPass123");
+
+    private AuthService authService;
+
+    @BeforeEach
+    void setUp() {
+        JwtService jwtService = new JwtService("testSecretKey1234567890123456789012345678901234567890", 24, 30);
+        authService = new AuthService(userRepository, passwordEncoder, jwtService, categoryService,
+                refreshTokenService, transactionManager);
+    }
+
+    @Test
+    void register_ShouldReportATakenEmail() {
+        // Given - PostgreSQL names the constraint as declared
+        when(userRepository.saveAndFlush(any(User.class))).thenThrow(violationOf("uk_users_email"));
+
+        // When / Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> authService.register(request));
+        assertEquals("Email already registered", exception.getMessage());
+    }
+
+    @Test
+    void register_ShouldRethrowOtherViolations() {
+        // Given - a default category clashes, which says nothing about the email
+        when(userRepository.saveAndFlush(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        DataIntegrityViolationException violation = violationOf("uk_categories_user_name");
+        doThrow(violation).when(categoryService).provisionDefaultCategories(any(User.class));
+
+        // When / Then
+        assertSame(violation, assertThrows(DataIntegrityViolationException.class, () -> authService.register(request)));
+    }
+
+    private static DataIntegrityViolationException violationOf(String constraint) {
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("duplicate key", new SQLException("duplicate key", "23505"), constraint));
+    }
+}
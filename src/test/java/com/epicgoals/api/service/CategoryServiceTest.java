@@ -6,10 +6,13 @@ import com.epicgoals.api.dto.CategoryDto;
 import com.epicgoals.api.dto.CreateCategoryRequest;
 import com.epicgoals.api.dto.UpdateCategoryRequest;
 import com.epicgoals.api.entity.Category;
-import com.epicgoals.api.entity.Habit;
 import com.epicgoals.api.entity.User;
+import com.epicgoals.api.event.CategoryDeleted;
+import com.epicgoals.api.event.DomainEventPublisher;
 import com.epicgoals.api.repository.CategoryRepository;
+import com.epicgoals.api.repository.GoalRepository;
 import com.epicgoals.api.repository.HabitRepository;
+import com.epicgoals.api.repository.HabitVersionRepository;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -36,6 +39,18 @@ class CategoryServiceTest {
     @Mock
     private HabitRepository habitRepository;
 
+    @Mock
+    private HabitVersionRepository habitVersionRepository;
+
+    @Mock
+    private GoalRepository goalRepository;
+
+    @Mock
+    private UserDataVersionService dataVersionService;
+
+    @Mock
+    private DomainEventPublisher eventPublisher;
+
     @InjectMocks
     private CategoryService categoryService;
 
@@ -58,35 +73,46 @@ class CategoryServiceTest {
     @Test
     void createDefaultCategoriesForUser_ShouldCreateAllDefaultCategories() {
         // Given
-        when(categoryRepository.existsByUserAndName(eq(testUser), anyString())).thenReturn(false);
-        when(categoryRepository.save(any(Category.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(categoryRepository.findByUserOrderByName(testUser)).thenReturn(List.of());
 
         // When
         categoryService.createDefaultCategoriesForUser(testUser);
 
         // Then
-        verify(categoryRepository, times(5)).save(argThat(category -> 
-            category.getUser().equals(testUser) && 
-            category.getIsDefault() == true &&
-            Arrays.asList("Career", "Health", "Family", "Finances", "Wisdom").contains(category.getName())
+        verify(categoryRepository).saveAll(argThat((List<Category> categories) ->
+            categories.size() == 5 &&
+            categories.stream().allMatch(category ->
+                category.getUser().equals(testUser) &&
+                category.getIsDefault() == true &&
+                Arrays.asList("Career", "Health", "Family", "Finances", "Wisdom").contains(category.getName()))
         ));
+        verify(categoryRepository, never()).save(any(Category.class));
     }
 
     @Test
     void createDefaultCategoriesForUser_ShouldSkipExistingCategories() {
         // Given
-        when(categoryRepository.existsByUserAndName(testUser, "Health")).thenReturn(true);
-        when(categoryRepository.existsByUserAndName(testUser, "Career")).thenReturn(false);
-        when(categoryRepository.existsByUserAndName(testUser, "Family")).thenReturn(false);
-        when(categoryRepository.existsByUserAndName(testUser, "Finances")).thenReturn(false);
-        when(categoryRepository.existsByUserAndName(testUser, "Wisdom")).thenReturn(false);
+        when(categoryRepository.findByUserOrderByName(testUser)).thenReturn(List.of(defaultCategory));
 
         // When
         categoryService.createDefaultCategoriesForUser(testUser);
 
         // Then
-        verify(categoryRepository, times(4)).save(any(Category.class));
-        verify(categoryRepository, never()).save(argThat(category -> "Health".equals(category.getName())));
+        verify(categoryRepository).saveAll(argThat((List<Category> categories) ->
+            categories.size() == 4 &&
+            categories.stream().noneMatch(category -> "Health".equals(category.getName()))
+        ));
+    }
+
+    @Test
+    void provisionDefaultCategories_ShouldInsertAllDefaultsWithoutLookups() {
+        // When
+        categoryService.provisionDefaultCategories(testUser);
+
+        // Then
+        verify(categoryRepository).saveAll(argThat((List<Category> categories) -> categories.size() == 5));
+        verify(categoryRepository, never()).findByUserOrderByName(any());
+        verify(categoryRepository, never()).existsByUserAndName(any(), anyString());
     }
 
     @Test
@@ -170,28 +196,24 @@ class CategoryServiceTest {
     }
 
     @Test
-    void deleteCategory_ShouldDeleteAndReassignHabits() {
+    void deleteCategory_ShouldDeleteAndReassignHabitsAndGoals() {
         // Given
         Category uncategorizedCategory = new Category(testUser, "Uncategorized", true);
-        Habit habit1 = new Habit(testUser, customCategory, "Habit1", 5);
-        Habit habit2 = new Habit(testUser, customCategory, "Habit2", 3);
-        List<Habit> habits = Arrays.asList(habit1, habit2);
+        uncategorizedCategory.setId(UUID.randomUUID());
 
         when(categoryRepository.findByIdAndUser(customCategory.getId(), testUser))
             .thenReturn(Optional.of(customCategory));
-        when(habitRepository.findByCategory(customCategory)).thenReturn(habits);
         when(categoryRepository.findByUserAndIsDefaultTrue(testUser))
             .thenReturn(Arrays.asList(uncategorizedCategory));
-        when(habitRepository.save(any(Habit.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         // When
         categoryService.deleteCategory(testUser, customCategory.getId());
 
         // Then
-        verify(habitRepository, times(2)).save(any(Habit.class));
-        verify(categoryRepository).delete(customCategory);
-        assertEquals(uncategorizedCategory, habit1.getCategory());
-        assertEquals(uncategorizedCategory, habit2.getCategory());
+        verify(habitRepository).reassignHabitsToCategory(customCategory.getId(), uncategorizedCategory.getId());
+        verify(goalRepository).reassignGoalsToCategory(customCategory.getId(), uncategorizedCategory.getId());
+        verify(categoryRepository).deleteCategoryById(customCategory.getId());
+        verify(eventPublisher).publish(any(CategoryDeleted.class));
     }
 
     @Test
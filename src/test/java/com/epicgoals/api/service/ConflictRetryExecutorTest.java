@@ -0,0 +1,86 @@
+// ABOUT_ME: Unit tests for ConflictRetryExecutor retry behaviour
+// ABOUT_ME: Verifies conflicts are retried up to the limit and other failures propagate immediately
+package com.epicgoals.api.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ConflictRetryExecutorTest {
+
+    private ConflictRetryExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        executor = new ConflictRetryExecutor(transactionManager, 3, 0);
+    }
+
+    @Test
+    void execute_ShouldRetryOptimisticLockFailureUntilSuccess() {
+        // Given
+        AtomicInteger attempts = new AtomicInteger();
+
+        // When
+        String result = executor.execute(() -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new ObjectOptimisticLockingFailureException("WeeklyScore", "id");
+            }
+            return "done";
+        });
+
+        // Then
+        assertEquals("done", result);
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void execute_ShouldGiveUpAfterMaxAttempts() {
+        // Given
+        AtomicInteger attempts = new AtomicInteger();
+
+        // When & Then
+        assertThrows(DuplicateKeyException.class, () -> executor.execute(() -> {
+            attempts.incrementAndGet();
+            throw new DuplicateKeyException("duplicate key");
+        }));
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void execute_ShouldNotRetryIntegrityViolationsOtherThanDuplicateKeys() {
+        // Given
+        AtomicInteger attempts = new AtomicInteger();
+
+        // When & Then - a missing parent row fails the same way on every attempt
+        assertThrows(DataIntegrityViolationException.class, () -> executor.execute(() -> {
+            attempts.incrementAndGet();
+            throw new DataIntegrityViolationException("foreign key violation");
+        }));
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void execute_ShouldNotRetryOtherFailures() {
+        // Given
+        AtomicInteger attempts = new AtomicInteger();
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> executor.execute(() -> {
+            attempts.incrementAndGet();
+            throw new IllegalArgumentException("bad input");
+        }));
+        assertEquals(1, attempts.get());
+    }
+}
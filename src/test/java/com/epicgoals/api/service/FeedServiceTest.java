@@ -0,0 +1,112 @@
+// ABOUT_ME: Unit tests for FeedService deduplication, the fan-out limit and merging of read-time activities
+// ABOUT_ME: Mocks the feed and friendship repositories to check the write path without a database
+package com.epicgoals.api.service;
+
+import com.epicgoals.api.dto.FeedItemDto;
+import com.epicgoals.api.dto.FeedPageDto;
+import com.epicgoals.api.entity.FeedActivity;
+import com.epicgoals.api.entity.FeedActivityType;
+import com.epicgoals.api.entity.User;
+import com.epicgoals.api.repository.FeedActivityRepository;
+import com.epicgoals.api.repository.FeedItemRepository;
+import com.epicgoals.api.repository.FriendshipRepository;
+import com.epicgoals.api.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FeedServiceTest {
+
+    private static final long FAN_OUT_LIMIT = 2;
+
+    @Mock
+    private FeedActivityRepository feedActivityRepository;
+
+    @Mock
+    private FeedItemRepository feedItemRepository;
+
+    @Mock
+    private FriendshipRepository friendshipRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    private FeedService feedService;
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        feedService = new FeedService(feedActivityRepository, feedItemRepository, friendshipRepository,
+                userRepository, new ObjectMapper(), FAN_OUT_LIMIT);
+        testUser = new User("test@example.com", "hashedPassword");
+        testUser.setId(UUID.randomUUID());
+    }
+
+    @Test
+    void record_ShouldSkipDuplicateMilestone() {
+        // Given
+        when(feedActivityRepository.existsByActorIdAndDedupeKey(testUser.getId(), "goal:1")).thenReturn(true);
+
+        // When
+        boolean recorded = feedService.record(testUser.getId(), FeedActivityType.GOAL_COMPLETED, "goal:1", Map.of());
+
+        // Then
+        assertFalse(recorded);
+        verify(feedActivityRepository, never()).save(any());
+    }
+
+    @Test
+    void record_ShouldOnlyWriteActorTimelineAboveFanOutLimit() {
+        // Given
+        when(userRepository.findById(testUser.getId())).thenReturn(Optional.of(testUser));
+        when(friendshipRepository.countFriends(testUser.getId())).thenReturn(FAN_OUT_LIMIT + 1);
+        when(feedActivityRepository.save(any(FeedActivity.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        boolean recorded = feedService.record(testUser.getId(), FeedActivityType.GOAL_COMPLETED, "goal:1",
+                Map.of("goalName", "Run"));
+
+        // Then
+        assertTrue(recorded);
+        verify(feedActivityRepository).save(argThat(activity -> !activity.getFannedOut()));
+        verify(feedItemRepository).addToActorTimeline(eq(testUser.getId()), any());
+        verify(feedItemRepository, never()).fanOutToActorAndFriends(any(), any());
+    }
+
+    @Test
+    void getFeed_ShouldMergeReadTimeActivitiesByIdAndSetCursor() {
+        // Given
+        UUID friendId = UUID.randomUUID();
+        when(feedItemRepository.findTimeline(eq(testUser.getId()), eq(Long.MAX_VALUE), any()))
+                .thenReturn(List.of(item(9L, friendId), item(4L, friendId)));
+        when(feedActivityRepository.findUnfannedFromFriends(eq(testUser.getId()), anyLong(), any()))
+                .thenReturn(List.of(item(7L, friendId), item(2L, friendId)));
+
+        // When
+        FeedPageDto page = feedService.getFeed(testUser, null, 3);
+
+        // Then
+        assertEquals(List.of(9L, 7L, 4L), page.items().stream().map(FeedItemDto::id).toList());
+        assertEquals(4L, page.nextCursor());
+    }
+
+    private FeedItemDto item(Long id, UUID actorId) {
+        return new FeedItemDto(id, actorId, "friend@example.com", FeedActivityType.GOAL_COMPLETED, "{}", Instant.now());
+    }
+}
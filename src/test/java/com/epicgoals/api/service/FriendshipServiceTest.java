@@ -0,0 +1,105 @@
+// ABOUT_ME: Unit tests for FriendshipService request validation and friendship removal
+// ABOUT_ME: Mocks repositories and the leaderboard to check the rules without a database
+package com.epicgoals.api.service;
+
+import com.epicgoals.api.entity.Friendship;
+import com.epicgoals.api.entity.FriendshipStatus;
+import com.epicgoals.api.entity.User;
+import com.epicgoals.api.repository.FriendshipRepository;
+import com.epicgoals.api.repository.UserRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FriendshipServiceTest {
+
+    @Mock
+    private FriendshipRepository friendshipRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private LeaderboardService leaderboardService;
+
+    @Mock
+    private ScoreService scoreService;
+
+    @Mock
+    private FeedService feedService;
+
+    @InjectMocks
+    private FriendshipService friendshipService;
+
+    private User testUser;
+    private User otherUser;
+
+    @BeforeEach
+    void setUp() {
+        testUser = new User("test@example.com", "hashedPassword");
+        testUser.setId(UUID.randomUUID());
+        otherUser = new User("other@example.com", "hashedPassword");
+        otherUser.setId(UUID.randomUUID());
+    }
+
+    @Test
+    void sendRequest_ShouldRejectRequestToSelf() {
+        // Given
+        when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(testUser));
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () ->
+            friendshipService.sendRequest(testUser, "test@example.com")
+        );
+        verify(friendshipRepository, never()).save(any());
+    }
+
+    @Test
+    void sendRequest_ShouldRejectExistingFriend() {
+        // Given
+        when(userRepository.findByEmail("other@example.com")).thenReturn(Optional.of(otherUser));
+        when(friendshipRepository.findByUserIdAndFriendId(testUser.getId(), otherUser.getId()))
+            .thenReturn(Optional.of(new Friendship(testUser.getId(), otherUser.getId(), FriendshipStatus.ACCEPTED)));
+
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () ->
+            friendshipService.sendRequest(testUser, "other@example.com")
+        );
+        assertEquals("Already friends", exception.getMessage());
+    }
+
+    @Test
+    void sendRequest_ShouldThrowWhenUserUnknown() {
+        // Given
+        when(userRepository.findByEmail("nobody@example.com")).thenReturn(Optional.empty());
+
+        // When & Then
+        assertThrows(EntityNotFoundException.class, () ->
+            friendshipService.sendRequest(testUser, "nobody@example.com")
+        );
+    }
+
+    @Test
+    void removeFriend_ShouldThrowWhenNotFriends() {
+        // Given
+        when(friendshipRepository.deleteBetween(testUser.getId(), otherUser.getId())).thenReturn(0);
+
+        // When & Then
+        assertThrows(EntityNotFoundException.class, () ->
+            friendshipService.removeFriend(testUser, otherUser.getId())
+        );
+        verifyNoInteractions(leaderboardService);
+    }
+}
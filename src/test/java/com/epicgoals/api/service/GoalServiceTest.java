@@ -5,7 +5,9 @@ package com.epicgoals.api.service;
 import com.epicgoals.api.dto.GoalCreateRequest;
 import com.epicgoals.api.dto.GoalResponse;
 import com.epicgoals.api.dto.GoalUpdateRequest;
+import com.epicgoals.api.dto.GoalView;
 import com.epicgoals.api.entity.*;
+import com.epicgoals.api.event.DomainEventPublisher;
 import com.epicgoals.api.repository.GoalRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.persistence.EntityNotFoundException;
@@ -38,6 +40,12 @@ class GoalServiceTest {
     @Mock
     private ObjectMapper objectMapper;
 
+    @Mock
+    private UserDataVersionService dataVersionService;
+
+    @Mock
+    private DomainEventPublisher eventPublisher;
+
     @InjectMocks
     private GoalService goalService;
 
@@ -59,14 +67,15 @@ class GoalServiceTest {
         testGoal.setCreatedAt(Instant.now());
         testGoal.setUpdatedAt(Instant.now());
 
-        goalService = new GoalService(goalRepository, categoryService, new ObjectMapper());
+        goalService = new GoalService(goalRepository, categoryService, new ObjectMapper(), dataVersionService,
+                eventPublisher);
     }
 
     @Test
     void getUserGoals_ShouldReturnUserGoals() {
         // Arrange
-        List<Goal> goals = Arrays.asList(testGoal);
-        when(goalRepository.findByUserAndIsActiveTrue(testUser)).thenReturn(goals);
+        List<GoalView> goals = Arrays.asList(toView(testGoal));
+        when(goalRepository.findActiveGoalViewsByUser(testUser)).thenReturn(goals);
 
         // Act
         List<GoalResponse> result = goalService.getUserGoals(testUser);
@@ -74,14 +83,15 @@ class GoalServiceTest {
         // Assert
         assertEquals(1, result.size());
         assertEquals(testGoal.getName(), result.get(0).name());
-        verify(goalRepository).findByUserAndIsActiveTrue(testUser);
+        assertEquals("Career", result.get(0).categoryName());
+        verify(goalRepository).findActiveGoalViewsByUser(testUser);
     }
 
     @Test
     void getUserGoalsByTimeframe_ShouldReturnFilteredGoals() {
         // Arrange
-        List<Goal> goals = Arrays.asList(testGoal);
-        when(goalRepository.findByUserAndTimeframeAndIsActiveTrue(testUser, GoalTimeframe.TWELVE_WEEK))
+        List<GoalView> goals = Arrays.asList(toView(testGoal));
+        when(goalRepository.findActiveGoalViewsByUserAndTimeframe(testUser, GoalTimeframe.TWELVE_WEEK))
                 .thenReturn(goals);
 
         // Act
@@ -90,15 +100,15 @@ class GoalServiceTest {
         // Assert
         assertEquals(1, result.size());
         assertEquals(GoalTimeframe.TWELVE_WEEK, result.get(0).timeframe());
-        verify(goalRepository).findByUserAndTimeframeAndIsActiveTrue(testUser, GoalTimeframe.TWELVE_WEEK);
+        verify(goalRepository).findActiveGoalViewsByUserAndTimeframe(testUser, GoalTimeframe.TWELVE_WEEK);
     }
 
     @Test
     void getChildGoals_ShouldReturnChildGoals() {
         // Arrange
         UUID parentGoalId = UUID.randomUUID();
-        List<Goal> childGoals = Arrays.asList(testGoal);
-        when(goalRepository.findByUserAndParentGoalIdAndIsActiveTrue(testUser, parentGoalId))
+        List<GoalView> childGoals = Arrays.asList(toView(testGoal));
+        when(goalRepository.findActiveGoalViewsByUserAndParent(testUser, parentGoalId))
                 .thenReturn(childGoals);
 
         // Act
@@ -106,7 +116,7 @@ class GoalServiceTest {
 
         // Assert
         assertEquals(1, result.size());
-        verify(goalRepository).findByUserAndParentGoalIdAndIsActiveTrue(testUser, parentGoalId);
+        verify(goalRepository).findActiveGoalViewsByUserAndParent(testUser, parentGoalId);
     }
 
     @Test
@@ -215,6 +225,46 @@ class GoalServiceTest {
         verify(goalRepository).save(testGoal);
     }
 
+    @Test
+    void updateGoal_WithNewerClientTimestamp_ShouldApplyAndRecordIt() {
+        // Arrange
+        Instant syncedAt = Instant.parse("2024-01-01T12:00:00Z");
+        testGoal.setClientUpdatedAt(syncedAt.minusSeconds(60));
+        GoalUpdateRequest request = new GoalUpdateRequest(
+                "Synced Name", null, null, null, null, null, syncedAt);
+
+        when(goalRepository.findByUserAndIdAndIsActiveTrue(testUser, testGoal.getId()))
+                .thenReturn(Optional.of(testGoal));
+        when(goalRepository.save(testGoal)).thenReturn(testGoal);
+
+        // Act
+        goalService.updateGoal(testUser, testGoal.getId(), request);
+
+        // Assert
+        assertEquals("Synced Name", testGoal.getName());
+        assertEquals(syncedAt, testGoal.getClientUpdatedAt());
+    }
+
+    @Test
+    void updateGoal_WithOlderClientTimestamp_ShouldKeepStoredValues() {
+        // Arrange
+        Instant syncedAt = Instant.parse("2024-01-01T12:00:00Z");
+        testGoal.setClientUpdatedAt(syncedAt);
+        String originalName = testGoal.getName();
+        GoalUpdateRequest request = new GoalUpdateRequest(
+                "Stale Name", null, null, null, null, null, syncedAt.minusSeconds(60));
+
+        when(goalRepository.findByUserAndIdAndIsActiveTrue(testUser, testGoal.getId()))
+                .thenReturn(Optional.of(testGoal));
+
+        // Act
+        GoalResponse result = goalService.updateGoal(testUser, testGoal.getId(), request);
+
+        // Assert
+        assertEquals(originalName, result.name());
+        verify(goalRepository, never()).save(any(Goal.class));
+    }
+
     @Test
     void updateGoal_NonExistentGoal_ShouldThrowException() {
         // Arrange
@@ -334,4 +384,11 @@ class GoalServiceTest {
 
         verify(goalRepository, never()).save(any(Goal.class));
     }
-}
\ No newline at end of file
+
+    private GoalView toView(Goal goal) {
+        return new GoalView(goal.getId(), goal.getTimeframe(), goal.getType(), goal.getName(),
+                goal.getDescription(), goal.getTargetValue(), goal.getCurrentValue(),
+                goal.getCategory().getId(), goal.getCategory().getName(), goal.getParentGoalId(),
+                goal.getIsActive(), goal.getCreatedAt(), goal.getUpdatedAt());
+    }
+}
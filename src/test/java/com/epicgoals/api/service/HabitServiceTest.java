@@ -9,9 +9,13 @@ import com.epicgoals.api.dto.UpdateHabitRequest;
 import com.epicgoals.api.entity.Category;
 import com.epicgoals.api.entity.Habit;
 import com.epicgoals.api.entity.HabitCompletion;
+import com.epicgoals.api.entity.HabitVersion;
 import com.epicgoals.api.entity.User;
+import com.epicgoals.api.event.DomainEventPublisher;
+import com.epicgoals.api.event.HabitCompletionToggled;
 import com.epicgoals.api.repository.HabitCompletionRepository;
 import com.epicgoals.api.repository.HabitRepository;
+import com.epicgoals.api.repository.HabitVersionRepository;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -20,14 +24,18 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -45,6 +53,27 @@ class HabitServiceTest {
     @Mock
     private ScoreService scoreService;
 
+    @Mock
+    private UserDataVersionService dataVersionService;
+
+    @Mock
+    private StreakService streakService;
+
+    @Mock
+    private HeatmapService heatmapService;
+
+    @Mock
+    private DomainEventPublisher eventPublisher;
+
+    @Mock
+    private HabitVersionRepository habitVersionRepository;
+
+    @Mock
+    private UserSettingsService userSettingsService;
+
+    @Mock
+    private IdempotencyService idempotencyService;
+
     @InjectMocks
     private HabitService habitService;
 
@@ -62,13 +91,16 @@ class HabitServiceTest {
         
         testHabit = new Habit(testUser, testCategory, "Exercise", 5);
         testHabit.setId(UUID.randomUUID());
+        
+        lenient().when(userSettingsService.today(testUser)).thenReturn(LocalDate.now());
     }
 
     @Test
     void getUserHabits_ShouldReturnAllActiveUserHabits() {
         // Given
-        List<Habit> habits = Arrays.asList(testHabit);
-        when(habitRepository.findByUserAndIsActiveTrueOrderByName(testUser)).thenReturn(habits);
+        List<HabitDto> habits = Arrays.asList(new HabitDto(testHabit.getId(), "Exercise", 5, true,
+                testCategory.getId(), "Health", null, null));
+        when(habitRepository.findActiveHabitDtosByUser(testUser)).thenReturn(habits);
 
         // When
         List<HabitDto> result = habitService.getUserHabits(testUser);
@@ -135,6 +167,43 @@ class HabitServiceTest {
         verify(habitRepository).save(testHabit);
     }
 
+    @Test
+    void updateHabit_WithNewFrequency_ShouldKeepPreviousDefinition() {
+        // Given - the habit has been 5 times a week since last month
+        LocalDate today = LocalDate.now();
+        testHabit.setEffectiveFrom(today.minusMonths(1));
+        UpdateHabitRequest request = new UpdateHabitRequest("Exercise", testCategory.getId(), 3, true);
+        when(habitRepository.findByIdAndUser(testHabit.getId(), testUser)).thenReturn(Optional.of(testHabit));
+        when(categoryService.getCategoryByIdAndUser(testCategory.getId(), testUser)).thenReturn(testCategory);
+        when(habitRepository.save(any(Habit.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        habitService.updateHabit(testUser, testHabit.getId(), request);
+
+        // Then
+        verify(habitVersionRepository).save(argThat((HabitVersion version) ->
+            version.getFrequency() == 5 &&
+            version.getEffectiveFrom().equals(today.minusMonths(1)) &&
+            version.getEffectiveTo().equals(today)));
+        assertEquals(today, testHabit.getEffectiveFrom());
+    }
+
+    @Test
+    void updateHabit_WithRenameOnly_ShouldNotVersionDefinition() {
+        // Given
+        testHabit.setEffectiveFrom(LocalDate.now().minusMonths(1));
+        UpdateHabitRequest request = new UpdateHabitRequest("Morning exercise", testCategory.getId(), 5, true);
+        when(habitRepository.findByIdAndUser(testHabit.getId(), testUser)).thenReturn(Optional.of(testHabit));
+        when(categoryService.getCategoryByIdAndUser(testCategory.getId(), testUser)).thenReturn(testCategory);
+        when(habitRepository.save(any(Habit.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        habitService.updateHabit(testUser, testHabit.getId(), request);
+
+        // Then
+        verifyNoInteractions(habitVersionRepository);
+    }
+
     @Test
     void updateHabit_ShouldThrowExceptionWhenHabitNotFound() {
         // Given
@@ -150,7 +219,7 @@ class HabitServiceTest {
     }
 
     @Test
-    void deleteHabit_ShouldDeleteHabitAndCompletions() {
+    void deleteHabit_ShouldOnlyTombstoneHabit() {
         // Given
         when(habitRepository.findByIdAndUser(testHabit.getId(), testUser))
             .thenReturn(Optional.of(testHabit));
@@ -159,8 +228,11 @@ class HabitServiceTest {
         habitService.deleteHabit(testUser, testHabit.getId());
 
         // Then
-        verify(habitCompletionRepository).deleteByHabit(testHabit);
-        verify(habitRepository).delete(testHabit);
+        assertNotNull(testHabit.getDeletedAt());
+        assertFalse(testHabit.getIsActive());
+        verify(habitRepository).save(testHabit);
+        verify(habitRepository, never()).delete(any(Habit.class));
+        verifyNoInteractions(habitCompletionRepository);
     }
 
     @Test
@@ -193,19 +265,31 @@ class HabitServiceTest {
     }
 
     @Test
-    void toggleHabitCompletion_ShouldCreateNewCompletionWhenNotExists() {
-        // Given
-        LocalDate date = LocalDate.of(2024, 1, 1);
+    void updateHabit_ShouldIgnoreStaleClientWrite() {
+        // Given - the stored habit was last synced from a device at 12:00
+        testHabit.setClientUpdatedAt(Instant.parse("2024-01-01T12:00:00Z"));
+        UpdateHabitRequest request = new UpdateHabitRequest("Renamed offline", testCategory.getId(), 3, true);
+        request.setClientUpdatedAt(Instant.parse("2024-01-01T11:00:00Z"));
         when(habitRepository.findByIdAndUser(testHabit.getId(), testUser))
             .thenReturn(Optional.of(testHabit));
-        when(habitCompletionRepository.findByHabitAndDate(testHabit, date))
-            .thenReturn(Optional.empty());
-        when(habitCompletionRepository.save(any(HabitCompletion.class)))
-            .thenAnswer(invocation -> {
-                HabitCompletion completion = invocation.getArgument(0);
-                completion.setId(UUID.randomUUID());
-                return completion;
-            });
+
+        // When
+        HabitDto result = habitService.updateHabit(testUser, testHabit.getId(), request);
+
+        // Then - the later write wins, nothing is saved
+        assertEquals("Exercise", result.getName());
+        assertEquals(5, result.getFrequency());
+        verify(habitRepository, never()).save(any(Habit.class));
+        verify(dataVersionService, never()).markChanged(any());
+    }
+
+    @Test
+    void toggleHabitCompletion_ShouldReturnUpsertedCompletion() {
+        // Given
+        LocalDate date = LocalDate.of(2024, 1, 1);
+        HabitCompletionDto upserted = new HabitCompletionDto(UUID.randomUUID(), testHabit.getId(), date, true, null, null);
+        when(habitCompletionRepository.toggleCompletion(testUser.getId(), testHabit.getId(), date))
+            .thenReturn(Optional.of(upserted));
 
         // When
         HabitCompletionDto result = habitService.toggleHabitCompletion(testUser, testHabit.getId(), date);
@@ -214,32 +298,61 @@ class HabitServiceTest {
         assertEquals(testHabit.getId(), result.getHabitId());
         assertEquals(date, result.getDate());
         assertTrue(result.getCompleted());
-        verify(habitCompletionRepository).save(any(HabitCompletion.class));
+        verify(eventPublisher).publish(new HabitCompletionToggled(testUser.getId(), testHabit.getId(), date, true));
+        verify(scoreService).evictCurrentWeek(testUser);
+        verify(dataVersionService).markChanged(testUser.getId());
+        verify(habitCompletionRepository, never()).save(any(HabitCompletion.class));
     }
 
     @Test
-    void toggleHabitCompletion_ShouldToggleExistingCompletion() {
+    void toggleHabitCompletion_ShouldThrowExceptionWhenHabitNotOwned() {
         // Given
         LocalDate date = LocalDate.of(2024, 1, 1);
-        HabitCompletion existingCompletion = new HabitCompletion(testHabit, date, true);
-        existingCompletion.setId(UUID.randomUUID());
-        
-        when(habitRepository.findByIdAndUser(testHabit.getId(), testUser))
-            .thenReturn(Optional.of(testHabit));
-        when(habitCompletionRepository.findByHabitAndDate(testHabit, date))
-            .thenReturn(Optional.of(existingCompletion));
-        when(habitCompletionRepository.save(any(HabitCompletion.class)))
-            .thenAnswer(invocation -> invocation.getArgument(0));
+        UUID habitId = UUID.randomUUID();
+        when(habitCompletionRepository.toggleCompletion(testUser.getId(), habitId, date))
+            .thenReturn(Optional.empty());
+
+        // When & Then
+        EntityNotFoundException exception = assertThrows(EntityNotFoundException.class, () ->
+            habitService.toggleHabitCompletion(testUser, habitId, date)
+        );
+        assertEquals("Habit not found", exception.getMessage());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void setHabitCompletion_ShouldApplyTheWriteUnderTheIdempotencyKey() {
+        // Given
+        LocalDate date = LocalDate.of(2024, 1, 1);
+        HabitCompletionDto stored = new HabitCompletionDto(UUID.randomUUID(), testHabit.getId(), date, false, null, null);
+        when(idempotencyService.execute(eq(testUser.getId()), eq("key-1"), any(Record.class), eq(HabitCompletionDto.class), any()))
+            .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(4).get());
+        when(habitCompletionRepository.setCompletion(testUser.getId(), testHabit.getId(), date, false))
+            .thenReturn(Optional.of(stored));
 
         // When
-        HabitCompletionDto result = habitService.toggleHabitCompletion(testUser, testHabit.getId(), date);
+        HabitCompletionDto result = habitService.setHabitCompletion(testUser, testHabit.getId(), date, false, "key-1");
 
         // Then
-        assertEquals(testHabit.getId(), result.getHabitId());
-        assertEquals(date, result.getDate());
-        assertFalse(result.getCompleted()); // Should be toggled to false
-        verify(habitCompletionRepository).save(existingCompletion);
-        assertFalse(existingCompletion.getCompleted());
+        assertFalse(result.getCompleted());
+        verify(scoreService).evictCurrentWeek(testUser);
+        verify(eventPublisher).publish(any(HabitCompletionToggled.class));
+    }
+
+    @Test
+    void setHabitCompletion_ReplayedKey_ShouldReturnStoredResultWithoutWriting() {
+        // Given
+        LocalDate date = LocalDate.of(2024, 1, 1);
+        HabitCompletionDto stored = new HabitCompletionDto(UUID.randomUUID(), testHabit.getId(), date, true, null, null);
+        when(idempotencyService.execute(eq(testUser.getId()), eq("key-1"), any(Record.class), eq(HabitCompletionDto.class), any()))
+            .thenReturn(stored);
+
+        // When
+        HabitCompletionDto result = habitService.setHabitCompletion(testUser, testHabit.getId(), date, false, "key-1");
+
+        // Then
+        assertSame(stored, result);
+        verifyNoInteractions(habitCompletionRepository, eventPublisher, scoreService, dataVersionService);
     }
 
     @Test
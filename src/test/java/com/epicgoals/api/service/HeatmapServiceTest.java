@@ -0,0 +1,45 @@
+// ABOUT_ME: Unit tests for the weekday opportunity arithmetic behind HeatmapService
+// ABOUT_ME: Verifies weekday counts over date ranges without iterating day by day
+package com.epicgoals.api.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeatmapServiceTest {
+
+    @Test
+    void countWeekdays_ShouldCountEachOccurrenceInRange() {
+        // Given - Monday 2024-01-01 through Sunday 2024-01-14 holds two of every weekday
+        LocalDate from = LocalDate.of(2024, 1, 1);
+        LocalDate to = LocalDate.of(2024, 1, 14);
+
+        // Then
+        for (DayOfWeek day : DayOfWeek.values()) {
+            assertEquals(2, HeatmapService.countWeekdays(from, to, day), day.name());
+        }
+    }
+
+    @Test
+    void countWeekdays_ShouldHandlePartialWeeks() {
+        // Wednesday 2024-01-03 through Monday 2024-01-08
+        LocalDate from = LocalDate.of(2024, 1, 3);
+        LocalDate to = LocalDate.of(2024, 1, 8);
+
+        assertEquals(1, HeatmapService.countWeekdays(from, to, DayOfWeek.MONDAY));
+        assertEquals(0, HeatmapService.countWeekdays(from, to, DayOfWeek.TUESDAY));
+        assertEquals(1, HeatmapService.countWeekdays(from, to, DayOfWeek.WEDNESDAY));
+    }
+
+    @Test
+    void countWeekdays_WithSingleDayOrEmptyRange() {
+        LocalDate day = LocalDate.of(2024, 1, 3);
+
+        assertEquals(1, HeatmapService.countWeekdays(day, day, DayOfWeek.WEDNESDAY));
+        assertEquals(0, HeatmapService.countWeekdays(day, day, DayOfWeek.THURSDAY));
+        assertEquals(0, HeatmapService.countWeekdays(day, day.minusDays(1), DayOfWeek.WEDNESDAY));
+    }
+}
@@ -0,0 +1,117 @@
+// ABOUT_ME: Unit tests for RefreshTokenService rotation, reuse detection and logout-everywhere
+// ABOUT_ME: Uses a real revocation registry with a mocked repository to check which checks reach the database
+package com.epicgoals.api.service;
+
+import com.epicgoals.api.dto.FamilyRevocation;
+import com.epicgoals.api.entity.RefreshToken;
+import com.epicgoals.api.repository.RefreshTokenRepository;
+import com.epicgoals.api.security.JwtService;
+import com.epicgoals.api.security.TokenRevocationRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.BadCredentialsException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenServiceTest {
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    private TokenRevocationRegistry revocationRegistry;
+    private RefreshTokenService refreshTokenService;
+
+    private final UUID userId = UUID.randomUUID();
+    private final UUID familyId = UUID.randomUUID();
+    private final UUID tokenId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        revocationRegistry = new TokenRevocationRegistry(24);
+        JwtService jwtService = new JwtService("testSecretKey1234567890123456789012345678901234567890", 24, 30);
+        refreshTokenService = new RefreshTokenService(refreshTokenRepository, revocationRegistry, jwtService);
+    }
+
+    @Test
+    void rotate_ShouldIssueSuccessorInSameFamily() {
+        // Given
+        when(refreshTokenRepository.markUsed(eq(tokenId), any(Instant.class))).thenReturn(1);
+        when(refreshTokenRepository.save(any(RefreshToken.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        RefreshToken rotated = refreshTokenService.rotate(tokenId, familyId, userId);
+
+        // Then
+        assertEquals(familyId, rotated.getFamilyId());
+        assertEquals(userId, rotated.getUserId());
+        assertTrue(rotated.getExpiresAt().isAfter(Instant.now()));
+        assertFalse(revocationRegistry.isRevoked(familyId));
+    }
+
+    @Test
+    void rotate_WithReusedToken_ShouldRevokeFamily() {
+        // Given - the token was already rotated once
+        when(refreshTokenRepository.markUsed(eq(tokenId), any(Instant.class))).thenReturn(0);
+
+        // When / Then
+        assertThrows(BadCredentialsException.class, () -> refreshTokenService.rotate(tokenId, familyId, userId));
+        verify(refreshTokenRepository).revokeFamily(eq(familyId), any(Instant.class));
+        verify(refreshTokenRepository, never()).save(any(RefreshToken.class));
+        assertTrue(revocationRegistry.isRevoked(familyId));
+    }
+
+    @Test
+    void rotate_WithRevokedFamily_ShouldRejectWithoutDatabase() {
+        // Given
+        revocationRegistry.revoke(familyId, Instant.now());
+
+        // When / Then
+        assertThrows(BadCredentialsException.class, () -> refreshTokenService.rotate(tokenId, familyId, userId));
+        verifyNoInteractions(refreshTokenRepository);
+    }
+
+    @Test
+    void revokeAllForUser_ShouldRevokeEveryLiveFamily() {
+        // Given
+        UUID otherFamily = UUID.randomUUID();
+        when(refreshTokenRepository.findLiveFamilyIds(eq(userId), any(Instant.class)))
+                .thenReturn(List.of(familyId, otherFamily));
+
+        // When
+        int revoked = refreshTokenService.revokeAllForUser(userId);
+
+        // Then
+        assertEquals(2, revoked);
+        verify(refreshTokenRepository).revokeAllForUser(eq(userId), any(Instant.class));
+        assertTrue(revocationRegistry.isRevoked(familyId));
+        assertTrue(revocationRegistry.isRevoked(otherFamily));
+    }
+
+    @Test
+    void syncRevocations_ShouldExpireEntriesWhenTheRevokingInstanceDoes() {
+        // Given - another instance revoked the family almost an access token lifetime ago
+        Instant revokedAt = Instant.now().minus(Duration.ofHours(24)).plus(Duration.ofMinutes(1));
+        when(refreshTokenRepository.findFamiliesRevokedSince(any(Instant.class)))
+                .thenReturn(List.of(new FamilyRevocation(familyId, revokedAt)));
+
+        // When
+        assertEquals(1, refreshTokenService.syncRevocations());
+
+        // Then - revoked now, and gone once every access token issued before the revocation has expired
+        assertTrue(revocationRegistry.isRevoked(familyId));
+        revocationRegistry.prune(Instant.now().plus(Duration.ofMinutes(2)));
+        assertFalse(revocationRegistry.isRevoked(familyId));
+    }
+}
@@ -2,10 +2,14 @@
 // ABOUT_ME: Tests weekly score calculation, caching, and historical data preservation
 package com.epicgoals.api.service;
 
+import com.epicgoals.api.dto.CompletionDay;
+import com.epicgoals.api.dto.HabitDefinition;
 import com.epicgoals.api.dto.WeeklyScoreDto;
 import com.epicgoals.api.entity.*;
+import com.epicgoals.api.realtime.LiveEventPublisher;
 import com.epicgoals.api.repository.HabitCompletionRepository;
 import com.epicgoals.api.repository.HabitRepository;
+import com.epicgoals.api.repository.HabitVersionRepository;
 import com.epicgoals.api.repository.WeeklyScoreRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -17,10 +21,10 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -33,12 +37,27 @@ class ScoreServiceTest {
     @Mock
     private WeeklyScoreRepository weeklyScoreRepository;
 
+    @Mock
+    private TrendService trendService;
+
+    @Mock
+    private LeaderboardService leaderboardService;
+
+    @Mock
+    private LiveEventPublisher liveEventPublisher;
+
     @Mock
     private HabitRepository habitRepository;
 
     @Mock
     private HabitCompletionRepository habitCompletionRepository;
 
+    @Mock
+    private HabitVersionRepository habitVersionRepository;
+
+    @Mock
+    private UserSettingsService userSettingsService;
+
     @InjectMocks
     private ScoreService scoreService;
 
@@ -64,19 +83,14 @@ class ScoreServiceTest {
         
         // Get Monday of current week
         currentWeekStart = LocalDate.now().with(DayOfWeek.MONDAY);
+        lenient().when(userSettingsService.today(testUser)).thenReturn(LocalDate.now());
     }
 
     @Test
     void getCurrentWeekScore_WithNoHabits_ShouldReturnZeroScore() {
         // Given
-        when(habitRepository.findByUserAndIsActiveTrueOrderByName(testUser))
-            .thenReturn(Collections.emptyList());
-        when(weeklyScoreRepository.save(any(WeeklyScore.class)))
-            .thenAnswer(invocation -> {
-                WeeklyScore score = invocation.getArgument(0);
-                score.setId(UUID.randomUUID());
-                return score;
-            });
+        stubDefinitions();
+        stubUpsert();
 
         // When
         WeeklyScoreDto result = scoreService.getCurrentWeekScore(testUser);
@@ -91,36 +105,12 @@ class ScoreServiceTest {
     @Test
     void getCurrentWeekScore_WithHabitsAndCompletions_ShouldCalculateCorrectScore() {
         // Given
-        List<Habit> habits = Arrays.asList(habit1, habit2);
-        when(habitRepository.findByUserAndIsActiveTrueOrderByName(testUser))
-            .thenReturn(habits);
-
-        // Create completions: habit1 completed 3/5 times, habit2 completed 6/7 times
-        List<HabitCompletion> completions = Arrays.asList(
-            new HabitCompletion(habit1, currentWeekStart, true),
-            new HabitCompletion(habit1, currentWeekStart.plusDays(1), true),
-            new HabitCompletion(habit1, currentWeekStart.plusDays(2), true),
-            new HabitCompletion(habit2, currentWeekStart, true),
-            new HabitCompletion(habit2, currentWeekStart.plusDays(1), true),
-            new HabitCompletion(habit2, currentWeekStart.plusDays(2), true),
-            new HabitCompletion(habit2, currentWeekStart.plusDays(3), true),
-            new HabitCompletion(habit2, currentWeekStart.plusDays(4), true),
-            new HabitCompletion(habit2, currentWeekStart.plusDays(5), true)
-        );
-        
-        when(habitCompletionRepository.findByHabitInAndDateBetween(
-            eq(habits), eq(currentWeekStart), eq(currentWeekStart.plusDays(6))))
-            .thenReturn(completions);
+        stubDefinitions(definition(habit1), definition(habit2));
 
-        when(weeklyScoreRepository.save(any(WeeklyScore.class)))
-            .thenAnswer(invocation -> {
-                WeeklyScore score = invocation.getArgument(0);
-                score.setId(UUID.randomUUID());
-                return score;
-            });
+        // Completion counts: habit1 completed 3/5 times, habit2 completed 6/7 times
+        stubCompletions(completedDays(habit1, currentWeekStart, 3), completedDays(habit2, currentWeekStart, 6));
 
-        when(weeklyScoreRepository.findByUserAndWeekStartDate(testUser, currentWeekStart))
-            .thenReturn(Optional.empty());
+        stubUpsert();
 
         // When
         WeeklyScoreDto result = scoreService.getCurrentWeekScore(testUser);
@@ -152,7 +142,7 @@ class ScoreServiceTest {
         assertEquals(currentWeekStart, result.getWeekStartDate());
         
         // Verify no new calculation was triggered
-        verify(habitRepository, never()).findByUserAndIsActiveTrueOrderByName(testUser);
+        verify(habitRepository, never()).findActiveDefinitionsFrom(any(), any());
     }
 
     @Test
@@ -187,32 +177,12 @@ class ScoreServiceTest {
     @Test
     void calculateScore_WithPerfectCompletion_ShouldReturn100() {
         // Given
-        List<Habit> habits = Arrays.asList(habit1); // 5 times per week
-        when(habitRepository.findByUserAndIsActiveTrueOrderByName(testUser))
-            .thenReturn(habits);
+        stubDefinitions(definition(habit1)); // 5 times per week
 
         // Perfect completion: 5/5 times
-        List<HabitCompletion> completions = Arrays.asList(
-            new HabitCompletion(habit1, currentWeekStart, true),
-            new HabitCompletion(habit1, currentWeekStart.plusDays(1), true),
-            new HabitCompletion(habit1, currentWeekStart.plusDays(2), true),
-            new HabitCompletion(habit1, currentWeekStart.plusDays(3), true),
-            new HabitCompletion(habit1, currentWeekStart.plusDays(4), true)
-        );
-        
-        when(habitCompletionRepository.findByHabitInAndDateBetween(
-            eq(habits), eq(currentWeekStart), eq(currentWeekStart.plusDays(6))))
-            .thenReturn(completions);
-
-        when(weeklyScoreRepository.save(any(WeeklyScore.class)))
-            .thenAnswer(invocation -> {
-                WeeklyScore score = invocation.getArgument(0);
-                score.setId(UUID.randomUUID());
-                return score;
-            });
+        stubCompletions(completedDays(habit1, currentWeekStart, 5));
 
-        when(weeklyScoreRepository.findByUserAndWeekStartDate(testUser, currentWeekStart))
-            .thenReturn(Optional.empty());
+        stubUpsert();
 
         // When
         WeeklyScoreDto result = scoreService.getCurrentWeekScore(testUser);
@@ -226,24 +196,12 @@ class ScoreServiceTest {
     @Test
     void calculateScore_WithNoCompletions_ShouldReturnZero() {
         // Given
-        List<Habit> habits = Arrays.asList(habit1, habit2);
-        when(habitRepository.findByUserAndIsActiveTrueOrderByName(testUser))
-            .thenReturn(habits);
+        stubDefinitions(definition(habit1), definition(habit2));
 
         // No completions
-        when(habitCompletionRepository.findByHabitInAndDateBetween(
-            eq(habits), eq(currentWeekStart), eq(currentWeekStart.plusDays(6))))
-            .thenReturn(Collections.emptyList());
-
-        when(weeklyScoreRepository.save(any(WeeklyScore.class)))
-            .thenAnswer(invocation -> {
-                WeeklyScore score = invocation.getArgument(0);
-                score.setId(UUID.randomUUID());
-                return score;
-            });
+        stubCompletions();
 
-        when(weeklyScoreRepository.findByUserAndWeekStartDate(testUser, currentWeekStart))
-            .thenReturn(Optional.empty());
+        stubUpsert();
 
         // When
         WeeklyScoreDto result = scoreService.getCurrentWeekScore(testUser);
@@ -257,40 +215,19 @@ class ScoreServiceTest {
     @Test
     void recalculateCurrentWeek_ShouldUpdateExistingScore() {
         // Given
-        List<Habit> habits = Arrays.asList(habit1);
-        when(habitRepository.findByUserAndIsActiveTrueOrderByName(testUser))
-            .thenReturn(habits);
-
-        WeeklyScore existingScore = new WeeklyScore(testUser, currentWeekStart, 60, 3, 5);
-        existingScore.setId(UUID.randomUUID());
-        
-        when(weeklyScoreRepository.findByUserAndWeekStartDate(testUser, currentWeekStart))
-            .thenReturn(Optional.of(existingScore));
+        stubDefinitions(definition(habit1));
 
         // New completions show improved performance
-        List<HabitCompletion> newCompletions = Arrays.asList(
-            new HabitCompletion(habit1, currentWeekStart, true),
-            new HabitCompletion(habit1, currentWeekStart.plusDays(1), true),
-            new HabitCompletion(habit1, currentWeekStart.plusDays(2), true),
-            new HabitCompletion(habit1, currentWeekStart.plusDays(3), true) // 4/5 now
-        );
-        
-        when(habitCompletionRepository.findByHabitInAndDateBetween(
-            eq(habits), eq(currentWeekStart), eq(currentWeekStart.plusDays(6))))
-            .thenReturn(newCompletions);
+        stubCompletions(completedDays(habit1, currentWeekStart, 4)); // 4/5 now
 
-        when(weeklyScoreRepository.save(any(WeeklyScore.class)))
-            .thenAnswer(invocation -> invocation.getArgument(0));
+        stubUpsert();
 
         // When
         scoreService.recalculateCurrentWeek(testUser);
 
-        // Then
-        verify(weeklyScoreRepository).save(argThat(score -> 
-            score.getScore() == 80 && // 4/5 = 80%
-            score.getCompletedHabits() == 4 &&
-            score.getTotalHabits() == 5
-        ));
+        // Then: the existing snapshot is overwritten through the upsert, never a separate insert
+        verify(weeklyScoreRepository).upsertScore(testUser.getId(), currentWeekStart, 80, 4, 5); // 4/5 = 80%
+        verify(weeklyScoreRepository, never()).save(any(WeeklyScore.class));
     }
 
     @Test
@@ -299,23 +236,13 @@ class ScoreServiceTest {
         LocalDate wednesday = LocalDate.now().with(DayOfWeek.WEDNESDAY);
         LocalDate expectedMonday = wednesday.with(DayOfWeek.MONDAY);
 
-        List<Habit> habits = Arrays.asList(habit1);
-        when(habitRepository.findByUserAndIsActiveTrueOrderByName(testUser))
-            .thenReturn(habits);
-
-        when(habitCompletionRepository.findByHabitInAndDateBetween(
-            eq(habits), eq(expectedMonday), eq(expectedMonday.plusDays(6))))
-            .thenReturn(Collections.emptyList());
+        stubDefinitions(definition(habit1));
+        stubCompletions();
 
         when(weeklyScoreRepository.findByUserAndWeekStartDate(testUser, expectedMonday))
             .thenReturn(Optional.empty());
 
-        when(weeklyScoreRepository.save(any(WeeklyScore.class)))
-            .thenAnswer(invocation -> {
-                WeeklyScore score = invocation.getArgument(0);
-                score.setId(UUID.randomUUID());
-                return score;
-            });
+        stubUpsert();
 
         // When
         WeeklyScoreDto result = scoreService.getWeekScore(testUser, wednesday);
@@ -324,4 +251,116 @@ class ScoreServiceTest {
         assertEquals(expectedMonday, result.getWeekStartDate());
         verify(weeklyScoreRepository, atLeast(1)).findByUserAndWeekStartDate(testUser, expectedMonday);
     }
+
+    @Test
+    void getCurrentWeekStart_ShouldFollowUsersLocalDate() {
+        // Given - it is already Monday of next week where the user lives
+        LocalDate nextMonday = currentWeekStart.plusWeeks(1);
+        when(userSettingsService.today(testUser)).thenReturn(nextMonday);
+
+        // When
+        LocalDate weekStart = scoreService.getCurrentWeekStart(testUser);
+
+        // Then
+        assertEquals(nextMonday, weekStart);
+    }
+
+    @Test
+    void recalculateWeeks_ShouldScoreEachWeekWithTheDefinitionInEffectThen() {
+        // Given - habit1 was daily until last Monday, and 5 times a week since
+        LocalDate lastWeek = currentWeekStart.minusWeeks(1);
+        LocalDate twoWeeksAgo = currentWeekStart.minusWeeks(2);
+        stubDefinitions(new HabitDefinition(habit1.getId(), testCategory.getId(), 5, lastWeek));
+        when(habitVersionRepository.findActiveDefinitionsOverlapping(testUser.getId(), twoWeeksAgo.plusDays(6), lastWeek.plusDays(6)))
+            .thenReturn(List.of(new HabitDefinition(habit1.getId(), testCategory.getId(), 7, twoWeeksAgo.minusWeeks(4), lastWeek)));
+        stubCompletions(completedDays(habit1, twoWeeksAgo, 7), completedDays(habit1, lastWeek, 5));
+        stubUpsert();
+
+        // When
+        List<WeeklyScoreDto> result = scoreService.recalculateWeeks(testUser, twoWeeksAgo, lastWeek);
+
+        // Then - both weeks are complete under their own definition, from one read of completions
+        assertEquals(2, result.size());
+        verify(weeklyScoreRepository).upsertScore(testUser.getId(), twoWeeksAgo, 100, 7, 7);
+        verify(weeklyScoreRepository).upsertScore(testUser.getId(), lastWeek, 100, 5, 5);
+        verify(habitCompletionRepository, times(1)).findCompletedDaysBetween(any(), any(), any());
+    }
+
+    @Test
+    void getCurrentWeekScore_ShouldNotReadSupersededDefinitions() {
+        // Given
+        stubDefinitions(definition(habit1));
+        stubCompletions();
+        stubUpsert();
+
+        // When
+        scoreService.getCurrentWeekScore(testUser);
+
+        // Then - past definitions all end by today, so the current week never needs them
+        verifyNoInteractions(habitVersionRepository);
+    }
+
+    @Test
+    void getScoreSeries_ShouldFillMissingWeeksInOneBatch() {
+        // Given - four weeks with snapshots stored only for the oldest and last week
+        LocalDate oldest = currentWeekStart.minusWeeks(3);
+        LocalDate lastWeek = currentWeekStart.minusWeeks(1);
+        when(weeklyScoreRepository.findByUserAndWeekStartDateBetweenOrderByWeekStartDate(testUser, oldest, currentWeekStart))
+            .thenReturn(List.of(storedScore(oldest, 40), storedScore(lastWeek, 60)));
+        stubDefinitions(definition(habit1));
+        lenient().when(habitVersionRepository.findActiveDefinitionsOverlapping(any(), any(), any())).thenReturn(List.of());
+        stubCompletions(completedDays(habit1, oldest.plusWeeks(1), 5), completedDays(habit1, currentWeekStart, 1));
+        when(weeklyScoreRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        List<WeeklyScoreDto> result = scoreService.getScoreSeries(testUser, 4);
+
+        // Then - a dense series, newest first, with both gaps scored from one completions read and saved together
+        assertEquals(List.of(20, 60, 100, 40), result.stream().map(WeeklyScoreDto::getScore).toList());
+        verify(habitCompletionRepository, times(1)).findCompletedDaysBetween(any(), any(), any());
+        verify(weeklyScoreRepository, times(1)).saveAll(argThat(rows -> ((List<?>) rows).size() == 2));
+        verify(weeklyScoreRepository, never()).upsertScore(any(), any(), anyInt(), anyInt(), anyInt());
+        verify(trendService, times(1)).recordWeekScores(eq(testUser), argThat(weeks -> weeks.size() == 2));
+        verify(leaderboardService, times(1)).recordScore(eq(testUser.getId()), any());
+    }
+
+    private WeeklyScore storedScore(LocalDate weekStart, int score) {
+        WeeklyScore stored = new WeeklyScore(testUser, weekStart, score, 0, 0);
+        stored.setId(UUID.randomUUID());
+        return stored;
+    }
+
+    private HabitDefinition definition(Habit habit) {
+        return new HabitDefinition(habit.getId(), testCategory.getId(), habit.getFrequency(), currentWeekStart.minusWeeks(10));
+    }
+
+    private void stubDefinitions(HabitDefinition... definitions) {
+        when(habitRepository.findActiveDefinitionsFrom(eq(testUser.getId()), any(LocalDate.class)))
+            .thenReturn(Arrays.asList(definitions));
+    }
+
+    @SafeVarargs
+    private void stubCompletions(List<CompletionDay>... days) {
+        List<CompletionDay> all = Arrays.stream(days).flatMap(List::stream).toList();
+        lenient().when(habitCompletionRepository.findCompletedDaysBetween(any(), any(LocalDate.class), any(LocalDate.class)))
+            .thenReturn(all);
+    }
+
+    private List<CompletionDay> completedDays(Habit habit, LocalDate weekStart, int days) {
+        return IntStream.range(0, days)
+            .mapToObj(day -> new CompletionDay(habit.getId(), weekStart.plusDays(day)))
+            .toList();
+    }
+
+    private void stubUpsert() {
+        when(weeklyScoreRepository.upsertScore(any(UUID.class), any(LocalDate.class), anyInt(), anyInt(), anyInt()))
+            .thenAnswer(invocation -> new WeeklyScoreDto(
+                UUID.randomUUID(),
+                invocation.getArgument(1),
+                invocation.getArgument(2),
+                invocation.getArgument(3),
+                invocation.getArgument(4),
+                null
+            ));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,75 @@
+// ABOUT_ME: Unit tests for streak run construction used by StreakService rebuilds
+// ABOUT_ME: Verifies ordered completion dates collapse into maximal runs of consecutive days
+package com.epicgoals.api.service;
+
+import com.epicgoals.api.entity.HabitStreak;
+import com.epicgoals.api.entity.HabitStreakRun;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreakServiceTest {
+
+    private final UUID habitId = UUID.randomUUID();
+
+    @Test
+    void runBuilder_ShouldCollapseConsecutiveDaysIntoRuns() {
+        // Given
+        StreakService.RunBuilder builder = new StreakService.RunBuilder(habitId);
+        LocalDate start = LocalDate.of(2024, 1, 1);
+
+        // When
+        builder.add(start);
+        builder.add(start.plusDays(1));
+        builder.add(start.plusDays(2));
+        builder.add(start.plusDays(5));
+        builder.add(start.plusDays(7));
+        builder.add(start.plusDays(8));
+        List<HabitStreakRun> runs = builder.finish();
+
+        // Then
+        assertEquals(3, runs.size());
+        assertEquals(3, runs.get(0).getLength());
+        assertEquals(1, runs.get(1).getLength());
+        assertEquals(start.plusDays(7), runs.get(2).getStartDate());
+        assertEquals(start.plusDays(8), runs.get(2).getEndDate());
+    }
+
+    @Test
+    void runBuilder_ShouldIgnoreDuplicateDates() {
+        // Given
+        StreakService.RunBuilder builder = new StreakService.RunBuilder(habitId);
+        LocalDate day = LocalDate.of(2024, 1, 1);
+
+        // When
+        builder.add(day);
+        builder.add(day);
+        builder.add(day.plusDays(1));
+
+        // Then
+        List<HabitStreakRun> runs = builder.finish();
+        assertEquals(1, runs.size());
+        assertEquals(2, runs.get(0).getLength());
+    }
+
+    @Test
+    void runBuilder_WithNoDates_ShouldProduceNoRuns() {
+        assertTrue(new StreakService.RunBuilder(habitId).finish().isEmpty());
+    }
+
+    @Test
+    void currentStreak_ShouldLapseAfterAMissedDay() {
+        // Given - a run ending on January 10th
+        HabitStreak streak = new HabitStreak(habitId);
+        streak.setLastRun(new HabitStreakRun(habitId, LocalDate.of(2024, 1, 6), LocalDate.of(2024, 1, 10)));
+
+        // Then - alive on the 10th and 11th, gone from the 12th
+        assertEquals(5, streak.currentStreak(LocalDate.of(2024, 1, 10)));
+        assertEquals(5, streak.currentStreak(LocalDate.of(2024, 1, 11)));
+        assertEquals(0, streak.currentStreak(LocalDate.of(2024, 1, 12)));
+    }
+}
@@ -0,0 +1,62 @@
+// ABOUT_ME: Unit tests for the rolling window arithmetic behind TrendService
+// ABOUT_ME: Covers window sliding, gap handling, moving averages and least-squares slope
+package com.epicgoals.api.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrendServiceTest {
+
+    @Test
+    void slide_ShouldPadSkippedWeeksAndDropOldestBeyondCapacity() {
+        // Given
+        List<Integer> window = Arrays.asList(10, 20, 30);
+
+        // When
+        List<Integer> slid = TrendService.slide(window, 2, 4);
+
+        // Then
+        assertEquals(Arrays.asList(20, 30, null, null), slid);
+    }
+
+    @Test
+    void slide_ShouldNotGrowBeyondCapacityForLongGaps() {
+        List<Integer> slid = TrendService.slide(new ArrayList<>(List.of(50)), 1000, TrendService.SCORE_WINDOW_WEEKS);
+
+        assertEquals(TrendService.SCORE_WINDOW_WEEKS, slid.size());
+        assertTrue(slid.stream().allMatch(value -> value == null));
+    }
+
+    @Test
+    void average_ShouldIgnoreEmptyWeeks() {
+        assertEquals(70.0, TrendService.average(Arrays.asList(60, null, 80)));
+        assertNull(TrendService.average(Collections.nCopies(4, null)));
+    }
+
+    @Test
+    void tail_ShouldReturnMostRecentWeeks() {
+        assertEquals(Arrays.asList(3, 4), TrendService.tail(Arrays.asList(1, 2, 3, 4), 2));
+        assertEquals(Arrays.asList(1, 2), TrendService.tail(Arrays.asList(1, 2), 12));
+    }
+
+    @Test
+    void slope_ShouldMeasurePointsPerWeek() {
+        // Given - steady improvement of 5 points a week, with a skipped week
+        List<Integer> window = Arrays.asList(50, 55, null, 65, 70);
+
+        // Then
+        assertEquals(5.0, TrendService.slope(window));
+        assertEquals(-10.0, TrendService.slope(Arrays.asList(90, 80, 70)));
+    }
+
+    @Test
+    void slope_WithFewerThanTwoScores_ShouldBeNull() {
+        assertNull(TrendService.slope(Arrays.asList(null, 80, null)));
+    }
+}
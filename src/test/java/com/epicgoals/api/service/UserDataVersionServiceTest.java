@@ -0,0 +1,180 @@
+// ABOUT_ME: Unit tests for UserDataVersionService version lookups and ETag generation
+// ABOUT_ME: Verifies versions come from the user row, are bumped with the write and are re-read on every instance after it commits
+package com.epicgoals.api.service;
+
+import com.epicgoals.api.cache.BroadcastingCacheManager;
+import com.epicgoals.api.cache.CacheInvalidationBus;
+import com.epicgoals.api.cache.LocalCacheInvalidationTransport;
+import com.epicgoals.api.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserDataVersionServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final LocalCacheInvalidationTransport transport = new LocalCacheInvalidationTransport();
+    private final CacheInvalidationBus bus = new CacheInvalidationBus(new ConcurrentMapCacheManager(), transport);
+    private final UUID userId = UUID.randomUUID();
+
+    private UserDataVersionService dataVersionService;
+
+    @BeforeEach
+    void setUp() {
+        dataVersionService = instanceOn(bus);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    @Test
+    void etag_ShouldBeTheSameOnEveryInstanceForTheSameData() {
+        // Given
+        when(userRepository.findDataVersionById(userId)).thenReturn(Optional.of(7L));
+        UserDataVersionService otherInstance = instanceOn(new CacheInvalidationBus(new ConcurrentMapCacheManager(), transport));
+
+        // When / Then - a client's tag from one instance matches on the next, so it can get a 304 there
+        assertEquals("\"7-2024-01-01\"", dataVersionService.etag(userId, "2024-01-01"));
+        assertEquals(dataVersionService.etag(userId, "2024-01-01"), otherInstance.etag(userId, "2024-01-01"));
+    }
+
+    @Test
+    void currentVersion_ShouldReadTheUserRowOnceUntilItChanges() {
+        // Given
+        when(userRepository.findDataVersionById(userId)).thenReturn(Optional.of(3L));
+
+        // When
+        dataVersionService.currentVersion(userId);
+        long version = dataVersionService.currentVersion(userId);
+
+        // Then
+        assertEquals(3, version);
+        verify(userRepository, times(1)).findDataVersionById(userId);
+    }
+
+    @Test
+    void markChanged_InTransaction_ShouldBumpWithTheWriteAndDropWhatWasReadBeforeTheCommit() {
+        // Given
+        when(userRepository.findDataVersionById(userId))
+                .thenReturn(Optional.of(1L)).thenReturn(Optional.of(1L)).thenReturn(Optional.of(2L));
+        dataVersionService.currentVersion(userId);
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+
+        // When - a concurrent read reloads the committed version while the write is still open
+        dataVersionService.markChanged(userId);
+        assertEquals(1, dataVersionService.currentVersion(userId));
+
+        // Then - bumped in the caller's transaction; what was read meanwhile is dropped at commit
+        verify(userRepository).incrementDataVersion(userId);
+        verifyNoInteractions(transactionManager);
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertEquals(2, dataVersionService.currentVersion(userId));
+    }
+
+    @Test
+    void markChanged_InTransaction_ShouldRereadOnAnotherInstanceOnceCommittedAndFlushed() {
+        // Given - a version cached on a second instance
+        UserDataVersionService otherInstance = instanceOn(new CacheInvalidationBus(new ConcurrentMapCacheManager(), transport));
+        when(userRepository.findDataVersionById(userId)).thenReturn(Optional.of(1L)).thenReturn(Optional.of(2L));
+        assertEquals(1, otherInstance.currentVersion(userId));
+
+        // When - the write commits through a real transaction manager's synchronization lifecycle
+        new TransactionTemplate(new CommitOnlyTransactionManager())
+                .executeWithoutResult(status -> dataVersionService.markChanged(userId));
+        bus.flush();
+
+        // Then
+        assertEquals(2, otherInstance.currentVersion(userId));
+    }
+
+    @Test
+    void markChanged_OnAnotherInstance_ShouldRereadHereOnceFlushed() {
+        // Given - a second instance on the same invalidation channel, and a version cached here
+        CacheInvalidationBus otherBus = new CacheInvalidationBus(new ConcurrentMapCacheManager(), transport);
+        UserDataVersionService otherInstance = instanceOn(otherBus);
+        when(userRepository.findDataVersionById(userId)).thenReturn(Optional.of(1L)).thenReturn(Optional.of(2L));
+        String before = dataVersionService.etag(userId);
+
+        // When
+        otherInstance.markChanged(userId);
+        otherBus.flush();
+
+        // Then
+        assertEquals(2, dataVersionService.currentVersion(userId));
+        assertNotEquals(before, dataVersionService.etag(userId));
+    }
+
+    @Test
+    void missedInvalidations_ShouldRereadEveryVersion() {
+        // Given
+        when(userRepository.findDataVersionById(userId)).thenReturn(Optional.of(1L)).thenReturn(Optional.of(2L));
+        String before = dataVersionService.etag(userId);
+
+        // When
+        bus.onMissedMessages();
+
+        // Then
+        assertNotEquals(before, dataVersionService.etag(userId));
+    }
+
+    @Test
+    void currentVersion_ShouldBeZeroForAnUnknownUser() {
+        when(userRepository.findDataVersionById(userId)).thenReturn(Optional.empty());
+
+        assertEquals(0, dataVersionService.currentVersion(userId));
+    }
+
+    // Drives begin and commit, and the synchronizations around them, without a database
+    private static class CommitOnlyTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+
+    private UserDataVersionService instanceOn(CacheInvalidationBus instanceBus) {
+        return new UserDataVersionService(userRepository, transactionManager, new BroadcastingCacheManager(instanceBus));
+    }
+}